@@ -0,0 +1,63 @@
+package projet.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <b>Point d'entrée des mesures de performance.</b>
+ * <p>
+ * Accepte les mêmes options que JMH. Sauf indication contraire sur la ligne de
+ * commande, le profileur GC est activé pour mesurer le débit d'allocation, et
+ * les résultats sont enregistrés au format JSON dans le fichier
+ * jmh-result.json, afin de pouvoir comparer deux versions.
+ * </p>
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public final class LanceurBenchmarks {
+  /**
+   * Fichier de résultats par défaut.
+   */
+  private static final String RESULTATS = "jmh-result.json";
+
+  /**
+   * Constructeur de la classe.
+   * <p>
+   * Cette classe n'étant pas prévue pour être instanciée, ce constructeur a comme
+   * visibilité "privé".
+   * </p>
+   */
+  private LanceurBenchmarks() {
+  }
+
+  /**
+   * Lance les mesures.
+   * 
+   * @param args
+   *          les options de JMH
+   * 
+   * @throws Exception
+   *           quand les options sont invalides ou qu'une mesure échoue
+   */
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions ligne = new CommandLineOptions(args);
+    ChainedOptionsBuilder options = new OptionsBuilder().parent(ligne);
+
+    if (ligne.getProfilers().isEmpty()) {
+      options.addProfiler(GCProfiler.class);
+    }
+    if (!ligne.getResultFormat().hasValue()) {
+      options.resultFormat(ResultFormatType.JSON);
+    }
+    if (!ligne.getResult().hasValue()) {
+      options.result(RESULTATS);
+    }
+
+    new Runner(options.build()).run();
+  }
+}
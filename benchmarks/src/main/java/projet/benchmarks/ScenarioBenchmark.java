@@ -0,0 +1,89 @@
+package projet.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import projet.carte.ImageEntrees;
+import Scénario.ContexteScenario;
+import Scénario.EvenementScenario;
+
+/**
+ * <b>Mesure le coût d'évaluation du scénario de remplissage.</b>
+ * <p>
+ * Les entrées rejouées font passer le scénario par un cycle complet : mise en
+ * route, remplissage, pesée, sortie du contenant, défaut puis arrêt.
+ * </p>
+ * 
+ * @see ContexteScenario
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScenarioBenchmark {
+  /**
+   * Les entrées rejouées, sous forme compacte.
+   */
+  private static final long[] CYCLE = {
+      ImageEntrees.compacter(0x01, 0, 0, 0, 0),
+      ImageEntrees.compacter(0x03, 0, 0, 0, 0),
+      ImageEntrees.compacter(0x01, 120, 90, 0, 0),
+      ImageEntrees.compacter(0x01, 255, 180, 0, 0),
+      ImageEntrees.compacter(0x05, 0, 0, 0, 0),
+      ImageEntrees.compacter(0x09, 0, 0, 0, 0),
+      ImageEntrees.compacter(0x11, 0, 0, 0, 0),
+      ImageEntrees.compacter(0x11, 0, 0, 0, 0),
+      ImageEntrees.compacter(0x00, 0, 0, 0, 0) };
+  /**
+   * Les événements déclenchés un à un.
+   */
+  private static final EvenementScenario[] EVENEMENTS = EvenementScenario.values();
+  /**
+   * L'écart entre deux lectures rejouées, en nanosecondes.
+   */
+  private static final long PERIODE = 50000000L;
+  /**
+   * Le contexte du scénario évalué.
+   */
+  private final ContexteScenario contexte = new ContexteScenario();
+  /**
+   * Numéro de l'appel.
+   */
+  private int appel;
+
+  /**
+   * Évaluation d'une lecture des entrées et calcul de l'image des sorties.
+   * 
+   * @return l'image des sorties
+   */
+  @Benchmark
+  public int evaluer() {
+    contexte.evaluer(CYCLE[appel % CYCLE.length], appel++ * PERIODE);
+
+    return contexte.getImageSorties();
+  }
+
+  /**
+   * Une seule transition de la table.
+   * 
+   * @return l'état atteint
+   */
+  @Benchmark
+  public Object declencher() {
+    return contexte.declencher(EVENEMENTS[appel++ % EVENEMENTS.length]);
+  }
+}
@@ -0,0 +1,145 @@
+package projet.carte;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.libk8055.jk8055.JK8055Exception;
+
+/**
+ * <b>Mesure le coût d'ajout d'une écriture dans la file d'EcritureSorties.</b>
+ * <p>
+ * La tâche d'écriture tourne pendant la mesure avec le pilote factice. Le cas
+ * "contention" fait écrire trois producteurs pendant qu'une quatrième tâche lit
+ * les entrées en continu, comme le fait LectureEntrees.
+ * </p>
+ * <p>
+ * La tâche d'écriture ne pouvant être lancée qu'une fois, chaque mesure doit
+ * avoir lieu dans sa propre JVM (au moins un fork).
+ * </p>
+ * 
+ * @see EcritureSorties
+ * @see PiloteFactice
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EcritureSortiesBenchmark {
+  /**
+   * La politique de débordement de la file pendant la mesure.
+   */
+  @Param({ "BLOQUER", "FUSIONNER" })
+  public PolitiqueDebordement politique;
+  /**
+   * L'écriture des sorties mesurée.
+   */
+  private EcritureSorties ecriture;
+
+  /**
+   * Connecte une carte factice et lance la tâche d'écriture.
+   * 
+   * @throws JK8055Exception
+   *           jamais avec le pilote factice
+   */
+  @Setup
+  public void lancer() throws JK8055Exception {
+    LiaisonCarte.definirPilote(new PiloteFactice());
+    LiaisonCarte.connexionCarte(0);
+
+    ecriture = EcritureSorties.recupererInstance(0);
+    ecriture.definirPolitiqueDebordement(politique);
+    if (ecriture.getState() == Thread.State.NEW) {
+      ecriture.start();
+    }
+  }
+
+  /**
+   * Arrête la tâche d'écriture et déconnecte la carte factice.
+   * 
+   * @throws Exception
+   *           jamais avec le pilote factice
+   */
+  @TearDown
+  public void arreter() throws Exception {
+    ecriture.finTache();
+    ecriture.join();
+    LiaisonCarte.deconnexionCarte();
+  }
+
+  /**
+   * Numéro d'appel propre à chaque producteur.
+   */
+  @State(Scope.Thread)
+  public static class Producteur {
+    /**
+     * Numéro de l'appel, servant à varier les sorties écrites.
+     */
+    int appel;
+  }
+
+  /**
+   * Un seul producteur écrit.
+   * 
+   * @param producteur
+   *          l'état du producteur
+   * 
+   * @throws JK8055Exception
+   *           jamais avec le pilote factice
+   */
+  @Benchmark
+  public void ecrireDigitale(Producteur producteur) throws JK8055Exception {
+    int numero = producteur.appel++;
+
+    ecriture.ecrireDigitale((numero & 3) + 1, (numero & 4) != 0);
+  }
+
+  /**
+   * Trois producteurs écrivent en même temps.
+   * 
+   * @param producteur
+   *          l'état du producteur
+   * 
+   * @throws JK8055Exception
+   *           jamais avec le pilote factice
+   */
+  @Benchmark
+  @Group("contention")
+  @GroupThreads(3)
+  public void producteurs(Producteur producteur) throws JK8055Exception {
+    ecrireDigitale(producteur);
+  }
+
+  /**
+   * Une tâche lit les entrées pendant que les producteurs écrivent.
+   * 
+   * @return les entrées lues
+   * 
+   * @throws JK8055Exception
+   *           jamais avec le pilote factice
+   */
+  @Benchmark
+  @Group("contention")
+  @GroupThreads(1)
+  public long lecteur() throws JK8055Exception {
+    return LiaisonCarte.lectureComplete(0);
+  }
+}
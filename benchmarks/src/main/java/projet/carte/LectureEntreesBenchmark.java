@@ -0,0 +1,170 @@
+package projet.carte;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.libk8055.jk8055.JK8055Exception;
+
+/**
+ * <b>Mesure le coût de récupération des entrées publiées par
+ * LectureEntrees.</b>
+ * <p>
+ * La tâche de lecture tourne à la période minimale avec le pilote factice,
+ * chaque récupération peut donc croiser une publication. Le cas "contention"
+ * fait lire quatre tâches en même temps.
+ * </p>
+ * <p>
+ * La tâche de lecture ne pouvant être lancée qu'une fois, chaque mesure doit
+ * avoir lieu dans sa propre JVM (au moins un fork).
+ * </p>
+ * 
+ * @see LectureEntrees
+ * @see PiloteFactice
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LectureEntreesBenchmark {
+  /**
+   * La lecture des entrées mesurée.
+   */
+  private LectureEntrees lecture;
+
+  /**
+   * Connecte une carte factice et lance la tâche de lecture.
+   * 
+   * @throws Exception
+   *           jamais avec le pilote factice
+   */
+  @Setup
+  public void lancer() throws Exception {
+    LiaisonCarte.definirPilote(new PiloteFactice());
+    LiaisonCarte.connexionCarte(0);
+
+    lecture = LectureEntrees.recupererInstance(0);
+    lecture.recupererCadenceur().definirPeriode(Cadenceur.PERIODE_MINIMALE);
+    if (lecture.getState() == Thread.State.NEW) {
+      lecture.start();
+    }
+
+    while (lecture.recupererNumero() == 0) {
+      Thread.sleep(1);
+    }
+  }
+
+  /**
+   * Arrête la tâche de lecture et déconnecte la carte factice.
+   * 
+   * @throws Exception
+   *           jamais avec le pilote factice
+   */
+  @TearDown
+  public void arreter() throws Exception {
+    lecture.finLecture();
+    lecture.join();
+    LiaisonCarte.deconnexionCarte();
+  }
+
+  /**
+   * Tableau réutilisé propre à chaque lecteur.
+   */
+  @State(Scope.Thread)
+  public static class Lecteur {
+    /**
+     * Le tableau rempli à chaque récupération.
+     */
+    final int[] entrees = new int[LiaisonCarte.TAILLE_ENTREES];
+  }
+
+  /**
+   * Récupération dans un nouveau tableau.
+   * 
+   * @return les entrées
+   * 
+   * @throws JK8055Exception
+   *           jamais avec le pilote factice
+   */
+  @Benchmark
+  public int[] recupererEntrees() throws JK8055Exception {
+    return lecture.recupererEntrees();
+  }
+
+  /**
+   * Récupération dans un tableau réutilisé.
+   * 
+   * @param lecteur
+   *          l'état du lecteur
+   * 
+   * @return le numéro de la lecture
+   * 
+   * @throws JK8055Exception
+   *           jamais avec le pilote factice
+   */
+  @Benchmark
+  public long recupererEntreesTableau(Lecteur lecteur) throws JK8055Exception {
+    return lecture.recupererEntrees(lecteur.entrees);
+  }
+
+  /**
+   * Récupération sous forme compacte.
+   * 
+   * @return les entrées
+   * 
+   * @throws JK8055Exception
+   *           jamais avec le pilote factice
+   */
+  @Benchmark
+  public long recupererValeurs() throws JK8055Exception {
+    return lecture.recupererValeurs();
+  }
+
+  /**
+   * Récupération sous forme d'image immuable.
+   * 
+   * @return l'image des entrées
+   * 
+   * @throws JK8055Exception
+   *           jamais avec le pilote factice
+   */
+  @Benchmark
+  public ImageEntrees recupererImage() throws JK8055Exception {
+    return lecture.recupererImage();
+  }
+
+  /**
+   * Quatre tâches récupèrent les entrées en même temps.
+   * 
+   * @param lecteur
+   *          l'état du lecteur
+   * 
+   * @return le numéro de la lecture
+   * 
+   * @throws JK8055Exception
+   *           jamais avec le pilote factice
+   */
+  @Benchmark
+  @Group("contention")
+  @GroupThreads(4)
+  public long lecteurs(Lecteur lecteur) throws JK8055Exception {
+    return lecture.recupererEntrees(lecteur.entrees);
+  }
+}
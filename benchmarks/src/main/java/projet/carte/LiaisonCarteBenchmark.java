@@ -0,0 +1,107 @@
+package projet.carte;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.libk8055.jk8055.JK8055Exception;
+
+/**
+ * <b>Mesure le coût d'un échange avec la carte par LiaisonCarte.</b>
+ * <p>
+ * Le pilote factice est utilisé, seul le coût de LiaisonCarte (verrou,
+ * sélection de la carte, mesures, fusion des sorties) est donc mesuré.
+ * </p>
+ * 
+ * @see LiaisonCarte
+ * @see PiloteFactice
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LiaisonCarteBenchmark {
+  /**
+   * Numéro de l'appel, servant à varier les sorties écrites et les cartes lues.
+   */
+  private int appel;
+
+  /**
+   * Connecte deux cartes factices.
+   * 
+   * @throws JK8055Exception
+   *           jamais avec le pilote factice
+   */
+  @Setup
+  public void connecter() throws JK8055Exception {
+    LiaisonCarte.definirPilote(new PiloteFactice());
+    LiaisonCarte.connexionCarte(0);
+    LiaisonCarte.connexionCarte(1);
+  }
+
+  /**
+   * Déconnecte les cartes factices.
+   * 
+   * @throws JK8055Exception
+   *           jamais avec le pilote factice
+   */
+  @TearDown
+  public void deconnecter() throws JK8055Exception {
+    LiaisonCarte.deconnexionCarte();
+  }
+
+  /**
+   * Lecture de toutes les entrées d'une seule carte.
+   * 
+   * @return les entrées lues
+   * 
+   * @throws JK8055Exception
+   *           jamais avec le pilote factice
+   */
+  @Benchmark
+  public long lectureComplete() throws JK8055Exception {
+    return LiaisonCarte.lectureComplete(0);
+  }
+
+  /**
+   * Lecture alternée de deux cartes, chaque lecture nécessitant un changement de
+   * carte courante.
+   * 
+   * @return les entrées lues
+   * 
+   * @throws JK8055Exception
+   *           jamais avec le pilote factice
+   */
+  @Benchmark
+  public long lectureAlternee() throws JK8055Exception {
+    return LiaisonCarte.lectureComplete(appel++ & 1);
+  }
+
+  /**
+   * Écriture groupée d'une sortie digitale.
+   * 
+   * @throws JK8055Exception
+   *           jamais avec le pilote factice
+   */
+  @Benchmark
+  public void ecritureGroupee() throws JK8055Exception {
+    int numero = appel++;
+
+    LiaisonCarte.ecritureGroupee(0, Commande.digitale((numero & 3) + 1, (numero & 4) != 0));
+  }
+}
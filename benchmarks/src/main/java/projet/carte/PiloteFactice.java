@@ -0,0 +1,79 @@
+package projet.carte;
+
+/**
+ * <b>Cette classe est un pilote qui ne dialogue avec aucune carte.</b>
+ * <p>
+ * Chaque opération se termine immédiatement, la lecture renvoyant toujours les
+ * mêmes entrées. Les mesures faites avec ce pilote ne contiennent donc que le
+ * coût du code du projet, sans aucune latence USB.
+ * </p>
+ * 
+ * @see PiloteCarte
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public final class PiloteFactice implements PiloteCarte {
+  /**
+   * Les entrées renvoyées par chaque lecture.
+   */
+  private static final long ENTREES = ImageEntrees.compacter(0x15, 128, 64, 10, 20);
+  /**
+   * Les dernières valeurs écrites sur les sorties.
+   */
+  private int sorties;
+
+  @Override
+  public int ouvrir(int adresse) {
+    return adresse;
+  }
+
+  @Override
+  public void fermer() {
+  }
+
+  @Override
+  public void fermerTout() {
+  }
+
+  @Override
+  public int rechercher() {
+    return (1 << LiaisonCarte.NOMBRE_CARTES) - 1;
+  }
+
+  @Override
+  public void selectionner(int adresse) {
+  }
+
+  @Override
+  public long lireTout() {
+    return ENTREES;
+  }
+
+  @Override
+  public void ecrireTout(int digitales, int analogique1, int analogique2) {
+    sorties = digitales | analogique1 << 8 | analogique2 << 16;
+  }
+
+  @Override
+  public int lireCompteur(int chaine) {
+    return ImageEntrees.compteur(ENTREES, chaine);
+  }
+
+  @Override
+  public void remettreCompteur(int chaine) {
+  }
+
+  @Override
+  public void definirAntiRebond(int chaine, int duree) {
+  }
+
+  /**
+   * Permet de récupérer les dernières valeurs écrites sur les sorties.
+   * 
+   * @return l'image des sorties
+   */
+  public int recupererSorties() {
+    return sorties;
+  }
+}
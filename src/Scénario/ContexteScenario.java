@@ -0,0 +1,186 @@
+package Scénario;
+
+import projet.carte.ImageEntrees;
+
+public class ContexteScenario {
+	public static final int REMPLISSAGE_MAX = 255;
+	public static final int POIDS_MAX = 200;
+	//Poids vise par la coupure anticipee, un peu sous le maximum pour absorber le bruit du capteur
+	public static final int CONSIGNE_DEFAUT = POIDS_MAX - 5;
+	//Avance initiale de la coupure : une periode de lecture et une ecriture, corrigee ensuite par chaque contenant
+	public static final long AVANCE_INITIALE = 100000000L;
+	public static final long AVANCE_MAXIMALE = 2000000000L;
+	//Nombre d'echantillons avant de faire confiance au debit estime
+	private static final int ECHANTILLONS_MIN = 3;
+	
+	//Lu par la supervision depuis une autre tache
+	private volatile EtatScenario etat = EtatScenario.ETEINT;
+	//Etat a retrouver a la sortie du defaut
+	private EtatScenario precedent = EtatScenario.ETEINT;
+	private int remplissage = 0;
+	private int poids = 0;
+	
+	private final EstimateurDebit estimateur = new EstimateurDebit();
+	private int consigne = CONSIGNE_DEFAUT;
+	private volatile long avance = AVANCE_INITIALE;
+	//Debit estime lors de la derniere coupure, pour convertir l'ecart de poids final en temps
+	private volatile double debitCoupure = 0;
+	
+	//Instant de la lecture en cours d'evaluation, qui horodate les transitions pour le profil
+	private long instantLecture = 0;
+	private ProfilCycles profil = null;
+	
+	private volatile long nombreTransitions = 0;
+	private volatile long nombreValides = 0;
+	private volatile long nombreRejetes = 0;
+	
+	public void reinitialiser() {
+		etat = EtatScenario.ETEINT;
+		precedent = EtatScenario.ETEINT;
+		remplissage = 0;
+		poids = 0;
+	}
+	
+	public EtatScenario declencher(EvenementScenario evenement) {
+		byte suivant = TableTransitions.suivant(etat, evenement);
+		
+		if(suivant == TableTransitions.RETOUR) {
+			nombreTransitions++;
+			if(profil != null)
+				profil.transition(etat, precedent, instantLecture);
+			etat = precedent;
+			if(etat == EtatScenario.REMPLISSAGE)
+				estimateur.reinitialiser();
+			return etat;
+		}
+		
+		EtatScenario arrivee = TableTransitions.etat(suivant);
+		if(arrivee != etat) {
+			if(arrivee == EtatScenario.DEFAUT) {
+				precedent = etat;
+			}else if(arrivee == EtatScenario.ETEINT) {
+				remplissage = 0;
+				poids = 0;
+			}else if(arrivee == EtatScenario.REMPLISSAGE) {
+				estimateur.reinitialiser();
+			}else if(arrivee == EtatScenario.VALIDE) {
+				nombreValides++;
+			}else if(arrivee == EtatScenario.DEPASSEMENT) {
+				nombreRejetes++;
+			}
+			nombreTransitions++;
+			if(profil != null)
+				profil.transition(etat, arrivee, instantLecture);
+			etat = arrivee;
+		}
+		return etat;
+	}
+	
+	//Evalue toutes les entrees lues sous forme compacte, dans le meme ordre que la boucle du scenario.
+	//L'instant de la lecture est une valeur de Temps.maintenant()
+	public EtatScenario evaluer(long entrees, long instant) {
+		instantLecture = instant;
+		//Entrees digitales
+		declencher(ImageEntrees.digitale(entrees, 1) ? EvenementScenario.START : EvenementScenario.ARRET);
+		if(ImageEntrees.digitale(entrees, 2)) declencher(EvenementScenario.MISE_EN_PLACE_1);
+		if(ImageEntrees.digitale(entrees, 3)) declencher(EvenementScenario.MISE_EN_PLACE_2);
+		if(ImageEntrees.digitale(entrees, 4)) declencher(EvenementScenario.SORTIE);
+		if(ImageEntrees.digitale(entrees, 5)) declencher(EvenementScenario.DEFAUT);
+		
+		//Entrees analogiques
+		if(etat == EtatScenario.REMPLISSAGE) {
+			remplissage = ImageEntrees.analogique(entrees, 1);
+			poids = ImageEntrees.analogique(entrees, 2);
+			estimateur.ajouter(instant, poids);
+			//La vanne est fermee des que le poids prevu a l'instant ou la fermeture prendra effet atteint la consigne
+			if(remplissage >= REMPLISSAGE_MAX || poids >= consigne || consigneAtteinte(instant + avance)) {
+				debitCoupure = estimateur.getDebit();
+				declencher(EvenementScenario.REMPLISSAGE_TERMINE);
+			}
+		}
+		if(etat == EtatScenario.LECTURE_POIDS) {
+			remplissage = ImageEntrees.analogique(entrees, 1);
+			poids = ImageEntrees.analogique(entrees, 2);
+			corrigerAvance();
+			declencher(poids <= POIDS_MAX ? EvenementScenario.POIDS_VALIDE : EvenementScenario.POIDS_DEPASSE);
+		}
+		return etat;
+	}
+	
+	private boolean consigneAtteinte(long instant) {
+		return estimateur.getNombre() >= ECHANTILLONS_MIN && estimateur.getDebit() > 0
+				&& estimateur.estimer(instant) >= consigne;
+	}
+	
+	//L'ecart entre le poids final et la consigne, converti en temps au debit de la coupure, corrige l'avance de moitie
+	private void corrigerAvance() {
+		if(debitCoupure <= 0)
+			return;
+		long correction = (long) ((poids - consigne) / debitCoupure * 1e9) / 2;
+		avance = Math.max(0, Math.min(AVANCE_MAXIMALE, avance + correction));
+	}
+	
+	//Le profil recoit chaque transition, nul pour ne pas profiler
+	public void definirProfil(ProfilCycles profil) {
+		this.profil = profil;
+	}
+	
+	public void definirConsigne(int consigne) {
+		if(consigne < 1 || consigne > POIDS_MAX)
+			throw new IllegalArgumentException("Consigne invalide : " + consigne);
+		this.consigne = consigne;
+	}
+	
+	//Avance de la coupure en nanosecondes, par exemple la latence d'actionnement mesuree
+	public void definirAvance(long avance) {
+		if(avance < 0 || avance > AVANCE_MAXIMALE)
+			throw new IllegalArgumentException("Avance invalide : " + avance);
+		this.avance = avance;
+	}
+	
+	//Image des sorties au format de la carte : sorties digitales puis remplissage sur la premiere sortie analogique
+	public int getImageSorties() {
+		return etat.getSortiesDigitales() | remplissage << 8;
+	}
+	
+	public EtatScenario getEtat() {
+		return etat;
+	}
+	
+	public EtatScenario getPrecedent() {
+		return precedent;
+	}
+	
+	public int getRemplissage() {
+		return remplissage;
+	}
+	
+	public int getPoids() {
+		return poids;
+	}
+	
+	public int getConsigne() {
+		return consigne;
+	}
+	
+	public long getAvance() {
+		return avance;
+	}
+	
+	public double getDebitCoupure() {
+		return debitCoupure;
+	}
+	
+	public long getNombreTransitions() {
+		return nombreTransitions;
+	}
+	
+	//Contenants dont le poids a ete valide ou depasse
+	public long getNombreValides() {
+		return nombreValides;
+	}
+	
+	public long getNombreRejetes() {
+		return nombreRejetes;
+	}
+}
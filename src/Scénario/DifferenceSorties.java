@@ -0,0 +1,70 @@
+package Scénario;
+
+//Compare l'image des sorties voulue a la derniere image envoyee : seules les sorties qui ont change sont ecrites, en un seul envoi.
+//Le masque retourne a un bit par sortie, les sorties digitales en premier, comme celui d'EcritureSorties.ecrireImage()
+public class DifferenceSorties {
+	public static final int TOUTES = 0x7F;
+	private static final int ANALOGIQUE_1 = 0x20;
+	private static final int ANALOGIQUE_2 = 0x40;
+	private static final int VANNE = 1 << (EtatScenario.SORTIE_VANNE - 1);
+	
+	private volatile int bandeMorte = 0;
+	//-1 tant que rien n'a ete envoye : le premier envoi ecrit toutes les sorties
+	private int appliquee = -1;
+	
+	//Ecart qu'une sortie analogique doit depasser pour etre envoyee seule
+	public void definirBandeMorte(int bandeMorte) {
+		if(bandeMorte < 0 || bandeMorte > 255)
+			throw new IllegalArgumentException("Bande morte invalide : " + bandeMorte);
+		this.bandeMorte = bandeMorte;
+	}
+	
+	public int getBandeMorte() {
+		return bandeMorte;
+	}
+	
+	public void reinitialiser() {
+		appliquee = -1;
+	}
+	
+	//Retourne le masque des sorties a envoyer, 0 s'il n'y a rien a envoyer
+	public int comparer(int image) {
+		if(appliquee == -1) {
+			appliquee = image & 0xFFFF1F;
+			return TOUTES;
+		}
+		
+		int ecart1 = Math.abs(((image >>> 8) & 0xFF) - ((appliquee >>> 8) & 0xFF));
+		int ecart2 = Math.abs(((image >>> 16) & 0xFF) - ((appliquee >>> 16) & 0xFF));
+		int masque = (image ^ appliquee) & 0x1F;
+		
+		//Un retour a zero n'est jamais retenu par la bande morte
+		if(ecart1 > bandeMorte || (ecart1 != 0 && (image & 0xFF00) == 0))
+			masque |= ANALOGIQUE_1;
+		if(ecart2 > bandeMorte || (ecart2 != 0 && (image & 0xFF0000) == 0))
+			masque |= ANALOGIQUE_2;
+		//Un envoi a lieu de toute facon : les sorties analogiques modifiees en profitent, meme dans la bande morte
+		if(masque != 0) {
+			if(ecart1 != 0)
+				masque |= ANALOGIQUE_1;
+			if(ecart2 != 0)
+				masque |= ANALOGIQUE_2;
+		}
+		
+		int bits = (masque & 0x1F) | ((masque & ANALOGIQUE_1) != 0 ? 0xFF00 : 0) | ((masque & ANALOGIQUE_2) != 0 ? 0xFF0000 : 0);
+		appliquee = (appliquee & ~bits) | (image & bits);
+		return masque;
+	}
+	
+	//Vrai si l'envoi decrit par le masque met l'installation en securite : passage en defaut ou fermeture de la vanne de remplissage
+	public boolean estSecurite(int masque) {
+		boolean defaut = (masque & EtatScenario.DEFAUT.getSortiesDigitales()) != 0 && (appliquee & EtatScenario.DEFAUT.getSortiesDigitales()) != 0;
+		boolean fermeture = (masque & VANNE) != 0 && (appliquee & VANNE) == 0;
+		return defaut || fermeture;
+	}
+	
+	//Image des sorties telle qu'elle a ete envoyee, ou -1 si rien n'a encore ete envoye
+	public int getAppliquee() {
+		return appliquee;
+	}
+}
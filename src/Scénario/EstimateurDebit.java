@@ -0,0 +1,82 @@
+package Scénario;
+
+//Estime le debit de remplissage par une regression lineaire sur les derniers echantillons. Les sommes sont glissantes :
+//chaque echantillon coute un temps constant, sans allocation
+public class EstimateurDebit {
+	public static final int TAILLE_DEFAUT = 16;
+	
+	//Temps en secondes depuis le premier echantillon, pour garder toute la precision des sommes
+	private final double[] temps;
+	private final double[] valeurs;
+	private int nombre = 0;
+	private int suivant = 0;
+	private long origine = 0;
+	private double sommeTemps = 0;
+	private double sommeValeurs = 0;
+	private double sommeTempsCarres = 0;
+	private double sommeProduits = 0;
+	
+	public EstimateurDebit() {
+		this(TAILLE_DEFAUT);
+	}
+	
+	public EstimateurDebit(int taille) {
+		if(taille < 2)
+			throw new IllegalArgumentException("Taille invalide : " + taille);
+		this.temps = new double[taille];
+		this.valeurs = new double[taille];
+	}
+	
+	public void reinitialiser() {
+		nombre = 0;
+		suivant = 0;
+		sommeTemps = 0;
+		sommeValeurs = 0;
+		sommeTempsCarres = 0;
+		sommeProduits = 0;
+	}
+	
+	//L'instant est une valeur de Temps.maintenant()
+	public void ajouter(long instant, int valeur) {
+		if(nombre == 0)
+			origine = instant;
+		
+		double t = (instant - origine) / 1e9;
+		if(nombre == temps.length) {
+			double ancien = temps[suivant];
+			sommeTemps -= ancien;
+			sommeValeurs -= valeurs[suivant];
+			sommeTempsCarres -= ancien * ancien;
+			sommeProduits -= ancien * valeurs[suivant];
+		}else {
+			nombre++;
+		}
+		temps[suivant] = t;
+		valeurs[suivant] = valeur;
+		sommeTemps += t;
+		sommeValeurs += valeur;
+		sommeTempsCarres += t * t;
+		sommeProduits += t * valeur;
+		suivant = (suivant + 1) % temps.length;
+	}
+	
+	public int getNombre() {
+		return nombre;
+	}
+	
+	//Pente de la droite des moindres carres, en unites par seconde, ou 0 tant qu'elle n'est pas definie
+	public double getDebit() {
+		double variance = nombre * sommeTempsCarres - sommeTemps * sommeTemps;
+		if(nombre < 2 || variance <= 0)
+			return 0;
+		return (nombre * sommeProduits - sommeTemps * sommeValeurs) / variance;
+	}
+	
+	//Valeur prevue par la droite a un instant donne
+	public double estimer(long instant) {
+		if(nombre == 0)
+			return 0;
+		double moyenneTemps = sommeTemps / nombre;
+		return sommeValeurs / nombre + getDebit() * ((instant - origine) / 1e9 - moyenneTemps);
+	}
+}
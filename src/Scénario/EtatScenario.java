@@ -1,30 +1,27 @@
-package Scnario;
-
-public abstract class EtatScenario {
-	public static int remplissage = 0;
-	public static int poids = 0;
-	
-	public EtatScenario start() {
-		return this;
-	}
-	public EtatScenario miseEnPlace1() {
-		return this;
-	}
-	public EtatScenario remplissage(int remplissage, int poids) {
-		return this;
-	}
-	public EtatScenario miseEnPlace2() {
-		return this;
-	}
-	public EtatScenario lecturePoids(int poidsMax) {
-		return this;
-	}
-	public EtatScenario defaut() {
-		return this;
-	}
-	public EtatScenario sortie() {
-		return this;
-	}
-	
-	public abstract int[] getSorties();
-}
+package Scénario;
+
+public enum EtatScenario {
+	//Sorties digitales de chaque etat, la sortie 1 etant le bit de poids faible
+	//La vanne se ferme a la sortie du remplissage : la coupure anticipee prend effet des le passage en DEPLACEMENT_2
+	ETEINT(0b00000),
+	DEPLACEMENT_1(0b00001),
+	REMPLISSAGE(0b00001),
+	DEPLACEMENT_2(0b01000),
+	LECTURE_POIDS(0b00010),
+	VALIDE(0b01010),
+	DEPASSEMENT(0b00110),
+	DEFAUT(0b10000);
+	
+	//Numero de la sortie digitale qui commande la vanne de remplissage
+	public static final int SORTIE_VANNE = 1;
+	
+	private final int sortiesDigitales;
+	
+	private EtatScenario(int sortiesDigitales) {
+		this.sortiesDigitales = sortiesDigitales;
+	}
+	
+	public int getSortiesDigitales() {
+		return sortiesDigitales;
+	}
+}
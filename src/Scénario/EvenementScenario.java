@@ -0,0 +1,13 @@
+package Scénario;
+
+public enum EvenementScenario {
+	START,
+	ARRET,
+	MISE_EN_PLACE_1,
+	MISE_EN_PLACE_2,
+	SORTIE,
+	DEFAUT,
+	REMPLISSAGE_TERMINE,
+	POIDS_VALIDE,
+	POIDS_DEPASSE
+}
@@ -0,0 +1,84 @@
+package Scénario;
+
+import java.util.Random;
+
+import projet.carte.PiloteSimule;
+
+//Joue le role de l'operateur et des capteurs de la ligne pour une simulation : il enchaine les cycles de remplissage
+//en positionnant les entrees de la carte simulee d'apres l'etat du scenario, et peut provoquer des defauts au hasard
+public class OperateurSimule implements Runnable {
+	private final SimulationScenario simulation;
+	private final PiloteSimule pilote;
+	private final int adresse;
+	private final Random aleatoire;
+	private double probabiliteDefaut = 0;
+	private boolean impulsionDefaut = false;
+	private long nombreDefauts = 0;
+	
+	public OperateurSimule(SimulationScenario simulation, long graine) {
+		this.simulation = simulation;
+		this.pilote = simulation.getPilote();
+		this.adresse = simulation.getAdresse();
+		this.aleatoire = new Random(graine);
+	}
+	
+	//Probabilite, a chaque lecture, de provoquer un defaut pendant un cycle
+	public void definirProbabiliteDefaut(double probabilite) {
+		this.probabiliteDefaut = probabilite;
+	}
+	
+	//L'operateur agit une fois par lecture, a mi-chemin entre deux lectures pour que chacune voie un etat bien defini
+	public void demarrer() {
+		simulation.getHorloge().planifierDans(simulation.getPeriode() / 2, this);
+	}
+	
+	public void run() {
+		EtatScenario etat = simulation.getScenario().getEtat();
+		
+		//Le defaut n'est presente que pendant une lecture : maintenu, il ferait alterner le scenario entre DEFAUT et l'etat precedent
+		if(impulsionDefaut) {
+			pilote.definirEntreeDigitale(adresse, 5, false);
+			impulsionDefaut = false;
+		}else if(etat == EtatScenario.DEFAUT) {
+			//Fin du defaut, le scenario reprend la ou il en etait
+			if(aleatoire.nextInt(4) == 0)
+				impulsionDefaut();
+		}else if(etat != EtatScenario.ETEINT && probabiliteDefaut > 0 && aleatoire.nextDouble() < probabiliteDefaut) {
+			nombreDefauts++;
+			impulsionDefaut();
+		}else {
+			switch(etat) {
+			case ETEINT:
+				pilote.definirEntreeDigitale(adresse, 4, false);
+				pilote.definirEntreeDigitale(adresse, 1, true);
+				break;
+			case DEPLACEMENT_1:
+				pilote.definirEntreeDigitale(adresse, 4, false);
+				pilote.definirEntreeDigitale(adresse, 2, true);
+				break;
+			case DEPLACEMENT_2:
+				pilote.definirEntreeDigitale(adresse, 2, false);
+				pilote.definirEntreeDigitale(adresse, 3, true);
+				break;
+			case VALIDE:
+			case DEPASSEMENT:
+				pilote.definirEntreeDigitale(adresse, 3, false);
+				pilote.viderCuve(adresse);
+				pilote.definirEntreeDigitale(adresse, 4, true);
+				break;
+			default:
+				break;
+			}
+		}
+		simulation.getHorloge().planifierDans(simulation.getPeriode(), this);
+	}
+	
+	private void impulsionDefaut() {
+		pilote.definirEntreeDigitale(adresse, 5, true);
+		impulsionDefaut = true;
+	}
+	
+	public long getNombreDefauts() {
+		return this.nombreDefauts;
+	}
+}
@@ -0,0 +1,160 @@
+package Scénario;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import projet.carte.HistogrammeLatence;
+import projet.carte.Temps;
+
+//Profil du temps de cycle des contenants : duree de chaque sejour dans un etat, et temps entre deux contenants termines.
+//Les transitions sont horodatees par la tache du scenario, les statistiques peuvent etre lues depuis n'importe quelle tache
+public class ProfilCycles {
+	private static final EtatScenario[] ETATS = EtatScenario.values();
+	//Postes de la ligne parmi lesquels le goulot est cherche
+	private static final EtatScenario[] POSTES = { EtatScenario.DEPLACEMENT_1, EtatScenario.REMPLISSAGE,
+			EtatScenario.DEPLACEMENT_2, EtatScenario.LECTURE_POIDS };
+	
+	//Depuis la premiere transition, pour la supervision
+	private final HistogrammeLatence[] sejours = new HistogrammeLatence[ETATS.length];
+	private final HistogrammeLatence cycles = new HistogrammeLatence();
+	private final LongAdder nombreCycles = new LongAdder();
+	//Fenetre du resume, remise a zero a chaque resume sans toucher aux statistiques de la supervision
+	private final HistogrammeLatence[] sejoursFenetre = new HistogrammeLatence[ETATS.length];
+	private final HistogrammeLatence cyclesFenetre = new HistogrammeLatence();
+	private final LongAdder nombreCyclesFenetre = new LongAdder();
+	
+	//Propres a la tache du scenario
+	private EtatScenario etat = EtatScenario.ETEINT;
+	private long instantEntree = 0;
+	private long derniereFin = 0;
+	//Un sejour interrompu par un defaut reprend au retour du defaut : sa duree avant le defaut est gardee ici
+	private EtatScenario interrompu = null;
+	private long dureeInterrompue = 0;
+	
+	private volatile long premierInstant = 0;
+	private volatile long debutFenetre = 0;
+	private volatile long dernierInstant = 0;
+	
+	public ProfilCycles() {
+		for(int i = 0; i < sejours.length; i++) {
+			sejours[i] = new HistogrammeLatence();
+			sejoursFenetre[i] = new HistogrammeLatence();
+		}
+	}
+	
+	//Les instants sont des valeurs de Temps.maintenant(), celles des lectures qui ont provoque les transitions
+	public void transition(EtatScenario depart, EtatScenario arrivee, long instant) {
+		if(premierInstant == 0)
+			premierInstant = instant;
+		if(debutFenetre == 0)
+			debutFenetre = instant;
+		long duree = instantEntree != 0 && depart == etat ? instant - instantEntree : -1;
+		//Retour dans l'etat d'avant le defaut : ce n'est ni un nouveau sejour, ni un nouveau contenant
+		boolean retour = depart == EtatScenario.DEFAUT && arrivee == interrompu;
+		
+		if(arrivee == EtatScenario.DEFAUT && depart != EtatScenario.DEFAUT) {
+			interrompu = depart;
+			dureeInterrompue = Math.max(0, duree);
+		}else if(retour) {
+			if(duree >= 0)
+				enregistrerSejour(depart, duree);
+		}else {
+			if(depart == interrompu)
+				duree = duree < 0 ? -1 : duree + dureeInterrompue;
+			if(duree >= 0)
+				enregistrerSejour(depart, duree);
+			interrompu = null;
+			dureeInterrompue = 0;
+		}
+		
+		if(!retour && (arrivee == EtatScenario.VALIDE || arrivee == EtatScenario.DEPASSEMENT)) {
+			if(derniereFin != 0) {
+				cycles.enregistrer(instant - derniereFin);
+				cyclesFenetre.enregistrer(instant - derniereFin);
+			}
+			derniereFin = instant;
+			nombreCycles.increment();
+			nombreCyclesFenetre.increment();
+		}else if(arrivee == EtatScenario.ETEINT && depart != EtatScenario.VALIDE && depart != EtatScenario.DEPASSEMENT) {
+			//Un arret en cours de cycle : le prochain contenant ne doit pas compter l'arret dans son temps de cycle
+			derniereFin = 0;
+		}
+		etat = arrivee;
+		instantEntree = instant;
+		dernierInstant = instant;
+	}
+	
+	private void enregistrerSejour(EtatScenario etat, long duree) {
+		sejours[etat.ordinal()].enregistrer(duree);
+		sejoursFenetre[etat.ordinal()].enregistrer(duree);
+	}
+	
+	public HistogrammeLatence getSejours(EtatScenario etat) {
+		return sejours[etat.ordinal()];
+	}
+	
+	public HistogrammeLatence getCycles() {
+		return cycles;
+	}
+	
+	//Contenants termines par heure depuis la premiere transition
+	public double getCyclesParHeure() {
+		return cyclesParHeure(nombreCycles.sum(), premierInstant, dernierInstant);
+	}
+	
+	//Poste dont le sejour moyen est le plus long depuis la premiere transition, ou nul si aucun sejour n'a ete mesure
+	public EtatScenario getGoulot() {
+		return goulot(sejours);
+	}
+	
+	private static double cyclesParHeure(long nombre, long debut, long fin) {
+		long duree = fin - debut;
+		if(debut == 0 || duree <= 0)
+			return 0;
+		return nombre * 3600e9 / duree;
+	}
+	
+	private static EtatScenario goulot(HistogrammeLatence[] sejours) {
+		EtatScenario goulot = null;
+		long plusLong = 0;
+		
+		for(EtatScenario poste : POSTES) {
+			long moyenne = sejours[poste.ordinal()].moyenne();
+			if(moyenne > plusLong) {
+				plusLong = moyenne;
+				goulot = poste;
+			}
+		}
+		return goulot;
+	}
+	
+	//Resume de la fenetre ouverte par le resume precedent, qui est ensuite remise a zero : les resumes successifs
+	//donnent des statistiques glissantes, la supervision garde les siennes
+	public String resumer() {
+		StringBuilder resume = new StringBuilder();
+		//La fenetre se termine au resume, meme si la ligne est arretee depuis la derniere transition
+		long fin = Temps.maintenant();
+		HistogrammeLatence[] copies = new HistogrammeLatence[ETATS.length];
+		for(EtatScenario etat : ETATS) {
+			copies[etat.ordinal()] = sejoursFenetre[etat.ordinal()].instantaneEtReinitialiser();
+		}
+		long nombre = nombreCyclesFenetre.sumThenReset();
+		EtatScenario goulot = goulot(copies);
+		
+		resume.append(nombre).append(" contenants, ").append(Math.round(cyclesParHeure(nombre, debutFenetre, fin)))
+				.append(" par heure, cycle ").append(resumer(cyclesFenetre.instantaneEtReinitialiser()));
+		resume.append(", goulot ").append(goulot == null ? "aucun" : goulot.name());
+		for(EtatScenario etat : ETATS) {
+			HistogrammeLatence copie = copies[etat.ordinal()];
+			if(copie.nombre() > 0)
+				resume.append("\n  ").append(etat.name()).append(" ").append(resumer(copie));
+		}
+		debutFenetre = fin;
+		return resume.toString();
+	}
+	
+	//Durees en millisecondes
+	private static String resumer(HistogrammeLatence copie) {
+		return "n=" + copie.nombre() + " moy=" + copie.moyenne() / 1000000 + "ms p50=" + copie.centile(50) / 1000000
+				+ "ms p99=" + copie.centile(99) / 1000000 + "ms max=" + copie.maximum() / 1000000 + "ms";
+	}
+}
@@ -0,0 +1,216 @@
+package Scénario;
+
+import java.io.File;
+import java.io.IOException;
+
+import projet.carte.Enregistreur;
+import projet.carte.HorlogeSysteme;
+import projet.carte.LecteurEnregistrement;
+import projet.carte.LiaisonCarte;
+
+//Rejoue des entrees enregistrees dans la logique du scenario, sans carte, et compare les sorties obtenues aux sorties enregistrees
+public class RejeuScenario {
+	//Vitesse de l'enregistrement, ou aussi vite que possible
+	public static final double VITESSE_ORIGINALE = 1;
+	public static final double VITESSE_MAXIMALE = 0;
+	
+	//Sorties produites par le rejeu qui n'ont pas encore ete retrouvees dans l'enregistrement
+	private static final int CAPACITE_ATTENTE = 256;
+	
+	private final LecteurEnregistrement lecteur;
+	private final int adresse;
+	private final ContexteScenario contexte = new ContexteScenario();
+	private final DifferenceSorties difference = new DifferenceSorties();
+	private double vitesse = VITESSE_MAXIMALE;
+	private boolean comparaison = true;
+	
+	private final int[] attente = new int[CAPACITE_ATTENTE];
+	private int debutAttente = 0;
+	private int nombreAttente = 0;
+	
+	private long nombreEchantillons = 0;
+	private long nombreSorties = 0;
+	private long nombreComparees = 0;
+	private long nombreFusionnees = 0;
+	private long premierInstant = 0;
+	private long dernierInstant = 0;
+	private long dureeReelle = 0;
+	private String divergence = null;
+	
+	public RejeuScenario(LecteurEnregistrement lecteur, int adresse) {
+		this.lecteur = lecteur;
+		this.adresse = adresse;
+	}
+	
+	public RejeuScenario(File repertoire, int adresse) {
+		this(LecteurEnregistrement.ouvrir(repertoire), adresse);
+	}
+	
+	//1 pour le rythme d'origine, N pour N fois plus vite, VITESSE_MAXIMALE pour ne jamais attendre
+	public void definirVitesse(double vitesse) {
+		if(vitesse < 0 || Double.isNaN(vitesse))
+			throw new IllegalArgumentException("Vitesse invalide : " + vitesse);
+		this.vitesse = vitesse;
+	}
+	
+	//A regler comme celle du scenario enregistre pour retrouver les memes sorties
+	public void definirBandeMorte(int bandeMorte) {
+		difference.definirBandeMorte(bandeMorte);
+	}
+	
+	//Sans comparaison, seules les entrees sont rejouees, par exemple pour un enregistrement sans sorties
+	public void definirComparaison(boolean comparaison) {
+		this.comparaison = comparaison;
+	}
+	
+	//Rejoue tout l'enregistrement, ou s'arrete a la premiere divergence. Retourne vrai si aucune divergence n'a ete trouvee
+	public boolean rejouer() throws IOException {
+		long debutReel = System.nanoTime();
+		boolean premier = true;
+		
+		contexte.reinitialiser();
+		difference.reinitialiser();
+		//Le fichier en cours est libere meme apres une divergence, pour que l'enregistreur puisse le supprimer
+		try {
+			while(divergence == null && lecteur.suivant()) {
+				if(lecteur.adresse() != adresse)
+					continue;
+				
+				long instant = lecteur.instant();
+				if(premier) {
+					premierInstant = instant;
+					premier = false;
+				}
+				dernierInstant = instant;
+				
+				if(lecteur.type() == Enregistreur.SORTIES) {
+					if(comparaison)
+						comparer((int) lecteur.valeur());
+					continue;
+				}
+				
+				if(vitesse > 0)
+					HorlogeSysteme.recupererInstance().attendreJusqua(debutReel + (long) ((instant - premierInstant) / vitesse));
+				
+				//Chaque lecture enregistree est evaluee, et une ecriture produite seulement quand les sorties changent. Le scenario
+				//evalue chaque lecture au plus une fois : s'il en a saute, le rejeu peut diverger sans que la logique soit en cause
+				contexte.evaluer(lecteur.valeur(), instant);
+				nombreEchantillons++;
+				if(difference.comparer(contexte.getImageSorties()) != 0)
+					produire(difference.getAppliquee());
+			}
+		} finally {
+			lecteur.fermer();
+		}
+		dureeReelle = System.nanoTime() - debutReel;
+		return divergence == null;
+	}
+	
+	private void produire(int image) {
+		nombreSorties++;
+		if(!comparaison)
+			return;
+		if(nombreAttente == CAPACITE_ATTENTE) {
+			diverger("sortie " + decrire(attente[debutAttente]) + " produite mais jamais envoyee");
+			return;
+		}
+		attente[(debutAttente + nombreAttente) % CAPACITE_ATTENTE] = image;
+		nombreAttente++;
+	}
+	
+	//L'ecriture des sorties fusionne les ecritures rapprochees : des sorties produites peuvent donc manquer dans l'enregistrement
+	private void comparer(int enregistree) {
+		for(int i = 0; i < nombreAttente; i++) {
+			if(attente[(debutAttente + i) % CAPACITE_ATTENTE] == enregistree) {
+				nombreFusionnees += i;
+				nombreComparees++;
+				debutAttente = (debutAttente + i + 1) % CAPACITE_ATTENTE;
+				nombreAttente -= i + 1;
+				return;
+			}
+		}
+		
+		if(nombreAttente == 0) {
+			diverger("sortie " + decrire(enregistree) + " enregistree mais pas produite");
+		}else {
+			diverger("sortie " + decrire(enregistree) + " enregistree, " + decrire(attente[debutAttente]) + " produite");
+		}
+	}
+	
+	private void diverger(String description) {
+		divergence = "Divergence apres " + nombreEchantillons + " lectures (envoi " + lecteur.numero()
+				+ ", " + (dernierInstant - premierInstant) / 1000000 + " ms) : " + description
+				+ ", etat " + contexte.getEtat();
+	}
+	
+	private static String decrire(int image) {
+		return "[digitales=" + Integer.toBinaryString(image & 0x1F) + ", analogique1=" + ((image >>> 8) & 0xFF)
+				+ ", analogique2=" + ((image >>> 16) & 0xFF) + "]";
+	}
+	
+	public ContexteScenario getContexte() {
+		return this.contexte;
+	}
+	
+	//Premiere divergence trouvee, ou null
+	public String getDivergence() {
+		return this.divergence;
+	}
+	
+	public long getNombreEchantillons() {
+		return this.nombreEchantillons;
+	}
+	
+	public long getNombreSorties() {
+		return this.nombreSorties;
+	}
+	
+	public long getNombreComparees() {
+		return this.nombreComparees;
+	}
+	
+	public long getNombreFusionnees() {
+		return this.nombreFusionnees;
+	}
+	
+	//Sorties produites en fin de rejeu sans sortie enregistree a comparer
+	public int getNombreNonComparees() {
+		return this.nombreAttente;
+	}
+	
+	//Duree couverte par l'enregistrement rejoue, en nanosecondes
+	public long getDureeEnregistree() {
+		return dernierInstant - premierInstant;
+	}
+	
+	public long getDureeReelle() {
+		return this.dureeReelle;
+	}
+	
+	public String resumer() {
+		return nombreEchantillons + " lectures (" + getDureeEnregistree() / 1000000 + " ms enregistrees) rejouees en "
+				+ dureeReelle / 1000000 + " ms, " + nombreSorties + " sorties produites, " + nombreComparees
+				+ " comparees, " + nombreFusionnees + " fusionnees, " + nombreAttente + " non comparees, "
+				+ contexte.getNombreValides() + " contenants valides, " + contexte.getNombreRejetes() + " rejetes";
+	}
+	
+	//Usage : RejeuScenario repertoire [adresse] [vitesse]
+	public static void main(String[] args) throws IOException {
+		if(args.length < 1) {
+			System.err.println("Usage : RejeuScenario repertoire [adresse] [vitesse]");
+			System.exit(2);
+		}
+		
+		int adresse = args.length > 1 ? Integer.parseInt(args[1]) : LiaisonCarte.ADRESSE_DEFAUT;
+		RejeuScenario rejeu = new RejeuScenario(new File(args[0]), adresse);
+		if(args.length > 2)
+			rejeu.definirVitesse(Double.parseDouble(args[2]));
+		
+		boolean identique = rejeu.rejouer();
+		System.out.println(rejeu.resumer());
+		if(!identique) {
+			System.out.println(rejeu.getDivergence());
+			System.exit(1);
+		}
+	}
+}
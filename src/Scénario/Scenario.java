@@ -1,96 +1,303 @@
-package Scnario;
-
-import net.sf.libk8055.jk8055.JK8055Exception;
-import projet.carte.EcritureSorties;
-import projet.carte.LectureEntrees;
-import projet.carte.LiaisonCarte;
-
-public class Scenario extends Thread{
-	private static Scenario instance;
-	
-	private EtatScenario etat;
-	private LiaisonCarte lc;
-	private LectureEntrees le;
-	private EcritureSorties es;
-	
-	private boolean continuer = true;
-	private Scenario() {
-		reset();
-		this.le = LectureEntrees.recupererInstance();
-		this.es = EcritureSorties.recupererInstance();
-		instance = this;
-	}
-	
-	public static Scenario recupererInstance() {
-		if(instance == null) {
-			return new Scenario();
-		}
-		return instance;
-	}
-	
-	public void reset() {
-		this.etat = new EtatEteint();
-	}
-	
-	public EtatScenario getEtat() {
-		return this.etat;
-	}
-	
-	public void run() {
-		try {
-			lc.connexionCarte(0);
-			le.start();
-			es.start();
-		} catch (JK8055Exception e1) {
-			System.err.println("Connexion  la carte impossible.");
-			continuer = false;
-		}
-
-		while(continuer) {
-			try {
-				int[] entrees = le.recupererEntrees();
-				
-				//Entrees digitales
-				if(entrees[0] == 0) {
-					if(!etat.getClass().toString().equals("EtatEteint"))
-						reset();
-				}else {
-					etat = etat.start();
-				}
-				if(entrees[1] == 1) etat = etat.miseEnPlace1();
-				if(entrees[2] == 1) etat = etat.miseEnPlace2();
-				if(entrees[3] == 1) etat = etat.sortie();
-				if(entrees[4] == 1) etat = etat.defaut();
-				
-				//Entrees analogiques
-				etat = etat.remplissage(entrees[5], entrees[6]);
-				etat = etat.lecturePoids(200);
-				
-				
-				
-				sleep(50);
-			} catch (JK8055Exception e) {
-				System.err.println("Erreur lors de la lecture des entres");
-				continuer = false;
-			} catch (InterruptedException e) {
-				System.err.println("Erreur lors de l'xecution de l'application");
-				continuer = false;
-			}
-		}
-		extinction();
-	}
-	
-	public void finScenario() {
-		continuer = false;
-	}
-	
-	private void extinction() {
-		le.finLecture();
-		es.finTache();
-		try {
-			lc.deconnexionCarte();
-		} catch (JK8055Exception e) {
-			System.err.println("Impossible de dconnecter la carte.");
-		}
-	}
-}
+package Scénario;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+import net.sf.libk8055.jk8055.JK8055Exception;
+import projet.carte.AbonnementEntrees;
+import projet.carte.Cadenceur;
+import projet.carte.EcritureSorties;
+import projet.carte.EvenementEntree;
+import projet.carte.GestionnaireCartes;
+import projet.carte.HistogrammeLatence;
+import projet.carte.LectureEntrees;
+import projet.carte.LiaisonCarte;
+import projet.carte.PrioriteEcriture;
+import projet.carte.SurveillanceCarte;
+import projet.carte.Temps;
+import projet.supervision.Supervision;
+
+public class Scenario extends Thread{
+	private static final Scenario[] instances = new Scenario[LiaisonCarte.NOMBRE_CARTES];
+	
+	private final int adresse;
+	private final ContexteScenario contexte = new ContexteScenario();
+	private LectureEntrees le;
+	private EcritureSorties es;
+	private AbonnementEntrees abonnement;
+	private Cadenceur cadenceur;
+	
+	//Age des entrees au moment ou le scenario les utilise, et temps mis pour decider des sorties
+	private final HistogrammeLatence ageEntrees = new HistogrammeLatence();
+	private final HistogrammeLatence latenceDecision = new HistogrammeLatence();
+	//Temps de reaction complet : de la lecture des entrees a l'arrivee des sorties sur la carte
+	private final HistogrammeLatence latenceReaction = new HistogrammeLatence();
+	//Positionne par l'accuse d'une ecriture en erreur : toutes les sorties seront renvoyees au cycle suivant
+	private volatile boolean sortiesPerdues = false;
+	
+	//Temps cumule dans chaque etat, en nanosecondes, depuis le lancement du scenario
+	private final LongAdder[] tempsParEtat = new LongAdder[EtatScenario.values().length];
+	private volatile long instantComptage = Temps.maintenant();
+	
+	//Profil du temps de cycle des contenants, resume periodiquement sur la sortie standard par la boucle du scenario
+	public static final long PERIODE_RESUME_DEFAUT = 60000000000L;
+	private final ProfilCycles profil = new ProfilCycles();
+	private volatile long periodeResume = PERIODE_RESUME_DEFAUT;
+	private volatile long prochainResume = 0;
+	
+	//Etat de la boucle, propre a la tache qui execute les cycles
+	private boolean stable = false;
+	private final DifferenceSorties difference = new DifferenceSorties();
+	private long numeroEvalue = -1;
+	//Valeurs et horodatage de la lecture evaluee, copies ensemble par LectureEntrees.recupererLecture()
+	private final long[] lecture = new long[2];
+	
+	//Pendant une coupure, la fin du scenario est verifiee a cette periode
+	public static final long PERIODE_ATTENTE_REPRISE = 100000000L;
+	
+	private volatile boolean continuer = true;
+	private Scenario(int adresse) {
+		super("Scenario-" + adresse);
+		this.adresse = adresse;
+		reset();
+		contexte.definirProfil(profil);
+		this.le = LectureEntrees.recupererInstance(adresse);
+		this.es = EcritureSorties.recupererInstance(adresse);
+		//Seules les entrees digitales reveillent un etat stable : le bruit des entrees analogiques ne doit pas le tirer de son attente
+		this.abonnement = le.abonner(0x1F, false);
+		this.cadenceur = new Cadenceur(le.recupererCadenceur());
+		for(int i = 0; i < tempsParEtat.length; i++) {
+			tempsParEtat[i] = new LongAdder();
+		}
+		instances[adresse] = this;
+	}
+	
+	public static Scenario recupererInstance() {
+		return recupererInstance(LiaisonCarte.ADRESSE_DEFAUT);
+	}
+	
+	public static synchronized Scenario recupererInstance(int adresse) {
+		LiaisonCarte.verifierAdresse(adresse);
+		if(instances[adresse] == null) {
+			return new Scenario(adresse);
+		}
+		return instances[adresse];
+	}
+	
+	//Le prochain appel a recupererInstance() cree un nouveau scenario, utilise a la fin d'une simulation
+	static synchronized void oublierInstance(int adresse) {
+		LiaisonCarte.verifierAdresse(adresse);
+		instances[adresse] = null;
+	}
+	
+	//Lance un scenario sur chaque carte trouvee, chacun avec sa propre lecture et sa propre ecriture
+	public static Scenario[] lancerSurToutesLesCartes() throws JK8055Exception {
+		int[] adresses = GestionnaireCartes.connecterCartes();
+		Scenario[] scenarios = new Scenario[adresses.length];
+		
+		for(int i = 0; i < adresses.length; i++) {
+			scenarios[i] = recupererInstance(adresses[i]);
+			scenarios[i].start();
+		}
+		return scenarios;
+	}
+	
+	public int getAdresse() {
+		return this.adresse;
+	}
+	
+	public void reset() {
+		contexte.reinitialiser();
+	}
+	
+	public EtatScenario getEtat() {
+		return contexte.getEtat();
+	}
+	
+	public ContexteScenario getContexte() {
+		return this.contexte;
+	}
+	
+	//Ecart qu'une sortie analogique doit depasser pour etre envoyee seule, 0 pour envoyer chaque changement
+	public void definirBandeMorte(int bandeMorte) {
+		difference.definirBandeMorte(bandeMorte);
+	}
+	
+	//Par defaut le scenario suit la lecture des entrees, un cadenceur libre permet de le decaler
+	public void definirCadenceur(Cadenceur cadenceur) {
+		this.cadenceur = cadenceur;
+	}
+	
+	public Cadenceur recupererCadenceur() {
+		return this.cadenceur;
+	}
+	
+	public HistogrammeLatence getAgeEntrees() {
+		return this.ageEntrees;
+	}
+	
+	public HistogrammeLatence getLatenceDecision() {
+		return this.latenceDecision;
+	}
+	
+	public HistogrammeLatence getLatenceReaction() {
+		return this.latenceReaction;
+	}
+	
+	public ProfilCycles getProfil() {
+		return this.profil;
+	}
+	
+	//Periode du resume du profil en nanosecondes, 0 pour ne plus l'afficher
+	public void definirPeriodeResume(long periode) {
+		this.periodeResume = periode;
+		this.prochainResume = 0;
+		abonnement.signaler();
+	}
+	
+	//Le sejour en cours dans l'etat actuel est compte
+	public long getTempsDansEtat(EtatScenario etat) {
+		long temps = tempsParEtat[etat.ordinal()].sum();
+		if(contexte.getEtat() == etat)
+			temps += Temps.maintenant() - instantComptage;
+		return temps;
+	}
+	
+	public void run() {
+		try {
+			if(!LiaisonCarte.estConnectee(adresse))
+				LiaisonCarte.connexionCarte(adresse);
+			//Deux taches ou une seule boucle par carte, selon GestionnaireCartes.definirBoucleUnique()
+			GestionnaireCartes.demarrerEntreesSorties(adresse);
+			Supervision.enregistrerCarte(adresse);
+			Supervision.enregistrer(new SupervisionScenario(this), "Scenario", adresse);
+		} catch (JK8055Exception e1) {
+			System.err.println("Connexion à la carte impossible.");
+			continuer = false;
+		}
+
+		instantComptage = Temps.maintenant();
+		while(continuer) {
+			try {
+				//Tant que l'etat evolue ou pendant le remplissage on reevalue a chaque tick, sinon on attend un changement des entrees
+				if(stable) {
+					abonnement.attendreEvenement(delaiResume());
+				}else {
+					cadenceur.attendreProchainTick();
+				}
+				resumerSiEchu();
+				executerCycle();
+			} catch (JK8055Exception e) {
+				//Les sorties sont renvoyees au complet des le premier cycle apres la reprise
+				difference.reinitialiser();
+				stable = false;
+				if(GestionnaireCartes.estSurveillee(adresse)) {
+					System.err.println("Erreur lors du dialogue avec la carte, attente de la reconnexion.");
+					attendreReprise();
+				}else {
+					System.err.println("Erreur lors du dialogue avec la carte.");
+					continuer = false;
+				}
+			}
+		}
+		extinction();
+	}
+	
+	//Un cycle du scenario sans attente, utilisable pas a pas avec une horloge virtuelle. Retourne vrai si le scenario peut attendre un changement des entrees
+	public boolean executerCycle() throws JK8055Exception {
+		while(abonnement.prochainEvenement() != EvenementEntree.AUCUN);
+		
+		//Chaque lecture est evaluee au plus une fois : le scenario ne depend que des lectures evaluees, et peut etre rejoue
+		//tant qu'aucune n'a ete sautee par un cycle plus long que la periode de lecture
+		//Le numero, les valeurs et l'horodatage sont lus ensemble : ils appartiennent toujours a la meme lecture
+		long numero = le.recupererLecture(lecture);
+		if(numero == numeroEvalue)
+			return stable;
+		numeroEvalue = numero;
+		
+		long debut = Temps.maintenant();
+		long valeurs = lecture[0];
+		long horodatage = lecture[1];
+		if(horodatage != 0)
+			ageEntrees.enregistrer(debut - horodatage);
+		
+		EtatScenario precedent = contexte.getEtat();
+		tempsParEtat[precedent.ordinal()].add(debut - instantComptage);
+		instantComptage = debut;
+		//Le remplissage suit les entrees analogiques, auxquelles le scenario n'est pas abonne : il n'est jamais stable,
+		//pour que chaque lecture alimente l'estimation du debit comme dans le rejeu et la simulation
+		EtatScenario etat = contexte.evaluer(valeurs, horodatage);
+		stable = etat == precedent && etat != EtatScenario.REMPLISSAGE;
+		
+		//Seules les sorties qui ont change sont envoyees, en une seule ecriture : un etat stable n'ecrit rien
+		//La mise en securite (defaut, fermeture de la vanne) passe devant les ecritures en attente
+		//L'envoi est asynchrone : le cycle suivant n'attend pas que la carte ait recu les sorties
+		if(sortiesPerdues) {
+			sortiesPerdues = false;
+			difference.reinitialiser();
+		}
+		int masque = difference.comparer(contexte.getImageSorties());
+		if(masque != 0)
+			es.ecrireImageAsynchrone(difference.getAppliquee(), masque, difference.estSecurite(masque) ? PrioriteEcriture.URGENTE : PrioriteEcriture.NORMALE)
+				.whenComplete(accuser(horodatage != 0 ? horodatage : debut));
+		latenceDecision.enregistrerDepuis(debut);
+		return stable;
+	}
+	
+	//Le resume ne depend pas des cycles : il est affiche meme quand la ligne est arretee et qu'aucune entree ne change
+	private void resumerSiEchu() {
+		long periode = periodeResume;
+		if(periode <= 0)
+			return;
+		long maintenant = Temps.maintenant();
+		if(prochainResume != 0 && maintenant - prochainResume < 0)
+			return;
+		if(prochainResume != 0)
+			System.out.println("Scenario " + adresse + " : " + profil.resumer());
+		prochainResume = maintenant + periode;
+	}
+	
+	//Attente maximale d'un evenement avant le prochain resume, 0 pour attendre sans limite
+	private long delaiResume() {
+		if(periodeResume <= 0 || prochainResume == 0)
+			return 0;
+		return Math.max(1, prochainResume - Temps.maintenant());
+	}
+	
+	//Le scenario reste dans son etat pendant la coupure, la surveillance se charge de reconnecter la carte
+	private void attendreReprise() {
+		SurveillanceCarte surveillance = SurveillanceCarte.recupererInstance(adresse);
+		while(continuer && !surveillance.attendreReprise(PERIODE_ATTENTE_REPRISE));
+		if(continuer)
+			System.err.println("Carte " + adresse + " reconnectee.");
+	}
+	
+	private BiConsumer<Long, Throwable> accuser(final long lecture) {
+		return new BiConsumer<Long, Throwable>() {
+			public void accept(Long instant, Throwable erreur) {
+				if(erreur == null)
+					latenceReaction.enregistrer(instant - lecture);
+				else
+					sortiesPerdues = true;
+			}
+		};
+	}
+	
+	public void finScenario() {
+		continuer = false;
+		abonnement.signaler();
+		cadenceur.reveiller();
+	}
+	
+	private void extinction() {
+		Supervision.desenregistrer("Scenario", adresse);
+		Supervision.desenregistrerCarte(adresse);
+		abonnement.desabonner();
+		GestionnaireCartes.arreterEntreesSorties(adresse);
+		try {
+			LiaisonCarte.deconnexionCarte(adresse);
+		} catch (JK8055Exception e) {
+			System.err.println("Impossible de déconnecter la carte.");
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package Scénario;
+
+import net.sf.libk8055.jk8055.JK8055Exception;
+import projet.carte.EcritureSorties;
+import projet.carte.Horloge;
+import projet.carte.HorlogeVirtuelle;
+import projet.carte.LectureEntrees;
+import projet.carte.LiaisonCarte;
+import projet.carte.PiloteCarte;
+import projet.carte.PiloteSimule;
+import projet.carte.Temps;
+
+//Fait fonctionner la lecture, le scenario et l'ecriture dans une seule tache, sur une carte simulee et avec une horloge virtuelle
+//Le temps saute d'un evenement a l'autre : une simulation est reproductible et s'execute bien plus vite que le temps reel
+public class SimulationScenario {
+	private final HorlogeVirtuelle horloge = new HorlogeVirtuelle();
+	//Horloge et pilote du programme avant la simulation, remis en place par terminer()
+	private final Horloge precedente = Temps.recupererHorloge();
+	private final PiloteCarte piloteReel = LiaisonCarte.recupererPilote();
+	private final int adresse;
+	private final PiloteSimule pilote;
+	private final LectureEntrees le;
+	private final EcritureSorties es;
+	private final Scenario scenario;
+	private final long periode;
+	
+	private long prochainTick;
+	private long nombreTicks = 0;
+	private JK8055Exception erreur = null;
+	
+	//A chaque tick : une lecture, un cycle du scenario, puis l'envoi des sorties demandees, comme les trois taches reelles
+	private final Runnable tick = new Runnable() {
+		public void run() {
+			nombreTicks++;
+			if(!le.executerLecture()) {
+				erreur = le.recupererErreur();
+				return;
+			}
+			try {
+				scenario.executerCycle();
+			} catch (JK8055Exception e) {
+				erreur = e;
+				return;
+			}
+			es.executerEcriture();
+			if(es.recupererDerniereErreur() != null) {
+				erreur = es.recupererDerniereErreur();
+				return;
+			}
+			prochainTick += periode;
+			horloge.planifier(prochainTick, this);
+		}
+	};
+	
+	public SimulationScenario(long graine) throws JK8055Exception {
+		this(graine, LiaisonCarte.ADRESSE_DEFAUT);
+	}
+	
+	//L'horloge virtuelle et la carte simulee remplacent celles du programme jusqu'a l'appel de terminer() : a creer avant toute lecture, ecriture ou scenario
+	public SimulationScenario(long graine, int adresse) throws JK8055Exception {
+		Temps.definirHorloge(horloge);
+		boolean cree = false;
+		try {
+			this.adresse = adresse;
+			this.pilote = new PiloteSimule(graine);
+			pilote.definirSortieVanne(EtatScenario.SORTIE_VANNE);
+			LiaisonCarte.definirPilote(pilote);
+			LiaisonCarte.connexionCarte(adresse);
+			this.scenario = Scenario.recupererInstance(adresse);
+			this.le = LectureEntrees.recupererInstance(adresse);
+			this.es = EcritureSorties.recupererInstance(adresse);
+			this.periode = le.recupererCadenceur().recupererPeriode();
+			this.prochainTick = horloge.maintenant();
+			horloge.planifier(prochainTick, tick);
+			cree = true;
+		} finally {
+			if(!cree)
+				terminer();
+		}
+	}
+	
+	//Remet en place le pilote et l'horloge du programme, si une autre simulation ne les a pas deja remplaces.
+	//La lecture, l'ecriture et le scenario de la carte simulee sont oublies : une utilisation reelle en cree de nouveaux
+	public void terminer() {
+		if(pilote != null && LiaisonCarte.recupererPilote() == pilote) {
+			try {
+				if(LiaisonCarte.estConnectee(adresse))
+					LiaisonCarte.deconnexionCarte(adresse);
+			} catch (JK8055Exception e) {
+				//La carte simulee est abandonnee de toute facon
+			}
+			Scenario.oublierInstance(adresse);
+			LectureEntrees.oublierInstance(adresse);
+			EcritureSorties.oublierInstance(adresse);
+			LiaisonCarte.definirPilote(piloteReel);
+		}
+		if(Temps.recupererHorloge() == horloge)
+			Temps.definirHorloge(precedente);
+	}
+	
+	public void executer(long duree) {
+		horloge.executerJusqua(horloge.maintenant() + duree);
+	}
+	
+	//Execute la simulation jusqu'a ce que le nombre de contenants traites soit atteint, ou jusqu'a une erreur
+	public boolean executerCycles(long nombre) {
+		ContexteScenario contexte = scenario.getContexte();
+		long objectif = contexte.getNombreValides() + contexte.getNombreRejetes() + nombre;
+		
+		while(erreur == null && contexte.getNombreValides() + contexte.getNombreRejetes() < objectif) {
+			if(!horloge.executerSuivant())
+				break;
+		}
+		return erreur == null;
+	}
+	
+	public HorlogeVirtuelle getHorloge() {
+		return this.horloge;
+	}
+	
+	public PiloteSimule getPilote() {
+		return this.pilote;
+	}
+	
+	public Scenario getScenario() {
+		return this.scenario;
+	}
+	
+	public int getAdresse() {
+		return this.adresse;
+	}
+	
+	public long getPeriode() {
+		return this.periode;
+	}
+	
+	public long getNombreTicks() {
+		return this.nombreTicks;
+	}
+	
+	public JK8055Exception getErreur() {
+		return this.erreur;
+	}
+	
+	//Usage : SimulationScenario [cycles] [graine] [probabilite de defaut]
+	public static void main(String[] args) throws JK8055Exception {
+		long cycles = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+		long graine = args.length > 1 ? Long.parseLong(args[1]) : 1;
+		double probabiliteDefaut = args.length > 2 ? Double.parseDouble(args[2]) : 0.001;
+		
+		SimulationScenario simulation = new SimulationScenario(graine);
+		//Le resume final lit encore l'horloge virtuelle : elle n'est rendue qu'a la fin
+		try {
+			OperateurSimule operateur = new OperateurSimule(simulation, graine);
+			operateur.definirProbabiliteDefaut(probabiliteDefaut);
+			operateur.demarrer();
+			simulation.getScenario().definirPeriodeResume(0);
+			
+			long origine = simulation.getHorloge().maintenant();
+			long debut = System.nanoTime();
+			boolean reussi = simulation.executerCycles(cycles);
+			long dureeReelle = System.nanoTime() - debut;
+			long dureeVirtuelle = simulation.getHorloge().maintenant() - origine;
+			ContexteScenario contexte = simulation.getScenario().getContexte();
+			
+			System.out.println(contexte.getNombreValides() + " valides, " + contexte.getNombreRejetes() + " rejetes, "
+					+ operateur.getNombreDefauts() + " defauts, " + contexte.getNombreTransitions() + " transitions");
+			System.out.println(dureeVirtuelle / 1000000000 + " s simulees en " + dureeReelle / 1000000 + " ms ("
+					+ Math.round(cycles * 1e9 / dureeReelle) + " cycles/s, " + simulation.getNombreTicks() + " lectures)");
+			System.out.println(simulation.getScenario().getProfil().resumer());
+			if(!reussi)
+				System.out.println("Arret sur erreur : " + simulation.getErreur().getMessage());
+		} finally {
+			simulation.terminer();
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package Scénario;
+
+import projet.supervision.MesureDebit;
+import projet.supervision.Supervision;
+
+public class SupervisionScenario implements SupervisionScenarioMBean {
+	private final Scenario scenario;
+	private final ContexteScenario contexte;
+	private final MesureDebit debitTransitions;
+	
+	public SupervisionScenario(Scenario scenario) {
+		this.scenario = scenario;
+		this.contexte = scenario.getContexte();
+		this.debitTransitions = new MesureDebit(contexte.getNombreTransitions());
+	}
+	
+	public String getEtat() {
+		return contexte.getEtat().name();
+	}
+	
+	public long getNombreTransitions() {
+		return contexte.getNombreTransitions();
+	}
+	
+	public double getTransitionsParSeconde() {
+		return debitTransitions.mesurer(contexte.getNombreTransitions());
+	}
+	
+	public String[] getTempsParEtat() {
+		EtatScenario[] etats = EtatScenario.values();
+		String[] temps = new String[etats.length];
+		
+		for(int i = 0; i < etats.length; i++) {
+			temps[i] = etats[i].name() + "=" + scenario.getTempsDansEtat(etats[i]) / 1000000 + " ms";
+		}
+		return temps;
+	}
+	
+	public double getCyclesParHeure() {
+		return scenario.getProfil().getCyclesParHeure();
+	}
+	
+	public String getGoulot() {
+		EtatScenario goulot = scenario.getProfil().getGoulot();
+		return goulot == null ? "" : goulot.name();
+	}
+	
+	public long getNombreContenantsValides() {
+		return contexte.getNombreValides();
+	}
+	
+	public long getNombreContenantsRejetes() {
+		return contexte.getNombreRejetes();
+	}
+	
+	public int getRemplissage() {
+		return contexte.getRemplissage();
+	}
+	
+	public int getPoids() {
+		return contexte.getPoids();
+	}
+	
+	public long getAvanceCoupure() {
+		return Supervision.microsecondes(contexte.getAvance());
+	}
+	
+	public double getDebitRemplissage() {
+		return contexte.getDebitCoupure();
+	}
+	
+	public long getAgeEntreesP99() {
+		return Supervision.microsecondes(scenario.getAgeEntrees().centile(99));
+	}
+	
+	public long getLatenceDecisionMoyenne() {
+		return Supervision.microsecondes(scenario.getLatenceDecision().moyenne());
+	}
+	
+	public long getLatenceDecisionP99() {
+		return Supervision.microsecondes(scenario.getLatenceDecision().centile(99));
+	}
+	
+	public long getLatenceDecisionMaximale() {
+		return Supervision.microsecondes(scenario.getLatenceDecision().maximum());
+	}
+	
+	public long getLatenceReactionP99() {
+		return Supervision.microsecondes(scenario.getLatenceReaction().centile(99));
+	}
+	
+	public void reinitialiserStatistiques() {
+		scenario.getAgeEntrees().reinitialiser();
+		scenario.getLatenceDecision().reinitialiser();
+		scenario.getLatenceReaction().reinitialiser();
+	}
+}
@@ -0,0 +1,23 @@
+package Scénario;
+
+//Les durees sont exprimees en microsecondes, les temps par etat en millisecondes
+public interface SupervisionScenarioMBean {
+	String getEtat();
+	long getNombreTransitions();
+	double getTransitionsParSeconde();
+	String[] getTempsParEtat();
+	double getCyclesParHeure();
+	String getGoulot();
+	long getNombreContenantsValides();
+	long getNombreContenantsRejetes();
+	int getRemplissage();
+	int getPoids();
+	long getAvanceCoupure();
+	double getDebitRemplissage();
+	long getAgeEntreesP99();
+	long getLatenceDecisionMoyenne();
+	long getLatenceDecisionP99();
+	long getLatenceDecisionMaximale();
+	long getLatenceReactionP99();
+	void reinitialiserStatistiques();
+}
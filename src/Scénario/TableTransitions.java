@@ -0,0 +1,51 @@
+package Scénario;
+
+public final class TableTransitions {
+	//Valeur speciale : retour a l'etat sauvegarde avant le defaut
+	public static final byte RETOUR = -1;
+	
+	private static final EtatScenario[] ETATS = EtatScenario.values();
+	private static final int NB_EVENEMENTS = EvenementScenario.values().length;
+	private static final byte[] TABLE = new byte[ETATS.length * NB_EVENEMENTS];
+	
+	static {
+		//Par defaut un evenement ne change pas l'etat
+		for(EtatScenario etat : ETATS) {
+			for(EvenementScenario evenement : EvenementScenario.values()) {
+				relier(etat, evenement, etat);
+			}
+			relier(etat, EvenementScenario.ARRET, EtatScenario.ETEINT);
+			relier(etat, EvenementScenario.DEFAUT, EtatScenario.DEFAUT);
+		}
+		
+		relier(EtatScenario.ETEINT, EvenementScenario.START, EtatScenario.DEPLACEMENT_1);
+		relier(EtatScenario.DEPLACEMENT_1, EvenementScenario.MISE_EN_PLACE_1, EtatScenario.REMPLISSAGE);
+		relier(EtatScenario.REMPLISSAGE, EvenementScenario.REMPLISSAGE_TERMINE, EtatScenario.DEPLACEMENT_2);
+		relier(EtatScenario.DEPLACEMENT_2, EvenementScenario.MISE_EN_PLACE_2, EtatScenario.LECTURE_POIDS);
+		relier(EtatScenario.LECTURE_POIDS, EvenementScenario.POIDS_VALIDE, EtatScenario.VALIDE);
+		relier(EtatScenario.LECTURE_POIDS, EvenementScenario.POIDS_DEPASSE, EtatScenario.DEPASSEMENT);
+		relier(EtatScenario.VALIDE, EvenementScenario.SORTIE, EtatScenario.ETEINT);
+		relier(EtatScenario.DEPASSEMENT, EvenementScenario.SORTIE, EtatScenario.ETEINT);
+		TABLE[indice(EtatScenario.DEFAUT, EvenementScenario.DEFAUT)] = RETOUR;
+	}
+	
+	private TableTransitions() {
+	}
+	
+	private static void relier(EtatScenario depart, EvenementScenario evenement, EtatScenario arrivee) {
+		TABLE[indice(depart, evenement)] = (byte) arrivee.ordinal();
+	}
+	
+	private static int indice(EtatScenario etat, EvenementScenario evenement) {
+		return etat.ordinal() * NB_EVENEMENTS + evenement.ordinal();
+	}
+	
+	//Retourne l'ordinal de l'etat suivant, ou RETOUR
+	public static byte suivant(EtatScenario etat, EvenementScenario evenement) {
+		return TABLE[indice(etat, evenement)];
+	}
+	
+	public static EtatScenario etat(int ordinal) {
+		return ETATS[ordinal];
+	}
+}
@@ -1,12 +1,23 @@
-package projet;
-
-public class Lanceur {
-  public static void main(String[] args) {
-    /*
-     * LectureEntrees lecture = new LectureEntrees(); EcritureSorties ecriture = new
-     * EcritureSorties(); lecture.start(); ecriture.start();
-     */
-
-    InterfaceGraphique interfaceGraphique = new InterfaceGraphique();
-  }
-}
+package projet;
+
+import java.io.File;
+import java.io.IOException;
+
+import projet.carte.Enregistreur;
+
+public class Lanceur {
+  public static void main(String[] args) {
+    try {
+      Enregistreur.demarrer(new File("enregistrements"));
+    } catch (IOException e) {
+      System.err.println("Impossible de démarrer l'enregistrement : " + e.getMessage());
+    }
+
+    /*
+     * LectureEntrees lecture = new LectureEntrees(); EcritureSorties ecriture = new
+     * EcritureSorties(); lecture.start(); ecriture.start();
+     */
+
+    InterfaceGraphique interfaceGraphique = new InterfaceGraphique();
+  }
+}
@@ -0,0 +1,152 @@
+package projet.carte;
+
+/**
+ * <b>Cette classe représente l'abonnement d'une tâche aux changements des
+ * entrées de la carte.</b>
+ * <p>
+ * Un abonnement est obtenu via la méthode LectureEntrees.abonner(). La lecture
+ * des entrées y dépose alors un événement à chaque changement d'une entrée qui
+ * intéresse l'abonné. Les événements sont stockés dans une file bornée : si
+ * l'abonné ne les consomme pas assez vite, les plus anciens sont perdus.
+ * </p>
+ * <p>
+ * Un seul abonné doit consommer les événements d'un abonnement. Il peut
+ * s'endormir jusqu'au prochain événement via la méthode attendreEvenement(),
+ * sans consommer de temps processeur.
+ * </p>
+ * 
+ * @see LectureEntrees#abonner(int, boolean)
+ * @see EvenementEntree
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public final class AbonnementEntrees {
+  /**
+   * Nombre maximal d'événements en attente pour un abonné.
+   */
+  public static final int CAPACITE = 256;
+  /**
+   * La file des événements en attente.
+   */
+  private final FileCommandes evenements = new FileCommandes(CAPACITE);
+  /**
+   * Masque des entrées digitales qui intéressent l'abonné, un bit par entrée.
+   */
+  private final int digitales;
+  /**
+   * Indique si l'abonné s'intéresse aux entrées analogiques.
+   */
+  private final boolean analogiques;
+  /**
+   * La lecture des entrées à laquelle l'abonnement est lié.
+   */
+  private final LectureEntrees lecture;
+
+  /**
+   * Le constructeur de la classe.
+   * 
+   * @param lecture
+   *          la lecture des entrées à laquelle l'abonnement est lié
+   * @param digitales
+   *          le masque des entrées digitales qui intéressent l'abonné
+   * @param analogiques
+   *          vrai si l'abonné s'intéresse aux entrées analogiques
+   */
+  AbonnementEntrees(LectureEntrees lecture, int digitales, boolean analogiques) {
+    this.lecture = lecture;
+    this.digitales = digitales & 0x1F;
+    this.analogiques = analogiques;
+
+    evenements.definirPolitique(PolitiqueDebordement.SUPPRIMER_PLUS_ANCIENNE);
+  }
+
+  /**
+   * Permet de savoir si un événement intéresse l'abonné.
+   * 
+   * @param evenement
+   *          l'événement
+   * 
+   * @return vrai si l'événement concerne une entrée suivie par l'abonné
+   */
+  boolean concerne(long evenement) {
+    if (EvenementEntree.estDigital(evenement)) {
+      return (digitales & (1 << (EvenementEntree.chaine(evenement) - 1))) != 0;
+    }
+
+    return analogiques;
+  }
+
+  /**
+   * Permet de déposer un événement pour l'abonné.
+   * 
+   * @param evenement
+   *          l'événement
+   */
+  void publier(long evenement) {
+    evenements.ajouter(evenement);
+  }
+
+  /**
+   * Permet de réveiller l'abonné s'il attend un événement, par exemple pour
+   * qu'il constate une erreur de lecture.
+   * 
+   * @see AbonnementEntrees#attendreEvenement(long)
+   */
+  public void signaler() {
+    evenements.signaler();
+  }
+
+  /**
+   * Permet de récupérer le prochain événement sans attendre.
+   * 
+   * @return le plus ancien événement en attente, ou EvenementEntree.AUCUN
+   */
+  public long prochainEvenement() {
+    return evenements.retirer();
+  }
+
+  /**
+   * Permet d'attendre le prochain événement.
+   * <p>
+   * La tâche appelante est endormie jusqu'à l'arrivée d'un événement, un appel à
+   * la méthode signaler() ou la fin du délai.
+   * </p>
+   * 
+   * @param delai
+   *          la durée maximale d'attente en nanosecondes, ou 0 pour attendre
+   *          sans limite
+   * 
+   * @return le plus ancien événement en attente, ou EvenementEntree.AUCUN si
+   *         aucun n'est arrivé
+   */
+  public long attendreEvenement(long delai) {
+    long evenement = evenements.retirer();
+
+    if (evenement == EvenementEntree.AUCUN) {
+      evenements.attendre(delai);
+      evenement = evenements.retirer();
+    }
+
+    return evenement;
+  }
+
+  /**
+   * Permet de récupérer le nombre d'événements perdus faute d'avoir été
+   * consommés à temps.
+   * 
+   * @return le nombre d'événements perdus
+   */
+  public long recupererNombrePerdus() {
+    return evenements.nombreSuppressions();
+  }
+
+  /**
+   * Permet de mettre fin à l'abonnement. Plus aucun événement ne sera déposé.
+   * 
+   * @see LectureEntrees#desabonner(AbonnementEntrees)
+   */
+  public void desabonner() {
+    lecture.desabonner(this);
+  }
+}
@@ -0,0 +1,223 @@
+package projet.carte;
+
+import net.sf.libk8055.jk8055.JK8055Exception;
+
+/**
+ * <b>Cette classe permet de dialoguer avec une carte depuis une seule tâche,
+ * à la place des tâches de LectureEntrees et d'EcritureSorties.</b>
+ * <p>
+ * À chaque période du cadenceur de la lecture, la boucle envoie en un seul
+ * échange toutes les écritures en attente dans la file d'EcritureSorties, puis
+ * lit toutes les entrées et publie le résultat. L'ordre des lectures et des
+ * écritures est ainsi toujours le même, les deux ne se disputent plus le verrou
+ * de LiaisonCarte, et une tâche est économisée par carte. En contrepartie, une
+ * écriture attend le début de la période suivante pour être envoyée.
+ * </p>
+ * <p>
+ * Les deux objets restent les seuls points d'accès aux entrées et aux sorties :
+ * leur utilisation ne change pas. Une erreur survenue d'un côté est partagée
+ * avec l'autre. La boucle ne s'arrête pas pour autant : elle attend que
+ * l'erreur soit supprimée via la méthode reinitialiserErreur() pour reprendre
+ * les échanges avec la carte.
+ * </p>
+ * 
+ * @see GestionnaireCartes#demarrerEntreesSorties(int)
+ * @see LectureEntrees#executerLecture()
+ * @see EcritureSorties#executerEcriture()
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public final class BoucleCarte extends Thread {
+  /**
+   * Contient l'unique instance de cette classe pour chaque carte, indexée par
+   * l'adresse de la carte.
+   * 
+   * @see BoucleCarte#recupererInstance(int)
+   */
+  private static final BoucleCarte[] instances = new BoucleCarte[LiaisonCarte.NOMBRE_CARTES];
+  /**
+   * L'adresse de la carte concernée.
+   */
+  private final int adresse;
+  /**
+   * La lecture des entrées de la carte.
+   */
+  private final LectureEntrees lecture;
+  /**
+   * L'écriture des sorties de la carte.
+   */
+  private final EcritureSorties ecriture;
+  /**
+   * Le cadenceur de la lecture, qui rythme la boucle.
+   */
+  private final Cadenceur cadenceur;
+  /**
+   * Nombre de périodes passées sans échange à cause d'une erreur.
+   * 
+   * @see BoucleCarte#recupererNombreAttentes()
+   */
+  private volatile long nombreAttentes;
+  /**
+   * Permet de savoir si l'on doit arrêter la boucle ou que l'on peut continuer.
+   * 
+   * @see BoucleCarte#finBoucle()
+   */
+  private volatile boolean continuer = true;
+
+  /**
+   * Le constructeur de la classe.
+   * 
+   * @param adresse
+   *          l'adresse de la carte concernée
+   */
+  private BoucleCarte(int adresse) {
+    super("BoucleCarte-" + adresse);
+    this.adresse = adresse;
+    this.lecture = LectureEntrees.recupererInstance(adresse);
+    this.ecriture = EcritureSorties.recupererInstance(adresse);
+    this.cadenceur = lecture.recupererCadenceur();
+    instances[adresse] = this;
+  }
+
+  /**
+   * Permet de récupérer l'unique instance de la classe pour une carte, ou d'en
+   * créer une si elle n'existe pas.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * 
+   * @return l'unique instance de la classe pour cette carte
+   */
+  public static synchronized BoucleCarte recupererInstance(int adresse) {
+    LiaisonCarte.verifierAdresse(adresse);
+
+    if (instances[adresse] == null) {
+      return new BoucleCarte(adresse);
+    }
+
+    return instances[adresse];
+  }
+
+  /**
+   * Permet de savoir si une boucle a été créée pour une carte.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * 
+   * @return la boucle de la carte, ou nulle si la carte utilise les deux tâches
+   *         de LectureEntrees et d'EcritureSorties
+   */
+  static synchronized BoucleCarte recupererExistante(int adresse) {
+    LiaisonCarte.verifierAdresse(adresse);
+
+    return instances[adresse];
+  }
+
+  /**
+   * Permet de récupérer l'adresse de la carte concernée.
+   * 
+   * @return l'adresse de la carte
+   */
+  public int recupererAdresse() {
+    return adresse;
+  }
+
+  /**
+   * Permet d'effectuer un tour de la boucle, sans attendre.
+   * <p>
+   * Les écritures en attente sont envoyées, puis les entrées sont lues et
+   * publiées. Tant qu'une erreur est enregistrée dans la lecture ou dans
+   * l'écriture, rien n'est échangé avec la carte.
+   * </p>
+   * 
+   * @return vrai si les entrées ont été lues et publiées
+   * 
+   * @see EcritureSorties#executerEcriture()
+   * @see LectureEntrees#executerLecture()
+   */
+  public boolean executerCycle() {
+    if (lecture.recupererErreur() != null || ecriture.recupererErreur() != null) {
+      nombreAttentes++;
+
+      return false;
+    }
+
+    ecriture.executerEcriture();
+
+    JK8055Exception erreur = ecriture.recupererErreur();
+    if (erreur != null) {
+      lecture.noterErreur(erreur);
+
+      return false;
+    }
+
+    if (!lecture.executerLecture()) {
+      ecriture.noterErreur(lecture.recupererErreur());
+
+      return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Permet de supprimer l'erreur enregistrée dans la lecture et dans
+   * l'écriture, ce qui permet à la boucle de reprendre les échanges.
+   * <p>
+   * Cela n'entreprend néanmoins aucune action correctrice, et il est assumé que
+   * l'utilisateur a réglé le problème ayant causé l'erreur avant d'appeler cette
+   * méthode.
+   * </p>
+   */
+  public void reinitialiserErreur() {
+    lecture.reinitialiserErreur();
+    ecriture.reinitialiserErreur();
+  }
+
+  /**
+   * Permet de récupérer le nombre de périodes passées sans échange à cause
+   * d'une erreur.
+   * 
+   * @return le nombre de périodes d'attente
+   */
+  public long recupererNombreAttentes() {
+    return nombreAttentes;
+  }
+
+  /**
+   * Permet d'arrêter la boucle.
+   * <p>
+   * Cette méthode doit être utilisée lors de la fermeture du programme, car elle
+   * est le seul moyen de tuer cette tâche.
+   * </p>
+   */
+  public void finBoucle() {
+    continuer = false;
+    cadenceur.reveiller();
+  }
+
+  /**
+   * La méthode permettant de lancer la tâche.
+   * <p>
+   * Elle effectue un tour de boucle à chaque période du cadenceur de la lecture,
+   * et prévient les cadenceurs qui le suivent dès que les entrées sont
+   * publiées. Les accusés des écritures asynchrones encore en attente sont
+   * annulés à l'arrêt de la boucle.
+   * </p>
+   * 
+   * @see BoucleCarte#executerCycle()
+   */
+  @Override
+  public void run() {
+    while (continuer) {
+      cadenceur.attendreProchainTick();
+
+      if (continuer && executerCycle()) {
+        cadenceur.signalerPhase();
+      }
+    }
+
+    ecriture.abandonnerAccuses();
+  }
+}
@@ -0,0 +1,395 @@
+package projet.carte;
+
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <b>Cette classe permet de cadencer une tâche périodique sans dérive.</b>
+ * <p>
+ * Un cadenceur libre calcule chaque échéance à partir de la précédente et non à
+ * partir de l'instant du réveil : le temps passé à travailler entre deux ticks
+ * est donc absorbé par la période au lieu de s'y ajouter. La tâche s'endort
+ * jusqu'à l'échéance suivante via LockSupport.parkNanos(). Si le travail dure
+ * plus d'une période, les ticks manqués sont comptés comme des dépassements et
+ * sautés, plutôt que rattrapés en rafale.
+ * </p>
+ * <p>
+ * Un cadenceur peut également suivre un autre cadenceur, appelé meneur. Il ne
+ * calcule alors plus ses propres échéances mais se réveille dès que le meneur
+ * signale la fin de son travail via la méthode signalerPhase(). C'est ce qui
+ * permet au scénario de s'exécuter juste après chaque nouvelle lecture des
+ * entrées.
+ * </p>
+ * <p>
+ * Chaque cadenceur mesure la gigue de ses réveils (écart entre l'instant prévu
+ * et l'instant réel), le nombre de dépassements et la fréquence réellement
+ * atteinte. Seule la tâche cadencée doit appeler attendreProchainTick().
+ * </p>
+ * 
+ * @see LectureEntrees#recupererCadenceur()
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public final class Cadenceur {
+  /**
+   * Période minimale en nanosecondes, imposée par la carte qui ne peut répondre
+   * qu'à une requête USB toutes les 2 ms environ.
+   */
+  public static final long PERIODE_MINIMALE = 2000000L;
+  /**
+   * Le cadenceur suivi, ou nul pour un cadenceur libre.
+   */
+  private final Cadenceur meneur;
+  /**
+   * Contient les cadenceurs qui suivent celui-ci.
+   * 
+   * @see Cadenceur#signalerPhase()
+   */
+  private volatile Cadenceur[] suiveurs = new Cadenceur[0];
+  /**
+   * La période entre deux ticks en nanosecondes.
+   */
+  private volatile long periode;
+  /**
+   * L'instant du prochain tick, ou 0 si aucun tick n'a encore eu lieu.
+   */
+  private long echeance;
+  /**
+   * Nombre de fois où le meneur a signalé la fin de son travail.
+   * 
+   * @see Cadenceur#signalerPhase()
+   */
+  private volatile long phase;
+  /**
+   * L'instant auquel le meneur a signalé la fin de son travail pour la dernière
+   * fois.
+   */
+  private volatile long instantPhase;
+  /**
+   * La dernière phase du meneur prise en compte par un suiveur.
+   */
+  private long phaseVue;
+  /**
+   * La tâche endormie dans attendreProchainTick(), ou nulle.
+   */
+  private volatile Thread enAttente;
+  /**
+   * Indique qu'un appel à reveiller() doit interrompre l'attente en cours ou la
+   * prochaine attente.
+   * 
+   * @see Cadenceur#reveiller()
+   */
+  private volatile boolean reveille;
+  /**
+   * Nombre de ticks depuis la dernière réinitialisation des statistiques.
+   */
+  private volatile long nombreTicks;
+  /**
+   * Nombre de ticks manqués depuis la dernière réinitialisation des
+   * statistiques.
+   */
+  private volatile long nombreDepassements;
+  /**
+   * Somme des gigues mesurées, en nanosecondes.
+   */
+  private volatile long gigueTotale;
+  /**
+   * Plus grande gigue mesurée, en nanosecondes.
+   */
+  private volatile long gigueMaximale;
+  /**
+   * L'instant du premier tick depuis la dernière réinitialisation des
+   * statistiques.
+   */
+  private volatile long premierTick;
+  /**
+   * L'instant du dernier tick.
+   */
+  private volatile long dernierTick;
+
+  /**
+   * Permet de créer un cadenceur libre.
+   * 
+   * @param periode
+   *          la période entre deux ticks en nanosecondes (au moins
+   *          PERIODE_MINIMALE)
+   */
+  public Cadenceur(long periode) {
+    this.meneur = null;
+    definirPeriode(periode);
+  }
+
+  /**
+   * Permet de créer un cadenceur qui suit un autre cadenceur.
+   * 
+   * @param meneur
+   *          le cadenceur à suivre
+   */
+  public Cadenceur(Cadenceur meneur) {
+    if (meneur == null) {
+      throw new InvalidParameterException("Le cadenceur à suivre est obligatoire.");
+    }
+
+    this.meneur = meneur;
+    this.periode = meneur.periode;
+    this.phaseVue = meneur.phase;
+    meneur.ajouterSuiveur(this);
+  }
+
+  /**
+   * Permet de définir la période entre deux ticks. La nouvelle période est prise
+   * en compte à partir de la prochaine échéance.
+   * 
+   * @param periode
+   *          la période en nanosecondes (au moins PERIODE_MINIMALE)
+   */
+  public void definirPeriode(long periode) {
+    if (periode < PERIODE_MINIMALE) {
+      throw new InvalidParameterException("La période doit être d'au moins 2 ms.");
+    }
+
+    this.periode = periode;
+  }
+
+  /**
+   * Permet de récupérer la période entre deux ticks.
+   * 
+   * @return la période en nanosecondes, celle du meneur pour un suiveur
+   */
+  public long recupererPeriode() {
+    return meneur == null ? periode : meneur.recupererPeriode();
+  }
+
+  /**
+   * Permet de savoir si ce cadenceur suit un autre cadenceur.
+   * 
+   * @return vrai si le cadenceur suit un meneur
+   */
+  public boolean estSuiveur() {
+    return meneur != null;
+  }
+
+  /**
+   * Permet d'endormir la tâche cadencée jusqu'au prochain tick.
+   * <p>
+   * Pour un cadenceur libre, la tâche est réveillée à l'échéance suivante. Pour
+   * un suiveur, elle est réveillée dès que le meneur signale une nouvelle phase,
+   * ou au bout de deux périodes du meneur si celui-ci ne donne plus signe de vie.
+   * Dans les deux cas, un appel à la méthode reveiller() interrompt l'attente.
+   * </p>
+   * 
+   * @see Cadenceur#signalerPhase()
+   * @see Cadenceur#reveiller()
+   */
+  public void attendreProchainTick() {
+    enAttente = Thread.currentThread();
+    try {
+      if (meneur == null) {
+        attendreEcheance();
+      } else {
+        attendrePhase();
+      }
+    } finally {
+      enAttente = null;
+      reveille = false;
+    }
+  }
+
+  /**
+   * Permet de réveiller la tâche cadencée si elle attend le prochain tick, par
+   * exemple pour l'arrêter.
+   */
+  public void reveiller() {
+    reveille = true;
+    debloquer();
+  }
+
+  /**
+   * Permet de signaler aux suiveurs que le travail de cette phase est terminé.
+   * <p>
+   * Cette méthode est appelée par la tâche menante, par exemple juste après la
+   * publication d'une nouvelle lecture des entrées.
+   * </p>
+   */
+  public void signalerPhase() {
+    instantPhase = Temps.maintenant();
+    phase++;
+
+    for (Cadenceur suiveur : suiveurs) {
+      suiveur.debloquer();
+    }
+  }
+
+  /**
+   * Permet de récupérer le nombre de ticks depuis la dernière réinitialisation
+   * des statistiques.
+   * 
+   * @return le nombre de ticks
+   */
+  public long recupererNombreTicks() {
+    return nombreTicks;
+  }
+
+  /**
+   * Permet de récupérer le nombre de ticks manqués parce que le travail a duré
+   * plus d'une période.
+   * 
+   * @return le nombre de dépassements
+   */
+  public long recupererNombreDepassements() {
+    return nombreDepassements;
+  }
+
+  /**
+   * Permet de récupérer la gigue moyenne des réveils.
+   * 
+   * @return la gigue moyenne en nanosecondes
+   */
+  public long recupererGigueMoyenne() {
+    long ticks = nombreTicks;
+
+    return ticks == 0 ? 0 : gigueTotale / ticks;
+  }
+
+  /**
+   * Permet de récupérer la plus grande gigue mesurée.
+   * 
+   * @return la gigue maximale en nanosecondes
+   */
+  public long recupererGigueMaximale() {
+    return gigueMaximale;
+  }
+
+  /**
+   * Permet de récupérer la fréquence réellement atteinte depuis la dernière
+   * réinitialisation des statistiques.
+   * 
+   * @return la fréquence en hertz, ou 0 s'il n'y a pas encore eu deux ticks
+   */
+  public double recupererFrequence() {
+    long ticks = nombreTicks;
+    long duree = dernierTick - premierTick;
+
+    return ticks < 2 || duree <= 0 ? 0 : (ticks - 1) * 1e9 / duree;
+  }
+
+  /**
+   * Permet de remettre à zéro les statistiques du cadenceur.
+   */
+  public void reinitialiserStatistiques() {
+    nombreTicks = 0;
+    nombreDepassements = 0;
+    gigueTotale = 0;
+    gigueMaximale = 0;
+  }
+
+  /**
+   * Permet d'attendre l'échéance suivante d'un cadenceur libre.
+   */
+  private void attendreEcheance() {
+    long maintenant = Temps.maintenant();
+
+    if (echeance == 0) {
+      echeance = maintenant;
+    } else if (maintenant > echeance) {
+      long manques = (maintenant - echeance) / periode + 1;
+
+      nombreDepassements += manques;
+      echeance += manques * periode;
+    }
+
+    long reste;
+    while ((reste = echeance - Temps.maintenant()) > 0 && !interrompue()) {
+      LockSupport.parkNanos(this, reste);
+    }
+
+    long reveil = Temps.maintenant();
+    noterTick(reveil, reveil - echeance);
+    echeance += periode;
+  }
+
+  /**
+   * Permet d'attendre la prochaine phase du meneur.
+   */
+  private void attendrePhase() {
+    long limite = Temps.maintenant() + 2 * meneur.recupererPeriode();
+    long reste;
+
+    while (meneur.phase == phaseVue && (reste = limite - Temps.maintenant()) > 0 && !interrompue()) {
+      LockSupport.parkNanos(this, reste);
+    }
+
+    long actuelle = meneur.phase;
+    if (actuelle == phaseVue) {
+      return;
+    }
+
+    if (actuelle - phaseVue > 1) {
+      nombreDepassements += actuelle - phaseVue - 1;
+    }
+    phaseVue = actuelle;
+
+    long reveil = Temps.maintenant();
+    noterTick(reveil, reveil - meneur.instantPhase);
+  }
+
+  /**
+   * Permet de débloquer la tâche cadencée si elle est endormie, sans interrompre
+   * son attente.
+   */
+  private void debloquer() {
+    Thread endormie = enAttente;
+
+    if (endormie != null) {
+      LockSupport.unpark(endormie);
+    }
+  }
+
+  /**
+   * Permet de savoir si l'attente en cours doit être interrompue.
+   * 
+   * @return vrai si reveiller() a été appelée ou si la tâche a été interrompue
+   */
+  private boolean interrompue() {
+    return reveille || Thread.currentThread().isInterrupted();
+  }
+
+  /**
+   * Permet de mettre à jour les statistiques lors d'un tick.
+   * 
+   * @param instant
+   *          l'instant du tick
+   * @param gigue
+   *          l'écart entre l'instant prévu et l'instant réel
+   */
+  private void noterTick(long instant, long gigue) {
+    if (nombreTicks == 0) {
+      premierTick = instant;
+    }
+
+    long absolue = Math.abs(gigue);
+
+    gigueTotale += absolue;
+    if (absolue > gigueMaximale) {
+      gigueMaximale = absolue;
+    }
+
+    dernierTick = instant;
+    nombreTicks++;
+  }
+
+  /**
+   * Permet d'ajouter un cadenceur à la liste des suiveurs.
+   * 
+   * @param suiveur
+   *          le nouveau suiveur
+   */
+  private synchronized void ajouterSuiveur(Cadenceur suiveur) {
+    Cadenceur[] nouveaux = Arrays.copyOf(suiveurs, suiveurs.length + 1);
+
+    nouveaux[nouveaux.length - 1] = suiveur;
+    suiveurs = nouveaux;
+  }
+}
@@ -0,0 +1,281 @@
+package projet.carte;
+
+/**
+ * <b>Cette classe permet de représenter une écriture sur les sorties de la
+ * carte sous la forme d'un simple entier long.</b>
+ * <p>
+ * Une commande contient une image des sorties et un masque indiquant les sorties
+ * concernées par l'écriture. Le format est le suivant :
+ * </p>
+ * <ul>
+ * <li>bits 0 à 4 : valeur des cinq sorties digitales,</li>
+ * <li>bits 8 à 15 : valeur de la première sortie analogique,</li>
+ * <li>bits 16 à 23 : valeur de la seconde sortie analogique,</li>
+ * <li>bits 24 à 30 : masque des sorties concernées (un bit par sortie, les
+ * sorties digitales en premier),</li>
+ * <li>bits 32 à 63 : instant de création de la commande, en unités de 1024
+ * nanosecondes (environ une microseconde), ou 0 si la commande n'est pas
+ * horodatée.</li>
+ * </ul>
+ * <p>
+ * Une commande valide concerne toujours au moins une sortie, la valeur 0 peut
+ * donc être utilisée pour signifier l'absence de commande. Ce format permet de
+ * fusionner deux commandes sans aucune allocation, la dernière l'emportant sur
+ * les sorties qu'elles ont en commun. L'horodatage conservé lors d'une fusion
+ * est celui de la commande la plus ancienne, ce qui permet de mesurer le temps
+ * d'attente de la plus ancienne écriture.
+ * </p>
+ * <p>
+ * <b>Note</b> : s'agissant d'une classe utilitaire, toutes les méthodes sont
+ * statiques, et l'instanciation de la classe a été empêchée.
+ * </p>
+ * 
+ * @see EcritureSorties
+ * @see FileCommandes
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+final class Commande {
+  /**
+   * Valeur représentant l'absence de commande.
+   */
+  static final long AUCUNE = 0L;
+  /**
+   * Position du masque des sorties dans une commande.
+   */
+  private static final int DECALAGE_MASQUE = 24;
+  /**
+   * Masque permettant d'isoler l'image des sorties dans une commande.
+   */
+  private static final long BITS_VALEURS = 0xFFFFFFL;
+  /**
+   * Position de l'horodatage dans une commande.
+   */
+  private static final int DECALAGE_HORODATAGE = 32;
+  /**
+   * Précision de l'horodatage : Temps.maintenant() est divisé par 2 puissance
+   * cette valeur.
+   */
+  private static final int PRECISION_HORODATAGE = 10;
+
+  /**
+   * Constructeur de la classe.
+   * <p>
+   * Cette classe n'étant pas prévue pour être instanciée, ce constructeur a comme
+   * visibilité "privé".
+   * </p>
+   */
+  private Commande() {
+  }
+
+  /**
+   * Permet de créer la commande d'écriture d'une sortie digitale.
+   * 
+   * @param chaine
+   *          le numéro de la sortie (compris entre 1 et 5)
+   * @param valeur
+   *          la nouvelle valeur de la sortie
+   * 
+   * @return la commande correspondante
+   */
+  static long digitale(int chaine, boolean valeur) {
+    long masque = 1L << (chaine - 1);
+
+    return (masque << DECALAGE_MASQUE) | (valeur ? masque : 0L);
+  }
+
+  /**
+   * Permet de créer la commande d'écriture d'une sortie analogique.
+   * 
+   * @param chaine
+   *          le numéro de la sortie (compris entre 1 et 2)
+   * @param valeur
+   *          la nouvelle valeur de la sortie (comprise entre 0 et 255)
+   * 
+   * @return la commande correspondante
+   */
+  static long analogique(int chaine, int valeur) {
+    long masque = 1L << (chaine + 4);
+
+    return (masque << DECALAGE_MASQUE) | ((long) valeur << (chaine * 8));
+  }
+
+  /**
+   * Permet de créer la commande d'écriture de toutes les sorties à la fois.
+   * 
+   * @param image
+   *          la nouvelle valeur de toutes les sorties, au format de l'image des
+   *          sorties
+   * 
+   * @return la commande correspondante
+   */
+  static long complete(int image) {
+    return (0x7FL << DECALAGE_MASQUE) | (image & BITS_VALEURS);
+  }
+
+  /**
+   * Permet de créer la commande d'écriture d'une partie des sorties à la fois.
+   * 
+   * @param image
+   *          la nouvelle valeur des sorties, au format de l'image des sorties
+   * @param sorties
+   *          le masque des sorties concernées, un bit par sortie (les sorties
+   *          digitales en premier)
+   * 
+   * @return la commande correspondante, ou AUCUNE si le masque est vide
+   */
+  static long partielle(int image, int sorties) {
+    sorties &= 0x7F;
+
+    if (sorties == 0) {
+      return AUCUNE;
+    }
+
+    return ((long) sorties << DECALAGE_MASQUE) | (image & bitsSorties(sorties));
+  }
+
+  /**
+   * Permet d'ajouter à une commande l'instant de sa création.
+   * 
+   * @param commande
+   *          la commande
+   * @param instant
+   *          la valeur de Temps.maintenant() à la création de la commande
+   * 
+   * @return la commande horodatée
+   */
+  static long horodater(long commande, long instant) {
+    long unites = (instant >>> PRECISION_HORODATAGE) & 0xFFFFFFFFL;
+
+    return (commande & 0xFFFFFFFFL) | (unites == 0 ? 1 : unites) << DECALAGE_HORODATAGE;
+  }
+
+  /**
+   * Permet de savoir depuis combien de temps une commande a été créée.
+   * <p>
+   * L'horodatage étant stocké sur 32 bits, la durée est correcte tant qu'elle
+   * ne dépasse pas environ une demi-heure. Une commande créée après l'instant
+   * indiqué a une durée nulle.
+   * </p>
+   * 
+   * @param commande
+   *          la commande horodatée
+   * @param maintenant
+   *          la valeur actuelle de Temps.maintenant()
+   * 
+   * @return la durée écoulée depuis la création de la commande en nanosecondes,
+   *         ou -1 si la commande n'est pas horodatée
+   */
+  static long age(long commande, long maintenant) {
+    int unites = (int) (commande >>> DECALAGE_HORODATAGE);
+
+    if (unites == 0) {
+      return -1;
+    }
+
+    int ecart = (int) (maintenant >>> PRECISION_HORODATAGE) - unites;
+
+    return ecart <= 0 ? 0 : (long) ecart << PRECISION_HORODATAGE;
+  }
+
+  /**
+   * Permet de récupérer l'instant de création d'une commande.
+   * <p>
+   * Deux instants se comparent par la différence de leurs valeurs, qui reste
+   * correcte tant que leur écart ne dépasse pas environ une demi-heure.
+   * </p>
+   * 
+   * @param commande
+   *          la commande
+   * 
+   * @return l'instant de création en unités de 1024 nanosecondes, ou 0 si la
+   *         commande n'est pas horodatée
+   */
+  static int horodatage(long commande) {
+    return (int) (commande >>> DECALAGE_HORODATAGE);
+  }
+
+  /**
+   * Permet de récupérer l'image des sorties contenue dans une commande.
+   * 
+   * @param commande
+   *          la commande
+   * 
+   * @return l'image des sorties
+   */
+  static int valeurs(long commande) {
+    return (int) (commande & BITS_VALEURS);
+  }
+
+  /**
+   * Permet de récupérer le masque des sorties concernées par une commande.
+   * 
+   * @param commande
+   *          la commande
+   * 
+   * @return le masque des sorties, un bit par sortie
+   */
+  static int sorties(long commande) {
+    return (int) (commande >>> DECALAGE_MASQUE) & 0x7F;
+  }
+
+  /**
+   * Permet de fusionner deux commandes.
+   * <p>
+   * Les sorties concernées par la seconde commande prennent la valeur qu'elle
+   * indique, les autres gardent celle de la première. L'horodatage de la
+   * première commande est conservé s'il existe.
+   * </p>
+   * 
+   * @param premiere
+   *          la commande la plus ancienne (ou AUCUNE)
+   * @param seconde
+   *          la commande la plus récente (ou AUCUNE)
+   * 
+   * @return la commande résultant de la fusion
+   */
+  static long fusionner(long premiere, long seconde) {
+    long bits = bitsSorties(sorties(seconde));
+    long valeurs = (premiere & ~bits | seconde & bits) & BITS_VALEURS;
+    long horodatage = (premiere >>> DECALAGE_HORODATAGE) != 0 ? premiere : seconde;
+
+    return (horodatage & ~0xFFFFFFFFL)
+        | ((long) (sorties(premiere) | sorties(seconde)) << DECALAGE_MASQUE) | valeurs;
+  }
+
+  /**
+   * Permet de ne garder qu'une partie des sorties d'une commande.
+   * 
+   * @param commande
+   *          la commande
+   * @param sorties
+   *          le masque des sorties à garder, un bit par sortie
+   * 
+   * @return la commande limitée à ces sorties, avec le même horodatage, ou
+   *         AUCUNE si elle n'en concerne aucune
+   */
+  static long restreindre(long commande, int sorties) {
+    sorties &= sorties(commande);
+
+    if (sorties == 0) {
+      return AUCUNE;
+    }
+
+    return (commande & ~0xFFFFFFFFL) | ((long) sorties << DECALAGE_MASQUE)
+        | (commande & bitsSorties(sorties));
+  }
+
+  /**
+   * Permet de convertir un masque de sorties en masque des bits de l'image des
+   * sorties.
+   * 
+   * @param sorties
+   *          le masque des sorties, un bit par sortie
+   * 
+   * @return le masque des bits correspondants dans l'image des sorties
+   */
+  private static long bitsSorties(int sorties) {
+    return (sorties & 0x1F) | (-((sorties >>> 5) & 1) & 0xFF00) | (-((sorties >>> 6) & 1) & 0xFF0000);
+  }
+}
@@ -0,0 +1,298 @@
+package projet.carte;
+
+import java.security.InvalidParameterException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <b>Cette classe permet de suivre les deux compteurs d'impulsions d'une
+ * carte.</b>
+ * <p>
+ * Les compteurs de la carte comptent les fronts montants des entrées digitales
+ * 1 et 2 sans dépendre de la période de lecture : une impulsion trop brève pour
+ * être vue par la lecture des entrées, comme celle d'un débitmètre, est tout de
+ * même comptée. Leur valeur, sur 16 bits, fait partie de chaque lecture et
+ * repasse par zéro après 65535.
+ * </p>
+ * <p>
+ * À chaque lecture, l'écart avec la valeur précédente est calculé modulo 65536
+ * et ajouté à un total sur 64 bits, qui ne repasse donc jamais par zéro. La
+ * fréquence des impulsions est estimée au fur et à mesure par une moyenne
+ * exponentielle de l'écart divisé par la durée entre deux lectures, sans
+ * conserver d'historique. Le temps d'anti-rebond de chaque compteur se règle
+ * via ConditionnementEntrees.definirAntiRebondCompteur().
+ * </p>
+ * <p>
+ * La lecture des entrées est la seule à mettre à jour les compteurs, les
+ * valeurs peuvent être consultées à tout moment par d'autres tâches. Les
+ * compteurs de la carte se remettent à zéro pendant la lecture via
+ * LectureEntrees.remettreAZeroCompteur() : remis à zéro directement via
+ * LiaisonCarte, ils feraient croire à un passage par zéro. La méthode
+ * remettreAZero() remet à zéro le total sans toucher à la carte.
+ * </p>
+ * 
+ * @see LectureEntrees#recupererCompteurs()
+ * @see LectureEntrees#remettreAZeroCompteur(int)
+ * @see ImageEntrees#compteur(long, int)
+ * @see ConditionnementEntrees#definirAntiRebondCompteur(int, int)
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public final class CompteurImpulsions {
+  /**
+   * Nombre de compteurs d'une carte.
+   */
+  public static final int NOMBRE_COMPTEURS = 2;
+  /**
+   * Constante de temps par défaut de l'estimation de la fréquence, en
+   * nanosecondes.
+   * 
+   * @see CompteurImpulsions#definirConstanteTemps(long)
+   */
+  public static final long CONSTANTE_TEMPS_DEFAUT = 1000000000L;
+  /**
+   * Masque correspondant à la taille des compteurs de la carte.
+   */
+  private static final int MASQUE_COMPTEUR = 0xFFFF;
+  /**
+   * La dernière valeur lue de chaque compteur, ou -1 si la prochaine lecture
+   * sert seulement de référence. Utilisée par la lecture des entrées, et
+   * ramenée à zéro lors d'une remise à zéro du compteur de la carte.
+   * 
+   * @see CompteurImpulsions#noterRemiseAZeroCarte(int)
+   */
+  private final int[] dernieresValeurs = { -1, -1 };
+  /**
+   * L'instant de la dernière lecture, ou 0. Utilisé uniquement par la lecture
+   * des entrées.
+   */
+  private long dernierInstant;
+  /**
+   * Le nombre total d'impulsions de chaque compteur depuis sa création.
+   */
+  private final AtomicLongArray totaux = new AtomicLongArray(NOMBRE_COMPTEURS);
+  /**
+   * Le total de chaque compteur lors de sa dernière remise à zéro.
+   * 
+   * @see CompteurImpulsions#remettreAZero(int)
+   */
+  private final AtomicLongArray origines = new AtomicLongArray(NOMBRE_COMPTEURS);
+  /**
+   * Le nombre d'impulsions de chaque compteur entre les deux dernières
+   * lectures.
+   */
+  private final AtomicLongArray ecarts = new AtomicLongArray(NOMBRE_COMPTEURS);
+  /**
+   * Le nombre de passages par zéro de chaque compteur de la carte.
+   */
+  private final AtomicLongArray tours = new AtomicLongArray(NOMBRE_COMPTEURS);
+  /**
+   * La fréquence estimée de chaque compteur, en impulsions par seconde, sous la
+   * forme des bits d'un double.
+   */
+  private final AtomicLongArray frequences = new AtomicLongArray(NOMBRE_COMPTEURS);
+  /**
+   * La constante de temps de l'estimation de la fréquence, en nanosecondes.
+   */
+  private volatile long constanteTemps = CONSTANTE_TEMPS_DEFAUT;
+  /**
+   * Indique que la prochaine lecture doit servir de nouvelle référence, par
+   * exemple parce que la carte a pu redémarrer.
+   * 
+   * @see CompteurImpulsions#resynchroniser()
+   */
+  private volatile boolean resynchronisation;
+
+  /**
+   * Permet de choisir la constante de temps de l'estimation de la fréquence.
+   * <p>
+   * Une constante courte suit plus vite les variations de fréquence, une
+   * constante longue lisse mieux les impulsions lentes, dont le nombre varie
+   * beaucoup d'une lecture à l'autre.
+   * </p>
+   * 
+   * @param constanteTemps
+   *          la constante de temps en nanosecondes
+   */
+  public void definirConstanteTemps(long constanteTemps) {
+    if (constanteTemps <= 0) {
+      throw new InvalidParameterException("La constante de temps doit être positive.");
+    }
+
+    this.constanteTemps = constanteTemps;
+  }
+
+  /**
+   * Permet de récupérer la constante de temps de l'estimation de la fréquence.
+   * 
+   * @return la constante de temps en nanosecondes
+   */
+  public long recupererConstanteTemps() {
+    return constanteTemps;
+  }
+
+  /**
+   * Permet de récupérer le nombre d'impulsions comptées depuis la dernière
+   * remise à zéro.
+   * 
+   * @param chaine
+   *          le numéro du compteur (compris entre 1 et 2)
+   * 
+   * @return le nombre d'impulsions, sans passage par zéro
+   */
+  public long recupererTotal(int chaine) {
+    int indice = indice(chaine);
+
+    return totaux.get(indice) - origines.get(indice);
+  }
+
+  /**
+   * Permet de récupérer le nombre d'impulsions comptées entre les deux
+   * dernières lectures.
+   * 
+   * @param chaine
+   *          le numéro du compteur (compris entre 1 et 2)
+   * 
+   * @return le nombre d'impulsions de la dernière lecture
+   */
+  public long recupererEcart(int chaine) {
+    return ecarts.get(indice(chaine));
+  }
+
+  /**
+   * Permet de récupérer la fréquence estimée des impulsions.
+   * 
+   * @param chaine
+   *          le numéro du compteur (compris entre 1 et 2)
+   * 
+   * @return la fréquence en impulsions par seconde
+   */
+  public double recupererFrequence(int chaine) {
+    return Double.longBitsToDouble(frequences.get(indice(chaine)));
+  }
+
+  /**
+   * Permet de récupérer le nombre de passages par zéro du compteur de la carte.
+   * 
+   * @param chaine
+   *          le numéro du compteur (compris entre 1 et 2)
+   * 
+   * @return le nombre de passages par zéro
+   */
+  public long recupererNombreTours(int chaine) {
+    return tours.get(indice(chaine));
+  }
+
+  /**
+   * Permet de remettre à zéro le total d'un compteur, sans toucher au compteur
+   * de la carte.
+   * 
+   * @param chaine
+   *          le numéro du compteur (compris entre 1 et 2)
+   */
+  public void remettreAZero(int chaine) {
+    int indice = indice(chaine);
+
+    origines.set(indice, totaux.get(indice));
+  }
+
+  /**
+   * Permet de prendre en compte une lecture des entrées.
+   * <p>
+   * Cette méthode est appelée par la lecture des entrées à chaque lecture, avant
+   * leur publication. Elle ne fait aucune allocation.
+   * </p>
+   * 
+   * @param valeurs
+   *          les entrées lues, sous forme compacte
+   * @param instant
+   *          la valeur de Temps.maintenant() à la fin de la lecture
+   */
+  void enregistrer(long valeurs, long instant) {
+    if (resynchronisation) {
+      resynchronisation = false;
+      dernieresValeurs[0] = -1;
+      dernieresValeurs[1] = -1;
+    }
+
+    long duree = dernierInstant == 0 ? 0 : instant - dernierInstant;
+    double poids = duree > 0 ? 1 - Math.exp(-(double) duree / constanteTemps) : 0;
+    dernierInstant = instant;
+
+    for (int i = 0; i < NOMBRE_COMPTEURS; i++) {
+      int valeur = ImageEntrees.compteur(valeurs, i + 1);
+      int precedente = dernieresValeurs[i];
+      dernieresValeurs[i] = valeur;
+
+      if (precedente < 0) {
+        ecarts.set(i, 0);
+        continue;
+      }
+
+      int ecart = (valeur - precedente) & MASQUE_COMPTEUR;
+      if (valeur < precedente) {
+        tours.incrementAndGet(i);
+      }
+
+      totaux.set(i, totaux.get(i) + ecart);
+      ecarts.set(i, ecart);
+
+      if (poids > 0) {
+        double frequence = Double.longBitsToDouble(frequences.get(i));
+        double mesure = ecart * 1e9 / duree;
+
+        frequences.set(i, Double.doubleToRawLongBits(frequence + poids * (mesure - frequence)));
+      }
+    }
+  }
+
+  /**
+   * Permet de prendre en compte la remise à zéro d'un compteur de la carte : la
+   * prochaine lecture compte les impulsions depuis zéro, sans passage par zéro.
+   * <p>
+   * Cette méthode est appelée par LectureEntrees.remettreAZeroCompteur(), qui
+   * l'empêche de s'intercaler entre une lecture de la carte et son
+   * enregistrement.
+   * </p>
+   * 
+   * @param chaine
+   *          le numéro du compteur (compris entre 1 et 2)
+   * 
+   * @see LectureEntrees#remettreAZeroCompteur(int)
+   */
+  void noterRemiseAZeroCarte(int chaine) {
+    int indice = indice(chaine);
+
+    if (dernieresValeurs[indice] >= 0) {
+      dernieresValeurs[indice] = 0;
+    }
+  }
+
+  /**
+   * Permet de demander que la prochaine lecture serve de nouvelle référence,
+   * sans compter d'impulsions. Les impulsions survenues entre temps sont
+   * perdues, mais un compteur remis à zéro par un redémarrage de la carte
+   * n'est pas pris pour un passage par zéro.
+   * 
+   * @see LectureEntrees#reinitialiserErreur()
+   */
+  void resynchroniser() {
+    resynchronisation = true;
+  }
+
+  /**
+   * Permet de vérifier le numéro d'un compteur et d'obtenir son indice.
+   * 
+   * @param chaine
+   *          le numéro du compteur (compris entre 1 et 2)
+   * 
+   * @return l'indice du compteur
+   */
+  private static int indice(int chaine) {
+    if (chaine < 1 || chaine > NOMBRE_COMPTEURS) {
+      throw new InvalidParameterException("Les compteurs vont de 1 à 2.");
+    }
+
+    return chaine - 1;
+  }
+}
@@ -0,0 +1,250 @@
+package projet.carte;
+
+import java.security.InvalidParameterException;
+
+import net.sf.libk8055.jk8055.JK8055Exception;
+
+/**
+ * <b>Cette classe permet de nettoyer les entrées de la carte avant qu'elles ne
+ * soient publiées par LectureEntrees.</b>
+ * <p>
+ * Deux traitements sont possibles, configurés entrée par entrée :
+ * </p>
+ * <ul>
+ * <li>un anti-rebond "N sur M" sur les entrées digitales : une entrée ne change
+ * d'état que si au moins N des M dernières lectures sont dans le nouvel état.
+ * N doit être une majorité stricte de M (2N > M) : les deux états ne peuvent
+ * alors pas être atteints en même temps sur la même fenêtre. Une lecture isolée
+ * ne provoque donc plus de front, au prix d'un retard d'au plus N - 1 lectures
+ * sur les vrais changements,</li>
+ * <li>un filtre sur les entrées analogiques (moyenne glissante, moyenne
+ * exponentielle ou médiane).</li>
+ * </ul>
+ * <p>
+ * Ces traitements compensent le bruit qui apparaît lorsque la fréquence de
+ * lecture est augmentée pour réduire la latence. Les compteurs ne sont pas
+ * modifiés par le conditionnement, mais leur temps d'anti-rebond, géré par la
+ * carte elle-même, peut être choisi ici et est envoyé à la carte lors de
+ * l'installation du conditionnement.
+ * </p>
+ * <p>
+ * Le traitement d'une lecture ne fait aucune allocation et coûte un temps
+ * constant. Un conditionnement garde l'historique des entrées : il doit être
+ * configuré avant d'être installé, et n'être installé que sur une seule
+ * lecture des entrées.
+ * </p>
+ * 
+ * @see LectureEntrees#definirConditionnement(ConditionnementEntrees)
+ * @see FiltreAnalogique
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public final class ConditionnementEntrees {
+  /**
+   * Le nombre de lectures dans l'état voulu nécessaire pour changer l'état de
+   * chaque entrée digitale (1 si l'entrée n'est pas filtrée).
+   */
+  private final int[] seuils = new int[5];
+  /**
+   * Le masque des bits de l'historique de chaque entrée digitale, un bit par
+   * lecture prise en compte.
+   */
+  private final int[] fenetres = new int[5];
+  /**
+   * L'historique de chaque entrée digitale, la lecture la plus récente dans le
+   * bit de poids faible.
+   */
+  private final int[] historiques = new int[5];
+  /**
+   * Le filtre de chaque entrée analogique, ou nul.
+   */
+  private final FiltreAnalogique[] filtres = new FiltreAnalogique[2];
+  /**
+   * Le temps d'anti-rebond de chaque compteur en millisecondes, ou -1 pour
+   * laisser celui de la carte.
+   */
+  private final int[] antiRebondCompteurs = { -1, -1 };
+  /**
+   * Les entrées digitales après anti-rebond.
+   */
+  private int digitales;
+  /**
+   * Indique si une lecture a déjà été traitée.
+   */
+  private boolean initialise;
+
+  /**
+   * Permet de créer un conditionnement qui ne modifie aucune entrée.
+   */
+  public ConditionnementEntrees() {
+    for (int i = 0; i < seuils.length; i++) {
+      seuils[i] = 1;
+      fenetres[i] = 1;
+    }
+  }
+
+  /**
+   * Permet de définir l'anti-rebond d'une entrée digitale.
+   * 
+   * @param chaine
+   *          le numéro de l'entrée (compris entre 1 et 5)
+   * @param seuil
+   *          le nombre N de lectures dans le nouvel état nécessaires pour
+   *          changer d'état (plus de la moitié de M)
+   * @param fenetre
+   *          le nombre M de dernières lectures prises en compte (au plus 32)
+   */
+  public void definirAntiRebond(int chaine, int seuil, int fenetre) {
+    if (chaine < 1 || chaine > 5) {
+      throw new InvalidParameterException("Les entrées digitales vont de 1 à 5.");
+    }
+    if (fenetre < 1 || fenetre > 32 || seuil > fenetre || 2 * seuil <= fenetre) {
+      throw new InvalidParameterException("Il faut M / 2 < N <= M <= 32.");
+    }
+
+    seuils[chaine - 1] = seuil;
+    fenetres[chaine - 1] = fenetre == 32 ? -1 : (1 << fenetre) - 1;
+    initialise = false;
+  }
+
+  /**
+   * Permet de définir le même anti-rebond pour toutes les entrées digitales.
+   * 
+   * @param seuil
+   *          le nombre N de lectures dans le nouvel état nécessaires pour
+   *          changer d'état (plus de la moitié de M)
+   * @param fenetre
+   *          le nombre M de dernières lectures prises en compte (au plus 32)
+   * 
+   * @see ConditionnementEntrees#definirAntiRebond(int, int, int)
+   */
+  public void definirAntiRebond(int seuil, int fenetre) {
+    for (int chaine = 1; chaine <= 5; chaine++) {
+      definirAntiRebond(chaine, seuil, fenetre);
+    }
+  }
+
+  /**
+   * Permet de définir le filtre d'une entrée analogique.
+   * 
+   * @param chaine
+   *          le numéro de l'entrée (compris entre 1 et 2)
+   * @param filtre
+   *          le filtre, ou nul pour ne pas filtrer l'entrée
+   */
+  public void definirFiltre(int chaine, FiltreAnalogique filtre) {
+    if (chaine < 1 || chaine > 2) {
+      throw new InvalidParameterException("Les entrées analogiques vont de 1 à 2.");
+    }
+
+    filtres[chaine - 1] = filtre;
+    initialise = false;
+  }
+
+  /**
+   * Permet de choisir le temps d'anti-rebond d'un compteur, appliqué par la
+   * carte elle-même.
+   * 
+   * @param chaine
+   *          le numéro du compteur (compris entre 1 et 2)
+   * @param duree
+   *          le temps d'anti-rebond en millisecondes (compris entre 0 et 5000)
+   * 
+   * @see LiaisonCarte#definirAntiRebond(int, int, int)
+   */
+  public void definirAntiRebondCompteur(int chaine, int duree) {
+    if (chaine < 1 || chaine > 2) {
+      throw new InvalidParameterException("Les compteurs vont de 1 à 2.");
+    }
+    if (duree < 0 || duree > 5000) {
+      throw new InvalidParameterException("Le temps d'anti-rebond va de 0 à 5000 ms.");
+    }
+
+    antiRebondCompteurs[chaine - 1] = duree;
+  }
+
+  /**
+   * Permet d'envoyer à une carte le temps d'anti-rebond des compteurs, s'il a
+   * été choisi.
+   * 
+   * @param adresse
+   *          l'adresse de la carte
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur intervient lors du dialogue avec la carte
+   */
+  void configurerCarte(int adresse) throws JK8055Exception {
+    for (int chaine = 1; chaine <= 2; chaine++) {
+      if (antiRebondCompteurs[chaine - 1] >= 0) {
+        LiaisonCarte.definirAntiRebond(adresse, chaine, antiRebondCompteurs[chaine - 1]);
+      }
+    }
+  }
+
+  /**
+   * Permet de traiter une lecture.
+   * <p>
+   * Lors de la première lecture, l'historique de chaque entrée est rempli avec
+   * sa valeur, qui est rendue telle quelle.
+   * </p>
+   * 
+   * @param valeurs
+   *          les entrées lues sous forme compacte
+   * 
+   * @return les entrées traitées sous forme compacte
+   * 
+   * @see ImageEntrees
+   */
+  public long conditionner(long valeurs) {
+    int brutes = ImageEntrees.digitales(valeurs);
+
+    if (!initialise) {
+      for (int i = 0; i < historiques.length; i++) {
+        historiques[i] = ((brutes >>> i) & 1) != 0 ? fenetres[i] : 0;
+      }
+      for (FiltreAnalogique filtre : filtres) {
+        if (filtre != null) {
+          filtre.reinitialiser();
+        }
+      }
+      digitales = brutes;
+      initialise = true;
+    } else {
+      for (int i = 0; i < historiques.length; i++) {
+        int historique = (historiques[i] << 1 | (brutes >>> i) & 1) & fenetres[i];
+        int actives = Integer.bitCount(historique);
+
+        historiques[i] = historique;
+        if ((digitales & (1 << i)) != 0) {
+          if (Integer.bitCount(fenetres[i]) - actives >= seuils[i]) {
+            digitales &= ~(1 << i);
+          }
+        } else if (actives >= seuils[i]) {
+          digitales |= 1 << i;
+        }
+      }
+    }
+
+    int analogique1 = ImageEntrees.analogique(valeurs, 1);
+    int analogique2 = ImageEntrees.analogique(valeurs, 2);
+
+    if (filtres[0] != null) {
+      analogique1 = filtres[0].filtrer(analogique1);
+    }
+    if (filtres[1] != null) {
+      analogique2 = filtres[1].filtrer(analogique2);
+    }
+
+    return ImageEntrees.compacter(digitales, analogique1, analogique2,
+        ImageEntrees.compteur(valeurs, 1), ImageEntrees.compteur(valeurs, 2));
+  }
+
+  /**
+   * Permet d'oublier l'historique des entrées, par exemple après une
+   * reconnexion de la carte.
+   */
+  public void reinitialiser() {
+    initialise = false;
+  }
+}
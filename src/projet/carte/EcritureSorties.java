@@ -1,309 +1,1345 @@
-package projet.carte;
-
-import java.security.InvalidParameterException;
-import java.util.ArrayList;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
-
-import net.sf.libk8055.jk8055.JK8055Exception;
-
-/**
- * <b>Cette classe permet d'crire  n'importe quel moment la valeur des sorties
- * de la carte.</b>
- * <p>
- * Elle fonctionne en tant une tche. Une fois lance, elle va continuellement
- * aller lire le contenu de la file d'criture et faire ce qui y est demand. Il
- * est possible d'ajouter des lments  la file  n'importe quel moment via
- * l'une des deux mthodes d'criture. Pour l'arrter, un appel  la mthode
- * finTache() suffit.
- * </p>
- * <p>
- * En cas d'erreur elle va s'arrter et enregistrer l'erreur. Elle va ensuite
- * l'envoyer  chaque tentative d'criture. Il vous faudra appeler la mthode
- * reinitialiserErreur() avant de pouvoir relancer la tche.
- * </p>
- * 
- * @see LiaisonCarte
- * 
- * @author Merwen CANN et Raphal CHARRE - Novembre 2017
- * @version 1.0
- */
-public class EcritureSorties extends Thread {
-  /**
-   * Sert de verrou pour la tche.
-   * 
-   * @see EcritureSorties#ecrireDigitale(int, boolean)
-   * @see EcritureSorties#ecrireAnalogique(int, int)
-   * @see EcritureSorties#run()
-   */
-  private Lock verrou = new ReentrantLock();
-  /**
-   * Contient l'unique instance autorise de cette classe.
-   * 
-   * @see EcritureSorties#recupererInstance()
-   * @see EcritureSorties#EcritureSorties()
-   * @see EcritureSorties#definirInstance(EcritureSorties)
-   */
-  private static EcritureSorties instance;
-  /**
-   * Correspond  la file d'criture.
-   * <p>
-   * Contient des tableaux d'entier dcrivant les critures successives 
-   * effectuer. Ces tableaux ont comme format :
-   * </p>
-   * <ul>
-   * <li>criture analogique (0) ou digitale (1)</li>
-   * <li>la valeur  crire</li>
-   * <li>le numro de la sortie qu'il faut crire</li>
-   * </ul>
-   * 
-   * @see EcritureSorties#ecrireDigitale(int, boolean)
-   * @see EcritureSorties#ecrireAnalogique(int, int)
-   * @see EcritureSorties#run()
-   */
-  private ArrayList<int[]> ecritures = new ArrayList<int[]>();
-  /**
-   * Permet de savoir si l'on doit arrter l'criture ou que l'on peut continuer.
-   * 
-   * @see EcritureSorties#finTache()
-   * @see EcritureSorties#reinitialiserErreur()
-   * @see EcritureSorties#run()
-   */
-  private boolean continuer = true;
-  /**
-   * Contient la dernire erreur de dialogue avec la carte, ou est nulle si tout
-   * va bien.
-   * 
-   * @see EcritureSorties#reinitialiserErreur()
-   * @see EcritureSorties#ecrireDigitale(int, boolean)
-   * @see EcritureSorties#ecrireAnalogique(int, int)
-   * @see EcritureSorties#run()
-   */
-  private JK8055Exception erreur;
-
-  /**
-   * Le constructeur de la classe.
-   * <p>
-   * Il se contente d'initialiser l'instance de cette classe. Une seule instance
-   * tant autorise  la fois, cette mthode est prive.
-   * </p>
-   * 
-   * @see EcritureSorties#definirInstance(EcritureSorties)
-   */
-  private EcritureSorties() {
-    definirInstance(this);
-  }
-
-  /**
-   * Permet de dfinir l'instance de la classe.
-   * 
-   * @param instance
-   *          la nouvelle instance de la classe
-   * 
-   * @see EcritureSorties#instance
-   */
-  private static void definirInstance(EcritureSorties instance) {
-    EcritureSorties.instance = instance;
-  }
-
-  /**
-   * Permet de rcuprer l'unique instance de la classe, ou d'en crer une si elle
-   * n'existe pas.
-   * 
-   * @return l'unique instance de la classe
-   * 
-   * @see EcritureSorties#instance
-   * @see EcritureSorties#EcritureSorties()
-   * @see EcritureSorties#erreur
-   */
-  public static synchronized EcritureSorties recupererInstance() {
-    if (instance == null) {
-      return new EcritureSorties();
-    }
-
-    return instance;
-  }
-
-  /**
-   * Permet d'ajouter l'criture d'une valeur sur une sortie digitale  la file.
-   * <p>
-   * Elle renverra une erreur si  un moment de l'criture en continu une erreur
-   * est survenue. Il est possible d'utiliser la mthode reinitialiserErreur()
-   * pour pouvoir  nouveau s'en servir.
-   * </p>
-   * 
-   * @param chaine
-   *          le numro de la sortie  laquelle envoyer la valeur (comprise entre
-   *          1 et 5)
-   * @param valeur
-   *          la nouvelle valeur de la sortie
-   * 
-   * @throws JK8055Exception
-   *           quand une erreur est survenue lors du dialogue avec la carte
-   * 
-   * @see EcritureSorties#ecritures
-   * @see EcritureSorties#erreur
-   * @see EcritureSorties#verrou
-   */
-  public void ecrireDigitale(int chaine, boolean valeur) throws JK8055Exception {
-    if (erreur != null) {
-      throw erreur;
-    }
-
-    if (chaine < 1 || chaine > 5) {
-      throw new InvalidParameterException("Les sorties digitales vont de 1  5.");
-    }
-
-    int[] ajout = new int[3];
-
-    ajout[0] = 0;
-    ajout[1] = chaine;
-    ajout[2] = valeur ? 1 : 0;
-
-    verrou.lock();
-    try {
-      ecritures.add(ajout);
-
-      verrou.notifyAll();
-    } finally {
-      verrou.unlock();
-    }
-  }
-
-  /**
-   * Permet d'ajouter l'criture d'une valeur sur une sortie analogique  la file.
-   * <p>
-   * Elle renverra une erreur si  un moment de l'criture en continu une erreur
-   * est survenue. Il est possible d'utiliser la mthode reinitialiserErreur()
-   * pour pouvoir  nouveau s'en servir.
-   * </p>
-   * 
-   * @param chaine
-   *          le numro de la sortie  laquelle envoyer la valeur (comprise entre
-   *          1 et 2)
-   * @param valeur
-   *          la nouvelle valeur de la sortie (comprise entre 0 et 255)
-   * 
-   * @throws JK8055Exception
-   *           quand une erreur est survenue lors du dialogue avec la carte
-   * 
-   * @see EcritureSorties#ecritures
-   * @see EcritureSorties#erreur
-   * @see EcritureSorties#verrou
-   */
-  public void ecrireAnalogique(int chaine, int valeur) throws JK8055Exception {
-    if (erreur != null) {
-      throw erreur;
-    }
-
-    if (valeur < 0 || valeur > 255) {
-      throw new InvalidParameterException("La valeur doit tre comprise entre 0 et 255.");
-    }
-    if (chaine < 1 || chaine > 2) {
-      throw new InvalidParameterException("Les sorties analogiques vont de 1  2.");
-    }
-
-    int[] ajout = new int[3];
-
-    ajout[0] = 1;
-    ajout[1] = chaine;
-    ajout[2] = valeur;
-
-    verrou.lock();
-    try {
-      ecritures.add(ajout);
-
-      verrou.notifyAll();
-    } finally {
-      verrou.unlock();
-    }
-  }
-
-  /**
-   * Permet de supprimer toute erreur enregistre, ce qui permet de relancer
-   * l'criture.
-   * <p>
-   * Cela n'entreprend nanmoins aucune action correctrice, et il est assum que
-   * l'utilisateur a rgl le problme ayant caus l'erreur avant d'appeler cette
-   * mthode.
-   * </p>
-   * 
-   * @see EcritureSorties#erreur
-   * @see EcritureSorties#continuer
-   */
-  public void reinitialiserErreur() {
-    erreur = null;
-    continuer = true;
-  }
-
-  /**
-   * Permet d'arrter l'criture.
-   * <p>
-   * Cette mthode doit tre utilise lors de la fermeture du programme, car elle
-   * est le seul moyen de tuer cette tche.
-   * </p>
-   * 
-   * @see EcritureSorties#continuer
-   */
-  public void finTache() {
-    continuer = false;
-  }
-
-  /**
-   * La mthode permettant de lancer la tche.
-   * <p>
-   * Elle va lire en boucle la file d'criture, puis crire sur les sorties, et ne
-   * s'arrtera que lorsque une erreur sera survenue, ou qu'on lui aura demand de
-   * s'arrter.
-   * </p>
-   * 
-   * @see EcritureSorties#ecritures
-   * @see EcritureSorties#erreur
-   * @see EcritureSorties#continuer
-   * @see EcritureSorties#verrou
-   * @see LiaisonCarte#sortieDigitale(int, boolean)
-   * @see LiaisonCarte#sortieAnalogique(int, int)
-   */
-  @Override
-  public void run() {
-    while (continuer) {
-      try {
-        if (ecritures.size() > 0) {
-          int[] ecriture;
-
-          verrou.lock();
-          try {
-            ecriture = ecritures.get(0);
-          } finally {
-            verrou.unlock();
-          }
-
-          if (ecriture[0] == 0) {
-            LiaisonCarte.sortieDigitale(ecriture[1], ecriture[2] == 1);
-          } else {
-            LiaisonCarte.sortieAnalogique(ecriture[1], ecriture[2]);
-          }
-
-          verrou.lock();
-          try {
-            ecritures.remove(0);
-          } finally {
-            verrou.unlock();
-          }
-        } else {
-          verrou.lock();
-          try {
-            verrou.wait();
-          } finally {
-            verrou.unlock();
-          }
-        }
-      } catch (InterruptedException e) {
-        e.printStackTrace();
-      } catch (JK8055Exception e) {
-        erreur = e;
-        continuer = false;
-      }
-    }
-  }
-}
+package projet.carte;
+
+import java.security.InvalidParameterException;
+import java.util.Iterator;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import net.sf.libk8055.jk8055.JK8055Exception;
+
+/**
+ * <b>Cette classe permet d'écrire à n'importe quel moment la valeur des sorties
+ * de la carte.</b>
+ * <p>
+ * Elle fonctionne en étant une tâche. Une fois lancée, elle va continuellement
+ * aller lire le contenu de la file d'écriture et faire ce qui y est demandé. Il
+ * est possible d'ajouter des éléments à la file à n'importe quel moment via
+ * l'une des deux méthodes d'écriture. Pour l'arrêter, un appel à la méthode
+ * finTache() suffit.
+ * </p>
+ * <p>
+ * Une instance existe pour chaque carte, obtenue via la méthode
+ * recupererInstance() en précisant l'adresse de la carte.
+ * </p>
+ * <p>
+ * En cas d'erreur elle va suspendre l'écriture et enregistrer l'erreur. Elle va
+ * ensuite l'envoyer à chaque tentative d'écriture. Les écritures déjà dans la
+ * file, ainsi que celles dont l'envoi a échoué, sont conservées et envoyées
+ * après un appel à la méthode reinitialiserErreur(), ce que fait
+ * SurveillanceCarte une fois la carte reconnectée.
+ * </p>
+ * <p>
+ * Les écritures urgentes, par exemple la mise en sécurité de l'installation,
+ * passent par une seconde file qui n'est jamais bloquée. Elle est vidée après
+ * la file habituelle lors de chaque envoi : une écriture urgente part donc au
+ * plus tard avec l'envoi qui suit celui en cours, quel que soit le nombre
+ * d'écritures normales en attente. Avec une BoucleCarte, elle part au début de
+ * la période suivante. Sur une même sortie, la plus récente des écritures
+ * envoyées ensemble l'emporte, quelle que soit sa file.
+ * </p>
+ * <p>
+ * Les méthodes d'écriture asynchrone retournent un CompletableFuture, complété
+ * une fois l'écriture arrivée sur la carte, ou en erreur si le dialogue avec la
+ * carte échoue. L'appelant peut ainsi enchaîner ses décisions sans attendre ni
+ * consulter l'erreur enregistrée. Contrairement aux autres écritures, elles
+ * font une allocation à chaque appel.
+ * </p>
+ * 
+ * @see LiaisonCarte
+ * 
+ * @author Merwen CANN et Raphaël CHARRE - Novembre 2017
+ * @version 1.0
+ */
+public class EcritureSorties extends Thread {
+  /**
+   * Nombre maximal d'écritures en attente dans la file.
+   * 
+   * @see EcritureSorties#ecritures
+   */
+  public static final int CAPACITE_FILE = 1024;
+  /**
+   * Nombre maximal d'écritures urgentes en attente dans leur file. Au-delà,
+   * elles sont fusionnées entre elles sans jamais bloquer.
+   * 
+   * @see EcritureSorties#urgentes
+   */
+  public static final int CAPACITE_FILE_URGENTE = 64;
+  /**
+   * Durée en nanosecondes pendant laquelle une tâche attend avant de réessayer
+   * d'ajouter une écriture à la file lorsque celle-ci est pleine.
+   * 
+   * @see EcritureSorties#ajouter(long)
+   */
+  private static final long ATTENTE_FILE_PLEINE = 100000L;
+  /**
+   * Contient l'unique instance autorisée de cette classe pour chaque carte,
+   * indexée par l'adresse de la carte.
+   * 
+   * @see EcritureSorties#recupererInstance(int)
+   * @see EcritureSorties#EcritureSorties(int)
+   * @see EcritureSorties#definirInstance(EcritureSorties)
+   */
+  private static final EcritureSorties[] instances = new EcritureSorties[LiaisonCarte.NOMBRE_CARTES];
+  /**
+   * L'adresse de la carte concernée.
+   * 
+   * @see EcritureSorties#recupererAdresse()
+   */
+  private final int adresse;
+  /**
+   * Correspond à la file d'écriture.
+   * <p>
+   * Contient les écritures successives à effectuer, chacune sous la forme d'un
+   * entier long décrivant les sorties à modifier et leurs nouvelles valeurs.
+   * Aucune allocation n'est faite lors de l'ajout d'une écriture.
+   * </p>
+   * 
+   * @see Commande
+   * @see EcritureSorties#ecrireDigitale(int, boolean)
+   * @see EcritureSorties#ecrireAnalogique(int, int)
+   * @see EcritureSorties#run()
+   */
+  private final FileCommandes ecritures = new FileCommandes(CAPACITE_FILE);
+  /**
+   * Correspond à la file des écritures urgentes, vidée après la file
+   * d'écriture lors de chaque envoi.
+   * 
+   * @see PrioriteEcriture#URGENTE
+   * @see EcritureSorties#executerEcriture()
+   */
+  private final FileCommandes urgentes = new FileCommandes(CAPACITE_FILE_URGENTE);
+  /**
+   * Permet de savoir si l'on doit arrêter l'écriture ou que l'on peut continuer.
+   * 
+   * @see EcritureSorties#finTache()
+   * @see EcritureSorties#reinitialiserErreur()
+   * @see EcritureSorties#run()
+   */
+  private volatile boolean continuer = true;
+  /**
+   * Contient la dernière erreur de dialogue avec la carte, ou est nulle si tout
+   * va bien.
+   * 
+   * @see EcritureSorties#reinitialiserErreur()
+   * @see EcritureSorties#ecrireDigitale(int, boolean)
+   * @see EcritureSorties#ecrireAnalogique(int, int)
+   * @see EcritureSorties#run()
+   */
+  private volatile JK8055Exception erreur;
+  /**
+   * Nombre total d'écritures retirées de la file et envoyées à la carte.
+   * 
+   * @see EcritureSorties#recupererNombreEcritures()
+   * @see EcritureSorties#run()
+   */
+  private volatile long nombreEcritures;
+  /**
+   * Nombre total d'envois effectués vers la carte, chaque envoi regroupant
+   * toutes les écritures présentes dans la file à ce moment.
+   * 
+   * @see EcritureSorties#recupererNombreEnvois()
+   * @see EcritureSorties#run()
+   */
+  private volatile long nombreEnvois;
+  /**
+   * Temps passé par chaque écriture dans la file, entre son ajout et son
+   * retrait par la tâche d'écriture.
+   * 
+   * @see EcritureSorties#recupererLatenceFile()
+   * @see EcritureSorties#run()
+   */
+  private final HistogrammeLatence latenceFile = new HistogrammeLatence();
+  /**
+   * Temps passé par chaque écriture urgente dans sa file.
+   * 
+   * @see EcritureSorties#recupererLatenceFileUrgente()
+   * @see EcritureSorties#executerEcriture()
+   */
+  private final HistogrammeLatence latenceFileUrgente = new HistogrammeLatence();
+  /**
+   * Durée de chaque envoi vers la carte, attente du verrou de LiaisonCarte
+   * comprise.
+   * 
+   * @see EcritureSorties#recupererLatenceEcriture()
+   * @see EcritureSorties#run()
+   */
+  private final HistogrammeLatence latenceEcriture = new HistogrammeLatence();
+  /**
+   * Nombre total d'écritures demandées, incrémenté par les tâches qui écrivent.
+   * <p>
+   * Plusieurs tâches pouvant écrire en même temps, un compteur réparti est
+   * utilisé pour qu'elles ne se disputent pas une même variable.
+   * </p>
+   * 
+   * @see EcritureSorties#recupererNombreDemandes()
+   * @see EcritureSorties#ajouter(long)
+   */
+  private final LongAdder nombreDemandes = new LongAdder();
+  /**
+   * Les écritures retirées des files et fusionnées, mais pas encore envoyées,
+   * ou Commande.AUCUNE. Si l'envoi échoue, elles sont gardées et envoyées en
+   * premier lors de l'envoi suivant.
+   * 
+   * @see EcritureSorties#executerEcriture()
+   */
+  private long commandeEnAttente = Commande.AUCUNE;
+  /**
+   * Le nombre d'écritures contenues dans la commande en attente.
+   * 
+   * @see EcritureSorties#commandeEnAttente
+   */
+  private int nombreEnAttente;
+  /**
+   * L'instant de la dernière écriture normale de chaque sortie lors du vidage
+   * en cours, en unités de 1024 nanosecondes.
+   * 
+   * @see EcritureSorties#departager(long, long)
+   */
+  private final int[] instantsNormales = new int[7];
+  /**
+   * L'instant de la dernière écriture urgente de chaque sortie lors du vidage
+   * en cours, en unités de 1024 nanosecondes.
+   * 
+   * @see EcritureSorties#departager(long, long)
+   */
+  private final int[] instantsUrgentes = new int[7];
+  /**
+   * Contient la dernière erreur de dialogue avec la carte, même après un appel
+   * à reinitialiserErreur().
+   * 
+   * @see EcritureSorties#recupererDerniereErreur()
+   * @see EcritureSorties#run()
+   */
+  private volatile JK8055Exception derniereErreur;
+  /**
+   * Les accusés des écritures asynchrones qui n'ont pas encore été envoyées.
+   * 
+   * @see EcritureSorties#ecrireImageAsynchrone(int, int, PrioriteEcriture)
+   * @see EcritureSorties#acquitter(long)
+   */
+  private final ConcurrentLinkedQueue<AccuseEcriture> accuses = new ConcurrentLinkedQueue<AccuseEcriture>();
+  /**
+   * Le numéro du dernier vidage des files, incrémenté juste avant que la tâche
+   * d'écriture ne les vide. Une écriture ajoutée avant que ce numéro ne soit lu
+   * fait donc forcément partie du vidage suivant.
+   * 
+   * @see EcritureSorties#executerEcriture()
+   */
+  private volatile long numeroVidage;
+  /**
+   * La valeur de Temps.maintenant() à la fin du dernier envoi réussi.
+   * 
+   * @see EcritureSorties#executerEcriture()
+   */
+  private volatile long instantDernierEnvoi;
+
+  /**
+   * Le constructeur de la classe.
+   * <p>
+   * Il se contente d'initialiser l'instance de cette classe. Une seule instance
+   * étant autorisée à la fois pour chaque carte, cette méthode est privée.
+   * </p>
+   * 
+   * @param adresse
+   *          l'adresse de la carte concernée
+   * 
+   * @see EcritureSorties#definirInstance(EcritureSorties)
+   */
+  private EcritureSorties(int adresse) {
+    super("EcritureSorties-" + adresse);
+    this.adresse = adresse;
+    urgentes.definirPolitique(PolitiqueDebordement.FUSIONNER);
+    definirInstance(this);
+  }
+
+  /**
+   * Permet de définir l'instance de la classe.
+   * 
+   * @param instance
+   *          la nouvelle instance de la classe
+   * 
+   * @see EcritureSorties#instances
+   */
+  private static void definirInstance(EcritureSorties instance) {
+    instances[instance.adresse] = instance;
+  }
+
+  /**
+   * Permet de récupérer l'unique instance de la classe pour la carte
+   * LiaisonCarte.ADRESSE_DEFAUT, ou d'en créer une si elle n'existe pas.
+   * 
+   * @return l'unique instance de la classe pour cette carte
+   * 
+   * @see EcritureSorties#recupererInstance(int)
+   */
+  public static EcritureSorties recupererInstance() {
+    return recupererInstance(LiaisonCarte.ADRESSE_DEFAUT);
+  }
+
+  /**
+   * Permet de récupérer l'unique instance de la classe pour une carte, ou d'en
+   * créer une si elle n'existe pas.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * 
+   * @return l'unique instance de la classe pour cette carte
+   * 
+   * @see EcritureSorties#instances
+   * @see EcritureSorties#EcritureSorties(int)
+   * @see EcritureSorties#erreur
+   */
+  public static synchronized EcritureSorties recupererInstance(int adresse) {
+    LiaisonCarte.verifierAdresse(adresse);
+
+    if (instances[adresse] == null) {
+      return new EcritureSorties(adresse);
+    }
+
+    return instances[adresse];
+  }
+
+  /**
+   * Permet d'oublier l'instance d'une carte, le prochain appel à
+   * recupererInstance() en créant une nouvelle.
+   * <p>
+   * SimulationScenario s'en sert à la fin d'une simulation, afin qu'une
+   * utilisation réelle de la carte ne reprenne pas l'état laissé par le
+   * simulateur et l'horloge virtuelle. L'instance oubliée ne doit pas être en
+   * cours d'exécution.
+   * </p>
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * 
+   * @see EcritureSorties#instances
+   */
+  public static synchronized void oublierInstance(int adresse) {
+    LiaisonCarte.verifierAdresse(adresse);
+
+    instances[adresse] = null;
+  }
+
+  /**
+   * Permet de récupérer l'adresse de la carte concernée par cette instance.
+   * 
+   * @return l'adresse de la carte
+   * 
+   * @see EcritureSorties#adresse
+   */
+  public int recupererAdresse() {
+    return adresse;
+  }
+
+  /**
+   * Permet d'ajouter l'écriture d'une valeur sur une sortie digitale à la file.
+   * <p>
+   * Elle renverra une erreur si à un moment de l'écriture en continu une erreur
+   * est survenue. Il est possible d'utiliser la méthode reinitialiserErreur()
+   * pour pouvoir à nouveau s'en servir.
+   * </p>
+   * 
+   * @param chaine
+   *          le numéro de la sortie à laquelle envoyer la valeur (comprise entre
+   *          1 et 5)
+   * @param valeur
+   *          la nouvelle valeur de la sortie
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur est survenue lors du dialogue avec la carte
+   * 
+   * @see EcritureSorties#ecritures
+   * @see EcritureSorties#erreur
+   */
+  public void ecrireDigitale(int chaine, boolean valeur) throws JK8055Exception {
+    ecrireDigitale(chaine, valeur, PrioriteEcriture.NORMALE);
+  }
+
+  /**
+   * Permet d'ajouter l'écriture d'une valeur sur une sortie digitale à la file
+   * correspondant à sa priorité.
+   * 
+   * @param chaine
+   *          le numéro de la sortie à laquelle envoyer la valeur (comprise entre
+   *          1 et 5)
+   * @param valeur
+   *          la nouvelle valeur de la sortie
+   * @param priorite
+   *          la priorité de l'écriture
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur est survenue lors du dialogue avec la carte
+   * 
+   * @see EcritureSorties#ecrireDigitale(int, boolean)
+   * @see PrioriteEcriture
+   */
+  public void ecrireDigitale(int chaine, boolean valeur, PrioriteEcriture priorite)
+      throws JK8055Exception {
+    if (erreur != null) {
+      throw erreur;
+    }
+
+    if (chaine < 1 || chaine > 5) {
+      throw new InvalidParameterException("Les sorties digitales vont de 1 à 5.");
+    }
+
+    ajouter(Commande.digitale(chaine, valeur), priorite);
+  }
+
+  /**
+   * Permet d'ajouter l'écriture d'une valeur sur une sortie analogique à la file.
+   * <p>
+   * Elle renverra une erreur si à un moment de l'écriture en continu une erreur
+   * est survenue. Il est possible d'utiliser la méthode reinitialiserErreur()
+   * pour pouvoir à nouveau s'en servir.
+   * </p>
+   * 
+   * @param chaine
+   *          le numéro de la sortie à laquelle envoyer la valeur (comprise entre
+   *          1 et 2)
+   * @param valeur
+   *          la nouvelle valeur de la sortie (comprise entre 0 et 255)
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur est survenue lors du dialogue avec la carte
+   * 
+   * @see EcritureSorties#ecritures
+   * @see EcritureSorties#erreur
+   */
+  public void ecrireAnalogique(int chaine, int valeur) throws JK8055Exception {
+    ecrireAnalogique(chaine, valeur, PrioriteEcriture.NORMALE);
+  }
+
+  /**
+   * Permet d'ajouter l'écriture d'une valeur sur une sortie analogique à la
+   * file correspondant à sa priorité.
+   * 
+   * @param chaine
+   *          le numéro de la sortie à laquelle envoyer la valeur (comprise entre
+   *          1 et 2)
+   * @param valeur
+   *          la nouvelle valeur de la sortie (comprise entre 0 et 255)
+   * @param priorite
+   *          la priorité de l'écriture
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur est survenue lors du dialogue avec la carte
+   * 
+   * @see EcritureSorties#ecrireAnalogique(int, int)
+   * @see PrioriteEcriture
+   */
+  public void ecrireAnalogique(int chaine, int valeur, PrioriteEcriture priorite)
+      throws JK8055Exception {
+    if (erreur != null) {
+      throw erreur;
+    }
+
+    if (valeur < 0 || valeur > 255) {
+      throw new InvalidParameterException("La valeur doit être comprise entre 0 et 255.");
+    }
+    if (chaine < 1 || chaine > 2) {
+      throw new InvalidParameterException("Les sorties analogiques vont de 1 à 2.");
+    }
+
+    ajouter(Commande.analogique(chaine, valeur), priorite);
+  }
+
+  /**
+   * Permet d'ajouter à la file l'écriture de toutes les sorties à la fois.
+   * <p>
+   * Les sept sorties sont modifiées par un seul envoi vers la carte. Elle
+   * renverra une erreur si à un moment de l'écriture en continu une erreur est
+   * survenue.
+   * </p>
+   * 
+   * @param digitales
+   *          la valeur des sorties digitales (un bit par sortie, le bit 0
+   *          correspondant à la sortie 1)
+   * @param analogique1
+   *          la valeur de la première sortie analogique (comprise entre 0 et
+   *          255)
+   * @param analogique2
+   *          la valeur de la seconde sortie analogique (comprise entre 0 et 255)
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur est survenue lors du dialogue avec la carte
+   * 
+   * @see EcritureSorties#ecritures
+   * @see EcritureSorties#erreur
+   */
+  public void ecrireSorties(int digitales, int analogique1, int analogique2)
+      throws JK8055Exception {
+    ecrireSorties(digitales, analogique1, analogique2, PrioriteEcriture.NORMALE);
+  }
+
+  /**
+   * Permet d'ajouter l'écriture de toutes les sorties à la fois à la file
+   * correspondant à sa priorité.
+   * 
+   * @param digitales
+   *          la valeur des sorties digitales (un bit par sortie, le bit 0
+   *          correspondant à la sortie 1)
+   * @param analogique1
+   *          la valeur de la première sortie analogique (comprise entre 0 et
+   *          255)
+   * @param analogique2
+   *          la valeur de la seconde sortie analogique (comprise entre 0 et 255)
+   * @param priorite
+   *          la priorité de l'écriture
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur est survenue lors du dialogue avec la carte
+   * 
+   * @see EcritureSorties#ecrireSorties(int, int, int)
+   * @see PrioriteEcriture
+   */
+  public void ecrireSorties(int digitales, int analogique1, int analogique2,
+      PrioriteEcriture priorite) throws JK8055Exception {
+    if (erreur != null) {
+      throw erreur;
+    }
+
+    if (analogique1 < 0 || analogique1 > 255 || analogique2 < 0 || analogique2 > 255) {
+      throw new InvalidParameterException("La valeur doit être comprise entre 0 et 255.");
+    }
+
+    ajouter(Commande.complete((digitales & 0x1F) | analogique1 << 8 | analogique2 << 16),
+        priorite);
+  }
+
+  /**
+   * Permet d'ajouter à la file l'écriture d'une partie des sorties à la fois.
+   * <p>
+   * Les sorties choisies sont modifiées par un seul envoi vers la carte, les
+   * autres gardent leur valeur. Cela permet de n'envoyer que les sorties qui ont
+   * changé sans écraser celles écrites par ailleurs. Un masque vide n'ajoute
+   * rien à la file.
+   * </p>
+   * 
+   * @param image
+   *          la nouvelle valeur des sorties (les sorties digitales dans les bits
+   *          0 à 4, puis un octet par sortie analogique)
+   * @param sorties
+   *          le masque des sorties à écrire, un bit par sortie (les sorties
+   *          digitales en premier)
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur est survenue lors du dialogue avec la carte
+   * 
+   * @see EcritureSorties#ecrireSorties(int, int, int)
+   * @see EcritureSorties#ecritures
+   */
+  public void ecrireImage(int image, int sorties) throws JK8055Exception {
+    ecrireImage(image, sorties, PrioriteEcriture.NORMALE);
+  }
+
+  /**
+   * Permet d'ajouter l'écriture d'une partie des sorties à la fois à la file
+   * correspondant à sa priorité.
+   * 
+   * @param image
+   *          la nouvelle valeur des sorties (les sorties digitales dans les bits
+   *          0 à 4, puis un octet par sortie analogique)
+   * @param sorties
+   *          le masque des sorties à écrire, un bit par sortie (les sorties
+   *          digitales en premier)
+   * @param priorite
+   *          la priorité de l'écriture
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur est survenue lors du dialogue avec la carte
+   * 
+   * @see EcritureSorties#ecrireImage(int, int)
+   * @see PrioriteEcriture
+   */
+  public void ecrireImage(int image, int sorties, PrioriteEcriture priorite)
+      throws JK8055Exception {
+    if (erreur != null) {
+      throw erreur;
+    }
+
+    long commande = Commande.partielle(image, sorties);
+
+    if (commande != Commande.AUCUNE) {
+      ajouter(commande, priorite);
+    }
+  }
+
+  /**
+   * Permet d'ajouter l'écriture d'une valeur sur une sortie digitale à la file,
+   * sans attendre son envoi.
+   * 
+   * @param chaine
+   *          le numéro de la sortie à laquelle envoyer la valeur (comprise entre
+   *          1 et 5)
+   * @param valeur
+   *          la nouvelle valeur de la sortie
+   * 
+   * @return l'accusé de l'écriture
+   * 
+   * @see EcritureSorties#ecrireImageAsynchrone(int, int, PrioriteEcriture)
+   */
+  public CompletableFuture<Long> ecrireDigitaleAsynchrone(int chaine, boolean valeur) {
+    return ecrireDigitaleAsynchrone(chaine, valeur, PrioriteEcriture.NORMALE);
+  }
+
+  /**
+   * Permet d'ajouter l'écriture d'une valeur sur une sortie digitale à la file
+   * correspondant à sa priorité, sans attendre son envoi.
+   * 
+   * @param chaine
+   *          le numéro de la sortie à laquelle envoyer la valeur (comprise entre
+   *          1 et 5)
+   * @param valeur
+   *          la nouvelle valeur de la sortie
+   * @param priorite
+   *          la priorité de l'écriture
+   * 
+   * @return l'accusé de l'écriture
+   * 
+   * @see EcritureSorties#ecrireImageAsynchrone(int, int, PrioriteEcriture)
+   * @see PrioriteEcriture
+   */
+  public CompletableFuture<Long> ecrireDigitaleAsynchrone(int chaine, boolean valeur,
+      PrioriteEcriture priorite) {
+    if (chaine < 1 || chaine > 5) {
+      throw new InvalidParameterException("Les sorties digitales vont de 1 à 5.");
+    }
+
+    return ecrireImageAsynchrone(valeur ? 1 << (chaine - 1) : 0, 1 << (chaine - 1), priorite);
+  }
+
+  /**
+   * Permet d'ajouter l'écriture d'une valeur sur une sortie analogique à la
+   * file, sans attendre son envoi.
+   * 
+   * @param chaine
+   *          le numéro de la sortie à laquelle envoyer la valeur (comprise entre
+   *          1 et 2)
+   * @param valeur
+   *          la nouvelle valeur de la sortie (comprise entre 0 et 255)
+   * 
+   * @return l'accusé de l'écriture
+   * 
+   * @see EcritureSorties#ecrireImageAsynchrone(int, int, PrioriteEcriture)
+   */
+  public CompletableFuture<Long> ecrireAnalogiqueAsynchrone(int chaine, int valeur) {
+    return ecrireAnalogiqueAsynchrone(chaine, valeur, PrioriteEcriture.NORMALE);
+  }
+
+  /**
+   * Permet d'ajouter l'écriture d'une valeur sur une sortie analogique à la
+   * file correspondant à sa priorité, sans attendre son envoi.
+   * 
+   * @param chaine
+   *          le numéro de la sortie à laquelle envoyer la valeur (comprise entre
+   *          1 et 2)
+   * @param valeur
+   *          la nouvelle valeur de la sortie (comprise entre 0 et 255)
+   * @param priorite
+   *          la priorité de l'écriture
+   * 
+   * @return l'accusé de l'écriture
+   * 
+   * @see EcritureSorties#ecrireImageAsynchrone(int, int, PrioriteEcriture)
+   * @see PrioriteEcriture
+   */
+  public CompletableFuture<Long> ecrireAnalogiqueAsynchrone(int chaine, int valeur,
+      PrioriteEcriture priorite) {
+    if (valeur < 0 || valeur > 255) {
+      throw new InvalidParameterException("La valeur doit être comprise entre 0 et 255.");
+    }
+    if (chaine < 1 || chaine > 2) {
+      throw new InvalidParameterException("Les sorties analogiques vont de 1 à 2.");
+    }
+
+    return ecrireImageAsynchrone(valeur << (chaine * 8), 1 << (chaine + 4), priorite);
+  }
+
+  /**
+   * Permet d'ajouter l'écriture de toutes les sorties à la fois à la file, sans
+   * attendre son envoi. Les sept sorties partent dans le même envoi et
+   * l'accusé est unique.
+   * 
+   * @param digitales
+   *          la valeur des sorties digitales (un bit par sortie, le bit 0
+   *          correspondant à la sortie 1)
+   * @param analogique1
+   *          la valeur de la première sortie analogique (comprise entre 0 et
+   *          255)
+   * @param analogique2
+   *          la valeur de la seconde sortie analogique (comprise entre 0 et 255)
+   * 
+   * @return l'accusé de l'écriture
+   * 
+   * @see EcritureSorties#ecrireImageAsynchrone(int, int, PrioriteEcriture)
+   */
+  public CompletableFuture<Long> ecrireSortiesAsynchrone(int digitales, int analogique1,
+      int analogique2) {
+    return ecrireSortiesAsynchrone(digitales, analogique1, analogique2, PrioriteEcriture.NORMALE);
+  }
+
+  /**
+   * Permet d'ajouter l'écriture de toutes les sorties à la fois à la file
+   * correspondant à sa priorité, sans attendre son envoi. Les sept sorties
+   * partent dans le même envoi et l'accusé est unique.
+   * 
+   * @param digitales
+   *          la valeur des sorties digitales (un bit par sortie, le bit 0
+   *          correspondant à la sortie 1)
+   * @param analogique1
+   *          la valeur de la première sortie analogique (comprise entre 0 et
+   *          255)
+   * @param analogique2
+   *          la valeur de la seconde sortie analogique (comprise entre 0 et 255)
+   * @param priorite
+   *          la priorité de l'écriture
+   * 
+   * @return l'accusé de l'écriture
+   * 
+   * @see EcritureSorties#ecrireImageAsynchrone(int, int, PrioriteEcriture)
+   * @see PrioriteEcriture
+   */
+  public CompletableFuture<Long> ecrireSortiesAsynchrone(int digitales, int analogique1,
+      int analogique2, PrioriteEcriture priorite) {
+    if (analogique1 < 0 || analogique1 > 255 || analogique2 < 0 || analogique2 > 255) {
+      throw new InvalidParameterException("La valeur doit être comprise entre 0 et 255.");
+    }
+
+    return ecrireImageAsynchrone((digitales & 0x1F) | analogique1 << 8 | analogique2 << 16,
+        0x7F, priorite);
+  }
+
+  /**
+   * Permet d'ajouter l'écriture d'une partie des sorties à la fois à la file
+   * correspondant à sa priorité, sans attendre son envoi.
+   * <p>
+   * Les sorties choisies partent toujours dans le même envoi, l'accusé
+   * retourné vaut donc pour toutes. Il est complété par la tâche d'écriture avec
+   * la valeur de Temps.maintenant() à la fin de l'envoi qui a emporté
+   * l'écriture, ou à la fin d'un envoi plus récent si l'écriture a été
+   * fusionnée avant. Si une erreur survient avant l'envoi, il est complété avec
+   * cette erreur : l'écriture, déjà dans la file, y reste et sera envoyée après
+   * reinitialiserErreur(). Si une erreur est déjà enregistrée lors de l'appel,
+   * rien n'est ajouté à la file et l'accusé est complété avec cette erreur. Il
+   * est annulé si la tâche est arrêtée, ou l'a déjà été, avant l'envoi.
+   * </p>
+   * <p>
+   * Comme pour les autres écritures, l'appelant n'attend que si la file normale
+   * est pleine et que la politique de débordement est BLOQUER. Avec la politique
+   * SUPPRIMER_PLUS_ANCIENNE, l'accusé d'une écriture supprimée est tout de même
+   * complété normalement.
+   * </p>
+   * 
+   * @param image
+   *          la nouvelle valeur des sorties (les sorties digitales dans les bits
+   *          0 à 4, puis un octet par sortie analogique)
+   * @param sorties
+   *          le masque des sorties à écrire, un bit par sortie (les sorties
+   *          digitales en premier)
+   * @param priorite
+   *          la priorité de l'écriture
+   * 
+   * @return l'accusé de l'écriture, complété immédiatement si le masque est
+   *         vide
+   * 
+   * @see EcritureSorties#ecrireImage(int, int, PrioriteEcriture)
+   * @see EcritureSorties#acquitter(long)
+   */
+  public CompletableFuture<Long> ecrireImageAsynchrone(int image, int sorties,
+      PrioriteEcriture priorite) {
+    CompletableFuture<Long> accuse = new CompletableFuture<Long>();
+
+    if ((sorties & 0x7F) == 0) {
+      accuse.complete(Temps.maintenant());
+
+      return accuse;
+    }
+
+    try {
+      ecrireImage(image, sorties, priorite);
+    } catch (JK8055Exception e) {
+      accuse.completeExceptionally(e);
+
+      return accuse;
+    }
+
+    accuses.add(new AccuseEcriture(accuse, numeroVidage));
+
+    JK8055Exception e = erreur;
+    if (e != null) {
+      echouer(e);
+    } else if (!continuer) {
+      abandonnerAccuses();
+    }
+    LockSupport.unpark(this);
+
+    return accuse;
+  }
+
+  /**
+   * Permet d'ajouter une écriture à la file correspondant à sa priorité.
+   * <p>
+   * L'écriture est horodatée afin de mesurer son temps d'attente dans la file.
+   * Une écriture urgente n'attend jamais et réveille la tâche d'écriture. Pour
+   * une écriture normale, si la file est pleine et que la politique de
+   * débordement est BLOQUER, la tâche appelante attend qu'une place se libère.
+   * </p>
+   * 
+   * @param commande
+   *          l'écriture à ajouter
+   * @param priorite
+   *          la priorité de l'écriture
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur est survenue lors du dialogue avec la carte
+   * 
+   * @see EcritureSorties#ecritures
+   * @see EcritureSorties#urgentes
+   * @see EcritureSorties#erreur
+   */
+  private void ajouter(long commande, PrioriteEcriture priorite) throws JK8055Exception {
+    commande = Commande.horodater(commande, Temps.maintenant());
+    nombreDemandes.increment();
+
+    if (priorite == PrioriteEcriture.URGENTE) {
+      urgentes.ajouter(commande);
+      LockSupport.unpark(this);
+    } else if (!ecritures.ajouter(commande)) {
+      ecritures.noterDebordement();
+
+      do {
+        if (erreur != null) {
+          throw erreur;
+        }
+
+        LockSupport.parkNanos(ATTENTE_FILE_PLEINE);
+      } while (!ecritures.ajouter(commande));
+    }
+  }
+
+  /**
+   * Permet de récupérer le nombre total d'écritures envoyées à la carte.
+   * 
+   * @return le nombre d'écritures traitées depuis le lancement de la tâche
+   * 
+   * @see EcritureSorties#nombreEcritures
+   */
+  public long recupererNombreEcritures() {
+    return nombreEcritures;
+  }
+
+  /**
+   * Permet de récupérer le nombre total d'écritures demandées, y compris celles
+   * encore dans la file.
+   * 
+   * @return le nombre d'écritures demandées depuis la création de la tâche
+   * 
+   * @see EcritureSorties#nombreDemandes
+   */
+  public long recupererNombreDemandes() {
+    return nombreDemandes.sum();
+  }
+
+  /**
+   * Permet de récupérer la dernière erreur de dialogue avec la carte.
+   * 
+   * @return la dernière erreur survenue, ou nulle s'il n'y en a jamais eu
+   * 
+   * @see EcritureSorties#derniereErreur
+   */
+  public JK8055Exception recupererDerniereErreur() {
+    return derniereErreur;
+  }
+
+  /**
+   * Permet de récupérer l'erreur qui empêche actuellement l'écriture.
+   * 
+   * @return l'erreur qui suspend l'écriture, ou nulle si tout va bien
+   * 
+   * @see EcritureSorties#erreur
+   */
+  public JK8055Exception recupererErreur() {
+    return erreur;
+  }
+
+  /**
+   * Permet de récupérer le nombre total d'envois effectués vers la carte.
+   * 
+   * @return le nombre d'appels à SetAllValues() depuis le lancement de la tâche
+   * 
+   * @see EcritureSorties#nombreEnvois
+   */
+  public long recupererNombreEnvois() {
+    return nombreEnvois;
+  }
+
+  /**
+   * Permet de récupérer le nombre d'écritures qui ont été fusionnées avec une
+   * autre, et n'ont donc pas nécessité leur propre envoi vers la carte.
+   * 
+   * @return le nombre d'écritures fusionnées depuis le lancement de la tâche
+   * 
+   * @see EcritureSorties#nombreEcritures
+   * @see EcritureSorties#nombreEnvois
+   */
+  public long recupererNombreFusions() {
+    return nombreEcritures - nombreEnvois;
+  }
+
+  /**
+   * Permet de récupérer la répartition du temps passé par les écritures dans la
+   * file.
+   * <p>
+   * Lorsque plusieurs écritures sont fusionnées hors de la file, seul le temps
+   * d'attente de la plus ancienne est mesuré.
+   * </p>
+   * 
+   * @return l'histogramme des temps d'attente, qui continue d'évoluer
+   * 
+   * @see EcritureSorties#latenceFile
+   */
+  public HistogrammeLatence recupererLatenceFile() {
+    return latenceFile;
+  }
+
+  /**
+   * Permet de récupérer la répartition du temps passé par les écritures
+   * urgentes dans leur file.
+   * 
+   * @return l'histogramme des temps d'attente, qui continue d'évoluer
+   * 
+   * @see EcritureSorties#latenceFileUrgente
+   */
+  public HistogrammeLatence recupererLatenceFileUrgente() {
+    return latenceFileUrgente;
+  }
+
+  /**
+   * Permet de récupérer la répartition de la durée des envois vers la carte.
+   * 
+   * @return l'histogramme des durées d'envoi, qui continue d'évoluer
+   * 
+   * @see EcritureSorties#latenceEcriture
+   */
+  public HistogrammeLatence recupererLatenceEcriture() {
+    return latenceEcriture;
+  }
+
+  /**
+   * Permet de définir le comportement à adopter quand la file d'écriture est
+   * pleine.
+   * 
+   * @param politique
+   *          la nouvelle politique de débordement
+   * 
+   * @see EcritureSorties#ecritures
+   * @see PolitiqueDebordement
+   */
+  public void definirPolitiqueDebordement(PolitiqueDebordement politique) {
+    ecritures.definirPolitique(politique);
+  }
+
+  /**
+   * Permet de récupérer le nombre d'écritures actuellement dans la file.
+   * 
+   * @return le nombre d'écritures en attente
+   * 
+   * @see EcritureSorties#ecritures
+   */
+  public long recupererProfondeurFile() {
+    return ecritures.profondeur();
+  }
+
+  /**
+   * Permet de récupérer le plus grand nombre d'écritures constaté dans la file.
+   * 
+   * @return la profondeur maximale de la file
+   * 
+   * @see EcritureSorties#ecritures
+   */
+  public long recupererProfondeurMaximale() {
+    return ecritures.profondeurMaximale();
+  }
+
+  /**
+   * Permet de récupérer le nombre de fois où une écriture a trouvé la file
+   * pleine.
+   * 
+   * @return le nombre de débordements de la file
+   * 
+   * @see EcritureSorties#ecritures
+   */
+  public long recupererNombreDebordements() {
+    return ecritures.nombreDebordements();
+  }
+
+  /**
+   * Permet de récupérer le nombre d'écritures supprimées lors d'un débordement
+   * de la file.
+   * 
+   * @return le nombre d'écritures perdues
+   * 
+   * @see EcritureSorties#ecritures
+   * @see PolitiqueDebordement#SUPPRIMER_PLUS_ANCIENNE
+   */
+  public long recupererNombreSuppressions() {
+    return ecritures.nombreSuppressions();
+  }
+
+  /**
+   * Permet de supprimer toute erreur enregistrée, ce qui permet de relancer
+   * l'écriture.
+   * <p>
+   * Cela n'entreprend néanmoins aucune action correctrice, et il est assumé que
+   * l'utilisateur a réglé le problème ayant causé l'erreur avant d'appeler cette
+   * méthode.
+   * </p>
+   * 
+   * @see EcritureSorties#erreur
+   * @see EcritureSorties#continuer
+   */
+  public void reinitialiserErreur() {
+    erreur = null;
+    continuer = true;
+    ecritures.signaler();
+    LockSupport.unpark(this);
+  }
+
+  /**
+   * Permet d'arrêter l'écriture.
+   * <p>
+   * Cette méthode doit être utilisée lors de la fermeture du programme, car elle
+   * est le seul moyen de tuer cette tâche.
+   * </p>
+   * 
+   * @see EcritureSorties#continuer
+   */
+  public void finTache() {
+    continuer = false;
+    ecritures.signaler();
+    LockSupport.unpark(this);
+  }
+
+  /**
+   * Permet de vider une fois la file d'écriture et d'envoyer le résultat à la
+   * carte, sans attendre.
+   * <p>
+   * Toutes les écritures présentes dans la file, puis dans celle des écritures
+   * urgentes, sont fusionnées en une seule image des sorties, la dernière
+   * écriture sur une sortie l'emportant sur les précédentes : entre les deux
+   * files, c'est la plus récente écriture de chaque sortie qui est gardée, quelle
+   * que soit sa priorité. Cette image est ensuite envoyée à la carte en une
+   * seule transaction.
+   * Le temps d'attente de chaque écriture dans sa file et la durée de l'envoi
+   * sont mesurés.
+   * </p>
+   * <p>
+   * Cette méthode permet de faire fonctionner l'écriture pas à pas, par exemple
+   * dans une simulation utilisant une HorlogeVirtuelle. En cas d'erreur,
+   * celle-ci est enregistrée et l'écriture est suspendue : la file n'est plus
+   * vidée, et l'image qui n'a pas pu être envoyée est gardée pour l'envoi
+   * suivant. Les accusés des écritures asynchrones sont complétés à la fin de
+   * chaque vidage qui ne laisse rien en attente.
+   * </p>
+   * 
+   * @return vrai si un envoi a été fait, faux si la file était vide ou en cas
+   *         d'erreur
+   * 
+   * @see EcritureSorties#ecritures
+   * @see EcritureSorties#urgentes
+   * @see EcritureSorties#erreur
+   * @see EcritureSorties#commandeEnAttente
+   * @see LiaisonCarte#ecritureGroupee(int, long)
+   * @see Enregistreur
+   */
+  public boolean executerEcriture() {
+    if (erreur != null) {
+      return false;
+    }
+
+    try {
+      long maintenant = Temps.maintenant();
+
+      long vidage = ++numeroVidage;
+
+      ecritures.noterProfondeur();
+      long normales = vider(ecritures, latenceFile, maintenant, instantsNormales);
+      long prioritaires = vider(urgentes, latenceFileUrgente, maintenant, instantsUrgentes);
+      commandeEnAttente = Commande.fusionner(commandeEnAttente, departager(normales, prioritaires));
+
+      if (commandeEnAttente == Commande.AUCUNE) {
+        acquitter(vidage);
+
+        return false;
+      }
+
+      long debut = Temps.maintenant();
+      int image = LiaisonCarte.ecritureGroupee(adresse, commandeEnAttente);
+      long fin = latenceEcriture.enregistrerDepuis(debut);
+
+      nombreEcritures += nombreEnAttente;
+      nombreEnvois++;
+      commandeEnAttente = Commande.AUCUNE;
+      nombreEnAttente = 0;
+      instantDernierEnvoi = fin;
+      acquitter(vidage);
+      Enregistreur.enregistrerSorties(adresse, nombreEnvois, image, fin);
+
+      return true;
+    } catch (JK8055Exception e) {
+      noterErreur(e);
+
+      return false;
+    }
+  }
+
+  /**
+   * Permet de vider une file d'écriture en une seule commande.
+   * <p>
+   * Les écritures d'une même file sont fusionnées dans leur ordre d'arrivée.
+   * L'instant de la dernière écriture de chaque sortie est noté afin de
+   * départager ensuite les deux files.
+   * </p>
+   * 
+   * @param file
+   *          la file à vider
+   * @param latence
+   *          l'histogramme du temps d'attente dans cette file
+   * @param maintenant
+   *          la valeur de Temps.maintenant() au début de l'envoi
+   * @param instants
+   *          l'instant de la dernière écriture de chaque sortie, rempli pour
+   *          les sorties concernées par la commande retournée
+   * 
+   * @return la fusion des écritures de la file, ou Commande.AUCUNE si elle
+   *         était vide
+   * 
+   * @see EcritureSorties#departager(long, long)
+   */
+  private long vider(FileCommandes file, HistogrammeLatence latence, long maintenant,
+      int[] instants) {
+    long videe = Commande.AUCUNE;
+
+    for (int i = 0; i < file.capacite(); i++) {
+      long commande = file.retirer();
+
+      if (commande == Commande.AUCUNE) {
+        break;
+      }
+
+      latence.enregistrer(Commande.age(commande, maintenant));
+      videe = noter(videe, commande, instants);
+      nombreEnAttente++;
+    }
+
+    long debordement = file.retirerDebordement();
+    if (debordement != Commande.AUCUNE) {
+      latence.enregistrer(Commande.age(debordement, maintenant));
+      videe = noter(videe, debordement, instants);
+      nombreEnAttente++;
+    }
+
+    return videe;
+  }
+
+  /**
+   * Permet d'ajouter une écriture à la fusion d'une file en notant l'instant
+   * de chacune de ses sorties.
+   * <p>
+   * L'ordre de la file fait foi : l'instant noté pour une sortie ne recule
+   * jamais, même si l'écriture est horodatée plus tôt, comme une écriture
+   * débordée qui garde l'horodatage de la plus ancienne.
+   * </p>
+   * 
+   * @param videe
+   *          la fusion des écritures précédentes de la file
+   * @param commande
+   *          l'écriture à ajouter
+   * @param instants
+   *          l'instant de la dernière écriture de chaque sortie
+   * 
+   * @return la nouvelle fusion
+   */
+  private static long noter(long videe, long commande, int[] instants) {
+    int instant = Commande.horodatage(commande);
+    int presentes = Commande.sorties(videe);
+    int sorties = Commande.sorties(commande);
+
+    for (int i = 0; i < instants.length; i++) {
+      if ((sorties >>> i & 1) != 0 && ((presentes >>> i & 1) == 0 || instant - instants[i] > 0)) {
+        instants[i] = instant;
+      }
+    }
+
+    return Commande.fusionner(videe, commande);
+  }
+
+  /**
+   * Permet de fusionner les écritures normales et urgentes d'un même vidage.
+   * <p>
+   * Pour chaque sortie écrite dans les deux files, la plus récente écriture
+   * l'emporte, à égalité l'urgente. Passer par la file urgente permet donc de
+   * partir plus tôt, pas d'écraser une écriture normale plus récente de la
+   * même sortie, ce que suppose le scénario qui garde la dernière image
+   * demandée.
+   * </p>
+   * 
+   * @param normales
+   *          la fusion de la file habituelle (ou Commande.AUCUNE)
+   * @param prioritaires
+   *          la fusion de la file des écritures urgentes (ou Commande.AUCUNE)
+   * 
+   * @return la commande à envoyer
+   * 
+   * @see EcritureSorties#instantsNormales
+   * @see EcritureSorties#instantsUrgentes
+   */
+  private long departager(long normales, long prioritaires) {
+    int communes = Commande.sorties(normales) & Commande.sorties(prioritaires);
+    int plusRecentes = 0;
+
+    for (int i = 0; i < instantsNormales.length; i++) {
+      if ((communes >>> i & 1) != 0 && instantsNormales[i] - instantsUrgentes[i] > 0) {
+        plusRecentes |= 1 << i;
+      }
+    }
+
+    return Commande.fusionner(Commande.fusionner(normales, prioritaires),
+        Commande.restreindre(normales, plusRecentes));
+  }
+
+  /**
+   * Permet de compléter les accusés des écritures asynchrones ajoutées avant un
+   * vidage des files, ce vidage n'ayant rien laissé en attente.
+   * 
+   * @param vidage
+   *          le numéro du vidage
+   * 
+   * @see EcritureSorties#numeroVidage
+   */
+  private void acquitter(long vidage) {
+    if (accuses.isEmpty()) {
+      return;
+    }
+
+    long instant = instantDernierEnvoi;
+    Iterator<AccuseEcriture> iterateur = accuses.iterator();
+    while (iterateur.hasNext()) {
+      AccuseEcriture accuse = iterateur.next();
+
+      if (accuse.vidage < vidage) {
+        iterateur.remove();
+        accuse.resultat.complete(instant);
+      }
+    }
+  }
+
+  /**
+   * Permet de compléter avec une erreur les accusés de toutes les écritures
+   * asynchrones en attente.
+   * 
+   * @param e
+   *          l'erreur survenue
+   */
+  private void echouer(JK8055Exception e) {
+    AccuseEcriture accuse;
+
+    while ((accuse = accuses.poll()) != null) {
+      accuse.resultat.completeExceptionally(e);
+    }
+  }
+
+  /**
+   * Permet d'annuler les accusés de toutes les écritures asynchrones en
+   * attente, lorsque la tâche qui envoie les écritures s'arrête.
+   * 
+   * @see BoucleCarte#run()
+   */
+  void abandonnerAccuses() {
+    AccuseEcriture accuse;
+
+    while ((accuse = accuses.poll()) != null) {
+      accuse.resultat.completeExceptionally(new CancellationException(
+          "L'écriture de la carte " + adresse + " a été arrêtée."));
+    }
+  }
+
+  /**
+   * Permet d'enregistrer une erreur de dialogue avec la carte, ce qui suspend
+   * l'écriture jusqu'à un appel à reinitialiserErreur().
+   * <p>
+   * Une BoucleCarte s'en sert pour que l'écriture partage l'erreur survenue lors
+   * de la lecture, et inversement.
+   * </p>
+   * 
+   * @param e
+   *          l'erreur survenue
+   * 
+   * @see EcritureSorties#erreur
+   * @see BoucleCarte
+   */
+  void noterErreur(JK8055Exception e) {
+    erreur = e;
+    derniereErreur = e;
+    echouer(e);
+  }
+
+  /**
+   * La méthode permettant de lancer la tâche.
+   * <p>
+   * Elle va vider en boucle la file d'écriture, puis écrire sur les sorties, et
+   * ne s'arrêtera que lorsqu'on lui aura demandé de s'arrêter, en annulant les
+   * accusés encore en attente. Lorsque la file
+   * est vide, ou tant qu'une erreur est enregistrée, la tâche s'endort jusqu'à
+   * l'ajout d'une écriture ou la suppression de l'erreur.
+   * </p>
+   * 
+   * @see EcritureSorties#executerEcriture()
+   * @see EcritureSorties#continuer
+   */
+  @Override
+  public void run() {
+    while (continuer) {
+      if (erreur != null) {
+        LockSupport.park(this);
+      } else if (!executerEcriture() && continuer && erreur == null) {
+        ecritures.attendre();
+      }
+    }
+
+    abandonnerAccuses();
+  }
+
+  /**
+   * <b>L'accusé d'une écriture asynchrone en attente d'envoi.</b>
+   * 
+   * @see EcritureSorties#accuses
+   */
+  private static final class AccuseEcriture {
+    /**
+     * Le résultat remis à l'appelant.
+     */
+    private final CompletableFuture<Long> resultat;
+    /**
+     * Le numéro du dernier vidage des files au moment de l'ajout de l'écriture.
+     */
+    private final long vidage;
+
+    /**
+     * Le constructeur de la classe.
+     * 
+     * @param resultat
+     *          le résultat remis à l'appelant
+     * @param vidage
+     *          le numéro du dernier vidage des files
+     */
+    private AccuseEcriture(CompletableFuture<Long> resultat, long vidage) {
+      this.resultat = resultat;
+      this.vidage = vidage;
+    }
+  }
+}
@@ -0,0 +1,648 @@
+package projet.carte;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <b>Cette classe permet d'enregistrer en continu toutes les lectures des
+ * entrées et toutes les écritures des sorties, à la manière d'une boîte
+ * noire.</b>
+ * <p>
+ * Les enregistrements sont écrits dans des fichiers projetés en mémoire. Un
+ * enregistrement ne coûte donc que quelques écritures en mémoire : ni
+ * allocation, ni appel système. Le système d'exploitation se charge de recopier
+ * les pages sur le disque, y compris si le programme s'arrête brutalement.
+ * </p>
+ * <p>
+ * Chaque fichier commence par un en-tête de TAILLE_ENTETE octets, suivi
+ * d'enregistrements de TAILLE_ENREGISTREMENT octets au format suivant :
+ * </p>
+ * <ul>
+ * <li>octets 0 à 7 : valeur de Temps.maintenant() au moment de la lecture ou de
+ * l'écriture,</li>
+ * <li>octets 8 à 15 : les entrées sous forme compacte (voir ImageEntrees), ou
+ * l'image des sorties après l'écriture (voir Commande),</li>
+ * <li>octets 16 à 19 : le numéro de la lecture, ou le numéro de l'envoi,</li>
+ * <li>octet 20 : le type d'enregistrement (ENTREES ou SORTIES),</li>
+ * <li>octet 21 : l'adresse de la carte,</li>
+ * <li>octets 22 et 23 : inutilisés.</li>
+ * </ul>
+ * <p>
+ * La fin d'un fichier qui n'a pas été rempli contient des zéros : un type nul
+ * marque donc la fin des enregistrements. L'en-tête contient l'heure et la
+ * valeur de Temps.maintenant() à la création du fichier, ce qui permet de dater
+ * chaque enregistrement.
+ * </p>
+ * <p>
+ * Lorsqu'un fichier est plein, un nouveau fichier est créé et les plus anciens
+ * sont supprimés pour n'en garder que le nombre demandé. Ce basculement est le
+ * seul moment où un verrou est pris et où le disque est sollicité. La
+ * projection d'un fichier est libérée dès que son dernier enregistrement est
+ * écrit, sans attendre le ramasse-miettes : sous Windows, un fichier encore
+ * projeté ne peut pas être supprimé.
+ * </p>
+ * <p>
+ * Un seul enregistreur peut être actif à la fois, il est partagé par toutes les
+ * cartes. Lorsqu'aucun enregistreur n'est actif, les lectures et écritures ne
+ * sont pas enregistrées.
+ * </p>
+ * 
+ * @see LecteurEnregistrement
+ * @see LectureEntrees#run()
+ * @see EcritureSorties#run()
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public final class Enregistreur {
+  /**
+   * Type des enregistrements correspondant à une lecture des entrées.
+   */
+  public static final byte ENTREES = 1;
+  /**
+   * Type des enregistrements correspondant à une écriture des sorties.
+   */
+  public static final byte SORTIES = 2;
+  /**
+   * Taille d'un enregistrement en octets.
+   */
+  public static final int TAILLE_ENREGISTREMENT = 24;
+  /**
+   * Taille de l'en-tête d'un fichier en octets.
+   */
+  public static final int TAILLE_ENTETE = 64;
+  /**
+   * Valeur permettant de reconnaître un fichier d'enregistrement ("K8055ENR").
+   */
+  public static final long SIGNATURE = 0x4B38303535454E52L;
+  /**
+   * Version du format des fichiers.
+   */
+  public static final short VERSION = 1;
+  /**
+   * Taille par défaut d'un fichier : 16 Mo, soit environ 700 000
+   * enregistrements.
+   */
+  public static final int TAILLE_FICHIER_DEFAUT = 16 << 20;
+  /**
+   * Nombre de fichiers conservés par défaut.
+   */
+  public static final int NOMBRE_FICHIERS_DEFAUT = 16;
+  /**
+   * Début du nom des fichiers d'enregistrement.
+   */
+  static final String PREFIXE = "enregistrement-";
+  /**
+   * Fin du nom des fichiers d'enregistrement.
+   */
+  static final String SUFFIXE = ".bin";
+  /**
+   * L'enregistreur actif, ou nul si rien n'est enregistré.
+   * 
+   * @see Enregistreur#demarrer(File, int, int)
+   * @see Enregistreur#arreter()
+   */
+  private static volatile Enregistreur actif;
+  /**
+   * Le répertoire contenant les fichiers.
+   */
+  private final File repertoire;
+  /**
+   * La taille de chaque fichier en octets, en-tête compris.
+   */
+  private final int tailleFichier;
+  /**
+   * Le nombre maximal de fichiers conservés.
+   */
+  private final int nombreFichiers;
+  /**
+   * Le fichier en cours d'écriture.
+   * 
+   * @see Enregistreur#basculer(Segment)
+   */
+  private volatile Segment courant;
+  /**
+   * Le numéro du prochain fichier.
+   */
+  private long prochainNumero;
+  /**
+   * Nombre total d'enregistrements écrits.
+   */
+  private final AtomicLong nombreEnregistrements = new AtomicLong();
+  /**
+   * Permet de savoir si l'enregistreur a été arrêté, auquel cas aucun nouveau
+   * fichier n'est créé.
+   * 
+   * @see Enregistreur#arreter()
+   * @see Enregistreur#basculer(Segment)
+   */
+  private volatile boolean arrete;
+
+  /**
+   * <b>Un fichier projeté en mémoire et la position de son prochain
+   * enregistrement.</b>
+   */
+  private static final class Segment {
+    /**
+     * Le fichier.
+     */
+    private final File fichier;
+    /**
+     * Le contenu du fichier projeté en mémoire.
+     */
+    private final MappedByteBuffer tampon;
+    /**
+     * La position du prochain enregistrement. Chaque tâche réserve sa place en
+     * l'incrémentant, elle peut donc dépasser la taille du fichier.
+     */
+    private final AtomicInteger position = new AtomicInteger(TAILLE_ENTETE);
+    /**
+     * Le nombre d'enregistrements complètement écrits dans le fichier.
+     */
+    private final AtomicInteger ecrits = new AtomicInteger();
+    /**
+     * Le nombre d'enregistrements que contiendra le fichier : sa capacité, ou
+     * le nombre de places réservées avant sa fermeture. La projection est
+     * libérée lorsqu'ils sont tous écrits.
+     * 
+     * @see Segment#fermer()
+     */
+    private volatile int attendus;
+    /**
+     * Permet de savoir si la projection a été libérée.
+     */
+    private boolean libere;
+
+    /**
+     * Le constructeur de la classe.
+     * 
+     * @param fichier
+     *          le fichier
+     * @param tampon
+     *          le contenu du fichier projeté en mémoire
+     */
+    private Segment(File fichier, MappedByteBuffer tampon) {
+      this.fichier = fichier;
+      this.tampon = tampon;
+      this.attendus = (tampon.capacity() - TAILLE_ENTETE) / TAILLE_ENREGISTREMENT;
+    }
+
+    /**
+     * Permet de noter qu'un enregistrement a été écrit, et de libérer la
+     * projection si c'était le dernier attendu.
+     */
+    private void noterEcrit() {
+      if (ecrits.incrementAndGet() == attendus) {
+        liberer();
+      }
+    }
+
+    /**
+     * Permet de fermer le fichier avant qu'il soit plein : plus aucune place ne
+     * peut y être réservée, et la projection est libérée une fois les
+     * enregistrements en cours écrits. Le contenu est d'abord recopié sur le
+     * disque.
+     */
+    private void fermer() {
+      forcer();
+
+      int reservees = position.getAndSet(tampon.capacity());
+      int valides = Math.min((reservees - TAILLE_ENTETE) / TAILLE_ENREGISTREMENT,
+          (tampon.capacity() - TAILLE_ENTETE) / TAILLE_ENREGISTREMENT);
+
+      attendus = valides;
+      if (ecrits.get() >= valides) {
+        liberer();
+      }
+    }
+
+    /**
+     * Permet de recopier le contenu du fichier sur le disque, s'il est encore
+     * projeté.
+     */
+    private synchronized void forcer() {
+      if (!libere) {
+        tampon.force();
+      }
+    }
+
+    /**
+     * Permet de libérer la projection du fichier, une seule fois.
+     */
+    private synchronized void liberer() {
+      if (!libere) {
+        libere = true;
+        Enregistreur.liberer(tampon);
+      }
+    }
+  }
+
+  /**
+   * Le constructeur de la classe.
+   * 
+   * @param repertoire
+   *          le répertoire contenant les fichiers
+   * @param tailleFichier
+   *          la taille de chaque fichier en octets
+   * @param nombreFichiers
+   *          le nombre maximal de fichiers conservés
+   * 
+   * @throws IOException
+   *           quand le premier fichier ne peut pas être créé
+   */
+  private Enregistreur(File repertoire, int tailleFichier, int nombreFichiers) throws IOException {
+    this.repertoire = repertoire;
+    this.tailleFichier = tailleFichier;
+    this.nombreFichiers = nombreFichiers;
+
+    if (!repertoire.isDirectory() && !repertoire.mkdirs()) {
+      throw new IOException("Impossible de créer le répertoire " + repertoire + ".");
+    }
+
+    File[] existants = fichiers(repertoire);
+    prochainNumero = existants.length == 0 ? 0 : numero(existants[existants.length - 1]) + 1;
+    courant = creerSegment();
+    supprimerAnciens();
+  }
+
+  /**
+   * Permet de démarrer l'enregistrement avec la taille et le nombre de fichiers
+   * par défaut.
+   * 
+   * @param repertoire
+   *          le répertoire contenant les fichiers
+   * 
+   * @return l'enregistreur
+   * 
+   * @throws IOException
+   *           quand le premier fichier ne peut pas être créé
+   * 
+   * @see Enregistreur#demarrer(File, int, int)
+   */
+  public static Enregistreur demarrer(File repertoire) throws IOException {
+    return demarrer(repertoire, TAILLE_FICHIER_DEFAUT, NOMBRE_FICHIERS_DEFAUT);
+  }
+
+  /**
+   * Permet de démarrer l'enregistrement. L'enregistreur précédent, s'il existe,
+   * est arrêté. Les fichiers déjà présents dans le répertoire sont conservés,
+   * la numérotation reprenant après le dernier.
+   * 
+   * @param repertoire
+   *          le répertoire contenant les fichiers, créé s'il n'existe pas
+   * @param tailleFichier
+   *          la taille de chaque fichier en octets
+   * @param nombreFichiers
+   *          le nombre maximal de fichiers conservés, le plus ancien étant
+   *          supprimé à chaque nouveau fichier au-delà de cette limite
+   * 
+   * @return l'enregistreur
+   * 
+   * @throws IOException
+   *           quand le premier fichier ne peut pas être créé
+   */
+  public static synchronized Enregistreur demarrer(File repertoire, int tailleFichier,
+      int nombreFichiers) throws IOException {
+    if (tailleFichier < TAILLE_ENTETE + TAILLE_ENREGISTREMENT) {
+      throw new IllegalArgumentException("Taille de fichier trop petite : " + tailleFichier + ".");
+    }
+    if (nombreFichiers < 1) {
+      throw new IllegalArgumentException("Au moins un fichier doit être conservé.");
+    }
+
+    arreter();
+    actif = new Enregistreur(repertoire, tailleFichier, nombreFichiers);
+
+    return actif;
+  }
+
+  /**
+   * Permet d'arrêter l'enregistrement. Le contenu du fichier en cours est
+   * recopié sur le disque, puis sa projection est libérée.
+   */
+  public static synchronized void arreter() {
+    Enregistreur enregistreur = actif;
+
+    if (enregistreur != null) {
+      actif = null;
+      enregistreur.arrete = true;
+      enregistreur.courant.fermer();
+    }
+  }
+
+  /**
+   * Permet de récupérer l'enregistreur actif.
+   * 
+   * @return l'enregistreur, ou nul si rien n'est enregistré
+   */
+  public static Enregistreur recupererActif() {
+    return actif;
+  }
+
+  /**
+   * Permet d'enregistrer une lecture des entrées, si un enregistreur est actif.
+   * 
+   * @param adresse
+   *          l'adresse de la carte
+   * @param numero
+   *          le numéro de la lecture
+   * @param valeurs
+   *          les entrées sous forme compacte
+   * @param instant
+   *          la valeur de Temps.maintenant() au moment de la lecture
+   */
+  static void enregistrerEntrees(int adresse, long numero, long valeurs, long instant) {
+    Enregistreur enregistreur = actif;
+
+    if (enregistreur != null) {
+      enregistreur.enregistrer(ENTREES, adresse, (int) numero, valeurs, instant);
+    }
+  }
+
+  /**
+   * Permet d'enregistrer une écriture des sorties, si un enregistreur est actif.
+   * 
+   * @param adresse
+   *          l'adresse de la carte
+   * @param numero
+   *          le numéro de l'envoi
+   * @param image
+   *          l'image des sorties après l'écriture
+   * @param instant
+   *          la valeur de Temps.maintenant() à la fin de l'écriture
+   */
+  static void enregistrerSorties(int adresse, long numero, int image, long instant) {
+    Enregistreur enregistreur = actif;
+
+    if (enregistreur != null) {
+      enregistreur.enregistrer(SORTIES, adresse, (int) numero, image & 0xFFFFFFFFL, instant);
+    }
+  }
+
+  /**
+   * Permet d'écrire un enregistrement.
+   * <p>
+   * La place est réservée par un simple incrément atomique, plusieurs tâches
+   * peuvent donc enregistrer en même temps sans verrou. Le type est écrit en
+   * dernier, un enregistrement incomplet étant ainsi ignoré à la relecture.
+   * </p>
+   * 
+   * @param type
+   *          le type d'enregistrement
+   * @param adresse
+   *          l'adresse de la carte
+   * @param numero
+   *          le numéro de la lecture ou de l'envoi
+   * @param valeur
+   *          les entrées ou l'image des sorties
+   * @param instant
+   *          la valeur de Temps.maintenant() associée
+   */
+  private void enregistrer(byte type, int adresse, int numero, long valeur, long instant) {
+    while (true) {
+      Segment segment = courant;
+      int position = segment.position.getAndAdd(TAILLE_ENREGISTREMENT);
+
+      if (position <= tailleFichier - TAILLE_ENREGISTREMENT) {
+        MappedByteBuffer tampon = segment.tampon;
+
+        tampon.putLong(position, instant);
+        tampon.putLong(position + 8, valeur);
+        tampon.putInt(position + 16, numero);
+        tampon.put(position + 21, (byte) adresse);
+        tampon.put(position + 20, type);
+        nombreEnregistrements.incrementAndGet();
+        segment.noterEcrit();
+        return;
+      }
+
+      if (!basculer(segment)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Permet de passer au fichier suivant lorsque le fichier en cours est plein.
+   * <p>
+   * Si plusieurs tâches constatent en même temps que le fichier est plein, une
+   * seule crée le nouveau fichier. En cas d'erreur, l'enregistrement est arrêté
+   * plutôt que de gêner la lecture ou l'écriture.
+   * </p>
+   * 
+   * @param plein
+   *          le fichier constaté plein
+   * 
+   * @return vrai si l'enregistrement peut continuer
+   */
+  private synchronized boolean basculer(Segment plein) {
+    if (arrete) {
+      return false;
+    }
+    if (courant != plein) {
+      return true;
+    }
+
+    try {
+      courant = creerSegment();
+      supprimerAnciens();
+
+      return true;
+    } catch (IOException e) {
+      System.err.println("Arrêt de l'enregistrement : " + e.getMessage());
+      synchronized (Enregistreur.class) {
+        if (actif == this) {
+          actif = null;
+        }
+      }
+
+      return false;
+    }
+  }
+
+  /**
+   * Permet de créer le fichier suivant et d'écrire son en-tête.
+   * 
+   * @return le nouveau fichier projeté en mémoire
+   * 
+   * @throws IOException
+   *           quand le fichier ne peut pas être créé
+   */
+  private Segment creerSegment() throws IOException {
+    File fichier = new File(repertoire, String.format("%s%08d%s", PREFIXE, prochainNumero, SUFFIXE));
+    MappedByteBuffer tampon;
+
+    try (RandomAccessFile acces = new RandomAccessFile(fichier, "rw")) {
+      acces.setLength(tailleFichier);
+      tampon = acces.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, tailleFichier);
+    }
+
+    tampon.putLong(0, SIGNATURE);
+    tampon.putShort(8, VERSION);
+    tampon.putShort(10, (short) TAILLE_ENREGISTREMENT);
+    tampon.putLong(16, System.currentTimeMillis());
+    tampon.putLong(24, Temps.maintenant());
+    prochainNumero++;
+
+    return new Segment(fichier, tampon);
+  }
+
+  /**
+   * Permet de libérer tout de suite la projection d'un fichier en mémoire.
+   * <p>
+   * Sans cela, elle n'est libérée que lorsque le ramasse-miettes récupère le
+   * tampon, et le fichier ne peut pas être supprimé sous Windows d'ici là. Java
+   * ne proposant pas de méthode publique pour cela, celle de la machine
+   * virtuelle est appelée par réflexion (Unsafe.invokeCleaner() depuis Java 9,
+   * le Cleaner du tampon en Java 8). Le tampon ne doit plus être utilisé par
+   * aucune tâche, sous peine d'arrêt brutal de la machine virtuelle.
+   * </p>
+   * 
+   * @param tampon
+   *          le contenu du fichier projeté en mémoire
+   * 
+   * @return vrai si la projection a été libérée, faux si elle est laissée au
+   *         ramasse-miettes
+   */
+  static boolean liberer(MappedByteBuffer tampon) {
+    try {
+      Class<?> classe = Class.forName("sun.misc.Unsafe");
+      Field instance = classe.getDeclaredField("theUnsafe");
+
+      instance.setAccessible(true);
+      classe.getMethod("invokeCleaner", ByteBuffer.class).invoke(instance.get(null), tampon);
+
+      return true;
+    } catch (NoSuchMethodException e) {
+      return nettoyer(tampon);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Permet de libérer la projection d'un fichier via le Cleaner du tampon, en
+   * Java 8.
+   * 
+   * @param tampon
+   *          le contenu du fichier projeté en mémoire
+   * 
+   * @return vrai si la projection a été libérée
+   * 
+   * @see Enregistreur#liberer(MappedByteBuffer)
+   */
+  private static boolean nettoyer(MappedByteBuffer tampon) {
+    try {
+      Method methode = tampon.getClass().getMethod("cleaner");
+
+      methode.setAccessible(true);
+      Object nettoyeur = methode.invoke(tampon);
+      if (nettoyeur == null) {
+        return false;
+      }
+      nettoyeur.getClass().getMethod("clean").invoke(nettoyeur);
+
+      return true;
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Permet de supprimer les fichiers les plus anciens au-delà du nombre de
+   * fichiers conservés.
+   */
+  private void supprimerAnciens() {
+    File[] existants = fichiers(repertoire);
+
+    for (int i = 0; i < existants.length - nombreFichiers; i++) {
+      if (!existants[i].delete()) {
+        System.err.println("Impossible de supprimer " + existants[i] + ".");
+      }
+    }
+  }
+
+  /**
+   * Permet de lister les fichiers d'enregistrement d'un répertoire, du plus
+   * ancien au plus récent. Les numéros ayant tous le même nombre de chiffres,
+   * l'ordre des noms est celui des numéros.
+   * 
+   * @param repertoire
+   *          le répertoire
+   * 
+   * @return les fichiers, éventuellement aucun
+   */
+  public static File[] fichiers(File repertoire) {
+    File[] fichiers = repertoire.listFiles(new FilenameFilter() {
+
+      @Override
+      public boolean accept(File dossier, String nom) {
+        return nom.startsWith(PREFIXE) && nom.endsWith(SUFFIXE);
+      }
+
+    });
+
+    if (fichiers == null) {
+      return new File[0];
+    }
+
+    Arrays.sort(fichiers);
+
+    return fichiers;
+  }
+
+  /**
+   * Permet de récupérer le numéro d'un fichier d'après son nom.
+   * 
+   * @param fichier
+   *          le fichier
+   * 
+   * @return le numéro du fichier, ou -1 si le nom ne contient pas de numéro
+   */
+  private static long numero(File fichier) {
+    String nom = fichier.getName();
+
+    try {
+      return Long.parseLong(nom.substring(PREFIXE.length(), nom.length() - SUFFIXE.length()));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Permet de récupérer le répertoire contenant les fichiers.
+   * 
+   * @return le répertoire
+   */
+  public File recupererRepertoire() {
+    return repertoire;
+  }
+
+  /**
+   * Permet de récupérer le fichier en cours d'écriture.
+   * 
+   * @return le fichier
+   */
+  public File recupererFichierCourant() {
+    return courant.fichier;
+  }
+
+  /**
+   * Permet de récupérer le nombre total d'enregistrements écrits.
+   * 
+   * @return le nombre d'enregistrements
+   */
+  public long recupererNombreEnregistrements() {
+    return nombreEnregistrements.get();
+  }
+}
@@ -0,0 +1,145 @@
+package projet.carte;
+
+/**
+ * <b>Cette classe permet de représenter un changement d'une entrée de la carte
+ * sous la forme d'un simple entier long.</b>
+ * <p>
+ * Le format est le suivant :
+ * </p>
+ * <ul>
+ * <li>bits 0 à 15 : nouvelle valeur de l'entrée,</li>
+ * <li>bits 16 à 19 : numéro de l'entrée,</li>
+ * <li>bits 20 à 23 : type du changement (voir TypeEvenement),</li>
+ * <li>bits 24 à 63 : numéro de la lecture ayant détecté le changement.</li>
+ * </ul>
+ * <p>
+ * Un événement n'est jamais nul, la valeur 0 signifiant l'absence d'événement.
+ * Les événements peuvent ainsi circuler dans une file sans aucune allocation.
+ * </p>
+ * <p>
+ * <b>Note</b> : s'agissant d'une classe utilitaire, toutes les méthodes sont
+ * statiques, et l'instanciation de la classe a été empêchée.
+ * </p>
+ * 
+ * @see TypeEvenement
+ * @see AbonnementEntrees
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public final class EvenementEntree {
+  /**
+   * Valeur représentant l'absence d'événement.
+   */
+  public static final long AUCUN = 0L;
+  /**
+   * Les types d'événement, dans l'ordre de leur code.
+   */
+  private static final TypeEvenement[] TYPES = TypeEvenement.values();
+
+  /**
+   * Constructeur de la classe.
+   * <p>
+   * Cette classe n'étant pas prévue pour être instanciée, ce constructeur a comme
+   * visibilité "privé".
+   * </p>
+   */
+  private EvenementEntree() {
+  }
+
+  /**
+   * Permet de créer un événement.
+   * 
+   * @param type
+   *          le type du changement
+   * @param chaine
+   *          le numéro de l'entrée concernée
+   * @param valeur
+   *          la nouvelle valeur de l'entrée
+   * @param numero
+   *          le numéro de la lecture ayant détecté le changement
+   * 
+   * @return l'événement correspondant
+   */
+  static long creer(TypeEvenement type, int chaine, int valeur, long numero) {
+    return numero << 24 | (long) (type.ordinal() + 1) << 20 | (long) chaine << 16 | valeur & 0xFFFF;
+  }
+
+  /**
+   * Permet de récupérer le type d'un événement.
+   * 
+   * @param evenement
+   *          l'événement
+   * 
+   * @return le type du changement
+   */
+  public static TypeEvenement type(long evenement) {
+    return TYPES[(int) (evenement >>> 20 & 0xF) - 1];
+  }
+
+  /**
+   * Permet de savoir si un événement concerne une entrée digitale.
+   * 
+   * @param evenement
+   *          l'événement
+   * 
+   * @return vrai si l'événement est un front sur une entrée digitale
+   */
+  public static boolean estDigital(long evenement) {
+    return type(evenement) != TypeEvenement.VARIATION_ANALOGIQUE;
+  }
+
+  /**
+   * Permet de récupérer le numéro de l'entrée concernée par un événement.
+   * 
+   * @param evenement
+   *          l'événement
+   * 
+   * @return le numéro de l'entrée
+   */
+  public static int chaine(long evenement) {
+    return (int) (evenement >>> 16 & 0xF);
+  }
+
+  /**
+   * Permet de récupérer la nouvelle valeur de l'entrée concernée par un
+   * événement.
+   * 
+   * @param evenement
+   *          l'événement
+   * 
+   * @return la nouvelle valeur de l'entrée
+   */
+  public static int valeur(long evenement) {
+    return (int) (evenement & 0xFFFF);
+  }
+
+  /**
+   * Permet de récupérer le numéro de la lecture ayant détecté un événement.
+   * 
+   * @param evenement
+   *          l'événement
+   * 
+   * @return le numéro de la lecture
+   */
+  public static long numero(long evenement) {
+    return evenement >>> 24;
+  }
+
+  /**
+   * Permet d'obtenir une description lisible d'un événement.
+   * 
+   * @param evenement
+   *          l'événement
+   * 
+   * @return la description de l'événement
+   */
+  public static String decrire(long evenement) {
+    if (evenement == AUCUN) {
+      return "AUCUN";
+    }
+
+    return type(evenement) + "[chaine=" + chaine(evenement) + ", valeur=" + valeur(evenement)
+        + ", lecture=" + numero(evenement) + "]";
+  }
+}
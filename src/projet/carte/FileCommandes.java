@@ -0,0 +1,397 @@
+package projet.carte;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <b>Cette classe est une file d'attente bornée de commandes d'écriture, sans
+ * verrou ni allocation.</b>
+ * <p>
+ * Les commandes sont stockées sous forme d'entiers longs (voir la classe
+ * Commande) dans un tableau circulaire. Chaque case est associée à un numéro de
+ * séquence qui permet aux tâches d'ajouter ou de retirer des commandes sans
+ * jamais se bloquer entre elles. Plusieurs tâches peuvent ajouter des commandes
+ * en même temps, tandis qu'une seule tâche est prévue pour les consommer.
+ * </p>
+ * <p>
+ * Lorsque la file est vide, la tâche consommatrice peut s'endormir via la
+ * méthode attendre(). Elle sera réveillée dès qu'une commande sera ajoutée.
+ * Lorsque la file est pleine, le comportement dépend de la politique de
+ * débordement choisie.
+ * </p>
+ * <p>
+ * Avec la politique SUPPRIMER_PLUS_ANCIENNE, aucune fusion n'a jamais lieu :
+ * la file peut alors transporter n'importe quelle valeur non nulle, comme les
+ * événements d'entrée.
+ * </p>
+ * 
+ * @see Commande
+ * @see PolitiqueDebordement
+ * @see EcritureSorties
+ * @see AbonnementEntrees
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+final class FileCommandes {
+  /**
+   * Contient les commandes de la file.
+   */
+  private final long[] commandes;
+  /**
+   * Contient le numéro de séquence de chaque case de la file.
+   * <p>
+   * Une case dont le numéro vaut la position d'écriture est libre, une case dont
+   * le numéro vaut la position de lecture plus un contient une commande prête à
+   * être lue.
+   * </p>
+   */
+  private final AtomicLongArray sequences;
+  /**
+   * Permet de transformer une position en indice dans le tableau, la capacité
+   * étant une puissance de deux.
+   */
+  private final int masque;
+  /**
+   * Position de la prochaine commande à ajouter.
+   */
+  private final AtomicLong ecriture = new AtomicLong();
+  /**
+   * Position de la prochaine commande à retirer.
+   */
+  private final AtomicLong lecture = new AtomicLong();
+  /**
+   * Contient la fusion des commandes qui n'ont pas pu être ajoutées à la file
+   * avec la politique FUSIONNER, ou AUCUNE.
+   * 
+   * @see FileCommandes#fusionnerDebordement(long)
+   * @see FileCommandes#retirerDebordement()
+   */
+  private final AtomicLong debordement = new AtomicLong(Commande.AUCUNE);
+  /**
+   * Le comportement à adopter quand la file est pleine.
+   */
+  private volatile PolitiqueDebordement politique = PolitiqueDebordement.BLOQUER;
+  /**
+   * La tâche consommatrice si elle est endormie, sinon nulle.
+   * 
+   * @see FileCommandes#attendre()
+   * @see FileCommandes#signaler()
+   */
+  private volatile Thread consommateur;
+  /**
+   * Nombre de fois où une commande a trouvé la file pleine.
+   */
+  private final AtomicLong nombreDebordements = new AtomicLong();
+  /**
+   * Nombre de commandes supprimées avec la politique SUPPRIMER_PLUS_ANCIENNE.
+   */
+  private final AtomicLong nombreSuppressions = new AtomicLong();
+  /**
+   * Plus grand nombre de commandes constaté dans la file.
+   */
+  private volatile long profondeurMaximale;
+
+  /**
+   * Le constructeur de la classe.
+   * 
+   * @param capacite
+   *          le nombre maximal de commandes dans la file (une puissance de deux)
+   */
+  FileCommandes(int capacite) {
+    if (capacite < 2 || Integer.bitCount(capacite) != 1) {
+      throw new IllegalArgumentException("La capacité doit être une puissance de deux.");
+    }
+
+    commandes = new long[capacite];
+    sequences = new AtomicLongArray(capacite);
+    masque = capacite - 1;
+
+    for (int i = 0; i < capacite; i++) {
+      sequences.set(i, i);
+    }
+  }
+
+  /**
+   * Permet de récupérer le nombre maximal de commandes dans la file.
+   * 
+   * @return la capacité de la file
+   */
+  int capacite() {
+    return commandes.length;
+  }
+
+  /**
+   * Permet de définir le comportement à adopter quand la file est pleine.
+   * 
+   * @param politique
+   *          la nouvelle politique de débordement
+   */
+  void definirPolitique(PolitiqueDebordement politique) {
+    if (politique == null) {
+      throw new IllegalArgumentException("La politique de débordement est obligatoire.");
+    }
+
+    this.politique = politique;
+  }
+
+  /**
+   * Permet de récupérer le comportement adopté quand la file est pleine.
+   * 
+   * @return la politique de débordement
+   */
+  PolitiqueDebordement recupererPolitique() {
+    return politique;
+  }
+
+  /**
+   * Permet d'ajouter une commande à la file.
+   * <p>
+   * Si la file est pleine, la commande est traitée selon la politique de
+   * débordement. Avec la politique BLOQUER, la commande n'est pas ajoutée et
+   * c'est à l'appelant de réessayer plus tard.
+   * </p>
+   * <p>
+   * Une commande qui concerne une sortie ayant déjà une valeur en attente hors
+   * de la file est toujours fusionnée avec cette dernière, afin que l'ordre des
+   * écritures sur une même sortie soit respecté.
+   * </p>
+   * 
+   * @param commande
+   *          la commande à ajouter
+   * 
+   * @return faux si la file est pleine et que la commande n'a pas été ajoutée
+   * 
+   * @see FileCommandes#offrir(long)
+   * @see FileCommandes#fusionnerDebordement(long)
+   */
+  boolean ajouter(long commande) {
+    if ((Commande.sorties(debordement.get()) & Commande.sorties(commande)) != 0) {
+      fusionnerDebordement(commande);
+    } else if (!offrir(commande)) {
+      PolitiqueDebordement choix = politique;
+
+      if (choix == PolitiqueDebordement.BLOQUER) {
+        return false;
+      }
+
+      nombreDebordements.incrementAndGet();
+      if (choix == PolitiqueDebordement.FUSIONNER) {
+        fusionnerDebordement(commande);
+      } else {
+        do {
+          if (retirer() != Commande.AUCUNE) {
+            nombreSuppressions.incrementAndGet();
+          }
+        } while (!offrir(commande));
+      }
+    }
+
+    signaler();
+    return true;
+  }
+
+  /**
+   * Permet de retirer la plus ancienne commande de la file.
+   * 
+   * @return la commande retirée, ou AUCUNE si la file est vide
+   */
+  long retirer() {
+    long position = lecture.get();
+
+    while (true) {
+      int indice = (int) position & masque;
+      long difference = sequences.get(indice) - (position + 1);
+
+      if (difference == 0) {
+        if (lecture.compareAndSet(position, position + 1)) {
+          long commande = commandes[indice];
+          sequences.set(indice, position + masque + 1);
+          return commande;
+        }
+        position = lecture.get();
+      } else if (difference < 0) {
+        return Commande.AUCUNE;
+      } else {
+        position = lecture.get();
+      }
+    }
+  }
+
+  /**
+   * Permet de retirer les commandes fusionnées hors de la file lors d'un
+   * débordement.
+   * 
+   * @return la fusion des commandes en attente hors de la file, ou AUCUNE
+   */
+  long retirerDebordement() {
+    return debordement.getAndSet(Commande.AUCUNE);
+  }
+
+  /**
+   * Permet d'endormir la tâche consommatrice tant que la file est vide.
+   * <p>
+   * La tâche est réveillée par l'ajout d'une commande ou par un appel à la
+   * méthode signaler().
+   * </p>
+   * 
+   * @see FileCommandes#signaler()
+   */
+  void attendre() {
+    attendre(0);
+  }
+
+  /**
+   * Permet d'endormir la tâche consommatrice tant que la file est vide, pendant
+   * une durée limitée.
+   * 
+   * @param delai
+   *          la durée maximale d'attente en nanosecondes, ou 0 pour attendre
+   *          sans limite
+   * 
+   * @see FileCommandes#signaler()
+   */
+  void attendre(long delai) {
+    consommateur = Thread.currentThread();
+    try {
+      if (estVide()) {
+        if (delai > 0) {
+          LockSupport.parkNanos(this, delai);
+        } else {
+          LockSupport.park(this);
+        }
+      }
+    } finally {
+      consommateur = null;
+    }
+  }
+
+  /**
+   * Permet de réveiller la tâche consommatrice si elle est endormie.
+   * 
+   * @see FileCommandes#attendre()
+   */
+  void signaler() {
+    Thread endormi = consommateur;
+
+    if (endormi != null) {
+      LockSupport.unpark(endormi);
+    }
+  }
+
+  /**
+   * Permet de savoir si aucune commande n'est en attente.
+   * 
+   * @return vrai si la file est vide et qu'aucune commande n'attend hors de la
+   *         file
+   */
+  boolean estVide() {
+    return lecture.get() == ecriture.get() && debordement.get() == Commande.AUCUNE;
+  }
+
+  /**
+   * Permet de récupérer le nombre de commandes actuellement dans la file.
+   * 
+   * @return le nombre de commandes dans la file
+   */
+  long profondeur() {
+    return Math.max(0, ecriture.get() - lecture.get());
+  }
+
+  /**
+   * Permet de récupérer le plus grand nombre de commandes constaté dans la file.
+   * 
+   * @return la profondeur maximale de la file
+   * 
+   * @see FileCommandes#noterProfondeur()
+   */
+  long profondeurMaximale() {
+    return profondeurMaximale;
+  }
+
+  /**
+   * Permet de relever le nombre de commandes dans la file pour mettre à jour la
+   * profondeur maximale. Cette méthode est prévue pour être appelée par la tâche
+   * consommatrice avant de vider la file.
+   */
+  void noterProfondeur() {
+    long profondeur = profondeur();
+
+    if (profondeur > profondeurMaximale) {
+      profondeurMaximale = profondeur;
+    }
+  }
+
+  /**
+   * Permet de signaler qu'une commande a trouvé la file pleine avec la politique
+   * BLOQUER.
+   */
+  void noterDebordement() {
+    nombreDebordements.incrementAndGet();
+  }
+
+  /**
+   * Permet de récupérer le nombre de fois où une commande a trouvé la file
+   * pleine.
+   * 
+   * @return le nombre de débordements
+   */
+  long nombreDebordements() {
+    return nombreDebordements.get();
+  }
+
+  /**
+   * Permet de récupérer le nombre de commandes supprimées pour faire de la place
+   * dans la file.
+   * 
+   * @return le nombre de commandes supprimées
+   */
+  long nombreSuppressions() {
+    return nombreSuppressions.get();
+  }
+
+  /**
+   * Permet d'ajouter une commande dans la file si une place est libre.
+   * 
+   * @param commande
+   *          la commande à ajouter
+   * 
+   * @return vrai si la commande a été ajoutée, faux si la file est pleine
+   */
+  private boolean offrir(long commande) {
+    long position = ecriture.get();
+
+    while (true) {
+      int indice = (int) position & masque;
+      long difference = sequences.get(indice) - position;
+
+      if (difference == 0) {
+        if (ecriture.compareAndSet(position, position + 1)) {
+          commandes[indice] = commande;
+          sequences.set(indice, position + 1);
+          return true;
+        }
+        position = ecriture.get();
+      } else if (difference < 0) {
+        return false;
+      } else {
+        position = ecriture.get();
+      }
+    }
+  }
+
+  /**
+   * Permet de fusionner une commande avec celles en attente hors de la file.
+   * 
+   * @param commande
+   *          la commande à fusionner
+   */
+  private void fusionnerDebordement(long commande) {
+    long actuelle;
+
+    do {
+      actuelle = debordement.get();
+    } while (!debordement.compareAndSet(actuelle, Commande.fusionner(actuelle, commande)));
+  }
+}
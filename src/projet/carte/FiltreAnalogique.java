@@ -0,0 +1,45 @@
+package projet.carte;
+
+/**
+ * <b>Cette interface représente un filtre appliqué à une entrée analogique, à
+ * chaque lecture.</b>
+ * <p>
+ * Un filtre reçoit les valeurs brutes une par une et rend la valeur filtrée.
+ * Les implémentations fournies travaillent en virgule fixe sur des tableaux
+ * d'entiers alloués une fois pour toutes : une nouvelle valeur coûte un temps
+ * constant et aucune allocation.
+ * </p>
+ * <p>
+ * Un filtre garde l'historique d'une seule entrée : il ne doit être utilisé
+ * que pour une entrée, par une seule tâche.
+ * </p>
+ * 
+ * @see MoyenneGlissante
+ * @see MoyenneExponentielle
+ * @see FiltreMedian
+ * @see ConditionnementEntrees#definirFiltre(int, FiltreAnalogique)
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public interface FiltreAnalogique {
+  /**
+   * Permet de filtrer une nouvelle valeur.
+   * <p>
+   * Lors du premier appel, ou du premier appel après reinitialiser(),
+   * l'historique est rempli avec la valeur reçue afin que le filtre ne parte
+   * pas de zéro.
+   * </p>
+   * 
+   * @param valeur
+   *          la nouvelle valeur brute (comprise entre 0 et 255)
+   * 
+   * @return la valeur filtrée (comprise entre 0 et 255)
+   */
+  int filtrer(int valeur);
+
+  /**
+   * Permet d'oublier l'historique du filtre.
+   */
+  void reinitialiser();
+}
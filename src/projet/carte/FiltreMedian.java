@@ -0,0 +1,115 @@
+package projet.carte;
+
+import java.security.InvalidParameterException;
+
+/**
+ * <b>Ce filtre rend la médiane des dernières valeurs reçues.</b>
+ * <p>
+ * Contrairement à une moyenne, une médiane ignore complètement une valeur
+ * aberrante isolée, sans retarder les vrais changements de plus de la moitié
+ * de la fenêtre. Les valeurs sont gardées dans un tableau circulaire et dans
+ * une copie triée : à chaque valeur, la plus ancienne est retirée de la copie
+ * et la nouvelle insérée à sa place, sans tri complet.
+ * </p>
+ * 
+ * @see FiltreAnalogique
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public final class FiltreMedian implements FiltreAnalogique {
+  /**
+   * Les dernières valeurs reçues, dans l'ordre d'arrivée.
+   */
+  private final int[] valeurs;
+  /**
+   * Les mêmes valeurs, triées.
+   */
+  private final int[] triees;
+  /**
+   * La position de la plus ancienne valeur dans le tableau circulaire.
+   */
+  private int position;
+  /**
+   * Indique si le filtre a déjà reçu une valeur.
+   */
+  private boolean initialise;
+
+  /**
+   * Le constructeur de la classe.
+   * 
+   * @param nombre
+   *          le nombre de valeurs de la fenêtre (impair, compris entre 3 et 31)
+   */
+  public FiltreMedian(int nombre) {
+    if (nombre < 3 || nombre > 31 || nombre % 2 == 0) {
+      throw new InvalidParameterException("La fenêtre de la médiane est impaire, de 3 à 31 valeurs.");
+    }
+
+    valeurs = new int[nombre];
+    triees = new int[nombre];
+  }
+
+  @Override
+  public int filtrer(int valeur) {
+    if (!initialise) {
+      for (int i = 0; i < valeurs.length; i++) {
+        valeurs[i] = valeur;
+        triees[i] = valeur;
+      }
+      initialise = true;
+
+      return valeur;
+    }
+
+    int ancienne = valeurs[position];
+    valeurs[position] = valeur;
+    if (++position == valeurs.length) {
+      position = 0;
+    }
+
+    int i = indice(ancienne);
+    while (i > 0 && triees[i - 1] > valeur) {
+      triees[i] = triees[i - 1];
+      i--;
+    }
+    while (i < triees.length - 1 && triees[i + 1] < valeur) {
+      triees[i] = triees[i + 1];
+      i++;
+    }
+    triees[i] = valeur;
+
+    return triees[triees.length / 2];
+  }
+
+  /**
+   * Permet de trouver une valeur dans la copie triée.
+   * 
+   * @param valeur
+   *          la valeur, présente dans la copie
+   * 
+   * @return la position de la valeur
+   */
+  private int indice(int valeur) {
+    int debut = 0;
+    int fin = triees.length - 1;
+
+    while (debut < fin) {
+      int milieu = (debut + fin) >>> 1;
+
+      if (triees[milieu] < valeur) {
+        debut = milieu + 1;
+      } else {
+        fin = milieu;
+      }
+    }
+
+    return debut;
+  }
+
+  @Override
+  public void reinitialiser() {
+    initialise = false;
+    position = 0;
+  }
+}
@@ -0,0 +1,289 @@
+package projet.carte;
+
+import net.sf.libk8055.jk8055.JK8055Exception;
+
+/**
+ * <b>Cette classe permet de travailler avec toutes les cartes branchées sur la
+ * machine depuis un seul programme.</b>
+ * <p>
+ * Elle recherche les cartes présentes via la méthode SearchDevices() de JK8055,
+ * les connecte, et donne accès à la lecture des entrées et à l'écriture des
+ * sorties propres à chacune. Elle permet également de consulter le débit de
+ * chaque carte à partir des mesures faites par LiaisonCarte.
+ * </p>
+ * <p>
+ * <b>Note</b> : s'agissant d'une classe utilitaire, toutes les méthodes sont
+ * statiques, et l'instanciation de la classe a été empêchée.
+ * </p>
+ * 
+ * @see LiaisonCarte
+ * @see LectureEntrees#recupererInstance(int)
+ * @see EcritureSorties#recupererInstance(int)
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public final class GestionnaireCartes {
+  /**
+   * Indique si les cartes démarrées par la suite utilisent une seule tâche
+   * (BoucleCarte) au lieu des deux tâches de LectureEntrees et
+   * d'EcritureSorties. La valeur initiale est donnée par la propriété système
+   * "projet.carte.boucleUnique".
+   * 
+   * @see GestionnaireCartes#definirBoucleUnique(boolean)
+   * @see GestionnaireCartes#demarrerEntreesSorties(int)
+   */
+  private static volatile boolean boucleUnique = Boolean.getBoolean("projet.carte.boucleUnique");
+  /**
+   * Indique si les cartes démarrées par la suite sont reconnectées
+   * automatiquement après une erreur de dialogue (SurveillanceCarte).
+   * 
+   * @see GestionnaireCartes#definirRepriseAutomatique(boolean)
+   * @see GestionnaireCartes#demarrerEntreesSorties(int)
+   */
+  private static volatile boolean repriseAutomatique = true;
+
+  /**
+   * Constructeur de la classe.
+   * <p>
+   * Cette classe n'étant pas prévue pour être instanciée, ce constructeur a comme
+   * visibilité "privé".
+   * </p>
+   */
+  private GestionnaireCartes() {
+  }
+
+  /**
+   * Permet de rechercher les cartes branchées sur la machine.
+   * 
+   * @return les adresses des cartes trouvées, dans l'ordre croissant
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur intervient lors du dialogue avec les cartes
+   * 
+   * @see LiaisonCarte#rechercheCartes()
+   */
+  public static int[] rechercherCartes() throws JK8055Exception {
+    int masque = LiaisonCarte.rechercheCartes();
+    int[] adresses = new int[Integer.bitCount(masque)];
+    for (int i = 0; masque != 0; i++) {
+      adresses[i] = Integer.numberOfTrailingZeros(masque);
+      masque &= masque - 1;
+    }
+
+    return adresses;
+  }
+
+  /**
+   * Permet de connecter toutes les cartes branchées sur la machine qui ne le
+   * sont pas déjà.
+   * 
+   * @return les adresses des cartes trouvées
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur intervient lors du dialogue avec les cartes
+   * 
+   * @see GestionnaireCartes#rechercherCartes()
+   * @see LiaisonCarte#connexionCarte(int)
+   */
+  public static int[] connecterCartes() throws JK8055Exception {
+    int[] adresses = rechercherCartes();
+
+    for (int adresse : adresses) {
+      if (!LiaisonCarte.estConnectee(adresse)) {
+        LiaisonCarte.connexionCarte(adresse);
+      }
+    }
+
+    return adresses;
+  }
+
+  /**
+   * Permet de choisir comment dialoguer avec les cartes démarrées par la suite.
+   * 
+   * @param boucleUnique
+   *          vrai pour utiliser une seule tâche par carte (BoucleCarte), faux
+   *          pour les deux tâches de LectureEntrees et d'EcritureSorties
+   * 
+   * @see GestionnaireCartes#boucleUnique
+   */
+  public static void definirBoucleUnique(boolean boucleUnique) {
+    GestionnaireCartes.boucleUnique = boucleUnique;
+  }
+
+  /**
+   * Permet de savoir comment les cartes démarrées par la suite dialoguent avec
+   * le programme.
+   * 
+   * @return vrai si une seule tâche est utilisée par carte
+   * 
+   * @see GestionnaireCartes#boucleUnique
+   */
+  public static boolean estBoucleUnique() {
+    return boucleUnique;
+  }
+
+  /**
+   * Permet de choisir si les cartes démarrées par la suite sont reconnectées
+   * automatiquement après une erreur de dialogue.
+   * 
+   * @param repriseAutomatique
+   *          vrai pour surveiller chaque carte et la reconnecter en cas
+   *          d'erreur, faux pour laisser l'erreur arrêter le dialogue
+   * 
+   * @see GestionnaireCartes#repriseAutomatique
+   */
+  public static void definirRepriseAutomatique(boolean repriseAutomatique) {
+    GestionnaireCartes.repriseAutomatique = repriseAutomatique;
+  }
+
+  /**
+   * Permet de savoir si une carte est reconnectée automatiquement après une
+   * erreur de dialogue.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * 
+   * @return vrai si la carte est surveillée
+   * 
+   * @see SurveillanceCarte#estSurveillee(int)
+   */
+  public static boolean estSurveillee(int adresse) {
+    return SurveillanceCarte.estSurveillee(adresse);
+  }
+
+  /**
+   * Permet de lancer la lecture des entrées et l'écriture des sorties d'une
+   * carte, selon le mode choisi, ainsi que sa surveillance si la reprise
+   * automatique est activée.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * 
+   * @see GestionnaireCartes#definirBoucleUnique(boolean)
+   * @see GestionnaireCartes#definirRepriseAutomatique(boolean)
+   * @see BoucleCarte
+   * @see SurveillanceCarte
+   */
+  public static void demarrerEntreesSorties(int adresse) {
+    if (boucleUnique) {
+      BoucleCarte.recupererInstance(adresse).start();
+    } else {
+      LectureEntrees.recupererInstance(adresse).start();
+      EcritureSorties.recupererInstance(adresse).start();
+    }
+
+    if (repriseAutomatique) {
+      SurveillanceCarte.recupererInstance(adresse).start();
+    }
+  }
+
+  /**
+   * Permet d'arrêter la lecture des entrées et l'écriture des sorties d'une
+   * carte, quel que soit le mode utilisé.
+   * <p>
+   * La surveillance est arrêtée en premier et attendue, afin qu'une reprise en
+   * cours ne relance pas les tâches arrêtées ensuite.
+   * </p>
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * 
+   * @see LectureEntrees#finLecture()
+   * @see EcritureSorties#finTache()
+   * @see BoucleCarte#finBoucle()
+   * @see SurveillanceCarte#finSurveillance()
+   */
+  public static void arreterEntreesSorties(int adresse) {
+    SurveillanceCarte surveillance = SurveillanceCarte.recupererExistante(adresse);
+    BoucleCarte boucle = BoucleCarte.recupererExistante(adresse);
+
+    if (surveillance != null) {
+      surveillance.finSurveillance();
+    }
+
+    if (boucle != null) {
+      boucle.finBoucle();
+    }
+    LectureEntrees.recupererInstance(adresse).finLecture();
+    EcritureSorties.recupererInstance(adresse).finTache();
+  }
+
+  /**
+   * Permet de récupérer la lecture des entrées d'une carte.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * 
+   * @return la lecture des entrées propre à cette carte
+   */
+  public static LectureEntrees recupererLecture(int adresse) {
+    return LectureEntrees.recupererInstance(adresse);
+  }
+
+  /**
+   * Permet de récupérer l'écriture des sorties d'une carte.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * 
+   * @return l'écriture des sorties propre à cette carte
+   */
+  public static EcritureSorties recupererEcriture(int adresse) {
+    return EcritureSorties.recupererInstance(adresse);
+  }
+
+  /**
+   * Permet de récupérer le nombre d'échanges par seconde avec une carte depuis
+   * sa connexion, lectures et envois confondus.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * 
+   * @return le débit en échanges par seconde, ou 0 si la carte n'est pas
+   *         connectée
+   */
+  public static double recupererDebit(int adresse) {
+    if (!LiaisonCarte.estConnectee(adresse)) {
+      return 0;
+    }
+
+    long duree = Temps.maintenant() - LiaisonCarte.recupererInstantConnexion(adresse);
+    long echanges = LiaisonCarte.recupererNombreLectures(adresse)
+        + LiaisonCarte.recupererNombreEnvois(adresse);
+
+    return duree <= 0 ? 0 : echanges * 1e9 / duree;
+  }
+
+  /**
+   * Permet de récupérer la durée moyenne d'un échange avec une carte.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * 
+   * @return la durée moyenne d'un échange en nanosecondes, ou 0 si aucun échange
+   *         n'a eu lieu
+   */
+  public static long recupererDureeMoyenne(int adresse) {
+    long echanges = LiaisonCarte.recupererNombreLectures(adresse)
+        + LiaisonCarte.recupererNombreEnvois(adresse);
+
+    return echanges == 0 ? 0 : LiaisonCarte.recupererDureeDialogue(adresse) / echanges;
+  }
+
+  /**
+   * Permet d'obtenir un résumé lisible de l'activité d'une carte.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * 
+   * @return le résumé de l'activité de la carte
+   */
+  public static String decrire(int adresse) {
+    return "Carte " + adresse + "[connectee=" + LiaisonCarte.estConnectee(adresse) + ", lectures="
+        + LiaisonCarte.recupererNombreLectures(adresse) + ", envois="
+        + LiaisonCarte.recupererNombreEnvois(adresse) + ", debit="
+        + Math.round(recupererDebit(adresse)) + "/s, echange moyen="
+        + recupererDureeMoyenne(adresse) / 1000 + " us]";
+  }
+}
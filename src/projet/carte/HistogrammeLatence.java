@@ -0,0 +1,303 @@
+package projet.carte;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <b>Cette classe permet de mesurer la répartition d'une durée sans aucune
+ * allocation.</b>
+ * <p>
+ * Les durées, en nanosecondes, sont rangées dans des cases log-linéaires :
+ * chaque puissance de deux est découpée en seize cases de même largeur. La
+ * précision relative est donc d'environ 6 %, quelle que soit la durée, de la
+ * nanoseconde à plusieurs heures. Les durées inférieures à seize nanosecondes
+ * ont chacune leur case.
+ * </p>
+ * <p>
+ * L'enregistrement d'une durée n'incrémente qu'un compteur atomique, il peut
+ * donc être fait par plusieurs tâches à la fois sans verrou. Les requêtes
+ * (centiles, maximum, moyenne) peuvent être faites à tout moment. Pour obtenir
+ * des valeurs cohérentes entre elles, il est préférable de les faire sur une
+ * copie obtenue via la méthode instantane().
+ * </p>
+ * 
+ * @see EcritureSorties#recupererLatenceFile()
+ * @see EcritureSorties#recupererLatenceEcriture()
+ * @see LectureEntrees#recupererLatenceLecture()
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public final class HistogrammeLatence {
+  /**
+   * Nombre de bits de précision dans chaque puissance de deux.
+   */
+  private static final int BITS_PRECISION = 4;
+  /**
+   * Nombre de cases dans chaque puissance de deux.
+   */
+  private static final int CASES_PAR_PUISSANCE = 1 << BITS_PRECISION;
+  /**
+   * Nombre total de cases, de quoi couvrir toutes les valeurs positives d'un
+   * entier long.
+   */
+  private static final int NOMBRE_CASES = (64 - BITS_PRECISION) * CASES_PAR_PUISSANCE;
+  /**
+   * Le nombre de durées enregistrées dans chaque case.
+   */
+  private final AtomicLongArray cases = new AtomicLongArray(NOMBRE_CASES);
+  /**
+   * Le nombre total de durées enregistrées.
+   */
+  private final AtomicLong nombre = new AtomicLong();
+  /**
+   * La somme des durées enregistrées.
+   */
+  private final AtomicLong somme = new AtomicLong();
+  /**
+   * La plus grande durée enregistrée.
+   */
+  private final AtomicLong maximum = new AtomicLong();
+
+  /**
+   * Permet d'enregistrer une durée.
+   * 
+   * @param duree
+   *          la durée en nanosecondes, les durées négatives étant comptées comme
+   *          nulles
+   */
+  public void enregistrer(long duree) {
+    if (duree < 0) {
+      duree = 0;
+    }
+
+    cases.incrementAndGet(indice(duree));
+    nombre.incrementAndGet();
+    somme.addAndGet(duree);
+
+    long actuel;
+    while (duree > (actuel = maximum.get()) && !maximum.compareAndSet(actuel, duree)) {
+    }
+  }
+
+  /**
+   * Permet d'enregistrer la durée écoulée depuis un instant.
+   * 
+   * @param debut
+   *          la valeur de Temps.maintenant() au début de la durée
+   * 
+   * @return la valeur de Temps.maintenant() utilisée comme fin de la durée
+   */
+  public long enregistrerDepuis(long debut) {
+    long fin = Temps.maintenant();
+
+    enregistrer(fin - debut);
+
+    return fin;
+  }
+
+  /**
+   * Permet de récupérer le nombre de durées enregistrées.
+   * 
+   * @return le nombre de durées
+   */
+  public long nombre() {
+    return nombre.get();
+  }
+
+  /**
+   * Permet de récupérer la plus grande durée enregistrée.
+   * 
+   * @return la durée maximale en nanosecondes, ou 0 si aucune durée n'a été
+   *         enregistrée
+   */
+  public long maximum() {
+    return maximum.get();
+  }
+
+  /**
+   * Permet de récupérer la moyenne des durées enregistrées.
+   * 
+   * @return la durée moyenne en nanosecondes, ou 0 si aucune durée n'a été
+   *         enregistrée
+   */
+  public long moyenne() {
+    long total = nombre.get();
+
+    return total == 0 ? 0 : somme.get() / total;
+  }
+
+  /**
+   * Permet de récupérer un centile des durées enregistrées.
+   * <p>
+   * La valeur retournée est la borne supérieure de la case contenant le centile,
+   * sans dépasser la durée maximale enregistrée : la durée réelle n'est donc
+   * jamais sous-estimée.
+   * </p>
+   * 
+   * @param centile
+   *          le centile voulu (compris entre 0 et 100, par exemple 99.9)
+   * 
+   * @return la durée en nanosecondes, ou 0 si aucune durée n'a été enregistrée
+   */
+  public long centile(double centile) {
+    long total = 0;
+    for (int i = 0; i < NOMBRE_CASES; i++) {
+      total += cases.get(i);
+    }
+
+    if (total == 0) {
+      return 0;
+    }
+
+    long rang = Math.max(1, (long) Math.ceil(total * Math.min(100, Math.max(0, centile)) / 100));
+    long cumul = 0;
+    for (int i = 0; i < NOMBRE_CASES; i++) {
+      cumul += cases.get(i);
+      if (cumul >= rang) {
+        return Math.min(borneSuperieure(i), maximum.get());
+      }
+    }
+
+    return maximum.get();
+  }
+
+  /**
+   * Permet de remettre l'histogramme à zéro.
+   * <p>
+   * Les durées enregistrées pendant la remise à zéro peuvent être en partie
+   * perdues.
+   * </p>
+   */
+  public void reinitialiser() {
+    for (int i = 0; i < NOMBRE_CASES; i++) {
+      cases.set(i, 0);
+    }
+
+    nombre.set(0);
+    somme.set(0);
+    maximum.set(0);
+  }
+
+  /**
+   * Permet d'obtenir une copie de l'histogramme, qui n'évoluera plus.
+   * 
+   * @return la copie de l'histogramme
+   * 
+   * @see HistogrammeLatence#instantaneEtReinitialiser()
+   */
+  public HistogrammeLatence instantane() {
+    return copier(false);
+  }
+
+  /**
+   * Permet d'obtenir une copie de l'histogramme et de le remettre à zéro en même
+   * temps. Aucune durée n'est perdue : chacune se retrouve soit dans la copie,
+   * soit dans l'histogramme remis à zéro.
+   * 
+   * @return la copie de l'histogramme avant sa remise à zéro
+   */
+  public HistogrammeLatence instantaneEtReinitialiser() {
+    return copier(true);
+  }
+
+  /**
+   * Permet d'obtenir un résumé lisible de l'histogramme.
+   * 
+   * @return le nombre de durées, la médiane, les centiles 99 et 99,9 et le
+   *         maximum, en microsecondes
+   */
+  public String resumer() {
+    HistogrammeLatence copie = instantane();
+
+    return "n=" + copie.nombre() + " p50=" + microsecondes(copie.centile(50)) + "us p99="
+        + microsecondes(copie.centile(99)) + "us p99.9=" + microsecondes(copie.centile(99.9))
+        + "us max=" + microsecondes(copie.maximum()) + "us";
+  }
+
+  @Override
+  public String toString() {
+    return "HistogrammeLatence[" + resumer() + "]";
+  }
+
+  /**
+   * Permet de copier l'histogramme.
+   * 
+   * @param reinitialiser
+   *          vrai pour remettre à zéro l'histogramme au fur et à mesure de la
+   *          copie
+   * 
+   * @return la copie
+   */
+  private HistogrammeLatence copier(boolean reinitialiser) {
+    HistogrammeLatence copie = new HistogrammeLatence();
+    long total = 0;
+
+    copie.maximum.set(reinitialiser ? maximum.getAndSet(0) : maximum.get());
+    copie.somme.set(reinitialiser ? somme.getAndSet(0) : somme.get());
+    for (int i = 0; i < NOMBRE_CASES; i++) {
+      long valeur = reinitialiser ? cases.getAndSet(i, 0) : cases.get(i);
+
+      copie.cases.set(i, valeur);
+      total += valeur;
+    }
+
+    if (reinitialiser) {
+      nombre.addAndGet(-total);
+    }
+    copie.nombre.set(total);
+
+    return copie;
+  }
+
+  /**
+   * Permet de trouver la case d'une durée.
+   * 
+   * @param duree
+   *          la durée, positive
+   * 
+   * @return l'indice de la case
+   */
+  private static int indice(long duree) {
+    if (duree < CASES_PAR_PUISSANCE) {
+      return (int) duree;
+    }
+
+    int puissance = 63 - Long.numberOfLeadingZeros(duree);
+    int decalage = puissance - BITS_PRECISION;
+
+    return (decalage + 1) * CASES_PAR_PUISSANCE
+        + (int) ((duree >>> decalage) & (CASES_PAR_PUISSANCE - 1));
+  }
+
+  /**
+   * Permet de connaître la plus grande durée rangée dans une case.
+   * 
+   * @param indice
+   *          l'indice de la case
+   * 
+   * @return la borne supérieure de la case, en nanosecondes
+   */
+  private static long borneSuperieure(int indice) {
+    if (indice < CASES_PAR_PUISSANCE) {
+      return indice;
+    }
+
+    int decalage = indice / CASES_PAR_PUISSANCE - 1;
+    long debut = (long) (CASES_PAR_PUISSANCE + indice % CASES_PAR_PUISSANCE) << decalage;
+
+    return debut + (1L << decalage) - 1;
+  }
+
+  /**
+   * Permet de convertir une durée en microsecondes, avec une décimale.
+   * 
+   * @param duree
+   *          la durée en nanosecondes
+   * 
+   * @return la durée en microsecondes
+   */
+  private static double microsecondes(long duree) {
+    return Math.round(duree / 100.0) / 10.0;
+  }
+}
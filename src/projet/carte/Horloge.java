@@ -0,0 +1,44 @@
+package projet.carte;
+
+/**
+ * <b>Cette interface représente la source du temps utilisée par la lecture des
+ * entrées, l'écriture des sorties et le scénario.</b>
+ * <p>
+ * Deux implémentations sont fournies :
+ * </p>
+ * <ul>
+ * <li>HorlogeSysteme, utilisée par défaut, qui s'appuie sur System.nanoTime()
+ * et endort réellement la tâche appelante,</li>
+ * <li>HorlogeVirtuelle, qui permet de simuler le fonctionnement du programme
+ * dans une seule tâche, le temps avançant d'un événement à l'autre sans jamais
+ * attendre.</li>
+ * </ul>
+ * 
+ * @see Temps
+ * @see HorlogeSysteme
+ * @see HorlogeVirtuelle
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public interface Horloge {
+  /**
+   * Permet de connaître l'instant présent.
+   * <p>
+   * Seuls les écarts entre deux instants ont un sens, comme pour
+   * System.nanoTime().
+   * </p>
+   * 
+   * @return l'instant présent en nanosecondes
+   */
+  long maintenant();
+
+  /**
+   * Permet d'attendre jusqu'à un instant donné.
+   * 
+   * @param echeance
+   *          l'instant à atteindre en nanosecondes, une échéance passée ne
+   *          provoquant aucune attente
+   */
+  void attendreJusqua(long echeance);
+}
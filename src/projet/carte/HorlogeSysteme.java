@@ -0,0 +1,63 @@
+package projet.carte;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <b>Cette classe représente le temps réel, mesuré par System.nanoTime().</b>
+ * <p>
+ * C'est l'horloge utilisée par défaut. Une attente endort la tâche appelante
+ * via LockSupport.parkNanos(), puis termine en boucle active lorsque
+ * l'échéance est trop proche pour que le réveil soit précis.
+ * </p>
+ * 
+ * @see Horloge
+ * @see Temps
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public final class HorlogeSysteme implements Horloge {
+  /**
+   * En dessous de cette durée, l'attente se fait en boucle active plutôt qu'en
+   * endormant la tâche, LockSupport.parkNanos() n'étant pas assez précis.
+   */
+  private static final long ATTENTE_ACTIVE = 50000L;
+  /**
+   * L'unique instance de la classe.
+   */
+  private static final HorlogeSysteme instance = new HorlogeSysteme();
+
+  /**
+   * Le constructeur de la classe.
+   * <p>
+   * Une seule instance étant nécessaire, cette méthode est privée.
+   * </p>
+   */
+  private HorlogeSysteme() {
+  }
+
+  /**
+   * Permet de récupérer l'unique instance de la classe.
+   * 
+   * @return l'horloge système
+   */
+  public static HorlogeSysteme recupererInstance() {
+    return instance;
+  }
+
+  @Override
+  public long maintenant() {
+    return System.nanoTime();
+  }
+
+  @Override
+  public void attendreJusqua(long echeance) {
+    long reste;
+
+    while ((reste = echeance - System.nanoTime()) > 0) {
+      if (reste > ATTENTE_ACTIVE) {
+        LockSupport.parkNanos(reste - ATTENTE_ACTIVE);
+      }
+    }
+  }
+}
@@ -0,0 +1,219 @@
+package projet.carte;
+
+import java.util.PriorityQueue;
+
+/**
+ * <b>Cette classe permet de simuler le temps, à la manière d'un simulateur à
+ * événements discrets.</b>
+ * <p>
+ * Les actions à effectuer sont planifiées à un instant donné, puis exécutées
+ * dans l'ordre chronologique par la méthode executerSuivant(). Entre deux
+ * actions, le temps saute directement à l'instant de la suivante : aucune
+ * attente réelle n'a lieu, une simulation de plusieurs heures peut donc
+ * s'exécuter en quelques secondes. Deux actions planifiées au même instant
+ * sont exécutées dans l'ordre où elles ont été planifiées, ce qui rend la
+ * simulation reproductible.
+ * </p>
+ * <p>
+ * Une action qui attend via attendreJusqua(), par exemple le pilote simulé le
+ * temps d'un échange USB, fait simplement avancer le temps. Le temps ne
+ * recule jamais : une action planifiée avant l'instant présent est exécutée
+ * immédiatement.
+ * </p>
+ * <p>
+ * Cette classe n'est pas prévue pour être utilisée par plusieurs tâches : toute
+ * la simulation doit se dérouler dans la tâche qui appelle executerSuivant().
+ * Seul l'instant présent peut être lu depuis une autre tâche.
+ * </p>
+ * 
+ * @see Horloge
+ * @see Temps#definirHorloge(Horloge)
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public final class HorlogeVirtuelle implements Horloge {
+  /**
+   * Instant de départ par défaut : une seconde, afin que l'instant 0 reste
+   * réservé à l'absence d'horodatage.
+   */
+  public static final long ORIGINE_DEFAUT = 1000000000L;
+  /**
+   * Les actions planifiées, de la plus proche à la plus lointaine.
+   */
+  private final PriorityQueue<ActionPlanifiee> actions = new PriorityQueue<ActionPlanifiee>();
+  /**
+   * L'instant présent en nanosecondes. Seule la tâche de la simulation le fait
+   * avancer, mais il peut être lu depuis n'importe quelle tâche, par exemple
+   * par la supervision via Temps.maintenant().
+   */
+  private volatile long instant;
+  /**
+   * Le numéro de la prochaine action planifiée, utilisé pour départager deux
+   * actions planifiées au même instant.
+   */
+  private long numero;
+  /**
+   * Nombre d'actions exécutées.
+   */
+  private long nombreExecutees;
+
+  /**
+   * Permet de créer une horloge virtuelle partant de ORIGINE_DEFAUT.
+   */
+  public HorlogeVirtuelle() {
+    this(ORIGINE_DEFAUT);
+  }
+
+  /**
+   * Permet de créer une horloge virtuelle.
+   * 
+   * @param origine
+   *          l'instant de départ en nanosecondes
+   */
+  public HorlogeVirtuelle(long origine) {
+    this.instant = origine;
+  }
+
+  @Override
+  public long maintenant() {
+    return instant;
+  }
+
+  @Override
+  public void attendreJusqua(long echeance) {
+    if (echeance > instant) {
+      instant = echeance;
+    }
+  }
+
+  /**
+   * Permet de faire avancer le temps.
+   * 
+   * @param duree
+   *          la durée en nanosecondes
+   */
+  public void avancer(long duree) {
+    attendreJusqua(instant + duree);
+  }
+
+  /**
+   * Permet de planifier une action à un instant donné.
+   * 
+   * @param echeance
+   *          l'instant de l'action en nanosecondes
+   * @param action
+   *          l'action à exécuter
+   */
+  public void planifier(long echeance, Runnable action) {
+    actions.add(new ActionPlanifiee(echeance, numero++, action));
+  }
+
+  /**
+   * Permet de planifier une action après un délai.
+   * 
+   * @param delai
+   *          le délai en nanosecondes à partir de l'instant présent
+   * @param action
+   *          l'action à exécuter
+   */
+  public void planifierDans(long delai, Runnable action) {
+    planifier(instant + delai, action);
+  }
+
+  /**
+   * Permet d'exécuter la prochaine action, après avoir avancé le temps jusqu'à
+   * son instant.
+   * 
+   * @return vrai si une action a été exécutée, faux s'il n'y en avait plus
+   */
+  public boolean executerSuivant() {
+    ActionPlanifiee suivante = actions.poll();
+
+    if (suivante == null) {
+      return false;
+    }
+
+    attendreJusqua(suivante.echeance);
+    nombreExecutees++;
+    suivante.action.run();
+
+    return true;
+  }
+
+  /**
+   * Permet d'exécuter toutes les actions planifiées jusqu'à un instant donné,
+   * puis d'avancer le temps jusqu'à cet instant.
+   * 
+   * @param fin
+   *          l'instant à atteindre en nanosecondes
+   */
+  public void executerJusqua(long fin) {
+    ActionPlanifiee suivante;
+
+    while ((suivante = actions.peek()) != null && suivante.echeance <= fin) {
+      executerSuivant();
+    }
+
+    attendreJusqua(fin);
+  }
+
+  /**
+   * Permet de récupérer le nombre d'actions en attente.
+   * 
+   * @return le nombre d'actions planifiées et pas encore exécutées
+   */
+  public int recupererNombrePlanifiees() {
+    return actions.size();
+  }
+
+  /**
+   * Permet de récupérer le nombre d'actions exécutées.
+   * 
+   * @return le nombre d'actions exécutées
+   */
+  public long recupererNombreExecutees() {
+    return nombreExecutees;
+  }
+
+  /**
+   * <b>Une action et l'instant auquel elle doit être exécutée.</b>
+   */
+  private static final class ActionPlanifiee implements Comparable<ActionPlanifiee> {
+    /**
+     * L'instant de l'action en nanosecondes.
+     */
+    private final long echeance;
+    /**
+     * L'ordre de planification de l'action.
+     */
+    private final long numero;
+    /**
+     * L'action à exécuter.
+     */
+    private final Runnable action;
+
+    /**
+     * Le constructeur de la classe.
+     * 
+     * @param echeance
+     *          l'instant de l'action
+     * @param numero
+     *          l'ordre de planification de l'action
+     * @param action
+     *          l'action à exécuter
+     */
+    private ActionPlanifiee(long echeance, long numero, Runnable action) {
+      this.echeance = echeance;
+      this.numero = numero;
+      this.action = action;
+    }
+
+    @Override
+    public int compareTo(ActionPlanifiee autre) {
+      int comparaison = Long.compare(echeance, autre.echeance);
+
+      return comparaison != 0 ? comparaison : Long.compare(numero, autre.numero);
+    }
+  }
+}
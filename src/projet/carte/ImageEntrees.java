@@ -0,0 +1,263 @@
+package projet.carte;
+
+/**
+ * <b>Cette classe représente l'état de toutes les entrées de la carte lors d'une
+ * lecture.</b>
+ * <p>
+ * Toutes les valeurs sont rangées dans un seul entier long, au format suivant :
+ * </p>
+ * <ul>
+ * <li>bits 0 à 4 : valeur des cinq entrées digitales,</li>
+ * <li>bits 8 à 15 : valeur de la première entrée analogique,</li>
+ * <li>bits 16 à 23 : valeur de la seconde entrée analogique,</li>
+ * <li>bits 24 à 39 : valeur du premier compteur,</li>
+ * <li>bits 40 à 55 : valeur du second compteur.</li>
+ * </ul>
+ * <p>
+ * Ce format est celui utilisé en interne par la lecture des entrées, ce qui lui
+ * permet de ne faire aucune allocation. Les méthodes statiques de cette classe
+ * permettent de le décoder directement. Les objets de cette classe sont
+ * immuables et peuvent donc être partagés entre plusieurs tâches.
+ * </p>
+ * 
+ * @see LiaisonCarte#lectureComplete()
+ * @see LectureEntrees#recupererImage()
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public final class ImageEntrees {
+  /**
+   * Les entrées sous leur forme compacte.
+   * 
+   * @see ImageEntrees#valeurs()
+   */
+  private final long valeurs;
+  /**
+   * Le numéro de la lecture, croissant d'une lecture à l'autre.
+   * 
+   * @see ImageEntrees#numero()
+   */
+  private final long numero;
+  /**
+   * La valeur de Temps.maintenant() au moment de la lecture.
+   * 
+   * @see ImageEntrees#horodatage()
+   */
+  private final long horodatage;
+
+  /**
+   * Le constructeur de la classe.
+   * 
+   * @param valeurs
+   *          les entrées sous leur forme compacte
+   * @param numero
+   *          le numéro de la lecture
+   * @param horodatage
+   *          la valeur de Temps.maintenant() au moment de la lecture
+   */
+  public ImageEntrees(long valeurs, long numero, long horodatage) {
+    this.valeurs = valeurs;
+    this.numero = numero;
+    this.horodatage = horodatage;
+  }
+
+  /**
+   * Permet de construire la forme compacte des entrées.
+   * 
+   * @param digitales
+   *          la valeur des entrées digitales (un bit par entrée)
+   * @param analogique1
+   *          la valeur de la première entrée analogique (de 0 à 255)
+   * @param analogique2
+   *          la valeur de la seconde entrée analogique (de 0 à 255)
+   * @param compteur1
+   *          la valeur du premier compteur
+   * @param compteur2
+   *          la valeur du second compteur
+   * 
+   * @return les entrées sous leur forme compacte
+   */
+  public static long compacter(int digitales, int analogique1, int analogique2, int compteur1,
+      int compteur2) {
+    return (digitales & 0x1FL) | (analogique1 & 0xFFL) << 8 | (analogique2 & 0xFFL) << 16
+        | (compteur1 & 0xFFFFL) << 24 | (compteur2 & 0xFFFFL) << 40;
+  }
+
+  /**
+   * Permet de savoir si une entrée digitale est active.
+   * 
+   * @param valeurs
+   *          les entrées sous leur forme compacte
+   * @param chaine
+   *          le numéro de l'entrée (compris entre 1 et 5)
+   * 
+   * @return vrai si l'entrée est active
+   */
+  public static boolean digitale(long valeurs, int chaine) {
+    return (valeurs & (1L << (chaine - 1))) != 0;
+  }
+
+  /**
+   * Permet de récupérer la valeur de toutes les entrées digitales.
+   * 
+   * @param valeurs
+   *          les entrées sous leur forme compacte
+   * 
+   * @return la valeur des entrées digitales, un bit par entrée
+   */
+  public static int digitales(long valeurs) {
+    return (int) valeurs & 0x1F;
+  }
+
+  /**
+   * Permet de récupérer la valeur d'une entrée analogique.
+   * 
+   * @param valeurs
+   *          les entrées sous leur forme compacte
+   * @param chaine
+   *          le numéro de l'entrée (compris entre 1 et 2)
+   * 
+   * @return la valeur de l'entrée (de 0 à 255)
+   */
+  public static int analogique(long valeurs, int chaine) {
+    return (int) (valeurs >>> (chaine * 8)) & 0xFF;
+  }
+
+  /**
+   * Permet de récupérer la valeur d'un compteur.
+   * 
+   * @param valeurs
+   *          les entrées sous leur forme compacte
+   * @param chaine
+   *          le numéro du compteur (compris entre 1 et 2)
+   * 
+   * @return la valeur du compteur
+   */
+  public static int compteur(long valeurs, int chaine) {
+    return (int) (valeurs >>> (8 + chaine * 16)) & 0xFFFF;
+  }
+
+  /**
+   * Permet de convertir les entrées vers le format de tableau de la méthode
+   * LectureEntrees.recupererEntrees().
+   * 
+   * @param valeurs
+   *          les entrées sous leur forme compacte
+   * @param destination
+   *          le tableau à remplir, d'au moins LiaisonCarte.TAILLE_ENTREES cases
+   * 
+   * @return le tableau rempli
+   * 
+   * @see LectureEntrees#recupererEntrees()
+   */
+  public static int[] versTableau(long valeurs, int[] destination) {
+    for (int i = 0; i < 5; i++) {
+      destination[i] = (int) (valeurs >>> i) & 1;
+    }
+
+    destination[5] = analogique(valeurs, 1);
+    destination[6] = analogique(valeurs, 2);
+    destination[7] = compteur(valeurs, 1);
+    destination[8] = compteur(valeurs, 2);
+
+    return destination;
+  }
+
+  /**
+   * Permet de récupérer les entrées sous leur forme compacte.
+   * 
+   * @return les entrées sous leur forme compacte
+   */
+  public long valeurs() {
+    return valeurs;
+  }
+
+  /**
+   * Permet de récupérer le numéro de la lecture.
+   * 
+   * @return le numéro de la lecture, croissant d'une lecture à l'autre
+   */
+  public long numero() {
+    return numero;
+  }
+
+  /**
+   * Permet de récupérer l'instant de la lecture.
+   * 
+   * @return la valeur de Temps.maintenant() au moment de la lecture
+   */
+  public long horodatage() {
+    return horodatage;
+  }
+
+  /**
+   * Permet de savoir si une entrée digitale est active.
+   * 
+   * @param chaine
+   *          le numéro de l'entrée (compris entre 1 et 5)
+   * 
+   * @return vrai si l'entrée est active
+   */
+  public boolean digitale(int chaine) {
+    return digitale(valeurs, chaine);
+  }
+
+  /**
+   * Permet de récupérer la valeur de toutes les entrées digitales.
+   * 
+   * @return la valeur des entrées digitales, un bit par entrée
+   */
+  public int digitales() {
+    return digitales(valeurs);
+  }
+
+  /**
+   * Permet de récupérer la valeur d'une entrée analogique.
+   * 
+   * @param chaine
+   *          le numéro de l'entrée (compris entre 1 et 2)
+   * 
+   * @return la valeur de l'entrée (de 0 à 255)
+   */
+  public int analogique(int chaine) {
+    return analogique(valeurs, chaine);
+  }
+
+  /**
+   * Permet de récupérer la valeur d'un compteur.
+   * 
+   * @param chaine
+   *          le numéro du compteur (compris entre 1 et 2)
+   * 
+   * @return la valeur du compteur
+   */
+  public int compteur(int chaine) {
+    return compteur(valeurs, chaine);
+  }
+
+  @Override
+  public boolean equals(Object autre) {
+    if (!(autre instanceof ImageEntrees)) {
+      return false;
+    }
+
+    ImageEntrees image = (ImageEntrees) autre;
+
+    return image.valeurs == valeurs && image.numero == numero && image.horodatage == horodatage;
+  }
+
+  @Override
+  public int hashCode() {
+    long melange = valeurs * 31 + numero;
+
+    return (int) (melange ^ (melange >>> 32));
+  }
+
+  @Override
+  public String toString() {
+    return "ImageEntrees[numero=" + numero + ", digitales=" + Integer.toBinaryString(digitales())
+        + ", analogiques=" + analogique(1) + "/" + analogique(2) + ", compteurs=" + compteur(1) + "/"
+        + compteur(2) + "]";
+  }
+}
@@ -0,0 +1,274 @@
+package projet.carte;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * <b>Cette classe permet de relire les fichiers produits par
+ * l'Enregistreur.</b>
+ * <p>
+ * Les enregistrements sont parcourus un par un, du plus ancien au plus récent,
+ * via la méthode suivant(). Les valeurs de l'enregistrement courant sont
+ * ensuite obtenues via les accesseurs, sans aucune allocation : des millions
+ * d'enregistrements peuvent ainsi être relus en quelques secondes.
+ * </p>
+ * <p>
+ * Chaque fichier est projeté en mémoire le temps de sa lecture. La projection
+ * est libérée au passage au fichier suivant, à la fin du dernier ou par la
+ * méthode fermer(), afin que l'Enregistreur puisse supprimer le fichier, y
+ * compris sous Windows.
+ * </p>
+ * <p>
+ * Exemple :
+ * </p>
+ * 
+ * <pre>
+ * LecteurEnregistrement lecteur = LecteurEnregistrement.ouvrir(repertoire);
+ * while (lecteur.suivant()) {
+ *   if (lecteur.type() == Enregistreur.ENTREES) {
+ *     int digitales = ImageEntrees.digitales(lecteur.valeur());
+ *   }
+ * }
+ * lecteur.fermer();
+ * </pre>
+ * 
+ * @see Enregistreur
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public final class LecteurEnregistrement {
+  /**
+   * Les fichiers à relire, du plus ancien au plus récent.
+   */
+  private final File[] fichiers;
+  /**
+   * L'indice du fichier en cours de lecture.
+   */
+  private int indiceFichier = -1;
+  /**
+   * Le contenu du fichier en cours de lecture, ou nul avant le premier.
+   */
+  private MappedByteBuffer tampon;
+  /**
+   * La position de l'enregistrement courant dans le fichier.
+   */
+  private int position;
+  /**
+   * La taille d'un enregistrement dans le fichier en cours de lecture.
+   */
+  private int tailleEnregistrement;
+  /**
+   * L'heure de création du fichier en cours de lecture, en millisecondes.
+   */
+  private long heureCreation;
+  /**
+   * La valeur de Temps.maintenant() à la création du fichier en cours de
+   * lecture.
+   */
+  private long instantCreation;
+
+  /**
+   * Le constructeur de la classe.
+   * 
+   * @param fichiers
+   *          les fichiers à relire, du plus ancien au plus récent
+   */
+  public LecteurEnregistrement(File... fichiers) {
+    this.fichiers = fichiers.clone();
+  }
+
+  /**
+   * Permet de relire tous les fichiers d'enregistrement d'un répertoire.
+   * 
+   * @param repertoire
+   *          le répertoire
+   * 
+   * @return le lecteur, placé avant le premier enregistrement
+   */
+  public static LecteurEnregistrement ouvrir(File repertoire) {
+    return new LecteurEnregistrement(Enregistreur.fichiers(repertoire));
+  }
+
+  /**
+   * Permet de passer à l'enregistrement suivant.
+   * <p>
+   * À la fin d'un fichier, ou au premier enregistrement incomplet, la lecture
+   * continue avec le fichier suivant.
+   * </p>
+   * 
+   * @return vrai si un enregistrement est disponible, faux à la fin du dernier
+   *         fichier
+   * 
+   * @throws IOException
+   *           quand un fichier ne peut pas être lu ou n'est pas un fichier
+   *           d'enregistrement
+   */
+  public boolean suivant() throws IOException {
+    while (true) {
+      if (tampon != null) {
+        position += tailleEnregistrement;
+
+        if (position <= tampon.capacity() - tailleEnregistrement && type() != 0) {
+          return true;
+        }
+      }
+
+      fermer();
+      if (++indiceFichier >= fichiers.length) {
+        indiceFichier = fichiers.length;
+        return false;
+      }
+
+      ouvrirFichier(fichiers[indiceFichier]);
+    }
+  }
+
+  /**
+   * Permet d'arrêter la lecture en libérant la projection du fichier en cours.
+   * Les accesseurs ne doivent plus être utilisés, et suivant() passe au fichier
+   * suivant.
+   * 
+   * @see Enregistreur#liberer(MappedByteBuffer)
+   */
+  public void fermer() {
+    MappedByteBuffer libere = tampon;
+
+    tampon = null;
+    if (libere != null) {
+      Enregistreur.liberer(libere);
+    }
+  }
+
+  /**
+   * Permet de commencer la lecture d'un fichier.
+   * 
+   * @param fichier
+   *          le fichier
+   * 
+   * @throws IOException
+   *           quand le fichier ne peut pas être lu, n'est pas un fichier
+   *           d'enregistrement ou que son en-tête est invalide
+   */
+  private void ouvrirFichier(File fichier) throws IOException {
+    MappedByteBuffer projete;
+
+    try (RandomAccessFile acces = new RandomAccessFile(fichier, "r")) {
+      projete = acces.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, acces.length());
+    }
+
+    String probleme = null;
+
+    if (projete.capacity() < Enregistreur.TAILLE_ENTETE
+        || projete.getLong(0) != Enregistreur.SIGNATURE) {
+      probleme = " n'est pas un fichier d'enregistrement.";
+    } else if (projete.getShort(8) != Enregistreur.VERSION) {
+      probleme = " : version " + projete.getShort(8) + " non supportée.";
+    } else if (projete.getShort(10) < Enregistreur.TAILLE_ENREGISTREMENT) {
+      probleme = " : taille d'enregistrement " + projete.getShort(10) + " invalide.";
+    }
+    if (probleme != null) {
+      Enregistreur.liberer(projete);
+      throw new IOException(fichier + probleme);
+    }
+
+    tampon = projete;
+    tailleEnregistrement = tampon.getShort(10);
+    heureCreation = tampon.getLong(16);
+    instantCreation = tampon.getLong(24);
+    position = Enregistreur.TAILLE_ENTETE - tailleEnregistrement;
+  }
+
+  /**
+   * Permet de récupérer le type de l'enregistrement courant.
+   * 
+   * @return Enregistreur.ENTREES ou Enregistreur.SORTIES
+   */
+  public byte type() {
+    return tampon.get(position + 20);
+  }
+
+  /**
+   * Permet de récupérer l'adresse de la carte concernée par l'enregistrement
+   * courant.
+   * 
+   * @return l'adresse de la carte
+   */
+  public int adresse() {
+    return tampon.get(position + 21);
+  }
+
+  /**
+   * Permet de récupérer l'instant de l'enregistrement courant.
+   * 
+   * @return la valeur de Temps.maintenant() au moment de la lecture ou de
+   *         l'écriture, dans le programme qui a enregistré
+   */
+  public long instant() {
+    return tampon.getLong(position);
+  }
+
+  /**
+   * Permet de récupérer l'heure de l'enregistrement courant.
+   * 
+   * @return l'heure en millisecondes depuis le 1er janvier 1970
+   */
+  public long heure() {
+    return heureCreation + (instant() - instantCreation) / 1000000;
+  }
+
+  /**
+   * Permet de récupérer la valeur de l'enregistrement courant.
+   * 
+   * @return les entrées sous forme compacte (voir ImageEntrees), ou l'image des
+   *         sorties après l'écriture
+   */
+  public long valeur() {
+    return tampon.getLong(position + 8);
+  }
+
+  /**
+   * Permet de récupérer le numéro de l'enregistrement courant.
+   * 
+   * @return le numéro de la lecture ou de l'envoi, sur 32 bits
+   */
+  public int numero() {
+    return tampon.getInt(position + 16);
+  }
+
+  /**
+   * Permet de récupérer le fichier en cours de lecture.
+   * 
+   * @return le fichier, ou nul avant le premier enregistrement et après le
+   *         dernier
+   */
+  public File fichierCourant() {
+    return tampon == null ? null : fichiers[indiceFichier];
+  }
+
+  /**
+   * Permet d'obtenir une description lisible de l'enregistrement courant.
+   * 
+   * @return la description de l'enregistrement
+   */
+  public String decrire() {
+    if (type() == Enregistreur.ENTREES) {
+      long valeurs = valeur();
+
+      return "ENTREES[carte=" + adresse() + ", lecture=" + numero() + ", instant=" + instant()
+          + ", digitales=" + Integer.toBinaryString(ImageEntrees.digitales(valeurs))
+          + ", analogiques=" + ImageEntrees.analogique(valeurs, 1) + "/"
+          + ImageEntrees.analogique(valeurs, 2) + ", compteurs=" + ImageEntrees.compteur(valeurs, 1)
+          + "/" + ImageEntrees.compteur(valeurs, 2) + "]";
+    }
+
+    int image = (int) valeur();
+
+    return "SORTIES[carte=" + adresse() + ", envoi=" + numero() + ", instant=" + instant()
+        + ", digitales=" + Integer.toBinaryString(image & 0x1F) + ", analogique1="
+        + ((image >>> 8) & 0xFF) + ", analogique2=" + ((image >>> 16) & 0xFF) + "]";
+  }
+}
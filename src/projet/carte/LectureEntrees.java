@@ -1,217 +1,943 @@
-package projet.carte;
-
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
-
-import net.sf.libk8055.jk8055.JK8055Exception;
-
-/**
- * <b>Cette classe permet d'obtenir en continu la valeur des entres de la
- * carte.</b>
- * <p>
- * Elle fonctionne en tant une tche. Une fois lance, elle va continuellement
- * aller lire les entres de la carte et les stocker en mmoire. Il est ensuite
- * possible d'accder au rsultat de cette lecture via la mthode
- * recupererEntrees(). Pour l'arrter, un appel  la mthode finLecture()
- * suffit.
- * </p>
- * <p>
- * En cas d'erreur elle va s'arrter et enregistrer l'erreur. Elle va ensuite
- * l'envoyer  chaque tentative de rcupration des rsultats. Il vous faudra
- * appeler la mthode reinitialiserErreur() avant de pouvoir relancer la tche.
- * </p>
- * 
- * @see LiaisonCarte
- * 
- * @author Merwen CANN et Raphal CHARRE - Novembre 2017
- * @version 1.0
- */
-public final class LectureEntrees extends Thread {
-  /**
-   * Sert de verrou pour la tche.
-   * 
-   * @see LectureEntrees#recupererEntrees()
-   * @see LectureEntrees#run()
-   */
-  private Lock verrou = new ReentrantLock();
-  /**
-   * Contient l'unique instance autorise de cette classe.
-   * 
-   * @see LectureEntrees#recupererInstance()
-   * @see LectureEntrees#LectureEntrees()
-   * @see LectureEntrees#definirInstance(LectureEntrees)
-   */
-  private static LectureEntrees instance;
-  /**
-   * Ce tableau contient l'tat de toutes les entres lors de la dernire lecture.
-   * <p>
-   * Le format est le suivant :
-   * </p>
-   * <ul>
-   * <li>valeur actuelle des cinq entres digitales (de 0  255),</li>
-   * <li>valeur actuelle des deux entres analogiques (0 ou 1).</li>
-   * </ul>
-   * 
-   * @see LectureEntrees#recupererEntrees()
-   * @see LectureEntrees#run()
-   */
-  private int[] entrees = new int[7];
-  /**
-   * Permet de savoir si l'on doit arrter la lecture ou que l'on peut continuer.
-   * 
-   * @see LectureEntrees#finLecture()
-   * @see LectureEntrees#reinitialiserErreur()
-   * @see LectureEntrees#run()
-   */
-  private boolean continuer = true;
-  /**
-   * Contient la dernire erreur de dialogue avec la carte, ou est nulle si tout
-   * va bien.
-   * 
-   * @see LectureEntrees#reinitialiserErreur()
-   * @see LectureEntrees#recupererEntrees()
-   * @see LectureEntrees#run()
-   */
-  private JK8055Exception erreur;
-
-  /**
-   * Le constructeur de la classe.
-   * <p>
-   * Il se contente d'initialiser l'instance de cette classe. Une seule instance
-   * tant autorise  la fois, cette mthode est prive.
-   * </p>
-   * 
-   * @see LectureEntrees#definirInstance(LectureEntrees)
-   */
-  private LectureEntrees() {
-    definirInstance(this);
-  }
-
-  /**
-   * Permet de dfinir l'instance de la classe.
-   * 
-   * @param instance
-   *          la nouvelle instance de la classe
-   * 
-   * @see LectureEntrees#instance
-   */
-  private static void definirInstance(LectureEntrees instance) {
-    LectureEntrees.instance = instance;
-  }
-
-  /**
-   * Permet de rcuprer l'unique instance de la classe, ou d'en crer une si elle
-   * n'existe pas.
-   * 
-   * @return l'unique instance de la classe
-   * 
-   * @see LectureEntrees#instance
-   * @see LectureEntrees#LectureEntrees()
-   * @see LectureEntrees#erreur
-   */
-  public static synchronized LectureEntrees recupererInstance() {
-    if (instance == null) {
-      return new LectureEntrees();
-    }
-
-    return instance;
-  }
-
-  /**
-   * Permet de rcuprer l'tat de toutes les entres lors de la dernire lecture.
-   * <p>
-   * Elle renverra une erreur si  un moment de la lecture en continu une erreur
-   * est survenue. Il est possible d'utiliser la mthode reinitialiserErreur()
-   * pour pouvoir  nouveau s'en servir.
-   * </p>
-   * 
-   * @return l'tat de toutes les entres lors de la dernire lecture
-   * 
-   * @throws JK8055Exception
-   *           quand une erreur est survenue lors du dialogue avec la carte
-   * 
-   * @see LectureEntrees#entrees
-   * @see LectureEntrees#erreur
-   * @see LectureEntrees#verrou
-   */
-  public int[] recupererEntrees() throws JK8055Exception {
-    if (erreur != null) {
-      throw erreur;
-    }
-
-    int[] retour;
-
-    verrou.lock();
-    try {
-      retour = entrees.clone();
-    } finally {
-      verrou.unlock();
-    }
-
-    return retour;
-  }
-
-  /**
-   * Permet de supprimer toute erreur enregistre, ce qui permet de relancer la
-   * lecture.
-   * <p>
-   * Cela n'entreprend nanmoins aucune action correctrice, et il est assum que
-   * l'utilisateur a rgl le problme ayant caus l'erreur avant d'appeler cette
-   * mthode.
-   * </p>
-   * 
-   * @see LectureEntrees#erreur
-   * @see LectureEntrees#continuer
-   */
-  public void reinitialiserErreur() {
-    erreur = null;
-    continuer = true;
-  }
-
-  /**
-   * Permet d'arrter la lecture des entres.
-   * <p>
-   * Cette mthode doit tre utilise lors de la fermeture du programme, car elle
-   * est le seul moyen de tuer cette tche.
-   * </p>
-   * 
-   * @see LectureEntrees#continuer
-   */
-  public void finLecture() {
-    continuer = false;
-  }
-
-  /**
-   * La mthode permettant de lancer la tche.
-   * <p>
-   * Elle va lire en boucle le contenu de la carte et ne s'arrtera que lorsque
-   * une erreur sera survenue, ou qu'on lui aura demand de s'arrter.
-   * </p>
-   * 
-   * @see LectureEntrees#entrees
-   * @see LectureEntrees#erreur
-   * @see LectureEntrees#continuer
-   * @see LectureEntrees#verrou
-   * @see LiaisonCarte#lectureComplete()
-   */
-  @Override
-  public void run() {
-    while (continuer) {
-      try {
-        verrou.lock();
-        try {
-          entrees = LiaisonCarte.lectureComplete();
-        } finally {
-          verrou.unlock();
-        }
-
-        sleep(50);
-      } catch (InterruptedException e) {
-        e.printStackTrace();
-      } catch (JK8055Exception e) {
-        erreur = e;
-        continuer = false;
-      }
-    }
-  }
-}
+package projet.carte;
+
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.sf.libk8055.jk8055.JK8055Exception;
+
+/**
+ * <b>Cette classe permet d'obtenir en continu la valeur des entrées de la
+ * carte.</b>
+ * <p>
+ * Elle fonctionne en étant une tâche. Une fois lancée, elle va continuellement
+ * aller lire les entrées de la carte et les stocker en mémoire. Il est ensuite
+ * possible d'accéder au résultat de cette lecture via la méthode
+ * recupererEntrees(). Pour l'arrêter, un appel à la méthode finLecture()
+ * suffit.
+ * </p>
+ * <p>
+ * Une instance existe pour chaque carte, obtenue via la méthode
+ * recupererInstance() en précisant l'adresse de la carte.
+ * </p>
+ * <p>
+ * En cas d'erreur elle va suspendre la lecture et enregistrer l'erreur. Elle va
+ * ensuite l'envoyer à chaque tentative de récupération des résultats. La
+ * lecture reprend après un appel à la méthode reinitialiserErreur(), ce que
+ * fait SurveillanceCarte une fois la carte reconnectée.
+ * </p>
+ * 
+ * @see LiaisonCarte
+ * 
+ * @author Merwen CANN et Raphaël CHARRE - Novembre 2017
+ * @version 1.0
+ */
+public final class LectureEntrees extends Thread {
+  /**
+   * Période de lecture par défaut, en nanosecondes.
+   * 
+   * @see LectureEntrees#cadenceur
+   */
+  public static final long PERIODE_DEFAUT = 50000000L;
+  /**
+   * Contient l'unique instance autorisée de cette classe pour chaque carte,
+   * indexée par l'adresse de la carte.
+   * 
+   * @see LectureEntrees#recupererInstance(int)
+   * @see LectureEntrees#LectureEntrees(int)
+   * @see LectureEntrees#definirInstance(LectureEntrees)
+   */
+  private static final LectureEntrees[] instances = new LectureEntrees[LiaisonCarte.NOMBRE_CARTES];
+  /**
+   * L'adresse de la carte concernée.
+   * 
+   * @see LectureEntrees#recupererAdresse()
+   */
+  private final int adresse;
+  /**
+   * Contient l'état de toutes les entrées lors de la dernière lecture.
+   * <p>
+   * Les valeurs sont stockées sous la forme compacte décrite par la classe
+   * ImageEntrees, ce qui évite toute allocation lors de la lecture en continu.
+   * Toutes ces valeurs proviennent d'une même transaction avec la carte.
+   * </p>
+   * 
+   * @see ImageEntrees
+   * @see LectureEntrees#recupererEntrees()
+   * @see LectureEntrees#recupererImage()
+   * @see LectureEntrees#run()
+   * @see LiaisonCarte#lectureComplete()
+   */
+  private volatile long entrees;
+  /**
+   * Contient la valeur de Temps.maintenant() au moment de la dernière lecture.
+   * 
+   * @see LectureEntrees#recupererImage()
+   * @see LectureEntrees#publier(long, long)
+   */
+  private volatile long horodatage;
+  /**
+   * Numéro de version des entrées publiées, servant de verrou de séquence.
+   * <p>
+   * Il est impair pendant la publication d'une nouvelle lecture et pair le reste
+   * du temps. Une tâche qui lit les entrées relit ce numéro après sa lecture :
+   * s'il a changé ou s'il était impair, la lecture est recommencée. Les lecteurs
+   * ne prennent donc aucun verrou et ne bloquent jamais la lecture de la carte.
+   * La moitié de ce numéro donne le nombre de lectures publiées.
+   * </p>
+   * 
+   * @see LectureEntrees#publier(long, long)
+   * @see LectureEntrees#recupererEntrees(int[])
+   * @see LectureEntrees#recupererImage()
+   */
+  private volatile long sequence;
+  /**
+   * Cadence la lecture des entrées.
+   * <p>
+   * Les lectures ont lieu à des échéances absolues, le temps passé à dialoguer
+   * avec la carte ne s'ajoute donc pas à la période. Une phase est signalée
+   * après chaque publication, ce qui permet à d'autres tâches de s'exécuter
+   * juste après chaque nouvelle lecture.
+   * </p>
+   * 
+   * @see LectureEntrees#recupererCadenceur()
+   * @see LectureEntrees#run()
+   */
+  private final Cadenceur cadenceur = new Cadenceur(PERIODE_DEFAUT);
+  /**
+   * Contient les abonnés aux changements des entrées.
+   * <p>
+   * Le tableau est remplacé à chaque abonnement ou désabonnement, ce qui permet
+   * de le parcourir à chaque lecture sans verrou ni allocation.
+   * </p>
+   * 
+   * @see LectureEntrees#abonner(int, boolean)
+   * @see LectureEntrees#desabonner(AbonnementEntrees)
+   * @see LectureEntrees#detecterChangements(long, long)
+   */
+  private volatile AbonnementEntrees[] abonnes = new AbonnementEntrees[0];
+  /**
+   * Variation minimale d'une entrée analogique, depuis la dernière variation
+   * signalée, pour qu'un événement soit publié.
+   * 
+   * @see LectureEntrees#definirSeuilAnalogique(int)
+   * @see LectureEntrees#detecterChangements(long, long)
+   */
+  private volatile int seuilAnalogique = 1;
+  /**
+   * Le traitement appliqué aux entrées avant leur publication, ou nul pour
+   * publier les entrées telles qu'elles ont été lues.
+   * 
+   * @see LectureEntrees#definirConditionnement(ConditionnementEntrees)
+   * @see LectureEntrees#executerLecture()
+   */
+  private volatile ConditionnementEntrees conditionnement;
+  /**
+   * Le suivi des compteurs d'impulsions de la carte, mis à jour à chaque
+   * lecture.
+   * 
+   * @see LectureEntrees#recupererCompteurs()
+   * @see LectureEntrees#executerLecture()
+   */
+  private final CompteurImpulsions compteurs = new CompteurImpulsions();
+  /**
+   * Contient les entrées de la lecture précédente, sous forme compacte.
+   * 
+   * @see LectureEntrees#detecterChangements(long, long)
+   */
+  private long precedentes;
+  /**
+   * Contient la dernière valeur signalée de chaque entrée analogique, ou -1 si
+   * aucune valeur n'a encore été signalée.
+   * 
+   * @see LectureEntrees#detecterChangements(long, long)
+   */
+  private final int[] analogiquesSignalees = { -1, -1 };
+  /**
+   * Durée de chaque lecture de la carte, attente du verrou de LiaisonCarte
+   * comprise.
+   * 
+   * @see LectureEntrees#recupererLatenceLecture()
+   * @see LectureEntrees#run()
+   */
+  private final HistogrammeLatence latenceLecture = new HistogrammeLatence();
+  /**
+   * Nombre d'erreurs de dialogue avec la carte depuis la création de la
+   * lecture.
+   * 
+   * @see LectureEntrees#recupererNombreErreurs()
+   * @see LectureEntrees#run()
+   */
+  private final LongAdder nombreErreurs = new LongAdder();
+  /**
+   * Permet de savoir si l'on doit arrêter la lecture ou que l'on peut continuer.
+   * 
+   * @see LectureEntrees#finLecture()
+   * @see LectureEntrees#reinitialiserErreur()
+   * @see LectureEntrees#run()
+   */
+  private volatile boolean continuer = true;
+  /**
+   * Contient la dernière erreur de dialogue avec la carte, ou est nulle si tout
+   * va bien.
+   * 
+   * @see LectureEntrees#reinitialiserErreur()
+   * @see LectureEntrees#recupererEntrees()
+   * @see LectureEntrees#run()
+   */
+  private volatile JK8055Exception erreur;
+
+  /**
+   * Le constructeur de la classe.
+   * <p>
+   * Il se contente d'initialiser l'instance de cette classe. Une seule instance
+   * étant autorisée à la fois pour chaque carte, cette méthode est privée.
+   * </p>
+   * 
+   * @param adresse
+   *          l'adresse de la carte concernée
+   * 
+   * @see LectureEntrees#definirInstance(LectureEntrees)
+   */
+  private LectureEntrees(int adresse) {
+    super("LectureEntrees-" + adresse);
+    this.adresse = adresse;
+    definirInstance(this);
+  }
+
+  /**
+   * Permet de définir l'instance de la classe.
+   * 
+   * @param instance
+   *          la nouvelle instance de la classe
+   * 
+   * @see LectureEntrees#instances
+   */
+  private static void definirInstance(LectureEntrees instance) {
+    instances[instance.adresse] = instance;
+  }
+
+  /**
+   * Permet de récupérer l'unique instance de la classe pour la carte
+   * LiaisonCarte.ADRESSE_DEFAUT, ou d'en créer une si elle n'existe pas.
+   * 
+   * @return l'unique instance de la classe pour cette carte
+   * 
+   * @see LectureEntrees#recupererInstance(int)
+   */
+  public static LectureEntrees recupererInstance() {
+    return recupererInstance(LiaisonCarte.ADRESSE_DEFAUT);
+  }
+
+  /**
+   * Permet de récupérer l'unique instance de la classe pour une carte, ou d'en
+   * créer une si elle n'existe pas.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * 
+   * @return l'unique instance de la classe pour cette carte
+   * 
+   * @see LectureEntrees#instances
+   * @see LectureEntrees#LectureEntrees(int)
+   * @see LectureEntrees#erreur
+   */
+  public static synchronized LectureEntrees recupererInstance(int adresse) {
+    LiaisonCarte.verifierAdresse(adresse);
+
+    if (instances[adresse] == null) {
+      return new LectureEntrees(adresse);
+    }
+
+    return instances[adresse];
+  }
+
+  /**
+   * Permet d'oublier l'instance d'une carte, le prochain appel à
+   * recupererInstance() en créant une nouvelle.
+   * <p>
+   * SimulationScenario s'en sert à la fin d'une simulation, afin qu'une
+   * utilisation réelle de la carte ne reprenne pas l'état laissé par le
+   * simulateur et l'horloge virtuelle. L'instance oubliée ne doit pas être en
+   * cours d'exécution.
+   * </p>
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * 
+   * @see LectureEntrees#instances
+   */
+  public static synchronized void oublierInstance(int adresse) {
+    LiaisonCarte.verifierAdresse(adresse);
+
+    instances[adresse] = null;
+  }
+
+  /**
+   * Permet de récupérer l'adresse de la carte concernée par cette instance.
+   * 
+   * @return l'adresse de la carte
+   * 
+   * @see LectureEntrees#adresse
+   */
+  public int recupererAdresse() {
+    return adresse;
+  }
+
+  /**
+   * Permet de récupérer l'état de toutes les entrées lors de la dernière lecture.
+   * <p>
+   * Elle renverra une erreur si à un moment de la lecture en continu une erreur
+   * est survenue. Il est possible d'utiliser la méthode reinitialiserErreur()
+   * pour pouvoir à nouveau s'en servir.
+   * </p>
+   * <p>
+   * Le tableau retourné a comme format :
+   * </p>
+   * <ul>
+   * <li>valeur actuelle des cinq entrées digitales (0 ou 1),</li>
+   * <li>valeur actuelle des deux entrées analogiques (de 0 à 255),</li>
+   * <li>valeur actuelle des deux compteurs.</li>
+   * </ul>
+   * 
+   * @return l'état de toutes les entrées lors de la dernière lecture
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur est survenue lors du dialogue avec la carte
+   * 
+   * @see LectureEntrees#recupererEntrees(int[])
+   */
+  public int[] recupererEntrees() throws JK8055Exception {
+    int[] retour = new int[LiaisonCarte.TAILLE_ENTREES];
+
+    recupererEntrees(retour);
+
+    return retour;
+  }
+
+  /**
+   * Permet de copier l'état de toutes les entrées lors de la dernière lecture
+   * dans un tableau fourni par l'appelant.
+   * <p>
+   * Cette méthode ne prend aucun verrou et ne fait aucune allocation. Le tableau
+   * est rempli avec le même format que celui de la méthode recupererEntrees().
+   * </p>
+   * 
+   * @param destination
+   *          le tableau à remplir, d'au moins LiaisonCarte.TAILLE_ENTREES cases
+   * 
+   * @return le numéro de la lecture copiée (0 si aucune lecture n'a encore eu
+   *         lieu)
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur est survenue lors du dialogue avec la carte
+   * 
+   * @see LectureEntrees#entrees
+   * @see LectureEntrees#erreur
+   * @see LectureEntrees#sequence
+   */
+  public long recupererEntrees(int[] destination) throws JK8055Exception {
+    if (erreur != null) {
+      throw erreur;
+    }
+
+    long debut;
+    long valeurs;
+
+    do {
+      debut = sequence;
+      valeurs = entrees;
+    } while ((debut & 1) != 0 || debut != sequence);
+
+    ImageEntrees.versTableau(valeurs, destination);
+
+    return debut >>> 1;
+  }
+
+  /**
+   * Permet de récupérer l'état de toutes les entrées lors de la dernière lecture
+   * sous leur forme compacte.
+   * <p>
+   * Cette méthode ne prend aucun verrou et ne fait aucune allocation. Les
+   * valeurs se décodent avec les méthodes statiques de la classe ImageEntrees.
+   * </p>
+   * 
+   * @return les entrées sous leur forme compacte
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur est survenue lors du dialogue avec la carte
+   * 
+   * @see ImageEntrees
+   * @see LectureEntrees#sequence
+   */
+  public long recupererValeurs() throws JK8055Exception {
+    if (erreur != null) {
+      throw erreur;
+    }
+
+    long debut;
+    long valeurs;
+
+    do {
+      debut = sequence;
+      valeurs = entrees;
+    } while ((debut & 1) != 0 || debut != sequence);
+
+    return valeurs;
+  }
+
+  /**
+   * Permet de récupérer l'instant de la dernière lecture.
+   * <p>
+   * Associée à la méthode recupererValeurs(), elle permet de connaître l'âge des
+   * entrées sans allocation. En appelant cette méthode en premier, l'âge obtenu
+   * ne peut être que surestimé si une lecture est publiée entre les deux appels.
+   * </p>
+   * 
+   * @return la valeur de Temps.maintenant() au moment de la dernière lecture, ou 0
+   *         si aucune lecture n'a encore eu lieu
+   * 
+   * @see LectureEntrees#horodatage
+   * @see LectureEntrees#sequence
+   */
+  public long recupererHorodatage() {
+    long debut;
+    long instant;
+
+    do {
+      debut = sequence;
+      instant = horodatage;
+    } while ((debut & 1) != 0 || debut != sequence);
+
+    return instant;
+  }
+
+  /**
+   * Permet de copier les entrées et l'instant de la dernière lecture dans un
+   * tableau fourni par l'appelant.
+   * <p>
+   * Le numéro, les valeurs et l'instant proviennent toujours d'une même
+   * publication, comme avec la méthode recupererImage(), mais sans allocation.
+   * La première case reçoit les entrées sous leur forme compacte, la seconde la
+   * valeur de Temps.maintenant() au moment de la lecture (0 si aucune lecture
+   * n'a encore eu lieu).
+   * </p>
+   * 
+   * @param destination
+   *          le tableau à remplir, d'au moins deux cases
+   * 
+   * @return le numéro de la lecture copiée (0 si aucune lecture n'a encore eu
+   *         lieu)
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur est survenue lors du dialogue avec la carte
+   * 
+   * @see LectureEntrees#entrees
+   * @see LectureEntrees#horodatage
+   * @see LectureEntrees#erreur
+   * @see LectureEntrees#sequence
+   */
+  public long recupererLecture(long[] destination) throws JK8055Exception {
+    if (erreur != null) {
+      throw erreur;
+    }
+
+    long debut;
+    long valeurs;
+    long instant;
+
+    do {
+      debut = sequence;
+      valeurs = entrees;
+      instant = horodatage;
+    } while ((debut & 1) != 0 || debut != sequence);
+
+    destination[0] = valeurs;
+    destination[1] = instant;
+
+    return debut >>> 1;
+  }
+
+  /**
+   * Permet de récupérer l'état de toutes les entrées lors de la dernière lecture
+   * sous la forme d'une image immuable.
+   * <p>
+   * L'image contient également le numéro de la lecture et l'instant auquel elle
+   * a eu lieu. Aucun verrou n'est pris.
+   * </p>
+   * <p>
+   * Elle renverra une erreur si à un moment de la lecture en continu une erreur
+   * est survenue. Il est possible d'utiliser la méthode reinitialiserErreur()
+   * pour pouvoir à nouveau s'en servir.
+   * </p>
+   * 
+   * @return l'état de toutes les entrées lors de la dernière lecture
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur est survenue lors du dialogue avec la carte
+   * 
+   * @see LectureEntrees#entrees
+   * @see LectureEntrees#horodatage
+   * @see LectureEntrees#erreur
+   * @see LectureEntrees#sequence
+   */
+  public ImageEntrees recupererImage() throws JK8055Exception {
+    if (erreur != null) {
+      throw erreur;
+    }
+
+    long debut;
+    long valeurs;
+    long instant;
+
+    do {
+      debut = sequence;
+      valeurs = entrees;
+      instant = horodatage;
+    } while ((debut & 1) != 0 || debut != sequence);
+
+    return new ImageEntrees(valeurs, debut >>> 1, instant);
+  }
+
+  /**
+   * Permet de récupérer le numéro de la dernière lecture publiée.
+   * 
+   * @return le nombre de lectures publiées depuis le lancement de la tâche
+   * 
+   * @see LectureEntrees#sequence
+   */
+  public long recupererNumero() {
+    return sequence >>> 1;
+  }
+
+  /**
+   * Permet de s'abonner aux changements des entrées.
+   * <p>
+   * À chaque lecture, les entrées sont comparées à celles de la lecture
+   * précédente. Un événement est déposé dans l'abonnement pour chaque front sur
+   * une entrée digitale suivie, et pour chaque variation d'une entrée analogique
+   * dépassant le seuil choisi si l'abonné suit les entrées analogiques.
+   * </p>
+   * <p>
+   * L'abonné ne reçoit que les changements postérieurs à son abonnement : il lui
+   * revient de lire l'état courant des entrées au préalable s'il en a besoin.
+   * </p>
+   * 
+   * @param digitales
+   *          le masque des entrées digitales à suivre (le bit 0 correspondant à
+   *          l'entrée 1)
+   * @param analogiques
+   *          vrai pour suivre les entrées analogiques
+   * 
+   * @return le nouvel abonnement
+   * 
+   * @see LectureEntrees#abonnes
+   * @see AbonnementEntrees
+   */
+  public synchronized AbonnementEntrees abonner(int digitales, boolean analogiques) {
+    AbonnementEntrees abonnement = new AbonnementEntrees(this, digitales, analogiques);
+    AbonnementEntrees[] nouveaux = Arrays.copyOf(abonnes, abonnes.length + 1);
+
+    nouveaux[nouveaux.length - 1] = abonnement;
+    abonnes = nouveaux;
+
+    return abonnement;
+  }
+
+  /**
+   * Permet de mettre fin à un abonnement.
+   * 
+   * @param abonnement
+   *          l'abonnement à supprimer
+   * 
+   * @see LectureEntrees#abonnes
+   */
+  synchronized void desabonner(AbonnementEntrees abonnement) {
+    AbonnementEntrees[] actuels = abonnes;
+
+    for (int i = 0; i < actuels.length; i++) {
+      if (actuels[i] == abonnement) {
+        AbonnementEntrees[] nouveaux = new AbonnementEntrees[actuels.length - 1];
+
+        System.arraycopy(actuels, 0, nouveaux, 0, i);
+        System.arraycopy(actuels, i + 1, nouveaux, i, actuels.length - i - 1);
+        abonnes = nouveaux;
+        return;
+      }
+    }
+  }
+
+  /**
+   * Permet de définir la variation minimale d'une entrée analogique pour qu'un
+   * événement soit publié.
+   * <p>
+   * La variation est mesurée par rapport à la dernière valeur signalée, une
+   * lente dérive finit donc toujours par être signalée.
+   * </p>
+   * 
+   * @param seuil
+   *          la variation minimale (comprise entre 1 et 255)
+   * 
+   * @see LectureEntrees#seuilAnalogique
+   */
+  public void definirSeuilAnalogique(int seuil) {
+    if (seuil < 1 || seuil > 255) {
+      throw new InvalidParameterException("Le seuil doit être compris entre 1 et 255.");
+    }
+
+    seuilAnalogique = seuil;
+  }
+
+  /**
+   * Permet de choisir le traitement appliqué aux entrées avant leur
+   * publication.
+   * <p>
+   * Les valeurs publiées, enregistrées et comparées pour prévenir les abonnés
+   * sont celles obtenues après le traitement. Le temps d'anti-rebond des
+   * compteurs choisi dans le conditionnement est envoyé à la carte.
+   * </p>
+   * 
+   * @param conditionnement
+   *          le conditionnement, ou nul pour publier les entrées telles qu'elles
+   *          sont lues
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur intervient lors du dialogue avec la carte
+   * 
+   * @see LectureEntrees#conditionnement
+   */
+  public void definirConditionnement(ConditionnementEntrees conditionnement)
+      throws JK8055Exception {
+    if (conditionnement != null) {
+      conditionnement.configurerCarte(adresse);
+      conditionnement.reinitialiser();
+    }
+
+    this.conditionnement = conditionnement;
+  }
+
+  /**
+   * Permet de récupérer le traitement appliqué aux entrées avant leur
+   * publication.
+   * 
+   * @return le conditionnement, ou nul si les entrées sont publiées telles
+   *         qu'elles sont lues
+   * 
+   * @see LectureEntrees#conditionnement
+   */
+  public ConditionnementEntrees recupererConditionnement() {
+    return conditionnement;
+  }
+
+  /**
+   * Permet de récupérer le suivi des compteurs d'impulsions de la carte.
+   * 
+   * @return le suivi des compteurs, mis à jour à chaque lecture
+   * 
+   * @see LectureEntrees#compteurs
+   */
+  public CompteurImpulsions recupererCompteurs() {
+    return compteurs;
+  }
+
+  /**
+   * Permet de remettre à zéro un compteur de la carte pendant la lecture.
+   * <p>
+   * Contrairement à LiaisonCarte.remiseAZeroCompteur(), la remise à zéro n'est
+   * pas prise pour un passage par zéro : la valeur de référence du compteur
+   * repart de zéro, et seules les impulsions survenues entre la dernière
+   * lecture et la remise à zéro sont perdues. Le total n'est pas modifié, la
+   * méthode CompteurImpulsions.remettreAZero() le remet à zéro.
+   * </p>
+   * 
+   * @param chaine
+   *          le numéro du compteur (compris entre 1 et 2)
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur intervient lors du dialogue avec la carte
+   * 
+   * @see LectureEntrees#compteurs
+   * @see LiaisonCarte#remiseAZeroCompteur(int, int)
+   * @see CompteurImpulsions#remettreAZero(int)
+   */
+  public void remettreAZeroCompteur(int chaine) throws JK8055Exception {
+    synchronized (compteurs) {
+      LiaisonCarte.remiseAZeroCompteur(adresse, chaine);
+      compteurs.noterRemiseAZeroCarte(chaine);
+    }
+  }
+
+  /**
+   * Permet de supprimer toute erreur enregistrée, ce qui permet de relancer la
+   * lecture.
+   * <p>
+   * Cela n'entreprend néanmoins aucune action correctrice, et il est assumé que
+   * l'utilisateur a réglé le problème ayant causé l'erreur avant d'appeler cette
+   * méthode. La carte ayant pu redémarrer, la lecture suivante sert de nouvelle
+   * référence aux compteurs d'impulsions.
+   * </p>
+   * 
+   * @see LectureEntrees#erreur
+   * @see LectureEntrees#continuer
+   * @see CompteurImpulsions#resynchroniser()
+   */
+  public void reinitialiserErreur() {
+    compteurs.resynchroniser();
+    erreur = null;
+    continuer = true;
+  }
+
+  /**
+   * Permet d'arrêter la lecture des entrées.
+   * <p>
+   * Cette méthode doit être utilisée lors de la fermeture du programme, car elle
+   * est le seul moyen de tuer cette tâche.
+   * </p>
+   * 
+   * @see LectureEntrees#continuer
+   * @see LectureEntrees#cadenceur
+   */
+  public void finLecture() {
+    continuer = false;
+    cadenceur.reveiller();
+  }
+
+  /**
+   * Permet de récupérer la répartition de la durée des lectures de la carte.
+   * 
+   * @return l'histogramme des durées de lecture, qui continue d'évoluer
+   * 
+   * @see LectureEntrees#latenceLecture
+   */
+  public HistogrammeLatence recupererLatenceLecture() {
+    return latenceLecture;
+  }
+
+  /**
+   * Permet de récupérer le nombre d'erreurs de dialogue avec la carte.
+   * <p>
+   * Chaque erreur suspend la lecture, ce nombre compte donc aussi les reprises
+   * après reinitialiserErreur().
+   * </p>
+   * 
+   * @return le nombre d'erreurs depuis la création de la lecture
+   * 
+   * @see LectureEntrees#nombreErreurs
+   */
+  public long recupererNombreErreurs() {
+    return nombreErreurs.sum();
+  }
+
+  /**
+   * Permet de récupérer la dernière erreur de dialogue avec la carte.
+   * 
+   * @return l'erreur qui suspend la lecture, ou nulle si tout va bien
+   * 
+   * @see LectureEntrees#erreur
+   */
+  public JK8055Exception recupererErreur() {
+    return erreur;
+  }
+
+  /**
+   * Permet de récupérer le cadenceur de la lecture, afin d'en changer la période,
+   * d'en consulter les statistiques ou de le suivre.
+   * 
+   * @return le cadenceur de la lecture
+   * 
+   * @see LectureEntrees#cadenceur
+   */
+  public Cadenceur recupererCadenceur() {
+    return cadenceur;
+  }
+
+  /**
+   * Permet de publier le résultat d'une lecture de la carte.
+   * <p>
+   * Seule la tâche de lecture doit appeler cette méthode. Le numéro de séquence
+   * est rendu impair le temps de modifier les valeurs, afin que les lecteurs
+   * puissent détecter une publication en cours.
+   * </p>
+   * 
+   * @param valeurs
+   *          les entrées lues sous forme compacte
+   * @param instant
+   *          la valeur de Temps.maintenant() au moment de la lecture
+   * 
+   * @see LectureEntrees#sequence
+   */
+  private void publier(long valeurs, long instant) {
+    long numero = sequence;
+
+    sequence = numero + 1;
+    entrees = valeurs;
+    horodatage = instant;
+    sequence = numero + 2;
+  }
+
+  /**
+   * Permet de détecter les changements entre deux lectures et de prévenir les
+   * abonnés concernés.
+   * <p>
+   * Les fronts des entrées digitales sont obtenus en comparant bit à bit les deux
+   * lectures. Lors de la première lecture, chaque entrée active est signalée
+   * comme un front montant et chaque entrée analogique est signalée.
+   * </p>
+   * 
+   * @param valeurs
+   *          les entrées lues sous forme compacte
+   * @param numero
+   *          le numéro de la lecture
+   * 
+   * @see LectureEntrees#abonnes
+   * @see LectureEntrees#precedentes
+   * @see LectureEntrees#analogiquesSignalees
+   */
+  private void detecterChangements(long valeurs, long numero) {
+    AbonnementEntrees[] actuels = abonnes;
+    int changements = ImageEntrees.digitales(valeurs ^ precedentes);
+
+    while (changements != 0) {
+      int bit = Integer.numberOfTrailingZeros(changements);
+      boolean active = ImageEntrees.digitale(valeurs, bit + 1);
+
+      diffuser(actuels, EvenementEntree.creer(
+          active ? TypeEvenement.FRONT_MONTANT : TypeEvenement.FRONT_DESCENDANT, bit + 1,
+          active ? 1 : 0, numero));
+      changements &= changements - 1;
+    }
+
+    for (int chaine = 1; chaine <= 2; chaine++) {
+      int valeur = ImageEntrees.analogique(valeurs, chaine);
+      int signalee = analogiquesSignalees[chaine - 1];
+
+      if (signalee < 0 || Math.abs(valeur - signalee) >= seuilAnalogique) {
+        analogiquesSignalees[chaine - 1] = valeur;
+        diffuser(actuels, EvenementEntree.creer(TypeEvenement.VARIATION_ANALOGIQUE, chaine, valeur,
+            numero));
+      }
+    }
+
+    precedentes = valeurs;
+  }
+
+  /**
+   * Permet de déposer un événement chez tous les abonnés qu'il intéresse.
+   * 
+   * @param destinataires
+   *          les abonnés
+   * @param evenement
+   *          l'événement
+   */
+  private static void diffuser(AbonnementEntrees[] destinataires, long evenement) {
+    for (AbonnementEntrees abonnement : destinataires) {
+      if (abonnement.concerne(evenement)) {
+        abonnement.publier(evenement);
+      }
+    }
+  }
+
+  /**
+   * Permet d'effectuer une seule lecture de la carte, sans attendre.
+   * <p>
+   * La lecture met à jour les compteurs d'impulsions, puis elle est publiée,
+   * enregistrée et comparée à la précédente pour prévenir les abonnés,
+   * exactement comme dans la boucle de la tâche. Cette
+   * méthode permet de faire fonctionner la lecture pas à pas, par exemple dans
+   * une simulation utilisant une HorlogeVirtuelle. En cas d'erreur, celle-ci est
+   * enregistrée et la lecture est suspendue.
+   * </p>
+   * 
+   * @return vrai si la lecture a réussi, faux en cas d'erreur
+   * 
+   * @see LectureEntrees#publier(long, long)
+   * @see LectureEntrees#detecterChangements(long, long)
+   * @see LectureEntrees#erreur
+   * @see LiaisonCarte#lectureComplete(int)
+   * @see ConditionnementEntrees#conditionner(long)
+   * @see CompteurImpulsions#enregistrer(long, long)
+   * @see Enregistreur
+   */
+  public boolean executerLecture() {
+    try {
+      long valeurs;
+      long fin;
+
+      // Une remise à zéro d'un compteur ne peut pas s'intercaler entre la
+      // lecture de la carte et sa prise en compte par les compteurs
+      synchronized (compteurs) {
+        long debut = Temps.maintenant();
+        valeurs = LiaisonCarte.lectureComplete(adresse);
+        fin = latenceLecture.enregistrerDepuis(debut);
+        ConditionnementEntrees traitement = conditionnement;
+
+        if (traitement != null) {
+          valeurs = traitement.conditionner(valeurs);
+        }
+
+        compteurs.enregistrer(valeurs, fin);
+      }
+      publier(valeurs, fin);
+
+      long numero = recupererNumero();
+
+      Enregistreur.enregistrerEntrees(adresse, numero, valeurs, fin);
+      detecterChangements(valeurs, numero);
+
+      return true;
+    } catch (JK8055Exception e) {
+      noterErreur(e);
+
+      return false;
+    }
+  }
+
+  /**
+   * Permet d'enregistrer une erreur de dialogue avec la carte, ce qui suspend
+   * la lecture jusqu'à un appel à reinitialiserErreur(). Les abonnés sont
+   * réveillés pour qu'ils constatent l'erreur.
+   * <p>
+   * Une BoucleCarte s'en sert pour que la lecture partage l'erreur survenue lors
+   * de l'écriture, et inversement.
+   * </p>
+   * 
+   * @param e
+   *          l'erreur survenue
+   * 
+   * @see LectureEntrees#erreur
+   * @see BoucleCarte
+   */
+  void noterErreur(JK8055Exception e) {
+    erreur = e;
+    nombreErreurs.increment();
+
+    for (AbonnementEntrees abonnement : abonnes) {
+      abonnement.signaler();
+    }
+  }
+
+  /**
+   * La méthode permettant de lancer la tâche.
+   * <p>
+   * Elle va lire en boucle le contenu de la carte et ne s'arrêtera que lorsqu'on
+   * lui aura demandé de s'arrêter. Tant qu'une erreur est enregistrée, elle
+   * continue de suivre son cadenceur sans dialoguer avec la carte. Le
+   * dialogue avec la carte se fait sans aucun verrou que les lecteurs pourraient
+   * attendre, le résultat n'étant publié qu'une fois la lecture terminée.
+   * </p>
+   * 
+   * @see LectureEntrees#executerLecture()
+   * @see LectureEntrees#continuer
+   * @see LectureEntrees#cadenceur
+   */
+  @Override
+  public void run() {
+    while (continuer) {
+      cadenceur.attendreProchainTick();
+
+      if (erreur == null && executerLecture()) {
+        cadenceur.signalerPhase();
+      }
+    }
+  }
+}
@@ -1,213 +1,724 @@
-package projet.carte;
-
-import java.security.InvalidParameterException;
-
-import net.sf.libk8055.jk8055.JK8055;
-import net.sf.libk8055.jk8055.JK8055.AllAnalog;
-import net.sf.libk8055.jk8055.JK8055Exception;
-
-/**
- * <b>Cette classe offre quelques fonctions utiles pour facilement lire et
- * envoyer des valeurs avec la carte.</b>
- * <p>
- * Elle s'occupe elle-mme d'ouvrir le dialogue avec la carte via la classe
- * JK8055 et convertit galement les valeurs reues pour tre plus faciles
- * d'utilisation. Elle laisse nanmoins la gestion des erreurs aux classes qui
- * s'en serviront.
- * </p>
- * <p>
- * <b>Note</b> : s'agissant d'une classe utilitaire, toutes les mthodes sont
- * statiques, et l'instanciation de la classe a t empche.
- * </p>
- * 
- * @see EcritureSorties
- * @see LectureEntrees
- * 
- * @author Merwen CANN et Raphal CHARRE - Novembre 2017
- * @version 1.0
- */
-final class LiaisonCarte {
-  /**
-   * Ce tableau contient l'tat actuel de toutes les sorties de la carte.
-   * <p>
-   * Le format est le suivant :
-   * </p>
-   * <ul>
-   * <li>valeur actuelle des cinq sorties digitales (de 0  255),</li>
-   * <li>valeur actuelle des deux sorties analogiques (0 ou 1).</li>
-   * </ul>
-   * <p>
-   * Ce tableau est utilis par les mthodes d'criture des sorties car les
-   * mthodes de la classe JK8055 ne permettent qu'une criture sur plusieurs
-   * sorties en mme-temps. Il faut donc garder en mmoire la valeur des sorties
-   * pour les modifier unes  unes, tant donn qu'on ne peut lire la valeur d'une
-   * sortie.
-   * </p>
-   * 
-   * @see LiaisonCarte#sortieDigitale(int, boolean)
-   * @see LiaisonCarte#sortieAnalogique(int, int)
-   */
-  private static int[] sortie = new int[7];
-
-  /**
-   * Constructeur de la classe.
-   * <p>
-   * Cette classe n'tant pas prvue pour tre instancie, ce constructeur a comme
-   * visibilit "priv".
-   * </p>
-   */
-  private LiaisonCarte() {
-  }
-
-  /**
-   * Permet de se connecter  la carte.
-   * <p>
-   * Cette mthode est la premire  appeler pour travailler avec la carte, toutes
-   * les autres mthodes assumant que l'on est dj connect. Il faut indiquer
-   * l'adresse o chercher la carte.
-   * </p>
-   * 
-   * @param adresse
-   *          l'adresse o chercher la carte
-   * 
-   * @throws JK8055Exception
-   *           quand une erreur intervient lors du dialogue avec la carte
-   */
-  public static void connexionCarte(int adresse) throws JK8055Exception {
-    JK8055.getInstance().OpenDevice(adresse);
-  }
-
-  /**
-   * Permet de se dconnecter de la carte.
-   * <p>
-   *  appeler aprs avoir fini de travailler avec la carte, aucune des autres
-   * mthodes de cette classe ne va d'elle-mme se dconnecter de la carte.
-   * </p>
-   * 
-   * @throws JK8055Exception
-   *           quand une erreur intervient lors du dialogue avec la carte
-   */
-  public static void deconnexionCarte() throws JK8055Exception {
-    JK8055.getInstance().CloseDevice();
-  }
-
-  /**
-   * Permet de lire toutes les entres de la carte.
-   * <p>
-   * Aprs lecture des entres de la carte, ces dernire sont retournes sous
-   * forme de tableau. Ce dernier a comme format :
-   * </p>
-   * <ul>
-   * <li>valeur actuelle des cinq entres digitales (de 0  255),</li>
-   * <li>valeur actuelle des deux entres analogiques (0 ou 1).</li>
-   * </ul>
-   * 
-   * @return toutes les entres sous forme d'un tableau d'entier
-   * 
-   * @throws JK8055Exception
-   *           quand une erreur intervient lors du dialogue avec la carte
-   */
-  static int[] lectureComplete() throws JK8055Exception {
-    JK8055 appareil = JK8055.getInstance();
-
-    int valeursDigitales = appareil.ReadAllDigital();
-    AllAnalog valeursAnalogiques = appareil.ReadAllAnalog();
-
-    int[] retour = new int[7];
-    String conversion = Integer.toBinaryString(valeursDigitales);
-
-    for (int i = 0; i < 5; i++) {
-      retour[i] = Integer.parseInt(conversion.substring(i, i + 1));
-    }
-
-    retour[5] = valeursAnalogiques.data1;
-    retour[6] = valeursAnalogiques.data2;
-
-    return retour;
-  }
-
-  /**
-   * Permet d'envoyer une valeur  une sortie digitale.
-   * <p>
-   * Il ne devrait pas y avoir de problme lors de l'utilisation des deux mthodes
-   * d'criture de cette classe  partir de plusieurs tches.
-   * </p>
-   * 
-   * @param chaine
-   *          le numro de la sortie  laquelle envoyer la valeur (comprise entre
-   *          1 et 5)
-   * @param valeur
-   *          la nouvelle valeur de la sortie
-   * 
-   * @throws JK8055Exception
-   *           quand une erreur intervient lors du dialogue avec la carte
-   * 
-   * @see LiaisonCarte#sortie
-   */
-  static synchronized void sortieDigitale(int chaine, boolean valeur) throws JK8055Exception {
-    if (chaine < 1 || chaine > 5) {
-      throw new InvalidParameterException("Les sorties digitales vont de 1  5.");
-    }
-
-    JK8055 appareil = JK8055.getInstance();
-
-    int[] tmp = sortie.clone();
-    tmp[chaine - 1] = valeur ? 1 : 0;
-
-    StringBuffer tampon = new StringBuffer();
-    for (int i = 0; i < 5; i++) {
-      tampon.append(tmp[i]);
-    }
-    String conversion = tampon.toString();
-
-    int valeursDigitales = Integer.parseInt(conversion, 2);
-
-    appareil.SetAllValues(valeursDigitales, sortie[5], sortie[6]);
-    sortie[chaine - 1] = valeur ? 1 : 0;
-  }
-
-  /**
-   * Permet d'envoyer une valeur  une sortie analogique.
-   * <p>
-   * Il ne devrait pas y avoir de problme lors de l'utilisation des deux mthodes
-   * d'criture de cette classe  partir de plusieurs tches.
-   * </p>
-   * 
-   * @param chaine
-   *          le numro de la sortie  laquelle envoyer la valeur (comprise entre
-   *          1 et 2)
-   * @param valeur
-   *          la nouvelle valeur de la sortie (comprise entre 0 et 255)
-   * 
-   * @throws JK8055Exception
-   *           quand une erreur intervient lors du dialogue avec la carte
-   * 
-   * @see LiaisonCarte#sortie
-   */
-  static synchronized void sortieAnalogique(int chaine, int valeur) throws JK8055Exception {
-    if (valeur < 0 || valeur > 255) {
-      throw new InvalidParameterException("La valeur doit tre comprise entre 0 et 255.");
-    }
-    if (chaine < 1 || chaine > 2) {
-      throw new InvalidParameterException("Les sorties analogiques vont de 1  2.");
-    }
-
-    JK8055 appareil = JK8055.getInstance();
-
-    StringBuffer tampon = new StringBuffer();
-    for (int i = 0; i < 5; i++) {
-      tampon.append(sortie[i]);
-    }
-    String conversion = tampon.toString();
-
-    int valeursDigitales = Integer.parseInt(conversion, 2);
-
-    if (chaine == 1) {
-      appareil.SetAllValues(valeursDigitales, valeur, sortie[6]);
-      sortie[5] = valeur;
-    } else {
-      appareil.SetAllValues(valeursDigitales, sortie[5], valeur);
-      sortie[6] = valeur;
-    }
-  }
-}
+package projet.carte;
+
+import java.security.InvalidParameterException;
+
+import net.sf.libk8055.jk8055.JK8055Exception;
+
+/**
+ * <b>Cette classe offre quelques fonctions utiles pour facilement lire et
+ * envoyer des valeurs avec la carte.</b>
+ * <p>
+ * Elle s'occupe elle-même d'ouvrir le dialogue avec la carte via un pilote,
+ * par défaut celui de la classe JK8055, et convertit également les valeurs
+ * reçues pour être plus faciles d'utilisation. Elle laisse néanmoins la gestion
+ * des erreurs aux classes qui s'en serviront.
+ * </p>
+ * <p>
+ * Jusqu'à quatre cartes (adresses 0 à 3) peuvent être connectées en même temps.
+ * La classe JK8055 ne dialoguant qu'avec une carte à la fois, la carte courante
+ * est mémorisée et SetCurrentDevice() n'est appelée que lorsqu'on change
+ * réellement de carte. Toutes les méthodes dialoguant avec une carte sont
+ * synchronisées, la sélection de la carte et l'échange qui suit ne peuvent donc
+ * pas être séparés par une autre tâche. Les méthodes qui ne précisent pas
+ * d'adresse concernent la carte ADRESSE_DEFAUT.
+ * </p>
+ * <p>
+ * Pour chaque carte, le nombre de lectures, le nombre d'envois et le temps
+ * passé à dialoguer avec elle sont mesurés.
+ * </p>
+ * <p>
+ * <b>Note</b> : s'agissant d'une classe utilitaire, toutes les méthodes sont
+ * statiques, et l'instanciation de la classe a été empêchée.
+ * </p>
+ * 
+ * @see EcritureSorties
+ * @see LectureEntrees
+ * @see GestionnaireCartes
+ * @see PiloteCarte
+ * 
+ * @author Merwen CANN et Raphaël CHARRE - Novembre 2017
+ * @version 1.0
+ */
+public final class LiaisonCarte {
+  /**
+   * Nombre de valeurs retournées par une lecture complète des entrées.
+   * 
+   * @see LiaisonCarte#lectureComplete()
+   */
+  public static final int TAILLE_ENTREES = 9;
+  /**
+   * Nombre maximal de cartes pouvant être connectées en même temps.
+   */
+  public static final int NOMBRE_CARTES = 4;
+  /**
+   * Adresse de la carte concernée par les méthodes qui ne précisent pas
+   * d'adresse.
+   */
+  public static final int ADRESSE_DEFAUT = 0;
+  /**
+   * Contient l'état actuel de toutes les sorties de chaque carte, indexé par
+   * adresse.
+   * <p>
+   * Le format est le même que celui de l'image des sorties d'une commande :
+   * </p>
+   * <ul>
+   * <li>bits 0 à 4 : valeur actuelle des cinq sorties digitales,</li>
+   * <li>bits 8 à 15 : valeur actuelle de la première sortie analogique,</li>
+   * <li>bits 16 à 23 : valeur actuelle de la seconde sortie analogique.</li>
+   * </ul>
+   * <p>
+   * Cette valeur est utilisée par les méthodes d'écriture des sorties car les
+   * méthodes de la classe JK8055 ne permettent qu'une écriture sur plusieurs
+   * sorties en même-temps. Il faut donc garder en mémoire la valeur des sorties
+   * pour les modifier unes à unes, étant donné qu'on ne peut lire la valeur d'une
+   * sortie.
+   * </p>
+   * 
+   * @see Commande
+   * @see LiaisonCarte#sortieDigitale(int, boolean)
+   * @see LiaisonCarte#sortieAnalogique(int, int)
+   * @see LiaisonCarte#ecritureGroupee(int, long)
+   */
+  private static final int[] sorties = new int[NOMBRE_CARTES];
+  /**
+   * L'adresse de la carte avec laquelle JK8055 dialogue actuellement, ou -1 si
+   * elle est inconnue.
+   * 
+   * @see LiaisonCarte#selectionner(int)
+   */
+  private static int carteCourante = -1;
+  /**
+   * Masque des cartes connectées, le bit 0 correspondant à l'adresse 0.
+   * 
+   * @see LiaisonCarte#connexionCarte(int)
+   * @see LiaisonCarte#deconnexionCarte(int)
+   */
+  private static int cartesConnectees;
+  /**
+   * Nombre de lectures des entrées effectuées sur chaque carte.
+   * 
+   * @see LiaisonCarte#recupererNombreLectures(int)
+   */
+  private static final long[] nombreLectures = new long[NOMBRE_CARTES];
+  /**
+   * Nombre d'envois vers les sorties effectués sur chaque carte.
+   * 
+   * @see LiaisonCarte#recupererNombreEnvois(int)
+   */
+  private static final long[] nombreEnvois = new long[NOMBRE_CARTES];
+  /**
+   * Temps total passé à dialoguer avec chaque carte, en nanosecondes.
+   * 
+   * @see LiaisonCarte#recupererDureeDialogue(int)
+   */
+  private static final long[] dureeDialogue = new long[NOMBRE_CARTES];
+  /**
+   * La valeur de Temps.maintenant() lors de la connexion de chaque carte.
+   * 
+   * @see LiaisonCarte#recupererInstantConnexion(int)
+   */
+  private static final long[] instantConnexion = new long[NOMBRE_CARTES];
+  /**
+   * Nombre d'appels à SetCurrentDevice() effectués pour changer de carte.
+   * 
+   * @see LiaisonCarte#recupererNombreSelections()
+   */
+  private static long nombreSelections;
+  /**
+   * Le pilote par lequel passent tous les échanges avec les cartes.
+   * 
+   * @see LiaisonCarte#definirPilote(PiloteCarte)
+   */
+  private static PiloteCarte pilote = new PiloteJK8055();
+
+  /**
+   * Constructeur de la classe.
+   * <p>
+   * Cette classe n'étant pas prévue pour être instanciée, ce constructeur a comme
+   * visibilité "privé".
+   * </p>
+   */
+  private LiaisonCarte() {
+  }
+
+  /**
+   * Permet de changer le pilote par lequel passent les échanges avec les cartes,
+   * par exemple pour utiliser un simulateur.
+   * <p>
+   * Le pilote doit être choisi avant toute connexion, les cartes connectées via
+   * l'ancien pilote étant oubliées.
+   * </p>
+   * 
+   * @param pilote
+   *          le nouveau pilote
+   * 
+   * @see PiloteCarte
+   * @see PiloteSimule
+   */
+  public static synchronized void definirPilote(PiloteCarte pilote) {
+    if (pilote == null) {
+      throw new InvalidParameterException("Le pilote est obligatoire.");
+    }
+
+    LiaisonCarte.pilote = pilote;
+    carteCourante = -1;
+    cartesConnectees = 0;
+  }
+
+  /**
+   * Permet de récupérer le pilote par lequel passent les échanges avec les
+   * cartes.
+   * 
+   * @return le pilote actuel
+   * 
+   * @see LiaisonCarte#pilote
+   */
+  public static synchronized PiloteCarte recupererPilote() {
+    return pilote;
+  }
+
+  /**
+   * Permet de se connecter à la carte.
+   * <p>
+   * Cette méthode est la première à appeler pour travailler avec la carte, toutes
+   * les autres méthodes assumant que l'on est déjà connecté. Il faut indiquer
+   * l'adresse où chercher la carte. Plusieurs cartes peuvent être connectées en
+   * appelant cette méthode pour chacune de leurs adresses.
+   * </p>
+   * 
+   * @param adresse
+   *          l'adresse où chercher la carte (comprise entre 0 et 3)
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur intervient lors du dialogue avec la carte
+   * 
+   * @see LiaisonCarte#cartesConnectees
+   */
+  public static synchronized void connexionCarte(int adresse) throws JK8055Exception {
+    verifierAdresse(adresse);
+
+    pilote.ouvrir(adresse);
+    carteCourante = adresse;
+    cartesConnectees |= 1 << adresse;
+    sorties[adresse] = 0;
+    nombreLectures[adresse] = 0;
+    nombreEnvois[adresse] = 0;
+    dureeDialogue[adresse] = 0;
+    instantConnexion[adresse] = Temps.maintenant();
+  }
+
+  /**
+   * Permet de rouvrir le dialogue avec une carte après une erreur, par exemple
+   * après un débranchement.
+   * <p>
+   * La carte est fermée sans tenir compte des erreurs, puis rouverte. La
+   * dernière image des sorties envoyée avec succès lui est ensuite renvoyée,
+   * la carte ayant pu la perdre. Les statistiques de la carte sont conservées.
+   * </p>
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * 
+   * @throws JK8055Exception
+   *           quand la carte ne répond toujours pas
+   * 
+   * @see SurveillanceCarte
+   */
+  public static synchronized void reconnexionCarte(int adresse) throws JK8055Exception {
+    verifierAdresse(adresse);
+
+    if ((cartesConnectees & (1 << adresse)) != 0) {
+      try {
+        selectionner(adresse);
+        pilote.fermer();
+      } catch (JK8055Exception e) {
+        carteCourante = -1;
+      }
+    }
+    carteCourante = -1;
+    cartesConnectees &= ~(1 << adresse);
+
+    pilote.ouvrir(adresse);
+    carteCourante = adresse;
+    cartesConnectees |= 1 << adresse;
+
+    int image = sorties[adresse];
+    long debut = Temps.maintenant();
+
+    pilote.ecrireTout(image & 0x1F, (image >>> 8) & 0xFF, (image >>> 16) & 0xFF);
+    dureeDialogue[adresse] += Temps.maintenant() - debut;
+    nombreEnvois[adresse]++;
+  }
+
+  /**
+   * Permet de se déconnecter de la carte.
+   * <p>
+   * À appeler après avoir fini de travailler avec la carte, aucune des autres
+   * méthodes de cette classe ne va d'elle-même se déconnecter de la carte.
+   * Toutes les cartes connectées sont déconnectées.
+   * </p>
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur intervient lors du dialogue avec la carte
+   * 
+   * @see LiaisonCarte#deconnexionCarte(int)
+   */
+  public static synchronized void deconnexionCarte() throws JK8055Exception {
+    pilote.fermerTout();
+    carteCourante = -1;
+    cartesConnectees = 0;
+  }
+
+  /**
+   * Permet de se déconnecter d'une seule carte, les autres restant connectées.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur intervient lors du dialogue avec la carte
+   * 
+   * @see LiaisonCarte#cartesConnectees
+   */
+  public static synchronized void deconnexionCarte(int adresse) throws JK8055Exception {
+    selectionner(adresse);
+
+    pilote.fermer();
+    carteCourante = -1;
+    cartesConnectees &= ~(1 << adresse);
+  }
+
+  /**
+   * Permet de rechercher les cartes branchées sur la machine.
+   * <p>
+   * La carte courante de JK8055 n'étant plus connue après la recherche, elle
+   * sera de nouveau sélectionnée lors du prochain échange.
+   * </p>
+   * 
+   * @return le masque des cartes trouvées, le bit 0 correspondant à l'adresse 0
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur intervient lors du dialogue avec les cartes
+   * 
+   * @see GestionnaireCartes#rechercherCartes()
+   */
+  static synchronized int rechercheCartes() throws JK8055Exception {
+    carteCourante = -1;
+
+    return pilote.rechercher() & ((1 << NOMBRE_CARTES) - 1);
+  }
+
+  /**
+   * Permet de savoir si une carte est connectée.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * 
+   * @return vrai si la carte est connectée
+   * 
+   * @see LiaisonCarte#cartesConnectees
+   */
+  public static synchronized boolean estConnectee(int adresse) {
+    verifierAdresse(adresse);
+
+    return (cartesConnectees & (1 << adresse)) != 0;
+  }
+
+  /**
+   * Permet de lire toutes les entrées de la carte.
+   * <p>
+   * La lecture se fait en une seule transaction avec la carte via la méthode
+   * lireTout() du pilote, soit ReadAllValues() pour JK8055 : les entrées digitales, les entrées analogiques
+   * et les compteurs proviennent donc tous du même instant, et un seul échange
+   * USB est nécessaire.
+   * </p>
+   * <p>
+   * Après lecture des entrées de la carte, ces dernières sont retournées sous la
+   * forme compacte décrite par la classe ImageEntrees. L'entrée digitale 1
+   * correspond au bit de poids faible.
+   * </p>
+   * 
+   * @return toutes les entrées sous forme compacte
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur intervient lors du dialogue avec la carte
+   * 
+   * @see ImageEntrees
+   * @see LiaisonCarte#lectureComplete(int)
+   */
+  static long lectureComplete() throws JK8055Exception {
+    return lectureComplete(ADRESSE_DEFAUT);
+  }
+
+  /**
+   * Permet de lire toutes les entrées d'une carte donnée.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * 
+   * @return toutes les entrées sous forme compacte
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur intervient lors du dialogue avec la carte
+   * 
+   * @see LiaisonCarte#lectureComplete()
+   */
+  static synchronized long lectureComplete(int adresse) throws JK8055Exception {
+    selectionner(adresse);
+
+    long debut = Temps.maintenant();
+    long valeurs = pilote.lireTout();
+
+    dureeDialogue[adresse] += Temps.maintenant() - debut;
+    nombreLectures[adresse]++;
+
+    return valeurs;
+  }
+
+  /**
+   * Permet de connaître la dernière valeur envoyée à une sortie digitale.
+   * 
+   * @param chaine
+   *          le numéro de la sortie (comprise entre 1 et 5)
+   * 
+   * @return vrai si la sortie est active
+   * 
+   * @see LiaisonCarte#sorties
+   */
+  public static boolean etatSortieDigitale(int chaine) {
+    return etatSortieDigitale(ADRESSE_DEFAUT, chaine);
+  }
+
+  /**
+   * Permet de connaître la dernière valeur envoyée à une sortie digitale d'une
+   * carte donnée.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * @param chaine
+   *          le numéro de la sortie (comprise entre 1 et 5)
+   * 
+   * @return vrai si la sortie est active
+   * 
+   * @see LiaisonCarte#sorties
+   */
+  public static synchronized boolean etatSortieDigitale(int adresse, int chaine) {
+    verifierAdresse(adresse);
+    if (chaine < 1 || chaine > 5) {
+      throw new InvalidParameterException("Les sorties digitales vont de 1 à 5.");
+    }
+
+    return (sorties[adresse] & (1 << (chaine - 1))) != 0;
+  }
+
+  /**
+   * Permet de connaître la dernière valeur envoyée à une sortie analogique.
+   * 
+   * @param chaine
+   *          le numéro de la sortie (comprise entre 1 et 2)
+   * 
+   * @return la valeur de la sortie (comprise entre 0 et 255)
+   * 
+   * @see LiaisonCarte#sorties
+   */
+  public static int etatSortieAnalogique(int chaine) {
+    return etatSortieAnalogique(ADRESSE_DEFAUT, chaine);
+  }
+
+  /**
+   * Permet de connaître la dernière valeur envoyée à une sortie analogique d'une
+   * carte donnée.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * @param chaine
+   *          le numéro de la sortie (comprise entre 1 et 2)
+   * 
+   * @return la valeur de la sortie (comprise entre 0 et 255)
+   * 
+   * @see LiaisonCarte#sorties
+   */
+  public static synchronized int etatSortieAnalogique(int adresse, int chaine) {
+    verifierAdresse(adresse);
+    if (chaine < 1 || chaine > 2) {
+      throw new InvalidParameterException("Les sorties analogiques vont de 1 à 2.");
+    }
+
+    return (sorties[adresse] >>> (chaine * 8)) & 0xFF;
+  }
+
+  /**
+   * Permet d'envoyer une valeur à une sortie digitale.
+   * <p>
+   * Il ne devrait pas y avoir de problème lors de l'utilisation des deux méthodes
+   * d'écriture de cette classe à partir de plusieurs tâches.
+   * </p>
+   * 
+   * @param chaine
+   *          le numéro de la sortie à laquelle envoyer la valeur (comprise entre
+   *          1 et 5)
+   * @param valeur
+   *          la nouvelle valeur de la sortie
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur intervient lors du dialogue avec la carte
+   * 
+   * @see LiaisonCarte#sorties
+   */
+  static synchronized void sortieDigitale(int chaine, boolean valeur) throws JK8055Exception {
+    if (chaine < 1 || chaine > 5) {
+      throw new InvalidParameterException("Les sorties digitales vont de 1 à 5.");
+    }
+
+    ecritureGroupee(ADRESSE_DEFAUT, Commande.digitale(chaine, valeur));
+  }
+
+  /**
+   * Permet d'envoyer une valeur à une sortie analogique.
+   * <p>
+   * Il ne devrait pas y avoir de problème lors de l'utilisation des deux méthodes
+   * d'écriture de cette classe à partir de plusieurs tâches.
+   * </p>
+   * 
+   * @param chaine
+   *          le numéro de la sortie à laquelle envoyer la valeur (comprise entre
+   *          1 et 2)
+   * @param valeur
+   *          la nouvelle valeur de la sortie (comprise entre 0 et 255)
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur intervient lors du dialogue avec la carte
+   * 
+   * @see LiaisonCarte#sorties
+   */
+  static synchronized void sortieAnalogique(int chaine, int valeur) throws JK8055Exception {
+    if (valeur < 0 || valeur > 255) {
+      throw new InvalidParameterException("La valeur doit être comprise entre 0 et 255.");
+    }
+    if (chaine < 1 || chaine > 2) {
+      throw new InvalidParameterException("Les sorties analogiques vont de 1 à 2.");
+    }
+
+    ecritureGroupee(ADRESSE_DEFAUT, Commande.analogique(chaine, valeur));
+  }
+
+  /**
+   * Permet d'envoyer en une seule fois plusieurs valeurs aux sorties d'une
+   * carte.
+   * <p>
+   * La commande est fusionnée avec l'état actuel des sorties, puis le résultat
+   * est envoyé à la carte avec un unique appel à SetAllValues(). Seules les
+   * sorties concernées par la commande sont modifiées.
+   * </p>
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * @param commande
+   *          les sorties à modifier et leurs nouvelles valeurs
+   * 
+   * @return l'image des sorties envoyée à la carte
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur intervient lors du dialogue avec la carte
+   * 
+   * @see Commande
+   * @see LiaisonCarte#sorties
+   */
+  static synchronized int ecritureGroupee(int adresse, long commande) throws JK8055Exception {
+    selectionner(adresse);
+
+    int image = Commande.valeurs(Commande.fusionner(sorties[adresse], commande));
+    long debut = Temps.maintenant();
+
+    pilote.ecrireTout(image & 0x1F, (image >>> 8) & 0xFF, (image >>> 16) & 0xFF);
+    dureeDialogue[adresse] += Temps.maintenant() - debut;
+    nombreEnvois[adresse]++;
+    sorties[adresse] = image;
+
+    return image;
+  }
+
+  /**
+   * Permet de remettre à zéro un compteur d'une carte.
+   * <p>
+   * Pendant la lecture des entrées, il faut passer par
+   * LectureEntrees.remettreAZeroCompteur() : le suivi des compteurs prendrait
+   * sinon la remise à zéro pour un passage par zéro.
+   * </p>
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * @param chaine
+   *          le numéro du compteur (compris entre 1 et 2)
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur intervient lors du dialogue avec la carte
+   * 
+   * @see LectureEntrees#remettreAZeroCompteur(int)
+   */
+  public static synchronized void remiseAZeroCompteur(int adresse, int chaine)
+      throws JK8055Exception {
+    if (chaine < 1 || chaine > 2) {
+      throw new InvalidParameterException("Les compteurs vont de 1 à 2.");
+    }
+
+    selectionner(adresse);
+    pilote.remettreCompteur(chaine);
+  }
+
+  /**
+   * Permet de définir le temps d'anti-rebond d'un compteur d'une carte.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * @param chaine
+   *          le numéro du compteur (compris entre 1 et 2)
+   * @param duree
+   *          le temps d'anti-rebond en millisecondes (compris entre 0 et 5000)
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur intervient lors du dialogue avec la carte
+   */
+  public static synchronized void definirAntiRebond(int adresse, int chaine, int duree)
+      throws JK8055Exception {
+    if (chaine < 1 || chaine > 2) {
+      throw new InvalidParameterException("Les compteurs vont de 1 à 2.");
+    }
+    if (duree < 0 || duree > 5000) {
+      throw new InvalidParameterException("Le temps d'anti-rebond va de 0 à 5000 ms.");
+    }
+
+    selectionner(adresse);
+    pilote.definirAntiRebond(chaine, duree);
+  }
+
+  /**
+   * Permet de récupérer le masque des cartes connectées.
+   * 
+   * @return le masque des cartes, le bit 0 correspondant à l'adresse 0
+   * 
+   * @see LiaisonCarte#cartesConnectees
+   */
+  public static synchronized int recupererCartesConnectees() {
+    return cartesConnectees;
+  }
+
+  /**
+   * Permet de récupérer le nombre de lectures effectuées sur une carte depuis sa
+   * connexion.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * 
+   * @return le nombre d'appels à ReadAllValues()
+   * 
+   * @see LiaisonCarte#nombreLectures
+   */
+  public static synchronized long recupererNombreLectures(int adresse) {
+    verifierAdresse(adresse);
+
+    return nombreLectures[adresse];
+  }
+
+  /**
+   * Permet de récupérer le nombre d'envois effectués sur une carte depuis sa
+   * connexion.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * 
+   * @return le nombre d'appels à SetAllValues()
+   * 
+   * @see LiaisonCarte#nombreEnvois
+   */
+  public static synchronized long recupererNombreEnvois(int adresse) {
+    verifierAdresse(adresse);
+
+    return nombreEnvois[adresse];
+  }
+
+  /**
+   * Permet de récupérer le temps total passé à dialoguer avec une carte depuis
+   * sa connexion.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * 
+   * @return la durée cumulée des échanges en nanosecondes
+   * 
+   * @see LiaisonCarte#dureeDialogue
+   */
+  public static synchronized long recupererDureeDialogue(int adresse) {
+    verifierAdresse(adresse);
+
+    return dureeDialogue[adresse];
+  }
+
+  /**
+   * Permet de récupérer l'instant de connexion d'une carte.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * 
+   * @return la valeur de Temps.maintenant() lors de la connexion
+   * 
+   * @see LiaisonCarte#instantConnexion
+   */
+  public static synchronized long recupererInstantConnexion(int adresse) {
+    verifierAdresse(adresse);
+
+    return instantConnexion[adresse];
+  }
+
+  /**
+   * Permet de récupérer le nombre de changements de carte courante.
+   * 
+   * @return le nombre d'appels à SetCurrentDevice()
+   * 
+   * @see LiaisonCarte#nombreSelections
+   */
+  public static synchronized long recupererNombreSelections() {
+    return nombreSelections;
+  }
+
+  /**
+   * Permet de s'assurer que JK8055 dialogue avec la bonne carte.
+   * <p>
+   * SetCurrentDevice() n'est appelée que si la carte demandée n'est pas déjà la
+   * carte courante. Cette méthode doit être appelée en possédant le verrou de la
+   * classe.
+   * </p>
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur intervient lors du dialogue avec la carte
+   * 
+   * @see LiaisonCarte#carteCourante
+   */
+  private static void selectionner(int adresse) throws JK8055Exception {
+    verifierAdresse(adresse);
+
+    if (carteCourante != adresse) {
+      pilote.selectionner(adresse);
+      carteCourante = adresse;
+      nombreSelections++;
+    }
+  }
+
+  /**
+   * Permet de vérifier qu'une adresse de carte est valide.
+   * 
+   * @param adresse
+   *          l'adresse à vérifier
+   * 
+   * @throws InvalidParameterException
+   *           quand l'adresse n'est pas comprise entre 0 et 3
+   */
+  public static void verifierAdresse(int adresse) {
+    if (adresse < 0 || adresse >= NOMBRE_CARTES) {
+      throw new InvalidParameterException("Les adresses des cartes vont de 0 à 3.");
+    }
+  }
+}
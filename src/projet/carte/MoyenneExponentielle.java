@@ -0,0 +1,71 @@
+package projet.carte;
+
+import java.security.InvalidParameterException;
+
+/**
+ * <b>Ce filtre rend une moyenne exponentielle des valeurs reçues.</b>
+ * <p>
+ * À chaque valeur, la moyenne se rapproche de la nouvelle valeur d'une
+ * fraction 1 / 2^decalage de l'écart. Le calcul se fait en virgule fixe, avec
+ * huit bits après la virgule, par un simple décalage : ni division ni nombre à
+ * virgule flottante. Plus le décalage est grand, plus le filtre est lent et
+ * lisse.
+ * </p>
+ * 
+ * @see FiltreAnalogique
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public final class MoyenneExponentielle implements FiltreAnalogique {
+  /**
+   * Nombre de bits après la virgule de la moyenne.
+   */
+  private static final int BITS_FRACTION = 8;
+  /**
+   * Le décalage définissant la vitesse du filtre.
+   */
+  private final int decalage;
+  /**
+   * La moyenne en virgule fixe.
+   */
+  private int moyenne;
+  /**
+   * Indique si le filtre a déjà reçu une valeur.
+   */
+  private boolean initialise;
+
+  /**
+   * Le constructeur de la classe.
+   * 
+   * @param decalage
+   *          le décalage définissant la vitesse du filtre (compris entre 0 et 8,
+   *          0 rendant les valeurs telles quelles)
+   */
+  public MoyenneExponentielle(int decalage) {
+    if (decalage < 0 || decalage > 8) {
+      throw new InvalidParameterException("Le décalage va de 0 à 8.");
+    }
+
+    this.decalage = decalage;
+  }
+
+  @Override
+  public int filtrer(int valeur) {
+    int cible = valeur << BITS_FRACTION;
+
+    if (!initialise) {
+      moyenne = cible;
+      initialise = true;
+    } else {
+      moyenne += (cible - moyenne) >> decalage;
+    }
+
+    return (moyenne + (1 << (BITS_FRACTION - 1))) >> BITS_FRACTION;
+  }
+
+  @Override
+  public void reinitialiser() {
+    initialise = false;
+  }
+}
@@ -0,0 +1,77 @@
+package projet.carte;
+
+import java.security.InvalidParameterException;
+
+/**
+ * <b>Ce filtre rend la moyenne des dernières valeurs reçues.</b>
+ * <p>
+ * Les valeurs sont gardées dans un tableau circulaire, et leur somme est mise à
+ * jour à chaque valeur en retirant la plus ancienne : le coût ne dépend donc
+ * pas du nombre de valeurs moyennées. La moyenne est arrondie à l'entier le plus
+ * proche.
+ * </p>
+ * 
+ * @see FiltreAnalogique
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public final class MoyenneGlissante implements FiltreAnalogique {
+  /**
+   * Les dernières valeurs reçues.
+   */
+  private final int[] valeurs;
+  /**
+   * La position de la plus ancienne valeur dans le tableau.
+   */
+  private int position;
+  /**
+   * La somme des valeurs du tableau.
+   */
+  private int somme;
+  /**
+   * Indique si le filtre a déjà reçu une valeur.
+   */
+  private boolean initialise;
+
+  /**
+   * Le constructeur de la classe.
+   * 
+   * @param nombre
+   *          le nombre de valeurs moyennées (compris entre 1 et 256)
+   */
+  public MoyenneGlissante(int nombre) {
+    if (nombre < 1 || nombre > 256) {
+      throw new InvalidParameterException("La moyenne porte sur 1 à 256 valeurs.");
+    }
+
+    valeurs = new int[nombre];
+  }
+
+  @Override
+  public int filtrer(int valeur) {
+    if (!initialise) {
+      for (int i = 0; i < valeurs.length; i++) {
+        valeurs[i] = valeur;
+      }
+      somme = valeur * valeurs.length;
+      initialise = true;
+
+      return valeur;
+    }
+
+    somme += valeur - valeurs[position];
+    valeurs[position] = valeur;
+    if (++position == valeurs.length) {
+      position = 0;
+    }
+
+    return (somme + valeurs.length / 2) / valeurs.length;
+  }
+
+  @Override
+  public void reinitialiser() {
+    initialise = false;
+    position = 0;
+  }
+}
@@ -0,0 +1,144 @@
+package projet.carte;
+
+import net.sf.libk8055.jk8055.JK8055Exception;
+
+/**
+ * <b>Cette interface décrit le dialogue de bas niveau avec les cartes.</b>
+ * <p>
+ * Elle reprend les opérations de la classe JK8055 dont LiaisonCarte a besoin :
+ * ouverture et fermeture, recherche et sélection des cartes, lecture de toutes
+ * les entrées, écriture de toutes les sorties et gestion des compteurs. Le
+ * pilote utilisé par LiaisonCarte peut ainsi être remplacé par un simulateur
+ * lorsque la carte ou sa bibliothèque native ne sont pas disponibles.
+ * </p>
+ * <p>
+ * Comme pour JK8055, les opérations portent sur la carte courante, choisie via
+ * la méthode selectionner(). LiaisonCarte appelle toujours le pilote en
+ * possédant son verrou, une implémentation n'a donc pas à gérer plusieurs
+ * tâches à la fois.
+ * </p>
+ * 
+ * @see LiaisonCarte#definirPilote(PiloteCarte)
+ * @see PiloteJK8055
+ * @see PiloteSimule
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public interface PiloteCarte {
+  /**
+   * Permet d'ouvrir le dialogue avec une carte, qui devient la carte courante.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * 
+   * @return l'adresse de la carte ouverte
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur intervient lors du dialogue avec la carte
+   */
+  int ouvrir(int adresse) throws JK8055Exception;
+
+  /**
+   * Permet de fermer le dialogue avec la carte courante.
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur intervient lors du dialogue avec la carte
+   */
+  void fermer() throws JK8055Exception;
+
+  /**
+   * Permet de fermer le dialogue avec toutes les cartes ouvertes.
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur intervient lors du dialogue avec les cartes
+   */
+  void fermerTout() throws JK8055Exception;
+
+  /**
+   * Permet de rechercher les cartes branchées sur la machine.
+   * 
+   * @return le masque des cartes trouvées, le bit 0 correspondant à l'adresse 0
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur intervient lors du dialogue avec les cartes
+   */
+  int rechercher() throws JK8055Exception;
+
+  /**
+   * Permet de choisir la carte courante.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur intervient lors du dialogue avec la carte
+   */
+  void selectionner(int adresse) throws JK8055Exception;
+
+  /**
+   * Permet de lire toutes les entrées de la carte courante en une seule
+   * transaction.
+   * 
+   * @return toutes les entrées sous la forme compacte décrite par ImageEntrees
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur intervient lors du dialogue avec la carte
+   * 
+   * @see ImageEntrees
+   */
+  long lireTout() throws JK8055Exception;
+
+  /**
+   * Permet d'écrire toutes les sorties de la carte courante en une seule
+   * transaction.
+   * 
+   * @param digitales
+   *          la valeur des sorties digitales (un bit par sortie)
+   * @param analogique1
+   *          la valeur de la première sortie analogique (de 0 à 255)
+   * @param analogique2
+   *          la valeur de la seconde sortie analogique (de 0 à 255)
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur intervient lors du dialogue avec la carte
+   */
+  void ecrireTout(int digitales, int analogique1, int analogique2) throws JK8055Exception;
+
+  /**
+   * Permet de lire un compteur de la carte courante.
+   * 
+   * @param chaine
+   *          le numéro du compteur (compris entre 1 et 2)
+   * 
+   * @return la valeur du compteur
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur intervient lors du dialogue avec la carte
+   */
+  int lireCompteur(int chaine) throws JK8055Exception;
+
+  /**
+   * Permet de remettre à zéro un compteur de la carte courante.
+   * 
+   * @param chaine
+   *          le numéro du compteur (compris entre 1 et 2)
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur intervient lors du dialogue avec la carte
+   */
+  void remettreCompteur(int chaine) throws JK8055Exception;
+
+  /**
+   * Permet de définir le temps d'anti-rebond d'un compteur de la carte courante.
+   * 
+   * @param chaine
+   *          le numéro du compteur (compris entre 1 et 2)
+   * @param duree
+   *          le temps d'anti-rebond en millisecondes (compris entre 0 et 5000)
+   * 
+   * @throws JK8055Exception
+   *           quand une erreur intervient lors du dialogue avec la carte
+   */
+  void definirAntiRebond(int chaine, int duree) throws JK8055Exception;
+}
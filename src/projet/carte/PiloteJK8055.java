@@ -0,0 +1,75 @@
+package projet.carte;
+
+import net.sf.libk8055.jk8055.JK8055;
+import net.sf.libk8055.jk8055.JK8055.AllValues;
+import net.sf.libk8055.jk8055.JK8055Exception;
+
+/**
+ * <b>Cette classe est le pilote des cartes réelles, via la bibliothèque
+ * JK8055.</b>
+ * <p>
+ * Chaque opération est transmise telle quelle à l'instance de JK8055. La
+ * bibliothèque native n'est chargée qu'au premier appel, ce qui permet de créer
+ * ce pilote sur une machine où elle n'est pas installée.
+ * </p>
+ * 
+ * @see PiloteCarte
+ * @see LiaisonCarte
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public final class PiloteJK8055 implements PiloteCarte {
+  @Override
+  public int ouvrir(int adresse) throws JK8055Exception {
+    return JK8055.getInstance().OpenDevice(adresse);
+  }
+
+  @Override
+  public void fermer() throws JK8055Exception {
+    JK8055.getInstance().CloseDevice();
+  }
+
+  @Override
+  public void fermerTout() throws JK8055Exception {
+    JK8055.getInstance().CloseAllOpenDevices();
+  }
+
+  @Override
+  public int rechercher() throws JK8055Exception {
+    return JK8055.getInstance().SearchDevices();
+  }
+
+  @Override
+  public void selectionner(int adresse) throws JK8055Exception {
+    JK8055.getInstance().SetCurrentDevice(adresse);
+  }
+
+  @Override
+  public long lireTout() throws JK8055Exception {
+    AllValues valeurs = JK8055.getInstance().ReadAllValues();
+
+    return ImageEntrees.compacter(valeurs.input, valeurs.analog1, valeurs.analog2, valeurs.counter1,
+        valeurs.counter2);
+  }
+
+  @Override
+  public void ecrireTout(int digitales, int analogique1, int analogique2) throws JK8055Exception {
+    JK8055.getInstance().SetAllValues(digitales, analogique1, analogique2);
+  }
+
+  @Override
+  public int lireCompteur(int chaine) throws JK8055Exception {
+    return JK8055.getInstance().ReadCounter(chaine);
+  }
+
+  @Override
+  public void remettreCompteur(int chaine) throws JK8055Exception {
+    JK8055.getInstance().ResetCount(chaine);
+  }
+
+  @Override
+  public void definirAntiRebond(int chaine, int duree) throws JK8055Exception {
+    JK8055.getInstance().SetCounterDebounceTime(chaine, duree);
+  }
+}
@@ -0,0 +1,687 @@
+package projet.carte;
+
+import java.security.InvalidParameterException;
+import java.util.Random;
+
+import net.sf.libk8055.jk8055.JK8055Exception;
+
+/**
+ * <b>Cette classe simule jusqu'à quatre cartes dans le programme lui-même.</b>
+ * <p>
+ * Elle permet de faire fonctionner LectureEntrees, EcritureSorties et le
+ * scénario sans carte ni bibliothèque native, par exemple pour des tests de
+ * charge. Trois aspects de la carte réelle sont reproduits :
+ * </p>
+ * <ul>
+ * <li>la durée d'un échange USB, tirée à chaque appel selon une loi
+ * exponentielle décalée (une durée minimale plus une attente aléatoire), à
+ * laquelle s'ajoutent de rares pics de latence,</li>
+ * <li>un procédé de remplissage : tant que la sortie digitale de la vanne est
+ * active, le niveau de la cuve (première entrée analogique) monte au débit
+ * choisi, et le capteur de poids (seconde entrée analogique) suit le niveau
+ * avec un léger bruit,</li>
+ * <li>des pannes : chaque échange peut échouer avec une probabilité donnée, et
+ * une carte peut être débranchée puis rebranchée à tout moment.</li>
+ * </ul>
+ * <p>
+ * Les entrées digitales sont positionnées par le programme de test via la
+ * méthode definirEntreeDigitale(). Comme sur la carte réelle, les compteurs
+ * comptent les fronts montants des entrées digitales 1 et 2. Un train
+ * d'impulsions trop rapide pour la lecture, comme celui d'un débitmètre, peut
+ * être ajouté via la méthode definirImpulsions(). Comme sur la carte réelle,
+ * le temps d'anti-rebond choisi via definirAntiRebond() ne concerne que les
+ * compteurs, et seulement ce train d'impulsions : les entrées digitales ne sont
+ * jamais filtrées et gardent la valeur donnée par definirEntreeDigitale(), dont
+ * chaque front montant est compté. Le filtrage des entrées digitales se fait
+ * dans le programme, via ConditionnementEntrees. Le tirage des durées et des
+ * pannes dépend d'une graine, ce qui rend une simulation reproductible.
+ * </p>
+ * <p>
+ * Les échanges et le procédé suivent l'horloge du programme : avec une
+ * HorlogeVirtuelle, la durée d'un échange fait seulement avancer le temps
+ * simulé, sans aucune attente réelle.
+ * </p>
+ * 
+ * @see PiloteCarte
+ * @see LiaisonCarte#definirPilote(PiloteCarte)
+ * @see ConditionnementEntrees
+ * @see Temps
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public final class PiloteSimule implements PiloteCarte {
+  /**
+   * Durée minimale par défaut d'un échange, en nanosecondes.
+   */
+  public static final long LATENCE_MINIMALE_DEFAUT = 1000000L;
+  /**
+   * Durée moyenne par défaut d'un échange, en nanosecondes.
+   */
+  public static final long LATENCE_MOYENNE_DEFAUT = 2000000L;
+  /**
+   * Débit de remplissage par défaut, en unités du capteur de niveau par seconde.
+   */
+  public static final double DEBIT_DEFAUT = 50;
+  /**
+   * L'état de chaque carte simulée, indexé par adresse.
+   */
+  private final CarteSimulee[] cartes = new CarteSimulee[LiaisonCarte.NOMBRE_CARTES];
+  /**
+   * Le générateur utilisé pour les durées, le bruit et les pannes.
+   */
+  private final Random aleatoire;
+  /**
+   * L'adresse de la carte courante, ou -1 si aucune carte n'est sélectionnée.
+   */
+  private int courante = -1;
+  /**
+   * Durée minimale d'un échange, en nanosecondes.
+   */
+  private long latenceMinimale = LATENCE_MINIMALE_DEFAUT;
+  /**
+   * Durée moyenne d'un échange, en nanosecondes.
+   */
+  private long latenceMoyenne = LATENCE_MOYENNE_DEFAUT;
+  /**
+   * Probabilité qu'un échange subisse un pic de latence.
+   */
+  private double probabilitePic;
+  /**
+   * Durée d'un pic de latence, en nanosecondes.
+   */
+  private long dureePic;
+  /**
+   * Probabilité qu'un échange échoue.
+   */
+  private double tauxErreur;
+  /**
+   * Débit de remplissage, en unités du capteur de niveau par seconde.
+   */
+  private double debit = DEBIT_DEFAUT;
+  /**
+   * Rapport entre le poids mesuré et le niveau de la cuve.
+   */
+  private double rapportPoids = 1;
+  /**
+   * Amplitude maximale du bruit du capteur de poids.
+   */
+  private int bruitPoids = 1;
+  /**
+   * Le numéro de la sortie digitale commandant la vanne de remplissage.
+   */
+  private int sortieVanne = 1;
+  /**
+   * Nombre total d'échanges simulés.
+   */
+  private long nombreEchanges;
+  /**
+   * Nombre total de pannes simulées.
+   */
+  private long nombrePannes;
+
+  /**
+   * Permet de créer un simulateur dont les quatre cartes sont branchées, avec
+   * une graine aléatoire.
+   */
+  public PiloteSimule() {
+    this(System.nanoTime());
+  }
+
+  /**
+   * Permet de créer un simulateur dont les quatre cartes sont branchées.
+   * 
+   * @param graine
+   *          la graine du générateur aléatoire, une même graine donnant une même
+   *          simulation
+   */
+  public PiloteSimule(long graine) {
+    aleatoire = new Random(graine);
+
+    for (int i = 0; i < cartes.length; i++) {
+      cartes[i] = new CarteSimulee();
+    }
+  }
+
+  @Override
+  public synchronized int ouvrir(int adresse) throws JK8055Exception {
+    CarteSimulee carte = carte(adresse);
+
+    echanger(carte, adresse);
+    carte.ouverte = true;
+    carte.dernierInstant = Temps.maintenant();
+    courante = adresse;
+
+    return adresse;
+  }
+
+  @Override
+  public synchronized void fermer() throws JK8055Exception {
+    if (courante >= 0) {
+      cartes[courante].ouverte = false;
+    }
+    courante = -1;
+  }
+
+  @Override
+  public synchronized void fermerTout() throws JK8055Exception {
+    for (CarteSimulee carte : cartes) {
+      carte.ouverte = false;
+    }
+    courante = -1;
+  }
+
+  @Override
+  public synchronized int rechercher() throws JK8055Exception {
+    int masque = 0;
+
+    for (int i = 0; i < cartes.length; i++) {
+      if (cartes[i].branchee) {
+        masque |= 1 << i;
+      }
+    }
+
+    return masque;
+  }
+
+  @Override
+  public synchronized void selectionner(int adresse) throws JK8055Exception {
+    if (!carte(adresse).ouverte) {
+      throw new JK8055Exception("La carte " + adresse + " n'est pas ouverte.");
+    }
+
+    courante = adresse;
+  }
+
+  @Override
+  public synchronized long lireTout() throws JK8055Exception {
+    CarteSimulee carte = carteCourante();
+
+    echanger(carte, courante);
+    avancer(carte);
+
+    int poids = (int) Math.round(carte.niveau * rapportPoids);
+    if (bruitPoids > 0) {
+      poids += aleatoire.nextInt(2 * bruitPoids + 1) - bruitPoids;
+    }
+
+    int niveau = carte.analogiquesForcees[0] >= 0 ? carte.analogiquesForcees[0]
+        : (int) carte.niveau;
+    if (carte.analogiquesForcees[1] >= 0) {
+      poids = carte.analogiquesForcees[1];
+    }
+
+    return ImageEntrees.compacter(carte.digitales, borner(niveau), borner(poids), carte.compteurs[0],
+        carte.compteurs[1]);
+  }
+
+  @Override
+  public synchronized void ecrireTout(int digitales, int analogique1, int analogique2)
+      throws JK8055Exception {
+    CarteSimulee carte = carteCourante();
+
+    echanger(carte, courante);
+    avancer(carte);
+    carte.sorties = (digitales & 0x1F) | (analogique1 & 0xFF) << 8 | (analogique2 & 0xFF) << 16;
+  }
+
+  @Override
+  public synchronized int lireCompteur(int chaine) throws JK8055Exception {
+    CarteSimulee carte = carteCourante();
+
+    echanger(carte, courante);
+
+    return carte.compteurs[compteur(chaine)];
+  }
+
+  @Override
+  public synchronized void remettreCompteur(int chaine) throws JK8055Exception {
+    CarteSimulee carte = carteCourante();
+
+    echanger(carte, courante);
+    carte.compteurs[compteur(chaine)] = 0;
+  }
+
+  @Override
+  public synchronized void definirAntiRebond(int chaine, int duree) throws JK8055Exception {
+    CarteSimulee carte = carteCourante();
+
+    echanger(carte, courante);
+    carte.antiRebond[compteur(chaine)] = duree;
+  }
+
+  /**
+   * Permet de définir la durée d'un échange avec une carte.
+   * 
+   * @param minimale
+   *          la durée minimale d'un échange en nanosecondes
+   * @param moyenne
+   *          la durée moyenne d'un échange en nanosecondes (au moins égale à la
+   *          durée minimale)
+   */
+  public synchronized void definirLatence(long minimale, long moyenne) {
+    if (minimale < 0 || moyenne < minimale) {
+      throw new InvalidParameterException("La durée moyenne doit être au moins égale à la minimale.");
+    }
+
+    latenceMinimale = minimale;
+    latenceMoyenne = moyenne;
+  }
+
+  /**
+   * Permet de définir les pics de latence, durant lesquels un échange prend
+   * beaucoup plus de temps que d'habitude.
+   * 
+   * @param probabilite
+   *          la probabilité qu'un échange subisse un pic (comprise entre 0 et 1)
+   * @param duree
+   *          la durée ajoutée par un pic en nanosecondes
+   */
+  public synchronized void definirPics(double probabilite, long duree) {
+    probabilitePic = verifierProbabilite(probabilite);
+    dureePic = duree;
+  }
+
+  /**
+   * Permet de définir la probabilité qu'un échange échoue.
+   * 
+   * @param taux
+   *          la probabilité d'échec (comprise entre 0 et 1)
+   */
+  public synchronized void definirTauxErreur(double taux) {
+    tauxErreur = verifierProbabilite(taux);
+  }
+
+  /**
+   * Permet de définir le procédé de remplissage simulé.
+   * 
+   * @param debit
+   *          le débit de remplissage en unités du capteur de niveau par seconde
+   * @param rapportPoids
+   *          le rapport entre le poids mesuré et le niveau de la cuve
+   * @param bruitPoids
+   *          l'amplitude maximale du bruit du capteur de poids
+   */
+  public synchronized void definirRemplissage(double debit, double rapportPoids, int bruitPoids) {
+    if (debit < 0 || rapportPoids < 0 || bruitPoids < 0) {
+      throw new InvalidParameterException("Les paramètres du remplissage doivent être positifs.");
+    }
+
+    this.debit = debit;
+    this.rapportPoids = rapportPoids;
+    this.bruitPoids = bruitPoids;
+  }
+
+  /**
+   * Permet de choisir la sortie digitale qui commande la vanne de remplissage.
+   * 
+   * @param chaine
+   *          le numéro de la sortie (comprise entre 1 et 5)
+   */
+  public synchronized void definirSortieVanne(int chaine) {
+    if (chaine < 1 || chaine > 5) {
+      throw new InvalidParameterException("Les sorties digitales vont de 1 à 5.");
+    }
+
+    sortieVanne = chaine;
+  }
+
+  /**
+   * Permet de changer la valeur d'une entrée digitale d'une carte simulée.
+   * <p>
+   * La valeur est lue telle quelle, sans anti-rebond. Un front montant sur
+   * l'entrée 1 ou 2 est compté immédiatement, quel que soit le temps
+   * d'anti-rebond du compteur.
+   * </p>
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * @param chaine
+   *          le numéro de l'entrée (compris entre 1 et 5)
+   * @param valeur
+   *          la nouvelle valeur de l'entrée
+   */
+  public synchronized void definirEntreeDigitale(int adresse, int chaine, boolean valeur) {
+    if (chaine < 1 || chaine > 5) {
+      throw new InvalidParameterException("Les entrées digitales vont de 1 à 5.");
+    }
+
+    CarteSimulee carte = carte(adresse);
+    int bit = 1 << (chaine - 1);
+
+    if (valeur && (carte.digitales & bit) == 0 && chaine <= 2) {
+      carte.compteurs[chaine - 1] = (carte.compteurs[chaine - 1] + 1) & 0xFFFF;
+    }
+
+    carte.digitales = valeur ? carte.digitales | bit : carte.digitales & ~bit;
+  }
+
+  /**
+   * Permet de simuler un train d'impulsions régulier sur l'entrée d'un
+   * compteur d'une carte simulée.
+   * <p>
+   * Les impulsions sont ajoutées directement au compteur, sans changer l'entrée
+   * digitale. Comme sur la carte réelle, elles ne sont pas comptées si leur
+   * demi-période est plus courte que le temps d'anti-rebond du compteur.
+   * </p>
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * @param chaine
+   *          le numéro du compteur (compris entre 1 et 2)
+   * @param frequence
+   *          la fréquence des impulsions en hertz, ou 0 pour les arrêter
+   */
+  public synchronized void definirImpulsions(int adresse, int chaine, double frequence) {
+    if (frequence < 0) {
+      throw new InvalidParameterException("La fréquence doit être positive.");
+    }
+
+    CarteSimulee carte = carte(adresse);
+
+    avancer(carte);
+    carte.frequences[compteur(chaine)] = frequence;
+  }
+
+  /**
+   * Permet d'imposer la valeur d'une entrée analogique d'une carte simulée, à la
+   * place de celle donnée par le procédé de remplissage.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * @param chaine
+   *          le numéro de l'entrée (compris entre 1 et 2)
+   * @param valeur
+   *          la valeur imposée (de 0 à 255), ou -1 pour revenir au procédé
+   */
+  public synchronized void forcerEntreeAnalogique(int adresse, int chaine, int valeur) {
+    if (chaine < 1 || chaine > 2) {
+      throw new InvalidParameterException("Les entrées analogiques vont de 1 à 2.");
+    }
+
+    carte(adresse).analogiquesForcees[chaine - 1] = valeur < 0 ? -1 : borner(valeur);
+  }
+
+  /**
+   * Permet de vider la cuve d'une carte simulée.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   */
+  public synchronized void viderCuve(int adresse) {
+    carte(adresse).niveau = 0;
+  }
+
+  /**
+   * Permet de simuler le débranchement d'une carte : tout échange avec elle
+   * échoue jusqu'à ce qu'elle soit rebranchée et ouverte à nouveau. Comme une
+   * carte réelle privée d'alimentation, elle perd la valeur de ses sorties et
+   * de ses compteurs, dont le temps d'anti-rebond revient à sa valeur par
+   * défaut.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   */
+  public synchronized void debrancher(int adresse) {
+    CarteSimulee carte = carte(adresse);
+
+    carte.branchee = false;
+    carte.ouverte = false;
+    carte.sorties = 0;
+    carte.compteurs[0] = 0;
+    carte.compteurs[1] = 0;
+    carte.antiRebond[0] = 2;
+    carte.antiRebond[1] = 2;
+  }
+
+  /**
+   * Permet de simuler le rebranchement d'une carte. Le procédé et les
+   * impulsions reprennent à cet instant.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   */
+  public synchronized void rebrancher(int adresse) {
+    CarteSimulee carte = carte(adresse);
+
+    carte.branchee = true;
+    carte.dernierInstant = Temps.maintenant();
+  }
+
+  /**
+   * Permet de récupérer les dernières valeurs écrites sur les sorties d'une
+   * carte simulée.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * 
+   * @return l'image des sorties, au format de celle d'une commande
+   * 
+   * @see Commande
+   */
+  public synchronized int recupererSorties(int adresse) {
+    return carte(adresse).sorties;
+  }
+
+  /**
+   * Permet de récupérer le niveau de la cuve d'une carte simulée.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * 
+   * @return le niveau de la cuve, en unités du capteur de niveau
+   */
+  public synchronized double recupererNiveau(int adresse) {
+    CarteSimulee carte = carte(adresse);
+
+    avancer(carte);
+
+    return carte.niveau;
+  }
+
+  /**
+   * Permet de récupérer le nombre total d'échanges simulés.
+   * 
+   * @return le nombre d'échanges
+   */
+  public synchronized long recupererNombreEchanges() {
+    return nombreEchanges;
+  }
+
+  /**
+   * Permet de récupérer le nombre total de pannes simulées.
+   * 
+   * @return le nombre d'échanges ayant échoué
+   */
+  public synchronized long recupererNombrePannes() {
+    return nombrePannes;
+  }
+
+  /**
+   * Permet de simuler un échange avec une carte : attente de la durée de
+   * l'échange, puis éventuelle panne.
+   * 
+   * @param carte
+   *          la carte concernée
+   * @param adresse
+   *          l'adresse de la carte
+   * 
+   * @throws JK8055Exception
+   *           quand la carte est débranchée ou qu'une panne est tirée
+   */
+  private void echanger(CarteSimulee carte, int adresse) throws JK8055Exception {
+    nombreEchanges++;
+
+    long duree = latenceMinimale;
+    if (latenceMoyenne > latenceMinimale) {
+      duree += (long) (-Math.log(1 - aleatoire.nextDouble()) * (latenceMoyenne - latenceMinimale));
+    }
+    if (probabilitePic > 0 && aleatoire.nextDouble() < probabilitePic) {
+      duree += dureePic;
+    }
+    Temps.attendreJusqua(Temps.maintenant() + duree);
+
+    if (!carte.branchee) {
+      nombrePannes++;
+      throw new JK8055Exception("La carte " + adresse + " ne répond pas.");
+    }
+    if (tauxErreur > 0 && aleatoire.nextDouble() < tauxErreur) {
+      nombrePannes++;
+      throw new JK8055Exception("Erreur simulée lors du dialogue avec la carte " + adresse + ".");
+    }
+  }
+
+  /**
+   * Permet de faire évoluer le procédé de remplissage d'une carte jusqu'à
+   * l'instant présent.
+   * 
+   * @param carte
+   *          la carte concernée
+   */
+  private void avancer(CarteSimulee carte) {
+    long maintenant = Temps.maintenant();
+
+    if ((carte.sorties & (1 << (sortieVanne - 1))) != 0) {
+      carte.niveau = Math.min(255, carte.niveau + debit * (maintenant - carte.dernierInstant) / 1e9);
+    }
+
+    for (int i = 0; i < carte.compteurs.length; i++) {
+      double frequence = carte.frequences[i];
+
+      if (frequence > 0 && 500 / frequence >= carte.antiRebond[i]) {
+        carte.impulsions[i] += frequence * (maintenant - carte.dernierInstant) / 1e9;
+
+        int nombre = (int) carte.impulsions[i];
+        carte.impulsions[i] -= nombre;
+        carte.compteurs[i] = (carte.compteurs[i] + nombre) & 0xFFFF;
+      }
+    }
+
+    carte.dernierInstant = maintenant;
+  }
+
+  /**
+   * Permet de récupérer la carte courante.
+   * 
+   * @return la carte courante
+   * 
+   * @throws JK8055Exception
+   *           quand aucune carte n'est ouverte
+   */
+  private CarteSimulee carteCourante() throws JK8055Exception {
+    if (courante < 0 || !cartes[courante].ouverte) {
+      throw new JK8055Exception("Aucune carte n'est ouverte.");
+    }
+
+    return cartes[courante];
+  }
+
+  /**
+   * Permet de récupérer une carte par son adresse.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * 
+   * @return la carte
+   */
+  private CarteSimulee carte(int adresse) {
+    LiaisonCarte.verifierAdresse(adresse);
+
+    return cartes[adresse];
+  }
+
+  /**
+   * Permet de ramener une valeur entre 0 et 255.
+   * 
+   * @param valeur
+   *          la valeur
+   * 
+   * @return la valeur bornée
+   */
+  private static int borner(int valeur) {
+    return Math.max(0, Math.min(255, valeur));
+  }
+
+  /**
+   * Permet de vérifier une probabilité.
+   * 
+   * @param probabilite
+   *          la probabilité à vérifier
+   * 
+   * @return la probabilité
+   */
+  private static double verifierProbabilite(double probabilite) {
+    if (probabilite < 0 || probabilite > 1) {
+      throw new InvalidParameterException("La probabilité doit être comprise entre 0 et 1.");
+    }
+
+    return probabilite;
+  }
+
+  /**
+   * Permet de convertir un numéro de compteur en indice.
+   * 
+   * @param chaine
+   *          le numéro du compteur (compris entre 1 et 2)
+   * 
+   * @return l'indice du compteur
+   */
+  private static int compteur(int chaine) {
+    if (chaine < 1 || chaine > 2) {
+      throw new InvalidParameterException("Les compteurs vont de 1 à 2.");
+    }
+
+    return chaine - 1;
+  }
+
+  /**
+   * <b>L'état d'une carte simulée.</b>
+   */
+  private static final class CarteSimulee {
+    /**
+     * Indique si la carte est branchée.
+     */
+    private boolean branchee = true;
+    /**
+     * Indique si le dialogue avec la carte est ouvert.
+     */
+    private boolean ouverte;
+    /**
+     * La valeur des entrées digitales, un bit par entrée.
+     */
+    private int digitales;
+    /**
+     * La valeur imposée de chaque entrée analogique, ou -1.
+     */
+    private final int[] analogiquesForcees = { -1, -1 };
+    /**
+     * La valeur des deux compteurs.
+     */
+    private final int[] compteurs = new int[2];
+    /**
+     * Le temps d'anti-rebond des deux compteurs, en millisecondes. Il ne
+     * s'applique qu'aux trains d'impulsions, jamais aux entrées digitales.
+     */
+    private final int[] antiRebond = { 2, 2 };
+    /**
+     * La fréquence du train d'impulsions de chaque compteur, en hertz.
+     */
+    private final double[] frequences = new double[2];
+    /**
+     * La fraction d'impulsion pas encore comptée de chaque compteur.
+     */
+    private final double[] impulsions = new double[2];
+    /**
+     * Les dernières valeurs écrites sur les sorties.
+     */
+    private int sorties;
+    /**
+     * Le niveau de la cuve.
+     */
+    private double niveau;
+    /**
+     * L'instant jusqu'auquel le procédé a été simulé.
+     */
+    private long dernierInstant = Temps.maintenant();
+  }
+}
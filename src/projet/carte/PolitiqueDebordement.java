@@ -0,0 +1,28 @@
+package projet.carte;
+
+/**
+ * <b>Cette énumération décrit le comportement de la file d'écriture lorsqu'elle
+ * est pleine.</b>
+ * 
+ * @see EcritureSorties#definirPolitiqueDebordement(PolitiqueDebordement)
+ * @see FileCommandes
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public enum PolitiqueDebordement {
+  /**
+   * La tâche qui écrit attend qu'une place se libère dans la file.
+   */
+  BLOQUER,
+  /**
+   * La plus ancienne écriture de la file est supprimée pour faire de la place.
+   */
+  SUPPRIMER_PLUS_ANCIENNE,
+  /**
+   * L'écriture est fusionnée avec les autres écritures en attente hors de la
+   * file, la dernière valeur de chaque sortie étant conservée. Aucune écriture
+   * n'est perdue ni bloquée, seules les valeurs intermédiaires disparaissent.
+   */
+  FUSIONNER
+}
@@ -0,0 +1,26 @@
+package projet.carte;
+
+/**
+ * <b>Cette énumération décrit la priorité d'une écriture sur les sorties de la
+ * carte.</b>
+ * 
+ * @see EcritureSorties#ecrireImage(int, int, PrioriteEcriture)
+ * @see FileCommandes
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public enum PrioriteEcriture {
+  /**
+   * L'écriture passe par la file habituelle, bornée, et attend son tour.
+   */
+  NORMALE,
+  /**
+   * L'écriture passe par une file séparée, vidée après la file habituelle lors
+   * de chaque envoi : elle part dès le prochain envoi. Sur une même sortie, elle
+   * l'emporte sur les écritures normales plus anciennes envoyées en même temps,
+   * mais pas sur les plus récentes. Elle n'est jamais bloquée, même quand la
+   * file habituelle est pleine.
+   */
+  URGENTE
+}
@@ -0,0 +1,346 @@
+package projet.carte;
+
+import java.util.concurrent.locks.LockSupport;
+
+import net.sf.libk8055.jk8055.JK8055Exception;
+
+/**
+ * <b>Cette classe permet de reconnecter automatiquement une carte après une
+ * erreur de dialogue.</b>
+ * <p>
+ * Une tâche surveille la lecture des entrées et l'écriture des sorties d'une
+ * carte. Dès que l'une d'elles a enregistré une erreur, par exemple à cause d'un
+ * incident USB, la carte est rouverte via LiaisonCarte.reconnexionCarte(), qui
+ * lui renvoie la dernière image des sorties. Tant que la carte ne répond pas,
+ * les tentatives sont espacées d'un délai qui double à chaque échec, sans
+ * dépasser DELAI_MAXIMAL.
+ * </p>
+ * <p>
+ * Une fois la carte rouverte, le conditionnement des entrées en place lui
+ * renvoie sa configuration (temps d'anti-rebond des compteurs), que la carte a
+ * pu perdre. Les erreurs de la lecture et de l'écriture sont ensuite
+ * supprimées : les deux reprennent là où elles en étaient, avec les mêmes
+ * instances, et les écritures restées dans la file sont envoyées. Cela
+ * fonctionne avec les deux tâches habituelles comme avec une BoucleCarte.
+ * </p>
+ * 
+ * @see GestionnaireCartes#demarrerEntreesSorties(int)
+ * @see LiaisonCarte#reconnexionCarte(int)
+ * @see ConditionnementEntrees#configurerCarte(int)
+ * @see LectureEntrees#reinitialiserErreur()
+ * @see EcritureSorties#reinitialiserErreur()
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public final class SurveillanceCarte extends Thread {
+  /**
+   * Période de vérification des erreurs, en nanosecondes.
+   */
+  public static final long PERIODE_SURVEILLANCE = 10000000L;
+  /**
+   * Délai avant la deuxième tentative de reconnexion, en nanosecondes.
+   */
+  public static final long DELAI_INITIAL = 20000000L;
+  /**
+   * Délai maximal entre deux tentatives de reconnexion, en nanosecondes.
+   */
+  public static final long DELAI_MAXIMAL = 5000000000L;
+  /**
+   * Contient l'unique instance de cette classe pour chaque carte, indexée par
+   * l'adresse de la carte.
+   * 
+   * @see SurveillanceCarte#recupererInstance(int)
+   */
+  private static final SurveillanceCarte[] instances = new SurveillanceCarte[LiaisonCarte.NOMBRE_CARTES];
+  /**
+   * L'adresse de la carte surveillée.
+   */
+  private final int adresse;
+  /**
+   * La lecture des entrées de la carte.
+   */
+  private final LectureEntrees lecture;
+  /**
+   * L'écriture des sorties de la carte.
+   */
+  private final EcritureSorties ecriture;
+  /**
+   * Durée de chaque coupure, de la détection de l'erreur à la reprise.
+   * 
+   * @see SurveillanceCarte#recupererDureesReprise()
+   */
+  private final HistogrammeLatence dureesReprise = new HistogrammeLatence();
+  /**
+   * Nombre de coupures détectées.
+   */
+  private volatile long nombreCoupures;
+  /**
+   * Nombre de tentatives de reconnexion, réussies ou non.
+   */
+  private volatile long nombreTentatives;
+  /**
+   * Nombre de reprises réussies.
+   */
+  private volatile long nombreReprises;
+  /**
+   * La valeur de Temps.maintenant() au début de la coupure en cours, ou 0 si la
+   * carte fonctionne.
+   */
+  private volatile long debutCoupure;
+  /**
+   * La dernière erreur constatée, y compris lors d'une tentative de
+   * reconnexion.
+   */
+  private volatile JK8055Exception derniereErreur;
+  /**
+   * Permet de savoir si l'on doit arrêter la surveillance ou que l'on peut
+   * continuer.
+   * 
+   * @see SurveillanceCarte#finSurveillance()
+   */
+  private volatile boolean continuer = true;
+
+  /**
+   * Le constructeur de la classe.
+   * 
+   * @param adresse
+   *          l'adresse de la carte surveillée
+   */
+  private SurveillanceCarte(int adresse) {
+    super("SurveillanceCarte-" + adresse);
+    this.adresse = adresse;
+    this.lecture = LectureEntrees.recupererInstance(adresse);
+    this.ecriture = EcritureSorties.recupererInstance(adresse);
+    setDaemon(true);
+    instances[adresse] = this;
+  }
+
+  /**
+   * Permet de récupérer l'unique instance de la classe pour une carte, ou d'en
+   * créer une si elle n'existe pas.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * 
+   * @return l'unique instance de la classe pour cette carte
+   */
+  public static synchronized SurveillanceCarte recupererInstance(int adresse) {
+    LiaisonCarte.verifierAdresse(adresse);
+
+    if (instances[adresse] == null) {
+      return new SurveillanceCarte(adresse);
+    }
+
+    return instances[adresse];
+  }
+
+  /**
+   * Permet de récupérer la surveillance d'une carte si elle a été créée.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * 
+   * @return la surveillance de la carte, ou nulle si la carte n'est pas
+   *         surveillée
+   */
+  static synchronized SurveillanceCarte recupererExistante(int adresse) {
+    LiaisonCarte.verifierAdresse(adresse);
+
+    return instances[adresse];
+  }
+
+  /**
+   * Permet de savoir si une carte est surveillée par une tâche en cours
+   * d'exécution.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   * 
+   * @return vrai si les erreurs de la carte sont réparées automatiquement
+   */
+  public static synchronized boolean estSurveillee(int adresse) {
+    LiaisonCarte.verifierAdresse(adresse);
+
+    return instances[adresse] != null && instances[adresse].isAlive()
+        && instances[adresse].continuer;
+  }
+
+  /**
+   * Permet de récupérer l'adresse de la carte surveillée.
+   * 
+   * @return l'adresse de la carte
+   */
+  public int recupererAdresse() {
+    return adresse;
+  }
+
+  /**
+   * Permet de savoir si la carte est actuellement coupée.
+   * 
+   * @return vrai entre la détection d'une erreur et la reprise
+   */
+  public boolean estCoupee() {
+    return debutCoupure != 0 || lecture.recupererErreur() != null
+        || ecriture.recupererErreur() != null;
+  }
+
+  /**
+   * Permet d'attendre la fin de la coupure en cours.
+   * 
+   * @param delai
+   *          la durée maximale d'attente en nanosecondes
+   * 
+   * @return vrai si la carte fonctionne à nouveau
+   */
+  public boolean attendreReprise(long delai) {
+    long fin = Temps.maintenant() + delai;
+
+    while (estCoupee() && Temps.maintenant() - fin < 0) {
+      LockSupport.parkNanos(this, PERIODE_SURVEILLANCE);
+    }
+
+    return !estCoupee();
+  }
+
+  /**
+   * Permet de récupérer le nombre de coupures détectées.
+   * 
+   * @return le nombre de coupures depuis le lancement de la surveillance
+   */
+  public long recupererNombreCoupures() {
+    return nombreCoupures;
+  }
+
+  /**
+   * Permet de récupérer le nombre de tentatives de reconnexion.
+   * 
+   * @return le nombre de tentatives, réussies ou non
+   */
+  public long recupererNombreTentatives() {
+    return nombreTentatives;
+  }
+
+  /**
+   * Permet de récupérer le nombre de reprises réussies.
+   * 
+   * @return le nombre de reprises
+   */
+  public long recupererNombreReprises() {
+    return nombreReprises;
+  }
+
+  /**
+   * Permet de récupérer la répartition de la durée des coupures.
+   * 
+   * @return l'histogramme des durées entre la détection d'une erreur et la
+   *         reprise, qui continue d'évoluer
+   */
+  public HistogrammeLatence recupererDureesReprise() {
+    return dureesReprise;
+  }
+
+  /**
+   * Permet de récupérer la dernière erreur constatée.
+   * 
+   * @return la dernière erreur, ou nulle si aucune n'est survenue
+   */
+  public JK8055Exception recupererDerniereErreur() {
+    return derniereErreur;
+  }
+
+  /**
+   * Permet d'arrêter la surveillance.
+   * <p>
+   * La méthode attend la fin de la tâche : une reprise en cours ne peut donc
+   * plus relancer la lecture ou l'écriture une fois celles-ci arrêtées.
+   * </p>
+   * 
+   * @see GestionnaireCartes#arreterEntreesSorties(int)
+   */
+  public void finSurveillance() {
+    continuer = false;
+    LockSupport.unpark(this);
+
+    if (Thread.currentThread() != this) {
+      boolean interrompue = false;
+
+      while (isAlive()) {
+        try {
+          join();
+        } catch (InterruptedException e) {
+          interrompue = true;
+        }
+      }
+
+      if (interrompue) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * La méthode permettant de lancer la tâche.
+   * <p>
+   * Elle vérifie périodiquement les erreurs de la lecture et de l'écriture, et
+   * répare la carte dès que l'une d'elles en signale une.
+   * </p>
+   * 
+   * @see SurveillanceCarte#reprendre(JK8055Exception)
+   */
+  @Override
+  public void run() {
+    while (continuer) {
+      JK8055Exception erreur = lecture.recupererErreur();
+
+      if (erreur == null) {
+        erreur = ecriture.recupererErreur();
+      }
+
+      if (erreur == null) {
+        LockSupport.parkNanos(this, PERIODE_SURVEILLANCE);
+      } else {
+        reprendre(erreur);
+      }
+    }
+  }
+
+  /**
+   * Permet de reconnecter la carte, en espaçant de plus en plus les tentatives
+   * tant qu'elle ne répond pas, puis de lui renvoyer la configuration du
+   * conditionnement des entrées.
+   * 
+   * @param erreur
+   *          l'erreur qui a provoqué la coupure
+   */
+  private void reprendre(JK8055Exception erreur) {
+    long delai = DELAI_INITIAL;
+
+    debutCoupure = Temps.maintenant();
+    derniereErreur = erreur;
+    nombreCoupures++;
+
+    while (continuer) {
+      nombreTentatives++;
+
+      try {
+        LiaisonCarte.reconnexionCarte(adresse);
+        ConditionnementEntrees conditionnement = lecture.recupererConditionnement();
+        if (conditionnement != null) {
+          conditionnement.configurerCarte(adresse);
+        }
+        lecture.reinitialiserErreur();
+        ecriture.reinitialiserErreur();
+        dureesReprise.enregistrerDepuis(debutCoupure);
+        nombreReprises++;
+        debutCoupure = 0;
+
+        return;
+      } catch (JK8055Exception e) {
+        derniereErreur = e;
+        LockSupport.parkNanos(this, delai);
+        delai = Math.min(DELAI_MAXIMAL, delai * 2);
+      }
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package projet.carte;
+
+/**
+ * <b>Cette classe donne accès à l'horloge utilisée par tout le programme.</b>
+ * <p>
+ * Toutes les mesures de temps (horodatage des lectures et des écritures,
+ * échéances du cadenceur, durées des histogrammes, procédé simulé) passent par
+ * la méthode maintenant(). Par défaut l'horloge est celle du système ; une
+ * HorlogeVirtuelle peut la remplacer pour simuler le programme plus vite que
+ * le temps réel.
+ * </p>
+ * <p>
+ * Une horloge virtuelle n'avance que lorsque la simulation le décide : elle ne
+ * doit donc être utilisée qu'avec les méthodes d'exécution pas à pas
+ * (LectureEntrees.executerLecture(), EcritureSorties.executerEcriture(),
+ * Scenario.executerCycle()), et jamais avec les tâches lancées via start().
+ * </p>
+ * <p>
+ * <b>Note</b> : s'agissant d'une classe utilitaire, toutes les méthodes sont
+ * statiques, et l'instanciation de la classe a été empêchée.
+ * </p>
+ * 
+ * @see Horloge
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public final class Temps {
+  /**
+   * L'horloge utilisée.
+   * 
+   * @see Temps#definirHorloge(Horloge)
+   */
+  private static volatile Horloge horloge = HorlogeSysteme.recupererInstance();
+
+  /**
+   * Constructeur de la classe.
+   * <p>
+   * Cette classe n'étant pas prévue pour être instanciée, ce constructeur a comme
+   * visibilité "privé".
+   * </p>
+   */
+  private Temps() {
+  }
+
+  /**
+   * Permet de changer l'horloge utilisée par tout le programme.
+   * <p>
+   * Elle doit être changée avant de créer les instances qui l'utilisent, les
+   * instants mesurés avec deux horloges différentes ne pouvant être comparés.
+   * </p>
+   * 
+   * @param nouvelle
+   *          la nouvelle horloge
+   */
+  public static void definirHorloge(Horloge nouvelle) {
+    if (nouvelle == null) {
+      throw new NullPointerException("L'horloge ne peut pas être nulle.");
+    }
+
+    horloge = nouvelle;
+  }
+
+  /**
+   * Permet de récupérer l'horloge utilisée.
+   * 
+   * @return l'horloge
+   */
+  public static Horloge recupererHorloge() {
+    return horloge;
+  }
+
+  /**
+   * Permet de connaître l'instant présent selon l'horloge utilisée.
+   * 
+   * @return l'instant présent en nanosecondes
+   */
+  public static long maintenant() {
+    return horloge.maintenant();
+  }
+
+  /**
+   * Permet d'attendre jusqu'à un instant donné selon l'horloge utilisée.
+   * 
+   * @param echeance
+   *          l'instant à atteindre en nanosecondes
+   */
+  public static void attendreJusqua(long echeance) {
+    horloge.attendreJusqua(echeance);
+  }
+}
@@ -0,0 +1,27 @@
+package projet.carte;
+
+/**
+ * <b>Cette énumération décrit les différents changements d'entrée que peut
+ * signaler la lecture des entrées.</b>
+ * 
+ * @see EvenementEntree
+ * @see LectureEntrees#abonner(int, boolean)
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public enum TypeEvenement {
+  /**
+   * Une entrée digitale vient de passer à 1.
+   */
+  FRONT_MONTANT,
+  /**
+   * Une entrée digitale vient de passer à 0.
+   */
+  FRONT_DESCENDANT,
+  /**
+   * Une entrée analogique a varié de plus que le seuil choisi depuis la dernière
+   * variation signalée.
+   */
+  VARIATION_ANALOGIQUE
+}
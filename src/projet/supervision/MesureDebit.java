@@ -0,0 +1,54 @@
+package projet.supervision;
+
+/**
+ * <b>Cette classe permet de calculer le débit d'un compteur entre deux
+ * consultations.</b>
+ * <p>
+ * Chaque appel à la méthode mesurer() donne le nombre d'incréments par seconde
+ * depuis l'appel précédent. Un outil de supervision interrogeant régulièrement
+ * un MBean obtient ainsi le débit récent plutôt qu'une moyenne depuis le
+ * lancement du programme.
+ * </p>
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public final class MesureDebit {
+  /**
+   * La valeur du compteur lors de la consultation précédente.
+   */
+  private long valeurPrecedente;
+  /**
+   * La valeur de System.nanoTime() lors de la consultation précédente.
+   */
+  private long instantPrecedent = System.nanoTime();
+
+  /**
+   * Permet de créer une mesure de débit.
+   * 
+   * @param valeurInitiale
+   *          la valeur actuelle du compteur
+   */
+  public MesureDebit(long valeurInitiale) {
+    valeurPrecedente = valeurInitiale;
+  }
+
+  /**
+   * Permet de mesurer le débit du compteur depuis la consultation précédente.
+   * 
+   * @param valeur
+   *          la valeur actuelle du compteur
+   * 
+   * @return le nombre d'incréments par seconde
+   */
+  public synchronized double mesurer(long valeur) {
+    long maintenant = System.nanoTime();
+    long duree = maintenant - instantPrecedent;
+    double debit = duree <= 0 ? 0 : (valeur - valeurPrecedente) * 1e9 / duree;
+
+    valeurPrecedente = valeur;
+    instantPrecedent = maintenant;
+
+    return debit;
+  }
+}
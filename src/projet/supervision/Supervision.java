@@ -0,0 +1,162 @@
+package projet.supervision;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import projet.carte.EcritureSorties;
+import projet.carte.GestionnaireCartes;
+import projet.carte.LectureEntrees;
+import projet.carte.SurveillanceCarte;
+
+/**
+ * <b>Cette classe permet de publier les mesures du programme via JMX.</b>
+ * <p>
+ * Les MBeans sont enregistrés auprès du serveur de la plateforme, sous le
+ * domaine "projet", avec un nom de la forme
+ * "projet:type=LectureEntrees,carte=0". Ils peuvent ainsi être consultés depuis
+ * JConsole ou tout autre outil JMX, sans arrêter le programme.
+ * </p>
+ * <p>
+ * Une erreur lors de l'enregistrement n'empêche pas le programme de fonctionner
+ * : elle est seulement signalée sur la sortie d'erreur.
+ * </p>
+ * <p>
+ * <b>Note</b> : s'agissant d'une classe utilitaire, toutes les méthodes sont
+ * statiques, et l'instanciation de la classe a été empêchée.
+ * </p>
+ * 
+ * @see SupervisionLecture
+ * @see SupervisionEcriture
+ * @see SupervisionReprise
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public final class Supervision {
+  /**
+   * Le domaine des noms de tous les MBeans du programme.
+   */
+  public static final String DOMAINE = "projet";
+
+  /**
+   * Constructeur de la classe.
+   * <p>
+   * Cette classe n'étant pas prévue pour être instanciée, ce constructeur a comme
+   * visibilité "privé".
+   * </p>
+   */
+  private Supervision() {
+  }
+
+  /**
+   * Permet d'enregistrer les MBeans de la lecture des entrées et de l'écriture
+   * des sorties d'une carte, ainsi que celui de sa reconnexion automatique si
+   * elle est surveillée.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   */
+  public static void enregistrerCarte(int adresse) {
+    enregistrer(new SupervisionLecture(LectureEntrees.recupererInstance(adresse)), "LectureEntrees",
+        adresse);
+    enregistrer(new SupervisionEcriture(EcritureSorties.recupererInstance(adresse)),
+        "EcritureSorties", adresse);
+    if (GestionnaireCartes.estSurveillee(adresse)) {
+      enregistrer(new SupervisionReprise(SurveillanceCarte.recupererInstance(adresse)),
+          "SurveillanceCarte", adresse);
+    }
+  }
+
+  /**
+   * Permet de retirer les MBeans de la lecture des entrées, de l'écriture des
+   * sorties et de la reconnexion automatique d'une carte.
+   * 
+   * @param adresse
+   *          l'adresse de la carte (comprise entre 0 et 3)
+   */
+  public static void desenregistrerCarte(int adresse) {
+    desenregistrer("LectureEntrees", adresse);
+    desenregistrer("EcritureSorties", adresse);
+    desenregistrer("SurveillanceCarte", adresse);
+  }
+
+  /**
+   * Permet d'enregistrer un MBean. Un MBean déjà enregistré sous le même nom est
+   * remplacé.
+   * 
+   * @param mbean
+   *          le MBean à enregistrer
+   * @param type
+   *          le type du MBean, utilisé dans son nom
+   * @param adresse
+   *          l'adresse de la carte concernée
+   */
+  public static synchronized void enregistrer(Object mbean, String type, int adresse) {
+    MBeanServer serveur = ManagementFactory.getPlatformMBeanServer();
+
+    try {
+      ObjectName nom = nom(type, adresse);
+
+      if (serveur.isRegistered(nom)) {
+        serveur.unregisterMBean(nom);
+      }
+      serveur.registerMBean(mbean, nom);
+    } catch (JMException e) {
+      System.err.println("Impossible d'enregistrer le MBean " + type + " : " + e.getMessage());
+    }
+  }
+
+  /**
+   * Permet de retirer un MBean.
+   * 
+   * @param type
+   *          le type du MBean
+   * @param adresse
+   *          l'adresse de la carte concernée
+   */
+  public static synchronized void desenregistrer(String type, int adresse) {
+    MBeanServer serveur = ManagementFactory.getPlatformMBeanServer();
+
+    try {
+      ObjectName nom = nom(type, adresse);
+
+      if (serveur.isRegistered(nom)) {
+        serveur.unregisterMBean(nom);
+      }
+    } catch (JMException e) {
+      System.err.println("Impossible de retirer le MBean " + type + " : " + e.getMessage());
+    }
+  }
+
+  /**
+   * Permet de construire le nom d'un MBean.
+   * 
+   * @param type
+   *          le type du MBean
+   * @param adresse
+   *          l'adresse de la carte concernée
+   * 
+   * @return le nom du MBean
+   * 
+   * @throws JMException
+   *           quand le nom obtenu est invalide
+   */
+  private static ObjectName nom(String type, int adresse) throws JMException {
+    return new ObjectName(DOMAINE + ":type=" + type + ",carte=" + adresse);
+  }
+
+  /**
+   * Permet de convertir une durée en microsecondes.
+   * 
+   * @param duree
+   *          la durée en nanosecondes
+   * 
+   * @return la durée en microsecondes
+   */
+  public static long microsecondes(long duree) {
+    return duree / 1000;
+  }
+}
@@ -0,0 +1,134 @@
+package projet.supervision;
+
+import net.sf.libk8055.jk8055.JK8055Exception;
+import projet.carte.EcritureSorties;
+
+/**
+ * <b>Cette classe publie via JMX les mesures de l'écriture des sorties d'une
+ * carte.</b>
+ * <p>
+ * Les valeurs sont lues à la demande dans EcritureSorties et ses histogrammes,
+ * aucun travail supplémentaire n'est donc fait par les tâches qui écrivent.
+ * </p>
+ * 
+ * @see EcritureSorties
+ * @see Supervision#enregistrerCarte(int)
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public final class SupervisionEcriture implements SupervisionEcritureMBean {
+  /**
+   * L'écriture supervisée.
+   */
+  private final EcritureSorties ecriture;
+  /**
+   * Le débit des écritures demandées.
+   */
+  private final MesureDebit debitDemandes;
+  /**
+   * Le débit des envois vers la carte.
+   */
+  private final MesureDebit debitEnvois;
+
+  /**
+   * Le constructeur de la classe.
+   * 
+   * @param ecriture
+   *          l'écriture à superviser
+   */
+  public SupervisionEcriture(EcritureSorties ecriture) {
+    this.ecriture = ecriture;
+    this.debitDemandes = new MesureDebit(ecriture.recupererNombreDemandes());
+    this.debitEnvois = new MesureDebit(ecriture.recupererNombreEnvois());
+  }
+
+  @Override
+  public long getProfondeurFile() {
+    return ecriture.recupererProfondeurFile();
+  }
+
+  @Override
+  public long getProfondeurMaximale() {
+    return ecriture.recupererProfondeurMaximale();
+  }
+
+  @Override
+  public double getEcrituresParSeconde() {
+    return debitDemandes.mesurer(ecriture.recupererNombreDemandes());
+  }
+
+  @Override
+  public double getEnvoisParSeconde() {
+    return debitEnvois.mesurer(ecriture.recupererNombreEnvois());
+  }
+
+  @Override
+  public long getNombreDemandes() {
+    return ecriture.recupererNombreDemandes();
+  }
+
+  @Override
+  public long getNombreEnvois() {
+    return ecriture.recupererNombreEnvois();
+  }
+
+  @Override
+  public long getNombreFusions() {
+    return ecriture.recupererNombreFusions();
+  }
+
+  @Override
+  public long getNombreDebordements() {
+    return ecriture.recupererNombreDebordements();
+  }
+
+  @Override
+  public long getAttenteFileP99() {
+    return Supervision.microsecondes(ecriture.recupererLatenceFile().centile(99));
+  }
+
+  @Override
+  public long getNombreUrgentes() {
+    return ecriture.recupererLatenceFileUrgente().nombre();
+  }
+
+  @Override
+  public long getAttenteUrgenteP99() {
+    return Supervision.microsecondes(ecriture.recupererLatenceFileUrgente().centile(99));
+  }
+
+  @Override
+  public long getAttenteUrgenteMaximale() {
+    return Supervision.microsecondes(ecriture.recupererLatenceFileUrgente().maximum());
+  }
+
+  @Override
+  public long getDureeEcritureMoyenne() {
+    return Supervision.microsecondes(ecriture.recupererLatenceEcriture().moyenne());
+  }
+
+  @Override
+  public long getDureeEcritureP99() {
+    return Supervision.microsecondes(ecriture.recupererLatenceEcriture().centile(99));
+  }
+
+  @Override
+  public long getDureeEcritureMaximale() {
+    return Supervision.microsecondes(ecriture.recupererLatenceEcriture().maximum());
+  }
+
+  @Override
+  public String getDerniereErreur() {
+    JK8055Exception erreur = ecriture.recupererDerniereErreur();
+
+    return erreur == null ? null : erreur.getMessage();
+  }
+
+  @Override
+  public void reinitialiserStatistiques() {
+    ecriture.recupererLatenceFile().reinitialiser();
+    ecriture.recupererLatenceFileUrgente().reinitialiser();
+    ecriture.recupererLatenceEcriture().reinitialiser();
+  }
+}
@@ -0,0 +1,106 @@
+package projet.supervision;
+
+/**
+ * <b>Les mesures de l'écriture des sorties d'une carte publiées via JMX.</b>
+ * <p>
+ * Les durées sont exprimées en microsecondes.
+ * </p>
+ * 
+ * @see SupervisionEcriture
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public interface SupervisionEcritureMBean {
+  /**
+   * @return le nombre d'écritures actuellement dans la file
+   */
+  long getProfondeurFile();
+
+  /**
+   * @return le plus grand nombre d'écritures constaté dans la file
+   */
+  long getProfondeurMaximale();
+
+  /**
+   * @return le nombre d'écritures demandées par seconde depuis la consultation
+   *         précédente
+   */
+  double getEcrituresParSeconde();
+
+  /**
+   * @return le nombre d'envois vers la carte par seconde depuis la consultation
+   *         précédente
+   */
+  double getEnvoisParSeconde();
+
+  /**
+   * @return le nombre total d'écritures demandées
+   */
+  long getNombreDemandes();
+
+  /**
+   * @return le nombre total d'envois vers la carte
+   */
+  long getNombreEnvois();
+
+  /**
+   * @return le nombre d'écritures fusionnées avec une autre
+   */
+  long getNombreFusions();
+
+  /**
+   * @return le nombre de fois où la file a été trouvée pleine
+   */
+  long getNombreDebordements();
+
+  /**
+   * @return le 99e centile du temps passé par une écriture dans la file, en
+   *         microsecondes
+   */
+  long getAttenteFileP99();
+
+  /**
+   * @return le nombre d'écritures urgentes envoyées depuis la dernière remise à
+   *         zéro des mesures
+   */
+  long getNombreUrgentes();
+
+  /**
+   * @return le 99e centile du temps passé par une écriture urgente dans sa
+   *         file, en microsecondes
+   */
+  long getAttenteUrgenteP99();
+
+  /**
+   * @return la plus longue attente d'une écriture urgente dans sa file, en
+   *         microsecondes
+   */
+  long getAttenteUrgenteMaximale();
+
+  /**
+   * @return la durée moyenne d'un envoi vers la carte, en microsecondes
+   */
+  long getDureeEcritureMoyenne();
+
+  /**
+   * @return le 99e centile de la durée d'un envoi vers la carte, en
+   *         microsecondes
+   */
+  long getDureeEcritureP99();
+
+  /**
+   * @return le plus long envoi vers la carte, en microsecondes
+   */
+  long getDureeEcritureMaximale();
+
+  /**
+   * @return le message de la dernière erreur de dialogue avec la carte, ou nul
+   */
+  String getDerniereErreur();
+
+  /**
+   * Remet à zéro les mesures de durée.
+   */
+  void reinitialiserStatistiques();
+}
@@ -0,0 +1,112 @@
+package projet.supervision;
+
+import net.sf.libk8055.jk8055.JK8055Exception;
+import projet.carte.CompteurImpulsions;
+import projet.carte.LectureEntrees;
+import projet.carte.Temps;
+
+/**
+ * <b>Cette classe publie via JMX les mesures de la lecture des entrées d'une
+ * carte.</b>
+ * <p>
+ * Les valeurs sont lues à la demande dans LectureEntrees, son cadenceur et ses
+ * histogrammes, aucun travail supplémentaire n'est donc fait par la tâche de
+ * lecture.
+ * </p>
+ * 
+ * @see LectureEntrees
+ * @see Supervision#enregistrerCarte(int)
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public final class SupervisionLecture implements SupervisionLectureMBean {
+  /**
+   * La lecture supervisée.
+   */
+  private final LectureEntrees lecture;
+
+  /**
+   * Le constructeur de la classe.
+   * 
+   * @param lecture
+   *          la lecture à superviser
+   */
+  public SupervisionLecture(LectureEntrees lecture) {
+    this.lecture = lecture;
+  }
+
+  @Override
+  public double getFrequenceLecture() {
+    return lecture.recupererCadenceur().recupererFrequence();
+  }
+
+  @Override
+  public long getPeriodeLecture() {
+    return Supervision.microsecondes(lecture.recupererCadenceur().recupererPeriode());
+  }
+
+  @Override
+  public long getNombreLectures() {
+    return lecture.recupererNumero();
+  }
+
+  @Override
+  public long getNombreDepassements() {
+    return lecture.recupererCadenceur().recupererNombreDepassements();
+  }
+
+  @Override
+  public long getAgeDerniereLecture() {
+    long horodatage = lecture.recupererHorodatage();
+
+    return horodatage == 0 ? 0 : Supervision.microsecondes(Temps.maintenant() - horodatage);
+  }
+
+  @Override
+  public long getDureeLectureMoyenne() {
+    return Supervision.microsecondes(lecture.recupererLatenceLecture().moyenne());
+  }
+
+  @Override
+  public long getDureeLectureP99() {
+    return Supervision.microsecondes(lecture.recupererLatenceLecture().centile(99));
+  }
+
+  @Override
+  public long getDureeLectureMaximale() {
+    return Supervision.microsecondes(lecture.recupererLatenceLecture().maximum());
+  }
+
+  @Override
+  public long[] getImpulsions() {
+    CompteurImpulsions compteurs = lecture.recupererCompteurs();
+
+    return new long[] { compteurs.recupererTotal(1), compteurs.recupererTotal(2) };
+  }
+
+  @Override
+  public double[] getFrequencesImpulsions() {
+    CompteurImpulsions compteurs = lecture.recupererCompteurs();
+
+    return new double[] { compteurs.recupererFrequence(1), compteurs.recupererFrequence(2) };
+  }
+
+  @Override
+  public long getNombreErreurs() {
+    return lecture.recupererNombreErreurs();
+  }
+
+  @Override
+  public String getErreur() {
+    JK8055Exception erreur = lecture.recupererErreur();
+
+    return erreur == null ? null : erreur.getMessage();
+  }
+
+  @Override
+  public void reinitialiserStatistiques() {
+    lecture.recupererLatenceLecture().reinitialiser();
+    lecture.recupererCadenceur().reinitialiserStatistiques();
+  }
+}
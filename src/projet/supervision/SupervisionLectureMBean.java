@@ -0,0 +1,83 @@
+package projet.supervision;
+
+/**
+ * <b>Les mesures de la lecture des entrées d'une carte publiées via JMX.</b>
+ * <p>
+ * Les durées sont exprimées en microsecondes.
+ * </p>
+ * 
+ * @see SupervisionLecture
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public interface SupervisionLectureMBean {
+  /**
+   * @return la fréquence de lecture réellement atteinte, en hertz
+   */
+  double getFrequenceLecture();
+
+  /**
+   * @return la période de lecture demandée, en microsecondes
+   */
+  long getPeriodeLecture();
+
+  /**
+   * @return le nombre de lectures publiées
+   */
+  long getNombreLectures();
+
+  /**
+   * @return le nombre de lectures manquées parce qu'une lecture a duré plus
+   *         d'une période
+   */
+  long getNombreDepassements();
+
+  /**
+   * @return l'âge de la dernière lecture publiée, en microsecondes
+   */
+  long getAgeDerniereLecture();
+
+  /**
+   * @return la durée moyenne d'une lecture de la carte, en microsecondes
+   */
+  long getDureeLectureMoyenne();
+
+  /**
+   * @return le 99e centile de la durée d'une lecture de la carte, en
+   *         microsecondes
+   */
+  long getDureeLectureP99();
+
+  /**
+   * @return la plus longue lecture de la carte, en microsecondes
+   */
+  long getDureeLectureMaximale();
+
+  /**
+   * @return le nombre d'impulsions de chaque compteur de la carte, sans
+   *         passage par zéro
+   */
+  long[] getImpulsions();
+
+  /**
+   * @return la fréquence estimée des impulsions de chaque compteur, en
+   *         impulsions par seconde
+   */
+  double[] getFrequencesImpulsions();
+
+  /**
+   * @return le nombre d'erreurs de dialogue avec la carte
+   */
+  long getNombreErreurs();
+
+  /**
+   * @return le message de l'erreur qui a arrêté la lecture, ou nul
+   */
+  String getErreur();
+
+  /**
+   * Remet à zéro les mesures de durée et du cadenceur.
+   */
+  void reinitialiserStatistiques();
+}
@@ -0,0 +1,72 @@
+package projet.supervision;
+
+import net.sf.libk8055.jk8055.JK8055Exception;
+import projet.carte.SurveillanceCarte;
+
+/**
+ * <b>Cette classe publie via JMX les mesures de la reconnexion automatique
+ * d'une carte.</b>
+ * <p>
+ * Les valeurs sont lues à la demande dans SurveillanceCarte, aucun travail
+ * supplémentaire n'est donc fait par la tâche de surveillance.
+ * </p>
+ * 
+ * @see SurveillanceCarte
+ * @see Supervision#enregistrerCarte(int)
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public final class SupervisionReprise implements SupervisionRepriseMBean {
+  /**
+   * La surveillance supervisée.
+   */
+  private final SurveillanceCarte surveillance;
+
+  /**
+   * Le constructeur de la classe.
+   * 
+   * @param surveillance
+   *          la surveillance à superviser
+   */
+  public SupervisionReprise(SurveillanceCarte surveillance) {
+    this.surveillance = surveillance;
+  }
+
+  @Override
+  public boolean isCoupee() {
+    return surveillance.estCoupee();
+  }
+
+  @Override
+  public long getNombreCoupures() {
+    return surveillance.recupererNombreCoupures();
+  }
+
+  @Override
+  public long getNombreTentatives() {
+    return surveillance.recupererNombreTentatives();
+  }
+
+  @Override
+  public long getNombreReprises() {
+    return surveillance.recupererNombreReprises();
+  }
+
+  @Override
+  public long getDureeRepriseP99() {
+    return Supervision.microsecondes(surveillance.recupererDureesReprise().centile(99));
+  }
+
+  @Override
+  public long getDureeRepriseMaximale() {
+    return Supervision.microsecondes(surveillance.recupererDureesReprise().maximum());
+  }
+
+  @Override
+  public String getDerniereErreur() {
+    JK8055Exception erreur = surveillance.recupererDerniereErreur();
+
+    return erreur == null ? null : erreur.getMessage();
+  }
+}
@@ -0,0 +1,50 @@
+package projet.supervision;
+
+/**
+ * <b>Les mesures de la reconnexion automatique d'une carte publiées via
+ * JMX.</b>
+ * <p>
+ * Les durées sont exprimées en microsecondes.
+ * </p>
+ * 
+ * @see SupervisionReprise
+ * 
+ * @author Merwen CANN et Raphaël CHARRE
+ * @version 1.0
+ */
+public interface SupervisionRepriseMBean {
+  /**
+   * @return vrai si la carte est actuellement coupée
+   */
+  boolean isCoupee();
+
+  /**
+   * @return le nombre de coupures détectées
+   */
+  long getNombreCoupures();
+
+  /**
+   * @return le nombre de tentatives de reconnexion, réussies ou non
+   */
+  long getNombreTentatives();
+
+  /**
+   * @return le nombre de reprises réussies
+   */
+  long getNombreReprises();
+
+  /**
+   * @return le 99e centile de la durée d'une coupure, en microsecondes
+   */
+  long getDureeRepriseP99();
+
+  /**
+   * @return la plus longue coupure, en microsecondes
+   */
+  long getDureeRepriseMaximale();
+
+  /**
+   * @return le message de la dernière erreur constatée, ou nul
+   */
+  String getDerniereErreur();
+}